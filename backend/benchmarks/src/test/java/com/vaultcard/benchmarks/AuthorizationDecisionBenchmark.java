@@ -0,0 +1,85 @@
+package com.vaultcard.benchmarks;
+
+import com.vaultcard.service.AuthorizationEngine;
+import com.vaultcard.service.AuthorizationEngine.AuthorizationDecision;
+import com.vaultcard.service.AuthorizationHoldStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AuthorizationEngine.decide on a cached card: an approval (rules, month spend CAS,
+ * ledger hold, hold store) and a rule decline, single-threaded and with four threads
+ * authorizing on the same card and user.
+ *
+ * Approvals hand the hold and ledger entries to the write-back threads, so their wakeups
+ * are part of the score; on machines with one or two cores they dominate it.
+ *
+ * Every decision uses a new authorization ID, so each approval places a fresh hold rather
+ * than hitting the hold store's duplicate path. The ID is built per call, which is part of
+ * the score. Holds are released after each iteration to keep the hold store bounded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationDecisionBenchmark {
+
+    private static final String AUTHORIZATION_ID_PREFIX = "iauth_bench_";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private long released;
+    private AuthorizationEngine engine;
+    private AuthorizationHoldStore holdStore;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        Fixtures.Services services = Fixtures.services();
+        engine = services.authorizationEngine;
+        holdStore = services.holdStore;
+    }
+
+    @TearDown(Level.Iteration)
+    public void releaseHolds() {
+        long issued = sequence.get();
+        for (long i = released; i < issued; i++) {
+            holdStore.release(AUTHORIZATION_ID_PREFIX + i);
+        }
+        released = issued;
+    }
+
+    @Benchmark
+    public AuthorizationDecision approve() {
+        return engine.decide(nextAuthorizationId(), Fixtures.STRIPE_CARD_ID, 1000, "5734", "GITHUB, INC.");
+    }
+
+    @Benchmark
+    public AuthorizationDecision declineMerchantCategory() {
+        return engine.decide(nextAuthorizationId(), Fixtures.STRIPE_CARD_ID, 1000, "7995", "CASINO");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public AuthorizationDecision approveContended() {
+        return approve();
+    }
+
+    private String nextAuthorizationId() {
+        return AUTHORIZATION_ID_PREFIX + sequence.getAndIncrement();
+    }
+}
@@ -0,0 +1,298 @@
+package com.vaultcard.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.entity.SubscriptionProfile;
+import com.vaultcard.entity.User;
+import com.vaultcard.entity.UserBalanceSummary;
+import com.vaultcard.repository.AuthorizationHoldRepository;
+import com.vaultcard.repository.FundingTransactionRepository;
+import com.vaultcard.repository.IssuingCardRepository;
+import com.vaultcard.repository.IssuingTransactionRepository;
+import com.vaultcard.repository.JobCheckpointRepository;
+import com.vaultcard.repository.LedgerEntryRepository;
+import com.vaultcard.repository.LedgerSnapshotRepository;
+import com.vaultcard.repository.SubscriptionProfileRepository;
+import com.vaultcard.repository.UserBalanceSummaryRepository;
+import com.vaultcard.repository.UserRepository;
+import com.vaultcard.service.AuthorizationEngine;
+import com.vaultcard.service.AuthorizationHoldStore;
+import com.vaultcard.service.BalanceLedger;
+import com.vaultcard.service.BalanceSummaryService;
+import com.vaultcard.service.CardCache;
+import com.vaultcard.service.SpendLedger;
+import com.vaultcard.service.StripeWebhookService;
+import com.vaultcard.service.WebhookDeduplicator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Shared fixtures for the benchmarks: Stripe event payloads and services wired by hand.
+ *
+ * Services are the real classes; repositories are JDK proxies returning the fixture card,
+ * profile and user. Everything runs in memory.
+ */
+public final class Fixtures {
+
+    /** Stripe card ID used by the event fixtures */
+    public static final String STRIPE_CARD_ID = "ic_1OqWb82eZvKYlo2CeV8y1vTx";
+
+    public static final String USER_ID = "6f1c2a7e-8d4b-4c1e-9a3f-2b5d7e9c1a4f";
+
+    static {
+        // Request logging would dominate the measurements
+        ((Logger) LoggerFactory.getLogger("com.vaultcard")).setLevel(Level.ERROR);
+    }
+
+    private Fixtures() {
+    }
+
+    /**
+     * Raw webhook payload from benchmarks/src/test/resources/fixtures/{eventType}.json
+     */
+    public static String payload(String eventType) {
+        String path = "/fixtures/" + eventType + ".json";
+        try (InputStream in = Fixtures.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture for " + eventType);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static User user() {
+        return User.builder()
+                .id(USER_ID)
+                .email("test@vaultcard.dev")
+                .name("Test User")
+                .timezone("America/Los_Angeles")
+                .build();
+    }
+
+    public static IssuingCard card() {
+        return IssuingCard.builder()
+                .id("5d17eef6-995f-4180-b8ab-e064de9b1fd8")
+                .userId(USER_ID)
+                .stripeCardId(STRIPE_CARD_ID)
+                .last4("4242")
+                .brand("visa")
+                .expMonth(12)
+                .expYear(2028)
+                .status(IssuingCard.CardStatus.ACTIVE)
+                .spendingLimitPerTransaction(100_000L)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Profile linked to {@link #card()}. Software stores only, no monthly limit in reach.
+     */
+    public static SubscriptionProfile profile() {
+        return SubscriptionProfile.builder()
+                .id("3b8e5f0a-1c2d-4e6f-8a9b-0c1d2e3f4a5b")
+                .userId(USER_ID)
+                .nickname("GitHub")
+                .linkedCardId(card().getId())
+                .monthlyLimit(new BigDecimal("1000000000.00"))
+                .currentMonthSpent(new BigDecimal("125.40"))
+                .allowedMccCodes("5734, 5817, 7372")
+                .notes("Team plan")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * In-memory services behind the authorization path.
+     */
+    public static final class Services {
+        public final BalanceLedger balanceLedger;
+        public final AuthorizationHoldStore holdStore;
+        public final AuthorizationEngine authorizationEngine;
+        public final CardCache cardCache;
+        public final SpendLedger spendLedger;
+
+        private Services(BalanceLedger balanceLedger, AuthorizationHoldStore holdStore,
+                         AuthorizationEngine authorizationEngine, CardCache cardCache, SpendLedger spendLedger) {
+            this.balanceLedger = balanceLedger;
+            this.holdStore = holdStore;
+            this.authorizationEngine = authorizationEngine;
+            this.cardCache = cardCache;
+            this.spendLedger = spendLedger;
+        }
+    }
+
+    /**
+     * Wire the authorization engine with its hold store and ledger, warmed up with the
+     * fixture card and a user balance large enough never to run out.
+     */
+    public static Services services() throws InterruptedException {
+        IssuingCard card = card();
+        SubscriptionProfile profile = profile();
+        User user = user();
+
+        IssuingCardRepository cardRepository = stub(IssuingCardRepository.class, Map.of(
+                "findAll", List.of(card),
+                "findByStripeCardId", Optional.of(card)));
+        SubscriptionProfileRepository profileRepository = stub(SubscriptionProfileRepository.class, Map.of(
+                "findAll", List.of(profile),
+                "findByLinkedCardId", Optional.of(profile)));
+        UserRepository userRepository = stub(UserRepository.class, Map.of(
+                "findAll", List.of(user),
+                "findAllIds", List.of(USER_ID)));
+        IssuingTransactionRepository transactionRepository = stub(IssuingTransactionRepository.class);
+        PlatformTransactionManager transactionManager = stub(PlatformTransactionManager.class);
+
+        // Empty summary, so the opening balance backfill has nothing to post
+        BalanceSummaryService balanceSummaryService = new BalanceSummaryService(
+                stub(UserBalanceSummaryRepository.class, Map.of(
+                        "findById", Optional.of(UserBalanceSummary.builder().userId(USER_ID).build()))),
+                stub(FundingTransactionRepository.class), transactionRepository, userRepository, transactionManager);
+        BalanceLedger ledger = new BalanceLedger(stub(LedgerEntryRepository.class),
+                stub(LedgerSnapshotRepository.class), userRepository, balanceSummaryService,
+                stub(JobCheckpointRepository.class), transactionManager);
+        setField(ledger, "enforceFunds", true);
+        setField(ledger, "snapshotEvery", 100);
+        setField(ledger, "writeBatchSize", 500);
+        setField(ledger, "writeQueueCapacity", 100_000);
+        setField(ledger, "writeQueueTimeoutMs", 50L);
+        setField(ledger, "writeMaxAttempts", 8);
+        setField(ledger, "datasourceUrl", "");
+        ledger.init();
+        ledger.warmUp();
+        ledger.recordFunding(USER_ID, "benchmark-funding", Long.MAX_VALUE / 4);
+
+        AuthorizationHoldStore holdStore = new AuthorizationHoldStore(stub(AuthorizationHoldRepository.class),
+                transactionRepository, ledger);
+        setField(holdStore, "expireAfterMinutes", 11520L);
+        setField(holdStore, "tickMs", 60000L);
+        setField(holdStore, "wheelSize", 4096);
+        setField(holdStore, "writeBackQueueCapacity", 10000);
+        setField(holdStore, "writeBackTimeoutMs", 20L);
+        holdStore.init();
+
+        SpendLedger spendLedger = new SpendLedger(profileRepository);
+
+        AuthorizationEngine engine = new AuthorizationEngine(cardRepository, profileRepository,
+                transactionRepository, spendLedger, userRepository, holdStore, new SimpleMeterRegistry());
+        setField(engine, "latencyBudgetMicros", 500L);
+        setField(engine, "writeBackQueueCapacity", 10000);
+        engine.init();
+        engine.warmUp();
+
+        CardCache cardCache = new CardCache(cardRepository);
+        setField(cardCache, "maximumSize", 10000L);
+        setField(cardCache, "expireAfterWriteSeconds", 300L);
+        cardCache.init();
+
+        return new Services(ledger, holdStore, engine, cardCache, spendLedger);
+    }
+
+    /**
+     * Webhook service with the in-memory authorization path. Deduplication always
+     * answers "new event"; handlers that need the database are not wired.
+     */
+    public static StripeWebhookService webhookService(Services services) {
+        WebhookDeduplicator deduplicator = new WebhookDeduplicator(null) {
+            @Override
+            public boolean isDuplicate(String eventId) {
+                return false;
+            }
+
+            @Override
+            public void markProcessed(String eventId, String eventType) {
+            }
+        };
+        return new StripeWebhookService(null, null, null, null, services.authorizationEngine,
+                deduplicator, services.cardCache, null, services.holdStore, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Stub with default answers only.
+     */
+    public static <T> T stub(Class<T> type) {
+        return stub(type, Map.of());
+    }
+
+    /**
+     * Repository stub: methods named in {@code answers} return the given value, save methods
+     * return their argument, everything else an empty Optional/List, zero or null.
+     *
+     * A proxy rather than a mock, so the write-back threads cost next to nothing.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            Class<?> returnType = method.getReturnType();
+            if (answers.containsKey(name)) {
+                return answers.get(name);
+            }
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "stub " + type.getSimpleName();
+                default:
+                    break;
+            }
+            if (name.startsWith("save") && args != null && args.length == 1) {
+                return args[0];
+            }
+            if (returnType == Optional.class) {
+                return Optional.empty();
+            }
+            if (Collection.class.isAssignableFrom(returnType) || returnType == Iterable.class) {
+                return List.of();
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            if (returnType == long.class) {
+                return 0L;
+            }
+            if (returnType == boolean.class) {
+                return false;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Set a private (typically @Value) field that Spring would normally inject.
+     */
+    public static void setField(Object target, String name, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + name + " on " + target.getClass());
+    }
+}
@@ -0,0 +1,69 @@
+package com.vaultcard.benchmarks;
+
+import com.vaultcard.dto.SubscriptionListResponse;
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.entity.SubscriptionProfile;
+import com.vaultcard.repository.IssuingCardRepository;
+import com.vaultcard.repository.SubscriptionProfileRepository;
+import com.vaultcard.service.SubscriptionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SubscriptionService.getUserSubscriptions with in-memory repositories: card lookup by ID,
+ * one response mapping per subscription and the summary totals, for a user with one and
+ * with ten subscriptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionListBenchmark {
+
+    @Param({"1", "10"})
+    public int subscriptions;
+
+    private SubscriptionService subscriptionService;
+
+    @Setup
+    public void setUp() {
+        List<SubscriptionProfile> profiles = new ArrayList<>(subscriptions);
+        List<IssuingCard> cards = new ArrayList<>(subscriptions);
+        for (int i = 0; i < subscriptions; i++) {
+            IssuingCard card = Fixtures.card();
+            card.setId(card.getId() + "-" + i);
+            SubscriptionProfile profile = Fixtures.profile();
+            profile.setId(profile.getId() + "-" + i);
+            profile.setLinkedCardId(card.getId());
+            cards.add(card);
+            profiles.add(profile);
+        }
+        SubscriptionProfileRepository profileRepository = Fixtures.stub(SubscriptionProfileRepository.class,
+                Map.of("findByUserIdOrderByCreatedAtDesc", profiles));
+        IssuingCardRepository cardRepository = Fixtures.stub(IssuingCardRepository.class,
+                Map.of("findAllById", cards));
+        subscriptionService = new SubscriptionService(profileRepository, cardRepository,
+                null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public SubscriptionListResponse listSubscriptions() {
+        return subscriptionService.getUserSubscriptions(Fixtures.USER_ID);
+    }
+}
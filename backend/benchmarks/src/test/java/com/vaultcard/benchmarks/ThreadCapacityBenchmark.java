@@ -0,0 +1,394 @@
+package com.vaultcard.benchmarks;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vaultcard.VaultCardApplication;
+import com.vaultcard.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-flight request capacity and memory, platform threads vs virtual threads.
+ *
+ * Starts a stub Stripe API answering GET /v1/issuing/cards/{id} after a fixed delay, then for
+ * each mode launches the application in a child JVM pointed at it and drives
+ * GET /api/payment/cards/{id} (blocking Stripe SDK call) with increasing numbers of
+ * concurrent clients. Reports throughput, latency, the peak number of requests in flight
+ * at the provider, and the child's peak thread count and resident memory (from /proc).
+ *
+ * Virtual mode needs a Java 21+ runtime for the child, given with --java.
+ *
+ * Run with:
+ *     mvn -Pbenchmarks test-compile exec:exec@capacity -Dcapacity.args="--java=/opt/jdk-21/bin/java"
+ *
+ * Options (all optional):
+ *     --modes=platform,virtual
+ *     --concurrency=50,200,800   concurrent clients, one stage each
+ *     --duration=15              seconds per stage
+ *     --provider-delay-ms=200    stub Stripe response time
+ *     --heap=512m                child JVM -Xmx
+ *     --java=<path>              java executable for the child (default: this JVM's)
+ *     --out=target/thread-capacity-result.json
+ */
+public final class ThreadCapacityBenchmark {
+
+    private final Options options;
+    private final AtomicInteger providerInFlight = new AtomicInteger();
+    private final AtomicInteger providerPeak = new AtomicInteger();
+    private String cardJson;
+
+    private ThreadCapacityBenchmark(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new ThreadCapacityBenchmark(Options.parse(args)).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        cardJson = JsonParser.parseString(Fixtures.payload("issuing_card.updated")).getAsJsonObject()
+                .getAsJsonObject("data").getAsJsonObject("object").toString();
+        ScheduledExecutorService responder = Executors.newScheduledThreadPool(4);
+        HttpServer stripe = startStubStripe(responder);
+
+        List<StageResult> results = new ArrayList<>();
+        try {
+            for (String mode : options.modes) {
+                Process app = null;
+                try {
+                    int port = freePort();
+                    app = startApplication(mode, port, stripe.getAddress().getPort());
+                    URI cardUri = URI.create("http://localhost:" + port + "/api/payment/cards/"
+                            + Fixtures.STRIPE_CARD_ID + "?userId=" + Fixtures.USER_ID);
+                    awaitReady(app, port);
+                    verifyMode(mode, port);
+
+                    // Warm up the child's JIT and connection pools before measuring
+                    runStage(mode, app, cardUri, options.concurrency.get(0), 5);
+                    for (int concurrency : options.concurrency) {
+                        StageResult result = runStage(mode, app, cardUri, concurrency, options.durationSeconds);
+                        results.add(result);
+                        print(result);
+                    }
+                } catch (IllegalStateException e) {
+                    System.out.println("Skipping " + mode + " mode: " + e.getMessage());
+                } finally {
+                    if (app != null) {
+                        app.destroy();
+                        app.waitFor(30, TimeUnit.SECONDS);
+                    }
+                }
+            }
+        } finally {
+            stripe.stop(0);
+            responder.shutdownNow();
+        }
+
+        Path out = Path.of(options.out);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, new GsonBuilder().setPrettyPrinting().create().toJson(results), StandardCharsets.UTF_8);
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+
+    // ==================== Stub provider ====================
+
+    /**
+     * Stripe API stand-in: every card retrieval answers with the fixture card after the
+     * configured delay, without holding a thread while waiting.
+     */
+    private HttpServer startStubStripe(ScheduledExecutorService responder) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        server.createContext("/v1/issuing/cards/", exchange -> {
+            providerPeak.accumulateAndGet(providerInFlight.incrementAndGet(), Math::max);
+            responder.schedule(() -> respond(exchange), options.providerDelayMs, TimeUnit.MILLISECONDS);
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        return server;
+    }
+
+    private void respond(HttpExchange exchange) {
+        byte[] body = cardJson.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Request-Id", "req_capacity");
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        } catch (IOException e) {
+            // Client gave up (timeout); nothing to do
+        } finally {
+            providerInFlight.decrementAndGet();
+        }
+    }
+
+    // ==================== Application ====================
+
+    private Process startApplication(String mode, int port, int stripePort) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                options.java,
+                "-Xmx" + options.heap,
+                // A devtools restart would fork the application into a second classloader
+                "-Dspring.devtools.restart.enabled=false",
+                "-cp", System.getProperty("java.class.path"),
+                VaultCardApplication.class.getName(),
+                "--server.port=" + port,
+                "--management.server.port=0",
+                "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                "--payment.provider.stripe.api-base=http://localhost:" + stripePort,
+                "--spring.datasource.url=jdbc:h2:mem:capacity;DB_CLOSE_DELAY=-1",
+                "--spring.h2.console.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--vaultcard.transaction-mirror.enabled=false",
+                "--vaultcard.stripe-http.max-idle-connections=" + options.maxConcurrency(),
+                "--vaultcard.stripe-http.max-retries=0",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.com.vaultcard=WARN"));
+        Path log = Path.of("target", "thread-capacity-" + mode + ".log");
+        Files.createDirectories(log.getParent());
+        System.out.printf("Starting application (%s threads), log: %s%n", mode, log);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private static void awaitReady(Process app, int port) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/payment/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(180);
+        while (System.nanoTime() < deadline) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("application exited with " + app.exitValue() + ", see its log");
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("application did not start within 180s");
+    }
+
+    /**
+     * The application falls back to platform threads on runtimes without virtual threads;
+     * measuring that as "virtual" would be misleading.
+     */
+    private static void verifyMode(String mode, int port) throws IOException, InterruptedException {
+        HttpRequest stats = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/ops/virtual-threads"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        String body = HttpClient.newHttpClient().send(stats, HttpResponse.BodyHandlers.ofString()).body();
+        JsonObject data = JsonParser.parseString(body).getAsJsonObject().getAsJsonObject("data");
+        String actual = data.get("mode").getAsString();
+        if (!actual.equals(mode)) {
+            throw new IllegalStateException("application runs on " + actual + " threads (Java "
+                    + data.get("javaVersion").getAsInt() + "), pass a Java 21+ runtime with --java");
+        }
+    }
+
+    // ==================== Load ====================
+
+    private StageResult runStage(String mode, Process app, URI cardUri, int concurrency, int durationSeconds)
+            throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(8))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(cardUri).timeout(Duration.ofSeconds(30)).build();
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        providerPeak.set(providerInFlight.get());
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Thread clientThread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latency.record(System.nanoTime() - start);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "capacity-client-" + i);
+            clientThread.setDaemon(true);
+            clientThread.start();
+        }
+
+        ProcessStats peak = new ProcessStats();
+        long start = System.nanoTime();
+        while (!done.await(250, TimeUnit.MILLISECONDS)) {
+            peak.sample(app.pid());
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        StageResult result = new StageResult();
+        result.mode = mode;
+        result.concurrency = concurrency;
+        result.requests = snapshot.getCount();
+        result.errors = errors.get();
+        result.throughput = snapshot.getCount() / elapsedSeconds;
+        result.p50Millis = snapshot.getP50Micros() / 1_000.0;
+        result.p99Millis = snapshot.getP99Micros() / 1_000.0;
+        result.maxMillis = snapshot.getMaxMicros() / 1_000.0;
+        result.peakProviderInFlight = providerPeak.get();
+        result.peakThreads = peak.threads;
+        result.peakRssMb = peak.rssKb / 1024.0;
+        return result;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // ==================== Reporting ====================
+
+    private static void print(StageResult result) {
+        System.out.printf(Locale.ROOT, "  %-8s clients %5d: %8.1f req/s, p50 %8.1fms, p99 %8.1fms, errors %d, "
+                        + "in flight at provider %5d, threads %5d, RSS %7.1f MB%n",
+                result.mode, result.concurrency, result.throughput, result.p50Millis, result.p99Millis,
+                result.errors, result.peakProviderInFlight, result.peakThreads, result.peakRssMb);
+    }
+
+    /**
+     * Peak thread count and resident set size of a process, read from /proc (Linux only;
+     * both stay 0 elsewhere).
+     */
+    private static final class ProcessStats {
+        private int threads;
+        private long rssKb;
+
+        void sample(long pid) {
+            Path status = Path.of("/proc", String.valueOf(pid), "status");
+            try {
+                for (String line : Files.readAllLines(status)) {
+                    if (line.startsWith("Threads:")) {
+                        threads = Math.max(threads, Integer.parseInt(line.substring(8).trim()));
+                    } else if (line.startsWith("VmRSS:")) {
+                        rssKb = Math.max(rssKb, Long.parseLong(line.substring(6).replace("kB", "").trim()));
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // Not Linux, or the process just exited
+            }
+        }
+    }
+
+    private static final class StageResult {
+        private String mode;
+        private int concurrency;
+        private long requests;
+        private long errors;
+        private double throughput;
+        private double p50Millis;
+        private double p99Millis;
+        private double maxMillis;
+        private int peakProviderInFlight;
+        private int peakThreads;
+        private double peakRssMb;
+    }
+
+    // ==================== Options ====================
+
+    private static final class Options {
+        private List<String> modes = List.of("platform", "virtual");
+        private List<Integer> concurrency = List.of(50, 200, 800);
+        private int durationSeconds = 15;
+        private long providerDelayMs = 200;
+        private String heap = "512m";
+        private String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        private String out = "target/thread-capacity-result.json";
+
+        int maxConcurrency() {
+            return concurrency.stream().mapToInt(Integer::intValue).max().orElse(100);
+        }
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (name) {
+                    case "modes":
+                        options.modes = List.of(value.split(","));
+                        break;
+                    case "concurrency":
+                        List<Integer> levels = new ArrayList<>();
+                        for (String level : value.split(",")) {
+                            levels.add(Integer.parseInt(level.trim()));
+                        }
+                        options.concurrency = levels;
+                        break;
+                    case "duration":
+                        options.durationSeconds = Integer.parseInt(value);
+                        break;
+                    case "provider-delay-ms":
+                        options.providerDelayMs = Long.parseLong(value);
+                        break;
+                    case "heap":
+                        options.heap = value;
+                        break;
+                    case "java":
+                        options.java = value;
+                        break;
+                    case "out":
+                        options.out = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.vaultcard.benchmarks;
+
+import com.vaultcard.service.StripeWebhookService;
+import com.vaultcard.service.StripeWebhookService.WebhookProcessingResult;
+import com.vaultcard.util.WebhookEventParser.WebhookEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event routing through StripeWebhookService (processEvent dispatch) for already parsed
+ * events, plus the whole synchronous path from raw payload to authorization decision.
+ *
+ * Only handlers that stay in memory are measured: the authorization request (engine
+ * decision and hold), issuing_card.updated (cache invalidation) and an unhandled type.
+ * The fixture's authorization ID never changes, so after the first call the engine answers
+ * from the existing hold without reserving again - the path of a redelivered request, which
+ * is not deduplicated by event ID; fresh holds are measured by AuthorizationDecisionBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebhookDispatchBenchmark {
+
+    @Param({"issuing_authorization.request", "issuing_card.updated", "customer.created"})
+    public String eventType;
+
+    private String authorizationPayload;
+    private WebhookEvent event;
+    private StripeWebhookService webhookService;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        webhookService = Fixtures.webhookService(Fixtures.services());
+        authorizationPayload = Fixtures.payload("issuing_authorization.request");
+        event = "customer.created".equals(eventType)
+                ? WebhookEvent.builder().eventId("evt_unhandled").eventType(eventType).build()
+                : webhookService.parseEvent(Fixtures.payload(eventType));
+    }
+
+    @Benchmark
+    public WebhookProcessingResult dispatch() {
+        return webhookService.processWebhook(event, null);
+    }
+
+    /**
+     * Raw payload to decision, as WebhookController does for issuing_authorization.request.
+     */
+    @Benchmark
+    public WebhookProcessingResult authorizationRequestEndToEnd() {
+        return webhookService.processWebhook(webhookService.parseEvent(authorizationPayload), null);
+    }
+}
@@ -0,0 +1,531 @@
+package com.vaultcard.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.vaultcard.VaultCardApplication;
+import com.vaultcard.entity.FundingTransaction;
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.entity.SubscriptionProfile;
+import com.vaultcard.entity.User;
+import com.vaultcard.repository.FundingTransactionRepository;
+import com.vaultcard.repository.IssuingCardRepository;
+import com.vaultcard.repository.SubscriptionProfileRepository;
+import com.vaultcard.repository.UserRepository;
+import com.vaultcard.service.FundingService;
+import com.vaultcard.service.WebhookInboxService;
+import com.vaultcard.service.WebhookInboxService.InboxStats;
+import com.vaultcard.util.LatencyHistogram;
+import com.vaultcard.util.WebhookSignature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test for POST /api/webhooks/stripe.
+ *
+ * Starts the application embedded (in-memory H2, random port, signature verification on),
+ * seeds a funded user with the fixture card, then replays a synthetic mix of signed Stripe
+ * events at each requested rate. Arrivals are open-loop: latency is measured from the
+ * scheduled send time, so a slow server is not hidden by the generator slowing down.
+ *
+ * Run with:
+ *     mvn -Pbenchmarks test-compile exec:exec@loadtest -Dloadtest.args="--rates=200,500,1000 --duration=30"
+ *
+ * Options (all optional):
+ *     --rates=200,500,1000      events per second, one stage per rate
+ *     --duration=30             seconds per stage
+ *     --warmup=10               seconds at the first rate before measuring
+ *     --mix=type:weight,...     event mix (default 70/15/5/10 across the four fixture types)
+ *     --max-in-flight=2000      outstanding requests before the generator waits
+ *     --drain-timeout=60        seconds to wait for the webhook inbox after each stage
+ *     --out=target/loadtest-result.json
+ */
+public final class WebhookLoadTest {
+
+    private static final String AUTHORIZATION_REQUEST = "issuing_authorization.request";
+    private static final String TRANSACTION_CREATED = "issuing_transaction.created";
+    private static final String PAYMENT_INTENT_SUCCEEDED = "payment_intent.succeeded";
+    private static final String CARD_UPDATED = "issuing_card.updated";
+
+    private static final String DEFAULT_MIX = AUTHORIZATION_REQUEST + ":70," + TRANSACTION_CREATED + ":15,"
+            + PAYMENT_INTENT_SUCCEEDED + ":5," + CARD_UPDATED + ":10";
+
+    /** Pending funding transactions that payment_intent.succeeded events complete */
+    private static final int FUNDING_POOL = 5000;
+
+    /** Recent authorization IDs, referenced by issuing_transaction.created events */
+    private static final int RECENT_AUTHORIZATIONS = 1024;
+
+    private final Options options;
+    private final String webhookSecret = "whsec_loadtest_" + UUID.randomUUID().toString().replace("-", "");
+    private final Map<String, EventTemplate> templates = new LinkedHashMap<>();
+    private final AtomicReferenceArray<String> recentAuthorizations = new AtomicReferenceArray<>(RECENT_AUTHORIZATIONS);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext app;
+    private URI endpoint;
+    private HttpClient client;
+
+    private WebhookLoadTest(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        WebhookLoadTest loadTest = new WebhookLoadTest(Options.parse(args));
+        try {
+            loadTest.run();
+        } finally {
+            loadTest.shutdown();
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        for (String eventType : options.mix.keySet()) {
+            templates.put(eventType, EventTemplate.load(eventType));
+        }
+        startApplication();
+        seed();
+
+        ExecutorService responseExecutor = Executors.newFixedThreadPool(8);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(responseExecutor)
+                .build();
+
+        if (options.warmupSeconds > 0) {
+            System.out.printf("Warm-up: %d events/s for %ds%n", options.rates.get(0), options.warmupSeconds);
+            runStage(options.rates.get(0), options.warmupSeconds);
+        }
+
+        List<StageResult> results = new ArrayList<>();
+        for (int rate : options.rates) {
+            System.out.printf("Stage: %d events/s for %ds%n", rate, options.durationSeconds);
+            StageResult result = runStage(rate, options.durationSeconds);
+            results.add(result);
+            print(result);
+        }
+        responseExecutor.shutdownNow();
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Path out = Path.of(options.out);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, gson.toJson(results), StandardCharsets.UTF_8);
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+
+    // ==================== Setup ====================
+
+    private void startApplication() {
+        // A devtools restart would re-run main() with the application's arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        app = SpringApplication.run(VaultCardApplication.class,
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.h2.console.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--stripe.webhook-secret=" + webhookSecret,
+                "--vaultcard.webhooks.verify-signatures=true",
+                // No provider to mirror transactions from
+                "--vaultcard.transaction-mirror.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                // Per-event logging and latency-budget warnings would dominate the run
+                "--logging.level.com.vaultcard=ERROR");
+        String port = app.getEnvironment().getProperty("local.server.port");
+        endpoint = URI.create("http://localhost:" + port + "/api/webhooks/stripe");
+    }
+
+    /**
+     * The fixture card and profile for the test user, a large settled balance, and pending
+     * funding transactions for payment_intent.succeeded to complete.
+     */
+    private void seed() {
+        User user = app.getBean(UserRepository.class).findByEmail("test@vaultcard.dev")
+                .orElseThrow(() -> new IllegalStateException("Test user not created"));
+
+        IssuingCard card = Fixtures.card();
+        card.setId(null);
+        card.setUserId(user.getId());
+        card = app.getBean(IssuingCardRepository.class).save(card);
+
+        SubscriptionProfile profile = Fixtures.profile();
+        profile.setId(null);
+        profile.setUserId(user.getId());
+        profile.setLinkedCardId(card.getId());
+        app.getBean(SubscriptionProfileRepository.class).save(profile);
+
+        FundingTransactionRepository fundingRepository = app.getBean(FundingTransactionRepository.class);
+        List<FundingTransaction> funding = new ArrayList<>();
+        funding.add(pendingFunding(user.getId(), "pi_load_seed", new BigDecimal("100000000.00")));
+        for (int i = 0; i < FUNDING_POOL; i++) {
+            funding.add(pendingFunding(user.getId(), fundingPaymentId(i), new BigDecimal("25.00")));
+        }
+        fundingRepository.saveAll(funding);
+        app.getBean(FundingService.class).updateFundingStatus("pi_load_seed", FundingTransaction.FundingStatus.SUCCEEDED);
+    }
+
+    private static FundingTransaction pendingFunding(String userId, String paymentId, BigDecimal amount) {
+        return FundingTransaction.builder()
+                .userId(userId)
+                .stripePaymentId(paymentId)
+                .amount(amount)
+                .currency("usd")
+                .paymentMethodType("card")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static String fundingPaymentId(long n) {
+        return "pi_load_" + (n % FUNDING_POOL);
+    }
+
+    private void shutdown() {
+        if (app != null) {
+            app.close();
+        }
+    }
+
+    // ==================== Stages ====================
+
+    private StageResult runStage(int rate, int durationSeconds) throws InterruptedException {
+        Map<String, TypeStats> stats = new LinkedHashMap<>();
+        for (String eventType : options.mix.keySet()) {
+            stats.put(eventType, new TypeStats());
+        }
+        WeightedMix mix = new WeightedMix(options.mix);
+        Semaphore inFlight = new Semaphore(options.maxInFlight);
+        InboxStats inboxBefore = app.getBean(WebhookInboxService.class).getStats();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = (long) rate * durationSeconds;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+
+            String eventType = mix.next();
+            TypeStats typeStats = stats.get(eventType);
+            String payload = nextPayload(eventType);
+            HttpRequest request = HttpRequest.newBuilder(endpoint)
+                    .timeout(Duration.ofSeconds(10))
+                    .header("Content-Type", "application/json")
+                    .header("Stripe-Signature",
+                            WebhookSignature.sign(payload, webhookSecret, System.currentTimeMillis() / 1000))
+                    .POST(HttpRequest.BodyPublishers.ofString(payload))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                typeStats.latency.record(System.nanoTime() - scheduled);
+                if (error != null || response.statusCode() != 200) {
+                    typeStats.errors.incrementAndGet();
+                } else if (response.body().contains("\"approved\":true")) {
+                    typeStats.approved.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(options.maxInFlight);
+        inFlight.release(options.maxInFlight);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        InboxStats inboxAfter = drainInbox();
+        return StageResult.of(rate, durationSeconds, elapsedSeconds, stats, inboxBefore, inboxAfter);
+    }
+
+    /**
+     * Wait for the webhook inbox to work off the queued events.
+     */
+    private InboxStats drainInbox() throws InterruptedException {
+        WebhookInboxService inbox = app.getBean(WebhookInboxService.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.drainTimeoutSeconds);
+        InboxStats stats = inbox.getStats();
+        while ((stats.getQueueDepth() > 0 || stats.getActiveWorkers() > 0 || stats.getPendingInTable() > 0)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(200);
+            stats = inbox.getStats();
+        }
+        return stats;
+    }
+
+    private String nextPayload(String eventType) {
+        long n = sequence.incrementAndGet();
+        EventTemplate template = templates.get(eventType);
+        switch (eventType) {
+            case AUTHORIZATION_REQUEST: {
+                String authorizationId = "iauth_load_" + n;
+                recentAuthorizations.set((int) (n % RECENT_AUTHORIZATIONS), authorizationId);
+                return template.render("evt_load_" + n, authorizationId, null);
+            }
+            case TRANSACTION_CREATED: {
+                String authorizationId = recentAuthorizations.get(
+                        ThreadLocalRandom.current().nextInt(RECENT_AUTHORIZATIONS));
+                return template.render("evt_load_" + n, "ipi_load_" + n, authorizationId);
+            }
+            case PAYMENT_INTENT_SUCCEEDED:
+                return template.render("evt_load_" + n, fundingPaymentId(n), null);
+            default:
+                return template.render("evt_load_" + n, null, null);
+        }
+    }
+
+    // ==================== Reporting ====================
+
+    private static void print(StageResult result) {
+        System.out.printf(Locale.ROOT, "  target %d/s, achieved %.1f/s, %d errors; inbox processed %d, failed %d, "
+                        + "pending %d, end-to-end p99 %.1fms%n",
+                result.targetRate, result.achievedRate, result.errors, result.inboxProcessed, result.inboxFailed,
+                result.inboxPending, result.inboxEndToEndP99Millis);
+        System.out.printf(Locale.ROOT, "  %-32s %8s %7s %9s %9s %9s %9s %9s%n",
+                "event type", "count", "errors", "approved", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        result.eventTypes.forEach((eventType, type) -> System.out.printf(Locale.ROOT,
+                "  %-32s %8d %7d %9d %9.2f %9.2f %9.2f %9.2f%n",
+                eventType, type.count, type.errors, type.approved,
+                type.p50Millis, type.p99Millis, type.p999Millis, type.maxMillis));
+    }
+
+    private static final class TypeStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong approved = new AtomicLong();
+    }
+
+    /**
+     * One stage of the run, serialized to the JSON report.
+     */
+    private static final class StageResult {
+        private int targetRate;
+        private int durationSeconds;
+        private double achievedRate;
+        private long errors;
+        private long inboxProcessed;
+        private long inboxFailed;
+        private long inboxPending;
+        private double inboxEndToEndP99Millis;
+        private final Map<String, TypeResult> eventTypes = new LinkedHashMap<>();
+
+        static StageResult of(int rate, int durationSeconds, double elapsedSeconds, Map<String, TypeStats> stats,
+                              InboxStats inboxBefore, InboxStats inboxAfter) {
+            StageResult result = new StageResult();
+            result.targetRate = rate;
+            result.durationSeconds = durationSeconds;
+            long count = 0;
+            for (Map.Entry<String, TypeStats> entry : stats.entrySet()) {
+                TypeStats type = entry.getValue();
+                LatencyHistogram.Snapshot snapshot = type.latency.snapshot();
+                TypeResult typeResult = new TypeResult();
+                typeResult.count = snapshot.getCount();
+                typeResult.errors = type.errors.get();
+                typeResult.approved = type.approved.get();
+                typeResult.throughput = snapshot.getCount() / elapsedSeconds;
+                typeResult.p50Millis = snapshot.getP50Micros() / 1_000.0;
+                typeResult.p99Millis = snapshot.getP99Micros() / 1_000.0;
+                typeResult.p999Millis = snapshot.getP999Micros() / 1_000.0;
+                typeResult.maxMillis = snapshot.getMaxMicros() / 1_000.0;
+                result.eventTypes.put(entry.getKey(), typeResult);
+                count += typeResult.count;
+                result.errors += typeResult.errors;
+            }
+            result.achievedRate = count / elapsedSeconds;
+            result.inboxProcessed = inboxAfter.getProcessed() - inboxBefore.getProcessed();
+            result.inboxFailed = inboxAfter.getFailed() - inboxBefore.getFailed();
+            result.inboxPending = inboxAfter.getPendingInTable() + inboxAfter.getQueueDepth();
+            result.inboxEndToEndP99Millis = inboxAfter.getEndToEndLatency().getP99Micros() / 1_000.0;
+            return result;
+        }
+    }
+
+    private static final class TypeResult {
+        private long count;
+        private long errors;
+        private long approved;
+        private double throughput;
+        private double p50Millis;
+        private double p99Millis;
+        private double p999Millis;
+        private double maxMillis;
+    }
+
+    // ==================== Events ====================
+
+    /**
+     * A fixture payload with its event ID, object ID and authorization reference replaced by
+     * placeholders. The card ID is kept so every event targets the seeded card.
+     */
+    private static final class EventTemplate {
+        private static final String EVENT_ID = "{{event_id}}";
+        private static final String OBJECT_ID = "{{object_id}}";
+        private static final String AUTHORIZATION_ID = "{{authorization_id}}";
+
+        private final String template;
+
+        private EventTemplate(String template) {
+            this.template = template;
+        }
+
+        static EventTemplate load(String eventType) {
+            String payload = Fixtures.payload(eventType);
+            JsonObject event = JsonParser.parseString(payload).getAsJsonObject();
+            JsonObject object = event.getAsJsonObject("data").getAsJsonObject("object");
+
+            String template = payload.replace(quoted(event.get("id").getAsString()), quoted(EVENT_ID));
+            if (!CARD_UPDATED.equals(eventType)) {
+                template = template.replace(quoted(object.get("id").getAsString()), quoted(OBJECT_ID));
+            }
+            if (TRANSACTION_CREATED.equals(eventType) && object.has("authorization")) {
+                template = template.replace(quoted(object.get("authorization").getAsString()),
+                        quoted(AUTHORIZATION_ID));
+            }
+            return new EventTemplate(template);
+        }
+
+        String render(String eventId, String objectId, String authorizationId) {
+            String payload = template.replace(EVENT_ID, eventId);
+            if (objectId != null) {
+                payload = payload.replace(OBJECT_ID, objectId);
+            }
+            if (authorizationId != null) {
+                payload = payload.replace(AUTHORIZATION_ID, authorizationId);
+            }
+            return payload;
+        }
+
+        private static String quoted(String value) {
+            return "\"" + value + "\"";
+        }
+    }
+
+    /**
+     * Picks event types in proportion to their weights.
+     */
+    private static final class WeightedMix {
+        private final String[] types;
+        private final int[] cumulative;
+        private final int total;
+
+        WeightedMix(Map<String, Integer> weights) {
+            types = weights.keySet().toArray(new String[0]);
+            cumulative = new int[types.length];
+            int sum = 0;
+            for (int i = 0; i < types.length; i++) {
+                sum += weights.get(types[i]);
+                cumulative[i] = sum;
+            }
+            total = sum;
+        }
+
+        String next() {
+            int pick = ThreadLocalRandom.current().nextInt(total);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (pick < cumulative[i]) {
+                    return types[i];
+                }
+            }
+            return types[types.length - 1];
+        }
+    }
+
+    // ==================== Options ====================
+
+    private static final class Options {
+        private List<Integer> rates = List.of(200, 500, 1000);
+        private int durationSeconds = 30;
+        private int warmupSeconds = 10;
+        private Map<String, Integer> mix;
+        private int maxInFlight = 2000;
+        private int drainTimeoutSeconds = 60;
+        private String out = "target/loadtest-result.json";
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            String mix = DEFAULT_MIX;
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (name) {
+                    case "rates":
+                        List<Integer> rates = new ArrayList<>();
+                        for (String rate : value.split(",")) {
+                            rates.add(Integer.parseInt(rate.trim()));
+                        }
+                        options.rates = rates;
+                        break;
+                    case "duration":
+                        options.durationSeconds = Integer.parseInt(value);
+                        break;
+                    case "warmup":
+                        options.warmupSeconds = Integer.parseInt(value);
+                        break;
+                    case "mix":
+                        mix = value;
+                        break;
+                    case "max-in-flight":
+                        options.maxInFlight = Integer.parseInt(value);
+                        break;
+                    case "drain-timeout":
+                        options.drainTimeoutSeconds = Integer.parseInt(value);
+                        break;
+                    case "out":
+                        options.out = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            options.mix = parseMix(mix);
+            return options;
+        }
+
+        private static Map<String, Integer> parseMix(String value) {
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            for (String part : value.split(",")) {
+                String[] typeAndWeight = part.trim().split(":");
+                int weight = Integer.parseInt(typeAndWeight[1].trim());
+                if (weight > 0) {
+                    mix.put(typeAndWeight[0].trim(), weight);
+                }
+            }
+            if (mix.isEmpty()) {
+                throw new IllegalArgumentException("Event mix is empty");
+            }
+            return mix;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.vaultcard.benchmarks;
+
+import com.google.gson.JsonParser;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import com.vaultcard.service.StripeWebhookService;
+import com.vaultcard.util.WebhookEventParser.WebhookEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook payload parsing: the streaming parser behind StripeWebhookService.parseEvent,
+ * compared with a full Gson tree parse and the Stripe SDK's Event deserialization
+ * (what Webhook.constructEvent does once signatures are verified).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebhookParsingBenchmark {
+
+    @Param({"issuing_authorization.request", "issuing_transaction.created",
+            "payment_intent.succeeded", "issuing_card.updated"})
+    public String eventType;
+
+    private String payload;
+    private StripeWebhookService webhookService;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        payload = Fixtures.payload(eventType);
+        webhookService = Fixtures.webhookService(Fixtures.services());
+    }
+
+    @Benchmark
+    public WebhookEvent parseEvent() {
+        return webhookService.parseEvent(payload);
+    }
+
+    @Benchmark
+    public Object gsonTree() {
+        return JsonParser.parseString(payload);
+    }
+
+    @Benchmark
+    public Event stripeSdkEvent() {
+        return ApiResource.GSON.fromJson(payload, Event.class);
+    }
+}
@@ -0,0 +1,96 @@
+package com.vaultcard.config;
+
+import com.vaultcard.service.AuthorizationEngine;
+import com.vaultcard.service.AuthorizationHoldStore;
+import com.vaultcard.service.BalanceLedger;
+import com.vaultcard.service.CardCache;
+import com.vaultcard.service.SpendLedger;
+import com.vaultcard.service.WebhookDeduplicator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the in-memory counters behind the /api/ops endpoints as Micrometer meters,
+ * so they are scraped with everything else from /actuator/prometheus.
+ *
+ * Timers are recorded where the work happens (vaultcard.authorization.decision,
+ * vaultcard.webhook.events, vaultcard.provider.requests); HTTP endpoints and repository
+ * calls are timed by Spring Boot (http.server.requests, spring.data.repository.invocations).
+ * Each meter reads one value through an accessor that costs O(1) (the pending spend gauge
+ * scans the tracked cards once), never a full getStats() snapshot, so a scrape does not
+ * build a latency histogram or walk every hold per meter. The webhook inbox counts come
+ * from the database and stay on /api/ops/webhook-inbox.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder authorizationMetrics(AuthorizationEngine engine, AuthorizationHoldStore holdStore) {
+        return registry -> {
+            gauge(registry, "vaultcard.authorization.cached.cards", engine, AuthorizationEngine::getCachedCardCount);
+            counter(registry, "vaultcard.authorization.over.budget", engine, AuthorizationEngine::getOverBudgetCount);
+            gauge(registry, "vaultcard.authorization.write.back.queue", engine,
+                    AuthorizationEngine::getWriteBackQueueDepth);
+            counter(registry, "vaultcard.authorization.duplicates", engine, AuthorizationEngine::getDuplicateCount);
+            counter(registry, "vaultcard.authorization.write.back.caller.runs", engine,
+                    AuthorizationEngine::getWriteBackCallerRunsCount);
+
+            gauge(registry, "vaultcard.holds.active", holdStore, AuthorizationHoldStore::getActiveHoldCount);
+            gauge(registry, "vaultcard.holds.held.cents", holdStore, AuthorizationHoldStore::getHeldCents);
+            counter(registry, "vaultcard.holds.placed", holdStore, AuthorizationHoldStore::getPlacedCount);
+            counter(registry, "vaultcard.holds.captured", holdStore, AuthorizationHoldStore::getCapturedCount);
+            counter(registry, "vaultcard.holds.reversed", holdStore, AuthorizationHoldStore::getReversedCount);
+            counter(registry, "vaultcard.holds.expired", holdStore, AuthorizationHoldStore::getExpiredCount);
+            counter(registry, "vaultcard.holds.duplicates", holdStore, AuthorizationHoldStore::getDuplicateCount);
+            counter(registry, "vaultcard.holds.write.back.caller.runs", holdStore,
+                    AuthorizationHoldStore::getWriteBackCallerRunsCount);
+        };
+    }
+
+    @Bean
+    public MeterBinder ledgerMetrics(BalanceLedger balanceLedger, SpendLedger spendLedger) {
+        return registry -> {
+            counter(registry, "vaultcard.ledger.journals", balanceLedger, BalanceLedger::getJournalCount);
+            counter(registry, "vaultcard.ledger.insufficient.funds", balanceLedger,
+                    BalanceLedger::getInsufficientFundsCount);
+            gauge(registry, "vaultcard.ledger.write.queue", balanceLedger, BalanceLedger::getWriteQueueDepth);
+            counter(registry, "vaultcard.ledger.write.failures", balanceLedger, BalanceLedger::getWriteFailureCount);
+            counter(registry, "vaultcard.ledger.journals.dropped", balanceLedger,
+                    BalanceLedger::getJournalsDroppedCount);
+
+            gauge(registry, "vaultcard.spend.ledger.pending.cards", spendLedger, SpendLedger::getCardsWithPendingSpend);
+            counter(registry, "vaultcard.spend.ledger.flush.failures", spendLedger, SpendLedger::getFlushFailureCount);
+        };
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(CardCache cardCache, WebhookDeduplicator webhookDeduplicator) {
+        return registry -> {
+            gauge(registry, "vaultcard.card.cache.size", cardCache, CardCache::getSizeById);
+            counter(registry, "vaultcard.card.cache.hits", cardCache, CardCache::getHitCount);
+            counter(registry, "vaultcard.card.cache.misses", cardCache, CardCache::getMissCount);
+            counter(registry, "vaultcard.card.cache.evictions", cardCache, CardCache::getEvictionCount);
+
+            counter(registry, "vaultcard.webhook.dedup.duplicates", webhookDeduplicator,
+                    WebhookDeduplicator::getDuplicatesRejectedCount);
+            counter(registry, "vaultcard.webhook.dedup.database.checks", webhookDeduplicator,
+                    WebhookDeduplicator::getDatabaseCheckCount);
+        };
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static <T> void gauge(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, source, value).register(registry);
+    }
+}
@@ -0,0 +1,12 @@
+package com.vaultcard.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (webhook inbox sweeper, etc.).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -4,6 +4,8 @@ import com.vaultcard.dto.ApiResponse;
 import com.vaultcard.dto.CreateFundingRequest;
 import com.vaultcard.dto.FundingResponse;
 import com.vaultcard.entity.FundingTransaction;
+import com.vaultcard.entity.UserBalanceSummary;
+import com.vaultcard.service.BalanceLedger;
 import com.vaultcard.service.FundingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -139,4 +141,40 @@ public class FundingController {
         BigDecimal total = fundingService.getTotalFundedAmount(userId);
         return ResponseEntity.ok(ApiResponse.success(total));
     }
+
+    /**
+     * Get funded, spent and available totals for the current user.
+     *
+     * GET /api/funding/summary
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<UserBalanceSummary>> getBalanceSummary(
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+
+        log.info("GET /api/funding/summary - userId: {}", userId);
+
+        if (userId == null || userId.isBlank()) {
+            userId = "test-user-001";
+        }
+
+        return ResponseEntity.ok(ApiResponse.success(fundingService.getBalanceSummary(userId)));
+    }
+
+    /**
+     * Get the current user's available and held balance from the ledger.
+     *
+     * GET /api/funding/balance
+     */
+    @GetMapping("/balance")
+    public ResponseEntity<ApiResponse<BalanceLedger.AccountBalance>> getLedgerBalance(
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+
+        log.info("GET /api/funding/balance - userId: {}", userId);
+
+        if (userId == null || userId.isBlank()) {
+            userId = "test-user-001";
+        }
+
+        return ResponseEntity.ok(ApiResponse.success(fundingService.getLedgerBalance(userId)));
+    }
 }
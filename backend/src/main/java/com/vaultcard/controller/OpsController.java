@@ -0,0 +1,364 @@
+package com.vaultcard.controller;
+
+import com.vaultcard.dto.ApiResponse;
+import com.vaultcard.provider.ProviderGuard;
+import com.vaultcard.provider.ProviderRouter;
+import com.vaultcard.provider.StripeHttpClient;
+import com.vaultcard.provider.StripePaymentProvider;
+import com.vaultcard.provider.StripeReactivePaymentProvider;
+import com.vaultcard.service.AuthorizationEngine;
+import com.vaultcard.service.AuthorizationHoldStore;
+import com.vaultcard.service.BalanceLedger;
+import com.vaultcard.service.BalanceSummaryService;
+import com.vaultcard.service.CardCache;
+import com.vaultcard.service.CardholderIndex;
+import com.vaultcard.service.HedgedCardReader;
+import com.vaultcard.service.MonthlySpendResetJob;
+import com.vaultcard.service.SpendLedger;
+import com.vaultcard.service.TransactionMirror;
+import com.vaultcard.service.VirtualThreadMonitor;
+import com.vaultcard.service.WebhookDeduplicator;
+import com.vaultcard.service.WebhookInboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST Controller for internal operational statistics.
+ *
+ * Exposes in-process counters and latency distributions for the hot paths
+ * (authorization decisions, webhook processing) so they can be checked
+ * without attaching a profiler.
+ *
+ * This is an internal prototype API - not for public use.
+ */
+@RestController
+@RequestMapping("/api/ops")
+@RequiredArgsConstructor
+@Slf4j
+public class OpsController {
+
+    private final AuthorizationEngine authorizationEngine;
+    private final AuthorizationHoldStore authorizationHoldStore;
+    private final WebhookInboxService webhookInboxService;
+    private final WebhookDeduplicator webhookDeduplicator;
+    private final SpendLedger spendLedger;
+    private final MonthlySpendResetJob monthlySpendResetJob;
+    private final CardCache cardCache;
+    private final CardholderIndex cardholderIndex;
+    private final TransactionMirror transactionMirror;
+    private final BalanceSummaryService balanceSummaryService;
+    private final BalanceLedger balanceLedger;
+    private final StripeHttpClient stripeHttpClient;
+    private final StripePaymentProvider stripePaymentProvider;
+    private final StripeReactivePaymentProvider stripeReactivePaymentProvider;
+    private final VirtualThreadMonitor virtualThreadMonitor;
+    private final ProviderGuard providerGuard;
+    private final ProviderRouter providerRouter;
+    private final HedgedCardReader hedgedCardReader;
+
+    /**
+     * Authorization engine statistics.
+     *
+     * GET /api/ops/authorization
+     *
+     * Returns approve/decline counts, decision latency percentiles and the
+     * number of decisions that exceeded the configured latency budget.
+     */
+    @GetMapping("/authorization")
+    public ResponseEntity<ApiResponse<AuthorizationEngine.AuthorizationStats>> authorizationStats() {
+        return ResponseEntity.ok(ApiResponse.success(authorizationEngine.getStats()));
+    }
+
+    /**
+     * Authorization hold statistics.
+     *
+     * GET /api/ops/holds
+     *
+     * Returns active holds, the amount held, scheduled expiries and lifecycle counters.
+     */
+    @GetMapping("/holds")
+    public ResponseEntity<ApiResponse<AuthorizationHoldStore.HoldStats>> holdStats() {
+        return ResponseEntity.ok(ApiResponse.success(authorizationHoldStore.getStats()));
+    }
+
+    /**
+     * Webhook inbox statistics.
+     *
+     * GET /api/ops/webhook-inbox
+     *
+     * Returns worker pool utilization, queue depth, events waiting in the table
+     * and the age of the oldest one - the backpressure indicators for webhook bursts.
+     */
+    @GetMapping("/webhook-inbox")
+    public ResponseEntity<ApiResponse<WebhookInboxService.InboxStats>> webhookInboxStats() {
+        return ResponseEntity.ok(ApiResponse.success(webhookInboxService.getStats()));
+    }
+
+    /**
+     * Webhook deduplication statistics.
+     *
+     * GET /api/ops/webhook-dedup
+     *
+     * Shows how often duplicates were caught in memory versus how often the
+     * processed_webhook_events table had to be consulted.
+     */
+    @GetMapping("/webhook-dedup")
+    public ResponseEntity<ApiResponse<WebhookDeduplicator.DedupStats>> webhookDedupStats() {
+        return ResponseEntity.ok(ApiResponse.success(webhookDeduplicator.getStats()));
+    }
+
+    /**
+     * Spend ledger statistics.
+     *
+     * GET /api/ops/spend-ledger
+     *
+     * Returns recorded and flushed spend counts, and how many cards have spend
+     * not yet written to subscription_profiles.
+     */
+    @GetMapping("/spend-ledger")
+    public ResponseEntity<ApiResponse<SpendLedger.LedgerStats>> spendLedgerStats() {
+        return ResponseEntity.ok(ApiResponse.success(spendLedger.getStats()));
+    }
+
+    /**
+     * Monthly spend reset job progress.
+     *
+     * GET /api/ops/monthly-reset
+     *
+     * Returns run counters and the latest per-timezone checkpoints.
+     */
+    @GetMapping("/monthly-reset")
+    public ResponseEntity<ApiResponse<MonthlySpendResetJob.ResetStats>> monthlyResetStats() {
+        return ResponseEntity.ok(ApiResponse.success(monthlySpendResetJob.getStats()));
+    }
+
+    /**
+     * Run the monthly spend reset now instead of waiting for the schedule.
+     *
+     * POST /api/ops/monthly-reset/run
+     *
+     * Safe to call at any time - only profiles behind their local month are reset.
+     */
+    @PostMapping("/monthly-reset/run")
+    public ResponseEntity<ApiResponse<MonthlySpendResetJob.ResetStats>> runMonthlyReset() {
+        log.info("POST /api/ops/monthly-reset/run");
+        monthlySpendResetJob.run();
+        return ResponseEntity.ok(ApiResponse.success(monthlySpendResetJob.getStats()));
+    }
+
+    /**
+     * Card cache statistics.
+     *
+     * GET /api/ops/card-cache
+     *
+     * Returns size, hit/miss counts and evictions of the card metadata cache.
+     */
+    @GetMapping("/card-cache")
+    public ResponseEntity<ApiResponse<CardCache.CardCacheStats>> cardCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(cardCache.getStats()));
+    }
+
+    /**
+     * Stripe HTTP client statistics.
+     *
+     * GET /api/ops/stripe-http
+     *
+     * Returns request/retry/failure counts, connection pool usage and
+     * per-operation call latency (including retries), plus the counters of
+     * the non-blocking (WebClient) client.
+     */
+    @GetMapping("/stripe-http")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> stripeHttpStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("http", stripeHttpClient.getStats());
+        stats.put("operations", stripePaymentProvider.getOperationLatency());
+        stats.put("reactive", stripeReactivePaymentProvider.getStats());
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * Cardholder index statistics.
+     *
+     * GET /api/ops/cardholder-index
+     *
+     * Returns index size, hit/load counts, cardholders created and the number of
+     * concurrent requests that shared an in-flight cardholder creation.
+     */
+    @GetMapping("/cardholder-index")
+    public ResponseEntity<ApiResponse<CardholderIndex.IndexStats>> cardholderIndexStats() {
+        return ResponseEntity.ok(ApiResponse.success(cardholderIndex.getStats()));
+    }
+
+    /**
+     * Transaction mirror status.
+     *
+     * GET /api/ops/transaction-mirror
+     *
+     * Returns backfill coverage, sync lag, mirrored row counts and how many
+     * reads were served locally versus from the provider.
+     */
+    @GetMapping("/transaction-mirror")
+    public ResponseEntity<ApiResponse<TransactionMirror.MirrorStats>> transactionMirrorStats() {
+        return ResponseEntity.ok(ApiResponse.success(transactionMirror.getStats()));
+    }
+
+    /**
+     * Run a transaction mirror sync pass now instead of waiting for the schedule.
+     *
+     * POST /api/ops/transaction-mirror/sync
+     */
+    @PostMapping("/transaction-mirror/sync")
+    public ResponseEntity<ApiResponse<TransactionMirror.MirrorStats>> syncTransactionMirror() {
+        log.info("POST /api/ops/transaction-mirror/sync");
+        transactionMirror.sync();
+        return ResponseEntity.ok(ApiResponse.success(transactionMirror.getStats()));
+    }
+
+    /**
+     * Compare user balance summaries with the raw funding and spending SUMs.
+     *
+     * GET /api/ops/balance-summary/check
+     *
+     * Returns the number of users checked and the mismatched ones (first 100).
+     */
+    @GetMapping("/balance-summary/check")
+    public ResponseEntity<ApiResponse<BalanceSummaryService.ConsistencyReport>> checkBalanceSummaries() {
+        return ResponseEntity.ok(ApiResponse.success(balanceSummaryService.check()));
+    }
+
+    /**
+     * Recompute user balance summaries from the raw SUMs.
+     *
+     * POST /api/ops/balance-summary/rebuild[?userId=...]
+     *
+     * Rebuilds one user when userId is given, otherwise every user.
+     * Returns a consistency check run after the rebuild.
+     */
+    @PostMapping("/balance-summary/rebuild")
+    public ResponseEntity<ApiResponse<BalanceSummaryService.ConsistencyReport>> rebuildBalanceSummaries(
+            @RequestParam(required = false) String userId) {
+        log.info("POST /api/ops/balance-summary/rebuild - userId: {}", userId);
+        if (userId != null) {
+            balanceSummaryService.rebuild(userId);
+        } else {
+            balanceSummaryService.rebuildAll();
+        }
+        return ResponseEntity.ok(ApiResponse.success(balanceSummaryService.check()));
+    }
+
+    /**
+     * Balance ledger statistics.
+     *
+     * GET /api/ops/ledger
+     *
+     * Returns journal and write-behind counters, open holds and the posting latency distribution.
+     */
+    @GetMapping("/ledger")
+    public ResponseEntity<ApiResponse<BalanceLedger.LedgerStats>> ledgerStats() {
+        return ResponseEntity.ok(ApiResponse.success(balanceLedger.getStats()));
+    }
+
+    /**
+     * Measure sustained ledger posting throughput against the configured database.
+     *
+     * POST /api/ops/ledger/benchmark?postings=100000&threads=8&accounts=1000
+     *
+     * Requires vaultcard.ledger.benchmark-enabled. Benchmark accounts are removed afterwards.
+     */
+    @PostMapping("/ledger/benchmark")
+    public ResponseEntity<ApiResponse<BalanceLedger.BenchmarkResult>> runLedgerBenchmark(
+            @RequestParam(defaultValue = "100000") int postings,
+            @RequestParam(defaultValue = "8") int threads,
+            @RequestParam(defaultValue = "1000") int accounts) throws InterruptedException {
+        log.info("POST /api/ops/ledger/benchmark - postings: {}, threads: {}, accounts: {}",
+                postings, threads, accounts);
+        try {
+            return ResponseEntity.ok(ApiResponse.success(balanceLedger.runBenchmark(postings, threads, accounts)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("BAD_REQUEST", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("INVALID_STATE", e.getMessage()));
+        }
+    }
+
+    /**
+     * Thread mode and virtual thread pinning diagnostics.
+     *
+     * GET /api/ops/virtual-threads
+     *
+     * Returns whether virtual threads are active, and when they are, how often and where
+     * they were pinned to a carrier thread for longer than the configured threshold.
+     */
+    @GetMapping("/virtual-threads")
+    public ResponseEntity<ApiResponse<VirtualThreadMonitor.VirtualThreadStats>> virtualThreadStats() {
+        return ResponseEntity.ok(ApiResponse.success(virtualThreadMonitor.getStats()));
+    }
+
+    /**
+     * Provider circuit breaker and bulkhead state.
+     *
+     * GET /api/ops/provider-resilience
+     *
+     * Returns, per provider, the breaker state with its recent failure rate and rejections,
+     * and per-method bulkhead usage.
+     */
+    @GetMapping("/provider-resilience")
+    public ResponseEntity<ApiResponse<Map<String, ProviderGuard.ProviderResilienceStats>>> providerResilienceStats() {
+        return ResponseEntity.ok(ApiResponse.success(providerGuard.getStats()));
+    }
+
+    /**
+     * Provider routing table and per-provider stats.
+     *
+     * GET /api/ops/provider-routing
+     *
+     * Returns the weights and overrides new business is routed by, and per provider the
+     * selection counts by reason, call latency and error counts, and breaker state.
+     */
+    @GetMapping("/provider-routing")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> providerRouting() {
+        Map<String, Object> routing = new LinkedHashMap<>();
+        routing.put("primary", providerRouter.getPrimary());
+        routing.put("config", providerRouter.getConfig());
+        routing.put("providers", providerRouter.getStats());
+        return ResponseEntity.ok(ApiResponse.success(routing));
+    }
+
+    /**
+     * Replace the provider routing table without a restart.
+     *
+     * POST /api/ops/provider-routing
+     * {"weights": {"stripe": 100, "marqeta": 0}, "userOverrides": {}, "countryOverrides": {"CN": "marqeta"}}
+     *
+     * Setting a provider's weight to 0 drains new business from it at once; cards it issued
+     * keep being served by it. The whole table is validated before it takes effect.
+     */
+    @PostMapping("/provider-routing")
+    public ResponseEntity<ApiResponse<ProviderRouter.RoutingConfig>> reloadProviderRouting(
+            @RequestBody ProviderRouter.RoutingConfig config) {
+        log.info("POST /api/ops/provider-routing - {}", config);
+        try {
+            return ResponseEntity.ok(ApiResponse.success(providerRouter.reload(config)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("BAD_REQUEST", e.getMessage()));
+        }
+    }
+
+    /**
+     * Hedged getCard statistics.
+     *
+     * GET /api/ops/hedged-reads
+     *
+     * Returns, per provider, provider reads, hedged requests and how often the hedge answered
+     * first, and the current hedge delay with the latency window it is derived from.
+     */
+    @GetMapping("/hedged-reads")
+    public ResponseEntity<ApiResponse<Map<String, HedgedCardReader.HedgeStats>>> hedgedReadStats() {
+        return ResponseEntity.ok(ApiResponse.success(hedgedCardReader.getStats()));
+    }
+}
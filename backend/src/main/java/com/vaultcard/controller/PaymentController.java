@@ -1,11 +1,19 @@
 package com.vaultcard.controller;
 
 import com.vaultcard.dto.*;
+import com.vaultcard.provider.ProviderUnavailableException;
 import com.vaultcard.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 /**
  * 支付API控制器
@@ -48,17 +56,46 @@ public class PaymentController {
 
     /**
      * 获取卡片详情
-     * GET /api/payment/cards/{cardId}
+     * GET /api/payment/cards/{cardId}?fresh=true
+     * fresh=false：优先返回本地卡片记录（卡号打码、无CVV），适合只读展示的仪表盘
      */
     @GetMapping("/cards/{cardId}")
     public ResponseEntity<CardResponse> getCard(
             @PathVariable String cardId,
-            @RequestParam String userId) {
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "true") boolean fresh) {
         log.info("Received card details request: {}", cardId);
-        CardResponse response = paymentService.getCardDetails(cardId, userId);
+        CardResponse response = paymentService.getCardDetails(cardId, userId, fresh);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 卡片概览：卡片详情和最近交易并发获取
+     * GET /api/payment/cards/{cardId}/overview?limit=10
+     */
+    @GetMapping("/cards/{cardId}/overview")
+    public Mono<ResponseEntity<CardOverviewResponse>> getCardOverview(
+            @PathVariable String cardId,
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Received card overview request: {}", cardId);
+        return paymentService.getCardOverview(cardId, userId, limit)
+            .map(ResponseEntity::ok);
+    }
+
+    /**
+     * 从服务商实时获取用户所有卡片的详情（所有卡片并发请求）
+     * GET /api/payment/cards/live?userId=...
+     */
+    @GetMapping("/cards/live")
+    public Mono<ResponseEntity<List<CardResponse>>> getLiveCards(
+            @RequestParam String userId) {
+        log.info("Received live card details request for user: {}", userId);
+        return paymentService.getLiveCardDetails(userId)
+            .collectList()
+            .map(ResponseEntity::ok);
+    }
+
     /**
      * 冻结卡片
      * POST /api/payment/cards/{cardId}/freeze
@@ -86,25 +123,61 @@ public class PaymentController {
     }
 
     /**
-     * 获取交易列表
-     * GET /api/payment/transactions
+     * 冻结用户的所有卡片（紧急操作，所有卡片并发处理）
+     * POST /api/payment/cards/freeze-all
+     */
+    @PostMapping("/cards/freeze-all")
+    public ResponseEntity<BatchCardStatusResponse> freezeAllCards(
+            @RequestParam String userId) {
+        log.info("Freezing all cards for user: {}", userId);
+        BatchCardStatusResponse response = paymentService.freezeAllCards(userId);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 获取交易列表（游标分页）
+     * GET /api/payment/transactions?limit=20&cursor=...
+     * 第一页不传cursor，之后传上一页返回的nextCursor；offset已不再生效
      */
     @GetMapping("/transactions")
     public ResponseEntity<TransactionListResponse> listTransactions(
             @RequestParam String userId,
             @RequestParam(required = false) String cardId,
             @RequestParam(defaultValue = "20") Integer limit,
-            @RequestParam(defaultValue = "0") Integer offset) {
+            @RequestParam(defaultValue = "0") Integer offset,
+            @RequestParam(required = false) String cursor) {
         TransactionListRequest request = new TransactionListRequest();
         request.setUserId(userId);
         request.setCardId(cardId);
         request.setLimit(limit);
         request.setOffset(offset);
+        request.setCursor(cursor);
 
         TransactionListResponse response = paymentService.getTransactions(request);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 导出全部交易（NDJSON流，每行一条交易）
+     * GET /api/payment/transactions/export?userId=...
+     * 服务端按游标逐页向服务商请求，边取边写，不在内存中攒全部数据
+     */
+    @GetMapping(value = "/transactions/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TransactionListResponse.Transaction> exportTransactions(
+            @RequestParam String userId,
+            @RequestParam(required = false) String cardId,
+            @RequestParam(required = false) Long createdSince,
+            @RequestParam(required = false) Long createdBefore) {
+        TransactionListRequest request = new TransactionListRequest();
+        request.setUserId(userId);
+        request.setCardId(cardId);
+        request.setLimit(100);
+        request.setCreatedSince(createdSince);
+        request.setCreatedBefore(createdBefore);
+
+        return paymentService.exportTransactions(request);
+    }
+
     /**
      * Webhook接收端点
      * POST /api/payment/webhook
@@ -115,10 +188,12 @@ public class PaymentController {
             @RequestHeader(value = "Stripe-Signature", required = false) String stripeSignature,
             @RequestHeader(value = "X-Marqeta-Signature", required = false) String marqetaSignature) {
 
+        // 签名头决定由哪个Provider验证和处理；都没有时按主Provider处理
+        String provider = stripeSignature != null ? "stripe" : marqetaSignature != null ? "marqeta" : null;
         String signature = stripeSignature != null ? stripeSignature : marqetaSignature;
-        log.info("Received webhook event");
+        log.info("Received webhook event from provider: {}", provider != null ? provider : "primary");
 
-        WebhookResult result = paymentService.handleWebhook(payload, signature);
+        WebhookResult result = paymentService.handleWebhook(provider, payload, signature);
         return ResponseEntity.ok(result);
     }
 
@@ -131,4 +206,15 @@ public class PaymentController {
         String provider = paymentService.getActiveProvider();
         return ResponseEntity.ok("OK - Using provider: " + provider);
     }
+
+    /**
+     * 服务商熔断或并发已满时快速失败：503 + Retry-After，请求没有发往服务商
+     */
+    @ExceptionHandler(ProviderUnavailableException.class)
+    public ResponseEntity<ApiResponse<Void>> providerUnavailable(ProviderUnavailableException e) {
+        log.warn("Provider call rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf((e.getRetryAfterMillis() + 999) / 1000))
+            .body(ApiResponse.error("PROVIDER_UNAVAILABLE", e.getMessage()));
+    }
 }
@@ -0,0 +1,104 @@
+package com.vaultcard.controller;
+
+import com.vaultcard.dto.ApiResponse;
+import com.vaultcard.provider.SimulatedPaymentProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for driving the simulated payment provider.
+ *
+ * Only registered when payment.provider.simulated.enabled=true, together with the provider
+ * itself; in every other deployment these endpoints do not exist.
+ *
+ * This is an internal prototype API - not for public use.
+ */
+@RestController
+@RequestMapping("/api/ops/simulated-provider")
+@ConditionalOnProperty(name = "payment.provider.simulated.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SimulatedProviderController {
+
+    private final SimulatedPaymentProvider simulatedPaymentProvider;
+
+    /**
+     * Simulated provider fault settings, in-memory state and call and webhook counts.
+     *
+     * GET /api/ops/simulated-provider
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<SimulatedPaymentProvider.SimulatedProviderStats>> simulatedProviderStats() {
+        return ResponseEntity.ok(ApiResponse.success(simulatedPaymentProvider.getStats()));
+    }
+
+    /**
+     * Change the latency and error rate injected by the simulated provider.
+     *
+     * POST /api/ops/simulated-provider/faults?latencyMs=50&latencyP99Ms=800&errorRate=0.05
+     *
+     * Latency is log-normal with the given median and p99 (fixed when p99 is not above the
+     * median). Only has an effect when the simulated provider receives traffic
+     * (payment.provider.active or routing). Omitted parameters are unchanged.
+     */
+    @PostMapping("/faults")
+    public ResponseEntity<ApiResponse<SimulatedPaymentProvider.SimulatedProviderStats>> setSimulatedProviderFaults(
+            @RequestParam(required = false) Long latencyMs,
+            @RequestParam(required = false) Long latencyP99Ms,
+            @RequestParam(required = false) Double errorRate) {
+        log.info("POST /api/ops/simulated-provider/faults - latencyMs: {}, latencyP99Ms: {}, errorRate: {}",
+                latencyMs, latencyP99Ms, errorRate);
+        try {
+            simulatedPaymentProvider.setFaults(latencyMs, latencyP99Ms, errorRate);
+            return ResponseEntity.ok(ApiResponse.success(simulatedPaymentProvider.getStats()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("BAD_REQUEST", e.getMessage()));
+        }
+    }
+
+    /**
+     * Simulate a purchase on a card issued by the simulated provider.
+     *
+     * POST /api/ops/simulated-provider/cards/{cardId}/authorizations?amountCents=1299&merchant=Shop&mcc=5734
+     *
+     * Sends a signed issuing_authorization.request to the Stripe webhook endpoint and waits for
+     * the decision, as Stripe does. If approved, records the capture and sends
+     * issuing_authorization.created and issuing_transaction.created.
+     */
+    @PostMapping("/cards/{cardId}/authorizations")
+    public ResponseEntity<ApiResponse<SimulatedPaymentProvider.SimulatedAuthorization>> simulateAuthorization(
+            @PathVariable String cardId,
+            @RequestParam long amountCents,
+            @RequestParam(required = false) String merchant,
+            @RequestParam(required = false) String mcc) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(
+                    simulatedPaymentProvider.simulateAuthorization(cardId, amountCents, merchant, mcc)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("BAD_REQUEST", e.getMessage()));
+        }
+    }
+
+    /**
+     * Send a signed payment_intent.succeeded now for a PaymentIntent the simulated provider
+     * created, instead of waiting for the automatic one.
+     *
+     * POST /api/ops/simulated-provider/payment-intents/{paymentId}/succeed
+     *
+     * Unknown and already succeeded intents are rejected.
+     */
+    @PostMapping("/payment-intents/{paymentId}/succeed")
+    public ResponseEntity<ApiResponse<SimulatedPaymentProvider.SimulatedProviderStats>> succeedSimulatedPaymentIntent(
+            @PathVariable String paymentId) {
+        log.info("POST /api/ops/simulated-provider/payment-intents/{}/succeed", paymentId);
+        try {
+            simulatedPaymentProvider.succeedPaymentIntent(paymentId);
+            return ResponseEntity.ok(ApiResponse.success(simulatedPaymentProvider.getStats()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("BAD_REQUEST", e.getMessage()));
+        }
+    }
+}
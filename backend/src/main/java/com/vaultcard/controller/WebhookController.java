@@ -1,8 +1,11 @@
 package com.vaultcard.controller;
 
 import com.vaultcard.service.StripeWebhookService;
+import com.vaultcard.service.WebhookInboxService;
+import com.vaultcard.util.WebhookEventParser.WebhookEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,13 +30,16 @@ import java.util.Map;
 public class WebhookController {
 
     private final StripeWebhookService stripeWebhookService;
+    private final WebhookInboxService webhookInboxService;
 
     /**
      * Stripe webhook endpoint.
      *
      * POST /api/webhooks/stripe
      *
-     * Receives and processes all Stripe webhook events.
+     * Receives all Stripe webhook events. issuing_authorization.request is decided
+     * inline (Stripe waits on the response); every other event is stored in the
+     * webhook inbox and acknowledged immediately, then processed by the worker pool.
      *
      * @param payload   Raw JSON payload from Stripe
      * @param signature Stripe-Signature header for verification
@@ -46,16 +52,32 @@ public class WebhookController {
 
         log.info("POST /api/webhooks/stripe - received webhook");
 
-        // TODO: In production, signature verification is REQUIRED
-        // The signature header is used to verify the webhook came from Stripe
-        if (signature == null || signature.isBlank()) {
-            log.warn("Webhook received without signature - accepting in test mode only");
-            // In production: return ResponseEntity.badRequest().body(Map.of("error", "Missing signature"));
+        // Verified when vaultcard.webhooks.verify-signatures is on (required in production)
+        if (!stripeWebhookService.isSignatureValid(payload, signature)) {
+            log.warn("Webhook rejected - missing or invalid signature");
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid signature"));
         }
 
         try {
+            WebhookEvent event = stripeWebhookService.parseEvent(payload);
+            if (!stripeWebhookService.isSynchronous(event)) {
+                try {
+                    webhookInboxService.enqueue(event, payload, signature);
+                } catch (RuntimeException e) {
+                    // Not stored - do not acknowledge, so Stripe redelivers the event
+                    log.error("Failed to store webhook event {} in the inbox", event.getEventId(), e);
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                            "error", "Event could not be stored - retry later"
+                    ));
+                }
+                return ResponseEntity.ok(Map.of(
+                        "received", true,
+                        "message", "Event queued"
+                ));
+            }
+
             StripeWebhookService.WebhookProcessingResult result =
-                    stripeWebhookService.processWebhook(payload, signature);
+                    stripeWebhookService.processWebhook(event, signature);
 
             if (result.isSuccess()) {
                 log.info("Webhook processed successfully: {}", result.getMessage());
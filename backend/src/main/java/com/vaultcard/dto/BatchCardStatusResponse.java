@@ -0,0 +1,17 @@
+package com.vaultcard.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class BatchCardStatusResponse {
+    private Integer requested;
+    private Integer updated;
+    private Integer failed;
+    private List<CardResponse> cards;
+    private Map<String, String> errors;  // cardId -> 失败原因
+    private Long elapsedMillis;
+}
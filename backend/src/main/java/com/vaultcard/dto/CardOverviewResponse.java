@@ -0,0 +1,12 @@
+package com.vaultcard.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CardOverviewResponse {
+    private CardResponse card;
+    private TransactionListResponse recentTransactions;
+    private Long elapsedMillis;  // 卡片与交易并发获取的总耗时
+}
@@ -7,5 +7,8 @@ public class TransactionListRequest {
     private String userId;
     private String cardId;
     private Integer limit = 20;
-    private Integer offset = 0;
+    private Integer offset = 0;  // 已废弃：各数据源都不支持偏移量，请使用cursor
+    private String cursor;       // 上一页返回的nextCursor，为空表示第一页
+    private Long createdSince;   // 只返回此时间（epoch秒）及之后创建的交易，用于增量同步
+    private Long createdBefore;  // 只返回此时间（epoch秒）之前创建的交易
 }
@@ -12,6 +12,7 @@ public class TransactionListResponse {
     private List<Transaction> transactions;
     private Integer total;
     private Boolean hasMore;
+    private String nextCursor;  // 下一页的游标，没有更多数据时为null
 
     @Data
     @Builder
@@ -23,5 +24,8 @@ public class TransactionListResponse {
         private String status;
         private String type;  // "income", "expense"
         private LocalDateTime createdAt;
+        private String cardId;                // 服务商卡片ID
+        private String authorizationId;       // 服务商授权ID
+        private String merchantCategoryCode;  // MCC
     }
 }
@@ -0,0 +1,81 @@
+package com.vaultcard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * AuthorizationHold entity - funds reserved for an approved issuing authorization.
+ *
+ * Created when an authorization is approved and kept until it is fully captured,
+ * reversed/closed by Stripe, or expires. Only ACTIVE holds are loaded at startup.
+ * Amounts are in cents.
+ */
+@Entity
+@Table(name = "authorization_holds", indexes = {
+        @Index(name = "idx_authorization_holds_status", columnList = "status")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorizationHold {
+
+    /**
+     * Stripe Issuing Authorization ID (e.g., "iauth_xxx")
+     */
+    @Id
+    @Column(name = "authorization_id")
+    private String authorizationId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "stripe_card_id", nullable = false)
+    private String stripeCardId;
+
+    /**
+     * Amount approved
+     */
+    @Column(name = "amount_cents", nullable = false)
+    private Long amountCents;
+
+    /**
+     * Amount still held (not captured or released)
+     */
+    @Column(name = "remaining_cents", nullable = false)
+    private Long remainingCents;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HoldStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * When the hold is released if Stripe has not closed the authorization by then
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum HoldStatus {
+        ACTIVE,     // Amount (or part of it) still held
+        CAPTURED,   // Fully captured
+        REVERSED,   // Authorization reversed or closed; remainder released
+        EXPIRED     // Released by us after the expiry period
+    }
+}
@@ -37,6 +37,15 @@ public class IssuingCard {
     @Column(name = "stripe_card_id", unique = true)
     private String stripeCardId;
 
+    /**
+     * Payment provider that issued the card (e.g., "stripe", "marqeta"); stripeCardId is
+     * that provider's card ID. Calls for the card always go to this provider.
+     * Null for cards created before multi-provider routing - those belong to the
+     * provider configured in payment.provider.active.
+     */
+    @Column(length = 32)
+    private String provider;
+
     /**
      * Last 4 digits of card number (safe to store and display)
      */
@@ -16,7 +16,12 @@ import java.time.LocalDateTime;
  * IMPORTANT: Never store sensitive card data. Only use Stripe transaction IDs.
  */
 @Entity
-@Table(name = "issuing_transactions")
+@Table(name = "issuing_transactions", indexes = {
+        @Index(name = "idx_issuing_transactions_user_created", columnList = "user_id, created_at DESC, id"),
+        @Index(name = "idx_issuing_transactions_card_created", columnList = "stripe_card_id, created_at DESC, id"),
+        // Hold release/expiry status updates and capture-to-authorization matching
+        @Index(name = "idx_issuing_transactions_authorization_created", columnList = "stripe_authorization_id, created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -109,7 +114,7 @@ public class IssuingTransaction {
     private String declineReason;
 
     /**
-     * Timestamp from Stripe when transaction was created
+     * Timestamp from Stripe when transaction was created, as UTC wall-clock time
      */
     @Column(name = "stripe_created_at")
     private LocalDateTime stripeCreatedAt;
@@ -122,7 +127,10 @@ public class IssuingTransaction {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Backfilled transactions keep the provider's creation time so they sort correctly
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
         updatedAt = LocalDateTime.now();
     }
 
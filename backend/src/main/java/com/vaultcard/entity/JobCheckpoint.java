@@ -0,0 +1,103 @@
+package com.vaultcard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * JobCheckpoint entity - progress of a chunked background job.
+ *
+ * One row per job run partition (e.g. monthly spend reset for one timezone and month).
+ * The job records the last processed key after every chunk, so a run interrupted by a
+ * crash or restart resumes where it stopped instead of starting over.
+ */
+@Entity
+@Table(name = "job_checkpoints",
+        uniqueConstraints = @UniqueConstraint(name = "uk_job_checkpoints_run",
+                columnNames = {"job_name", "partition_key", "period"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    /**
+     * Job name (e.g., "monthly-spend-reset")
+     */
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    /**
+     * Partition of the job this row tracks (e.g., a timezone ID)
+     */
+    @Column(name = "partition_key", nullable = false)
+    private String partitionKey;
+
+    /**
+     * Period the run applies to (e.g., "2026-10")
+     */
+    @Column(nullable = false, length = 16)
+    private String period;
+
+    /**
+     * Last key processed - the next chunk starts after it
+     */
+    @Column(name = "last_key")
+    @Builder.Default
+    private String lastKey = "";
+
+    /**
+     * Rows updated so far in this run
+     */
+    @Builder.Default
+    private long processed = 0;
+
+    /**
+     * Chunks completed so far in this run
+     */
+    @Builder.Default
+    private int chunks = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private CheckpointStatus status = CheckpointStatus.RUNNING;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (startedAt == null) {
+            startedAt = LocalDateTime.now();
+        }
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Checkpoint status enum
+     */
+    public enum CheckpointStatus {
+        RUNNING,    // In progress, or interrupted and waiting to resume
+        COMPLETED   // All rows in the partition processed
+    }
+}
@@ -0,0 +1,91 @@
+package com.vaultcard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * LedgerEntry entity - one side of a double-entry journal in the balance ledger.
+ *
+ * Append-only: entries are never updated or deleted. The entries of one journal
+ * share a journalId and their amounts sum to zero. Each account numbers its own
+ * entries with a consecutive sequence, which snapshots refer to.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ledger_entries_account_sequence",
+                columnNames = {"account_id", "account_sequence"}),
+        indexes = {
+                @Index(name = "idx_ledger_entries_journal", columnList = "journal_id"),
+                @Index(name = "idx_ledger_entries_authorization", columnList = "authorization_id")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    /**
+     * Journal this entry belongs to (all entries of a journal sum to zero)
+     */
+    @Column(name = "journal_id", nullable = false)
+    private String journalId;
+
+    /**
+     * Ledger account, e.g. "user:{userId}:available" or "external:card-network"
+     */
+    @Column(name = "account_id", nullable = false)
+    private String accountId;
+
+    /**
+     * Position of this entry in the account's history, starting at 1
+     */
+    @Column(name = "account_sequence", nullable = false)
+    private Long accountSequence;
+
+    /**
+     * Signed amount in cents (positive increases the account balance)
+     */
+    @Column(name = "amount_cents", nullable = false)
+    private Long amountCents;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false)
+    private EntryType entryType;
+
+    /**
+     * What caused the journal: funding transaction ID, Stripe transaction ID or authorization ID
+     */
+    @Column(name = "reference_id")
+    private String referenceId;
+
+    /**
+     * Stripe authorization the journal belongs to, for hold bookkeeping
+     */
+    @Column(name = "authorization_id")
+    private String authorizationId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum EntryType {
+        FUNDING,           // Top-up credited to available
+        FUNDING_REVERSAL,  // Top-up refunded or charged back
+        HOLD,              // Approved authorization moves available -> held
+        HOLD_RELEASE,      // Authorization reversed, expired or closed
+        CAPTURE,           // Settled card spend
+        REFUND,            // Merchant refund back to available
+        TRANSFER,          // Generic transfer (benchmarks)
+        OPENING_BALANCE    // Balance from before the ledger, seeded from the balance summary
+    }
+}
@@ -0,0 +1,48 @@
+package com.vaultcard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * LedgerSnapshot entity - balance of a ledger account as of one of its entries.
+ *
+ * Written every N entries per account, in the same database transaction as the
+ * entry it refers to. An account's balance is its latest snapshot plus the
+ * entries after it, so loading an account never sums more than N entries.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_snapshots", indexes = {
+        @Index(name = "idx_ledger_snapshots_account_sequence", columnList = "account_id, account_sequence DESC")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "account_id", nullable = false)
+    private String accountId;
+
+    /**
+     * Sequence of the last entry included in the balance
+     */
+    @Column(name = "account_sequence", nullable = false)
+    private Long accountSequence;
+
+    @Column(name = "balance_cents", nullable = false)
+    private Long balanceCents;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
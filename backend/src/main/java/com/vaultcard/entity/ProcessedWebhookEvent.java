@@ -0,0 +1,62 @@
+package com.vaultcard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * ProcessedWebhookEvent entity - records a Stripe event ID that has already been applied.
+ *
+ * The primary key is the Stripe event ID, so a redelivered event cannot be recorded
+ * twice: the second insert fails and rolls back its side effects. Rows older than the
+ * dedup TTL are swept, since Stripe stops retrying after a few days.
+ */
+@Entity
+@Table(name = "processed_webhook_events",
+        indexes = @Index(name = "idx_processed_webhook_events_processed_at", columnList = "processed_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedWebhookEvent implements Persistable<String> {
+
+    /**
+     * Stripe Event ID (e.g., "evt_xxx")
+     */
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+
+    /**
+     * Stripe event type (e.g., "issuing_transaction.created")
+     */
+    @Column(name = "event_type")
+    private String eventType;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    /**
+     * Always insert (never merge) new rows, so a duplicate is a constraint violation
+     * instead of a silent SELECT + UPDATE.
+     */
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    @Override
+    public String getId() {
+        return eventId;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+}
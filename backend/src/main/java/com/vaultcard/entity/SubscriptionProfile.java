@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
  * with separate cards and spending limits.
  */
 @Entity
-@Table(name = "subscription_profiles")
+@Table(name = "subscription_profiles",
+        indexes = @Index(name = "idx_subscription_profiles_spend_period", columnList = "spend_period, id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -59,6 +60,13 @@ public class SubscriptionProfile {
     @Builder.Default
     private BigDecimal currentMonthSpent = BigDecimal.ZERO;
 
+    /**
+     * Month (yyyy-MM, in the user's timezone) that currentMonthSpent belongs to.
+     * Set at creation and advanced by the monthly reset job.
+     */
+    @Column(name = "spend_period", length = 7)
+    private String spendPeriod;
+
     /**
      * Profile status
      */
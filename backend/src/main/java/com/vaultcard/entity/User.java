@@ -6,7 +6,10 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 
 /**
  * User entity - represents an internal/whitelist user of the VaultCard system.
@@ -38,6 +41,14 @@ public class User {
     @Column(length = 2)
     private String country;
 
+    /**
+     * IANA timezone (e.g., "America/New_York") - monthly spend rolls over at
+     * midnight on the 1st in this zone
+     */
+    @Column(length = 64)
+    @Builder.Default
+    private String timezone = "UTC";
+
     /**
      * KYC verification status.
      * For internal prototype, this is managed manually.
@@ -82,6 +93,20 @@ public class User {
         updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * Timezone as a ZoneId, falling back to UTC when unset or invalid
+     */
+    public ZoneId zoneId() {
+        if (timezone == null || timezone.isBlank()) {
+            return ZoneOffset.UTC;
+        }
+        try {
+            return ZoneId.of(timezone);
+        } catch (DateTimeException e) {
+            return ZoneOffset.UTC;
+        }
+    }
+
     /**
      * KYC Status enum
      */
@@ -0,0 +1,62 @@
+package com.vaultcard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * UserBalanceSummary entity - running per-user money totals for dashboards.
+ *
+ * Maintained incrementally in the same database transaction as every funding status
+ * change and card transaction write, so reading a user's totals is a primary key
+ * lookup instead of SUM scans over funding_transactions and issuing_transactions.
+ * The totals use exactly the definitions of the raw SUM queries, so they can be
+ * checked against them and rebuilt from them.
+ */
+@Entity
+@Table(name = "user_balance_summary")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBalanceSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    /**
+     * Sum of SUCCEEDED funding transactions
+     */
+    @Column(name = "total_funded", nullable = false, precision = 19, scale = 4)
+    @Builder.Default
+    private BigDecimal totalFunded = BigDecimal.ZERO;
+
+    /**
+     * Sum of APPROVED PURCHASE card transactions
+     */
+    @Column(name = "total_spent", nullable = false, precision = 19, scale = 4)
+    @Builder.Default
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    /**
+     * totalFunded - totalSpent
+     */
+    @Column(name = "available_balance", nullable = false, precision = 19, scale = 4)
+    @Builder.Default
+    private BigDecimal availableBalance = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
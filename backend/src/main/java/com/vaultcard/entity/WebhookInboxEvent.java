@@ -0,0 +1,110 @@
+package com.vaultcard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * WebhookInboxEvent entity - a raw webhook payload accepted but not yet fully processed.
+ *
+ * Asynchronous Stripe events are stored here before the endpoint returns 200,
+ * then drained by the webhook worker pool. Rows survive restarts, so nothing
+ * acknowledged to Stripe is lost if the process dies mid-queue.
+ */
+@Entity
+@Table(name = "webhook_inbox",
+        indexes = {
+                @Index(name = "idx_webhook_inbox_status_received", columnList = "status, received_at"),
+                @Index(name = "idx_webhook_inbox_status_processed", columnList = "status, processed_at")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookInboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    /**
+     * Stripe Event ID (e.g., "evt_xxx")
+     */
+    @Column(name = "event_id")
+    private String eventId;
+
+    /**
+     * Stripe event type (e.g., "issuing_transaction.created")
+     */
+    @Column(name = "event_type")
+    private String eventType;
+
+    /**
+     * Raw JSON payload exactly as received
+     */
+    @Column(nullable = false, length = 262144)
+    private String payload;
+
+    /**
+     * Stripe-Signature header, kept for verification at processing time
+     */
+    @Column(length = 512)
+    private String signature;
+
+    /**
+     * Processing status
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private InboxStatus status = InboxStatus.RECEIVED;
+
+    /**
+     * Number of processing attempts so far
+     */
+    @Builder.Default
+    private int attempts = 0;
+
+    /**
+     * Error message from the last failed attempt
+     */
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+
+    /**
+     * When a worker last claimed this event (used to recover events from crashed workers)
+     */
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    /**
+     * Earliest time the sweeper may retry this event after a failed attempt (null = now)
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @PrePersist
+    protected void onCreate() {
+        receivedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Inbox event status
+     */
+    public enum InboxStatus {
+        RECEIVED,       // Stored, waiting for a worker
+        PROCESSING,     // Claimed by a worker
+        PROCESSED,      // Processed successfully
+        FAILED          // Gave up after max attempts
+    }
+}
@@ -0,0 +1,71 @@
+package com.vaultcard.provider;
+
+import com.vaultcard.dto.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 阻塞Provider到ReactivePaymentProvider的适配器
+ *
+ * 用于没有原生非阻塞实现的Provider（如Marqeta）：每次调用在boundedElastic调度器上执行，
+ * 订阅方线程不被阻塞，但每个进行中的调用仍占用一个线程
+ * 组合调用（Mono.zip、flatMap扇出）照常并发，只是并发度受调度器线程数限制
+ */
+public class BlockingReactivePaymentProvider implements ReactivePaymentProvider {
+
+    private final PaymentProvider delegate;
+    private final Scheduler scheduler;
+
+    public BlockingReactivePaymentProvider(PaymentProvider delegate) {
+        this(delegate, Schedulers.boundedElastic());
+    }
+
+    public BlockingReactivePaymentProvider(PaymentProvider delegate, Scheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 被适配的Provider
+     */
+    public PaymentProvider getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Mono<PaymentIntentResponse> createPaymentIntent(PaymentIntentRequest request) {
+        return call(() -> delegate.createPaymentIntent(request));
+    }
+
+    @Override
+    public Mono<CardResponse> createCard(CreateCardRequest request) {
+        return call(() -> delegate.createCard(request));
+    }
+
+    @Override
+    public Mono<CardResponse> getCard(String cardId) {
+        return call(() -> delegate.getCard(cardId));
+    }
+
+    @Override
+    public Mono<CardResponse> updateCardStatus(String cardId, boolean freeze) {
+        return call(() -> delegate.updateCardStatus(cardId, freeze));
+    }
+
+    @Override
+    public Mono<TransactionListResponse> listTransactions(TransactionListRequest request) {
+        return call(() -> delegate.listTransactions(request));
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    private <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,107 @@
+package com.vaultcard.provider;
+
+import com.vaultcard.dto.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 带指标的Provider装饰器
+ *
+ * 每个接口方法记录一个 vaultcard.provider.requests 计时器，
+ * 标签为 provider（服务商名称）、method（方法名）、outcome（success/error）
+ * SLO分桶在 management.metrics.distribution.slo.vaultcard.provider.requests 中配置
+ */
+public class MeteredPaymentProvider implements PaymentProvider {
+
+    private final PaymentProvider delegate;
+    private final MeterRegistry meterRegistry;
+    private final String providerName;
+
+    // 按 "method|outcome" 缓存计时器，避免每次调用都查找注册表
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MeteredPaymentProvider(PaymentProvider delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.providerName = delegate.getProviderName();
+    }
+
+    /**
+     * 被装饰的Provider
+     */
+    public PaymentProvider getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public PaymentIntentResponse createPaymentIntent(PaymentIntentRequest request) {
+        return timed("createPaymentIntent", () -> delegate.createPaymentIntent(request));
+    }
+
+    @Override
+    public CardResponse createCard(CreateCardRequest request) {
+        return timed("createCard", () -> delegate.createCard(request));
+    }
+
+    @Override
+    public CardResponse getCard(String cardId) {
+        return timed("getCard", () -> delegate.getCard(cardId));
+    }
+
+    @Override
+    public CardResponse updateCardStatus(String cardId, boolean freeze) {
+        return timed("updateCardStatus", () -> delegate.updateCardStatus(cardId, freeze));
+    }
+
+    @Override
+    public BatchCardStatusResponse updateCardStatuses(List<String> cardIds, boolean freeze) {
+        return timed("updateCardStatuses", () -> delegate.updateCardStatuses(cardIds, freeze));
+    }
+
+    @Override
+    public TransactionListResponse listTransactions(TransactionListRequest request) {
+        return timed("listTransactions", () -> delegate.listTransactions(request));
+    }
+
+    @Override
+    public String getProviderName() {
+        return providerName;
+    }
+
+    @Override
+    public boolean verifyWebhookSignature(String payload, String signature) {
+        return timed("verifyWebhookSignature", () -> delegate.verifyWebhookSignature(payload, signature));
+    }
+
+    @Override
+    public WebhookResult handleWebhook(String payload) {
+        return timed("handleWebhook", () -> delegate.handleWebhook(payload));
+    }
+
+    private <T> T timed(String method, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(method, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String method, String outcome) {
+        return timers.computeIfAbsent(method + '|' + outcome, key -> Timer.builder("vaultcard.provider.requests")
+            .description("Payment provider call time by method")
+            .tag("provider", providerName)
+            .tag("method", method)
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+    }
+}
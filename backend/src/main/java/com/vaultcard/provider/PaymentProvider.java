@@ -2,6 +2,10 @@ package com.vaultcard.provider;
 
 import com.vaultcard.dto.*;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 支付服务提供商抽象接口
@@ -42,6 +46,35 @@ public interface PaymentProvider {
      */
     CardResponse updateCardStatus(String cardId, boolean freeze);
 
+    /**
+     * 批量冻结/解冻卡片
+     * 默认逐张调用updateCardStatus；支持并发的Provider应覆盖此方法
+     * 单张失败不影响其他卡片，失败原因记录在errors中
+     * @param cardIds 卡片ID列表
+     * @param freeze true=冻结，false=解冻
+     * @return 批量结果
+     */
+    default BatchCardStatusResponse updateCardStatuses(List<String> cardIds, boolean freeze) {
+        long start = System.currentTimeMillis();
+        List<CardResponse> cards = new ArrayList<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (String cardId : cardIds) {
+            try {
+                cards.add(updateCardStatus(cardId, freeze));
+            } catch (RuntimeException e) {
+                errors.put(cardId, e.getMessage());
+            }
+        }
+        return BatchCardStatusResponse.builder()
+            .requested(cardIds.size())
+            .updated(cards.size())
+            .failed(errors.size())
+            .cards(cards)
+            .errors(errors)
+            .elapsedMillis(System.currentTimeMillis() - start)
+            .build();
+    }
+
     /**
      * 获取交易列表
      * @param request 查询请求
@@ -0,0 +1,381 @@
+package com.vaultcard.provider;
+
+import com.stripe.exception.StripeException;
+import com.vaultcard.util.Bulkhead;
+import com.vaultcard.util.CircuitBreaker;
+import com.vaultcard.util.LatencyHistogram;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Provider调用的熔断器和舱壁
+ *
+ * Stripe变慢时，每个调用都会阻塞到SDK超时，Tomcat线程池被耗尽，
+ * 连Webhook和只读本地数据的接口也一起不可用。这里对每个Provider：
+ * - 每个接口一个舱壁（有界信号量）：槽位占满后，新调用最多等待max-wait-ms就被拒绝，
+ *   慢Provider最多占用各接口槽位之和个线程
+ * - 一个熔断器：最近window-size次调用中失败（含超过slow-call-ms的慢调用）比例达到阈值时打开，
+ *   打开期间所有调用直接拒绝；open-ms之后放行half-open-probes个探测调用，全部成功才关闭
+ *
+ * 被拒绝的调用抛出ProviderUnavailableException，不会发往Provider
+ * 只有Provider自身的故障计入熔断：连接失败、超时、429、5xx；卡片不存在、参数错误等4xx不计入
+ *
+ * 状态按Provider名称共享，PaymentService、ProviderRouter和TransactionMirror对同一Provider看到同一个熔断器
+ * 每个Provider的调用次数、错误数和耗时分布也在这里统计（关闭熔断和舱壁时照常统计），供路由决策参考
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProviderGuard {
+
+    /** 读接口：舱壁使用 max-concurrent-reads，其余接口使用 max-concurrent-writes */
+    private static final Set<String> READ_OPERATIONS = Set.of("getCard", "listTransactions");
+
+    /** 舱壁拒绝时建议的重试间隔 */
+    private static final long BULKHEAD_RETRY_AFTER_MS = 1000;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${vaultcard.provider-resilience.enabled:true}")
+    private boolean enabled;
+
+    @Value("${vaultcard.provider-resilience.circuit-breaker.window-size:50}")
+    private int windowSize;
+
+    @Value("${vaultcard.provider-resilience.circuit-breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${vaultcard.provider-resilience.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${vaultcard.provider-resilience.circuit-breaker.slow-call-ms:3000}")
+    private long slowCallMs;
+
+    @Value("${vaultcard.provider-resilience.circuit-breaker.open-ms:10000}")
+    private long openMs;
+
+    @Value("${vaultcard.provider-resilience.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    @Value("${vaultcard.provider-resilience.bulkhead.max-concurrent-reads:40}")
+    private int maxConcurrentReads;
+
+    @Value("${vaultcard.provider-resilience.bulkhead.max-concurrent-writes:20}")
+    private int maxConcurrentWrites;
+
+    @Value("${vaultcard.provider-resilience.bulkhead.max-wait-ms:50}")
+    private long maxWaitMs;
+
+    private final Map<String, CallStats> callStats = new ConcurrentHashMap<>();
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    // "provider|operation" -> 舱壁
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 给Provider加上熔断和舱壁；未启用时只统计，不拒绝调用
+     */
+    public PaymentProvider guard(PaymentProvider provider) {
+        return new ResilientPaymentProvider(provider, this);
+    }
+
+    /**
+     * 给非阻塞Provider加上熔断和舱壁；未启用时只统计，不拒绝调用
+     */
+    public ReactivePaymentProvider guard(ReactivePaymentProvider provider) {
+        return new ResilientReactivePaymentProvider(provider, this);
+    }
+
+    /**
+     * 在熔断器和舱壁的保护下执行一次阻塞调用
+     * @throws ProviderUnavailableException 熔断器打开或舱壁已满
+     */
+    public <T> T call(String provider, String operation, Supplier<T> call) {
+        CallStats stats = callStats(provider);
+        CircuitBreaker breaker = null;
+        Bulkhead bulkhead = null;
+        long permit = 0;
+        if (enabled) {
+            breaker = breaker(provider);
+            permit = breaker.tryAcquire();
+            if (permit == CircuitBreaker.REJECTED) {
+                stats.rejected.incrementAndGet();
+                throw circuitOpen(provider, operation, breaker);
+            }
+            bulkhead = bulkhead(provider, operation);
+            if (!bulkhead.acquire()) {
+                breaker.release(permit);
+                stats.rejected.incrementAndGet();
+                throw bulkheadFull(provider, operation);
+            }
+        }
+
+        long start = System.nanoTime();
+        boolean error = true;
+        boolean fault = true;
+        try {
+            T result = call.get();
+            error = false;
+            fault = false;
+            return result;
+        } catch (RuntimeException e) {
+            fault = isProviderFault(e);
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            stats.record(nanos, error, fault);
+            if (bulkhead != null) {
+                bulkhead.release();
+                breaker.onResult(permit, nanos, fault);
+            }
+        }
+    }
+
+    /**
+     * 在熔断器和舱壁的保护下执行一次非阻塞调用
+     * 舱壁不等待：没有空闲槽位时立即以ProviderUnavailableException结束；取消的调用不计入熔断
+     */
+    public <T> Mono<T> call(String provider, String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            CallStats stats = callStats(provider);
+            CircuitBreaker breaker = enabled ? breaker(provider) : null;
+            Bulkhead bulkhead = enabled ? bulkhead(provider, operation) : null;
+            long permit = 0;
+            if (enabled) {
+                permit = breaker.tryAcquire();
+                if (permit == CircuitBreaker.REJECTED) {
+                    stats.rejected.incrementAndGet();
+                    return Mono.error(circuitOpen(provider, operation, breaker));
+                }
+                if (!bulkhead.tryAcquire()) {
+                    breaker.release(permit);
+                    stats.rejected.incrementAndGet();
+                    return Mono.error(bulkheadFull(provider, operation));
+                }
+            }
+
+            long start = System.nanoTime();
+            long granted = permit;
+            boolean[] fault = new boolean[1];
+            return call
+                .doOnError(e -> fault[0] = isProviderFault(e))
+                .doFinally(signal -> {
+                    long nanos = System.nanoTime() - start;
+                    if (signal != SignalType.CANCEL) {
+                        stats.record(nanos, signal == SignalType.ON_ERROR, fault[0]);
+                    }
+                    if (bulkhead == null) {
+                        return;
+                    }
+                    bulkhead.release();
+                    if (signal == SignalType.CANCEL) {
+                        breaker.release(granted);
+                    } else {
+                        breaker.onResult(granted, nanos, fault[0]);
+                    }
+                });
+        });
+    }
+
+    /**
+     * 各Provider的熔断器状态和各接口舱壁使用情况
+     */
+    public Map<String, ProviderResilienceStats> getStats() {
+        Map<String, ProviderResilienceStats> stats = new TreeMap<>();
+        callStats.forEach((provider, calls) -> {
+            CircuitBreaker breaker = breakers.get(provider);
+            Map<String, Bulkhead.Snapshot> operations = new TreeMap<>();
+            bulkheads.forEach((key, bulkhead) -> {
+                if (key.startsWith(provider + '|')) {
+                    operations.put(key.substring(provider.length() + 1), bulkhead.snapshot());
+                }
+            });
+            stats.put(provider, ProviderResilienceStats.builder()
+                .enabled(enabled)
+                .calls(calls.snapshot())
+                .circuitBreaker(breaker != null ? breaker.snapshot() : null)
+                .bulkheads(operations)
+                .build());
+        });
+        return stats;
+    }
+
+    /**
+     * 单个Provider的调用统计（没有调用过时为空统计）
+     */
+    public ProviderCallStats getCallStats(String provider) {
+        CallStats stats = callStats.get(provider);
+        return stats != null ? stats.snapshot() : new CallStats().snapshot();
+    }
+
+    /**
+     * 失败是否说明Provider本身有问题（计入熔断）
+     * 请求本身有误（4xx，429除外）或本地校验失败不计入，否则一个不存在的卡片ID就能打开熔断器
+     */
+    static boolean isProviderFault(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IllegalArgumentException || t instanceof UnsupportedOperationException) {
+                return false;
+            }
+            if (t instanceof StripeException stripe && stripe.getStatusCode() != null) {
+                return isServerStatus(stripe.getStatusCode());
+            }
+            if (t instanceof StripeReactivePaymentProvider.StripeHttpException http) {
+                return isServerStatus(http.getStatus());
+            }
+        }
+        return true;
+    }
+
+    // ========== Private Helper Methods ==========
+
+    private static boolean isServerStatus(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private CallStats callStats(String provider) {
+        return callStats.computeIfAbsent(provider, name -> new CallStats());
+    }
+
+    private CircuitBreaker breaker(String provider) {
+        return breakers.computeIfAbsent(provider, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                TimeUnit.MILLISECONDS.toNanos(slowCallMs), TimeUnit.MILLISECONDS.toNanos(openMs), halfOpenProbes);
+            breaker.onStateChange(state -> {
+                if (state == CircuitBreaker.State.OPEN) {
+                    log.warn("Circuit breaker for provider {} OPEN - rejecting calls for {}ms", name, openMs);
+                } else {
+                    log.info("Circuit breaker for provider {} {}", name, state);
+                }
+            });
+            // 0=CLOSED 1=OPEN 2=HALF_OPEN
+            Gauge.builder("vaultcard.provider.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("Provider circuit breaker state (0 closed, 1 open, 2 half-open)")
+                .tag("provider", name)
+                .register(meterRegistry);
+            Gauge.builder("vaultcard.provider.circuit.failure.rate", breaker,
+                    b -> b.snapshot().getFailureRatePercent())
+                .description("Failure rate (percent) over the breaker's call window")
+                .tag("provider", name)
+                .register(meterRegistry);
+            FunctionCounter.builder("vaultcard.provider.circuit.rejected", breaker, b -> b.snapshot().getRejected())
+                .description("Provider calls rejected by the open circuit breaker")
+                .tag("provider", name)
+                .register(meterRegistry);
+            FunctionCounter.builder("vaultcard.provider.circuit.opened", breaker, b -> b.snapshot().getOpened())
+                .description("Times the provider circuit breaker opened")
+                .tag("provider", name)
+                .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private Bulkhead bulkhead(String provider, String operation) {
+        return bulkheads.computeIfAbsent(provider + '|' + operation, key -> {
+            int maxConcurrent = READ_OPERATIONS.contains(operation) ? maxConcurrentReads : maxConcurrentWrites;
+            Bulkhead bulkhead = new Bulkhead(maxConcurrent, maxWaitMs);
+            Gauge.builder("vaultcard.provider.bulkhead.active", bulkhead, Bulkhead::getActive)
+                .description("Provider calls in progress by method")
+                .tag("provider", provider)
+                .tag("method", operation)
+                .register(meterRegistry);
+            FunctionCounter.builder("vaultcard.provider.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+                .description("Provider calls rejected because the method's bulkhead was full")
+                .tag("provider", provider)
+                .tag("method", operation)
+                .register(meterRegistry);
+            return bulkhead;
+        });
+    }
+
+    private ProviderUnavailableException circuitOpen(String provider, String operation, CircuitBreaker breaker) {
+        log.debug("Circuit open for {}, rejecting {}", provider, operation);
+        return new ProviderUnavailableException(provider, operation, "circuit open",
+            Math.max(breaker.retryAfterMillis(), BULKHEAD_RETRY_AFTER_MS));
+    }
+
+    private ProviderUnavailableException bulkheadFull(String provider, String operation) {
+        log.debug("Bulkhead full for {}.{}, rejecting call", provider, operation);
+        return new ProviderUnavailableException(provider, operation, "too many concurrent calls",
+            BULKHEAD_RETRY_AFTER_MS);
+    }
+
+    /**
+     * 单个Provider的调用计数和耗时（被拒绝的调用不计入耗时）
+     */
+    private static class CallStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong faults = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        void record(long nanos, boolean error, boolean fault) {
+            calls.incrementAndGet();
+            latency.record(nanos);
+            if (error) {
+                errors.incrementAndGet();
+            }
+            if (fault) {
+                faults.incrementAndGet();
+            }
+        }
+
+        ProviderCallStats snapshot() {
+            long total = calls.get();
+            return ProviderCallStats.builder()
+                .calls(total)
+                .errors(errors.get())
+                .faults(faults.get())
+                .rejected(rejected.get())
+                .errorRatePercent(total == 0 ? 0 : errors.get() * 100.0 / total)
+                .latency(latency.snapshot())
+                .build();
+        }
+    }
+
+    /**
+     * Provider调用统计
+     * errors为所有失败的调用，faults为其中归因于Provider的（计入熔断的）
+     */
+    @Data
+    @Builder
+    public static class ProviderCallStats {
+        private long calls;
+        private long errors;
+        private long faults;
+        private long rejected;
+        private double errorRatePercent;
+        private LatencyHistogram.Snapshot latency;
+    }
+
+    /**
+     * 单个Provider的调用统计、熔断与舱壁状态
+     */
+    @Data
+    @Builder
+    public static class ProviderResilienceStats {
+        private boolean enabled;
+        private ProviderCallStats calls;
+        private CircuitBreaker.Snapshot circuitBreaker;
+        private Map<String, Bulkhead.Snapshot> bulkheads;
+    }
+}
@@ -0,0 +1,407 @@
+package com.vaultcard.provider;
+
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.entity.User;
+import com.vaultcard.repository.UserRepository;
+import com.vaultcard.service.CardCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 多Provider路由
+ *
+ * 按请求选择Provider，不再在启动时绑定唯一的一个：
+ * - 已有卡片的操作（查询、冻结、交易）：发往发卡的Provider（IssuingCard.provider），
+ *   卡片始终留在发卡方；没有记录的卡片属于 payment.provider.active（启动时的主Provider）
+ * - 新业务（开卡、充值）：依次按用户指定、国家分组、权重分流选择；
+ *   权重按用户ID哈希，同一用户在权重不变时总是落到同一个Provider
+ *
+ * 路由表可以通过 POST /api/ops/provider-routing 在运行时整体替换，不需要重启：
+ * 把慢Provider的权重调为0即可把新流量切走（已有卡片仍发往原Provider）
+ *
+ * 每个Provider的调用都经过MeteredPaymentProvider和ProviderGuard，
+ * 耗时和错误统计按Provider名称在ProviderGuard中汇总
+ */
+@Slf4j
+@Component
+public class ProviderRouter {
+
+    private final Map<String, PaymentProvider> providers = new LinkedHashMap<>();
+    private final Map<String, ReactivePaymentProvider> reactiveProviders = new LinkedHashMap<>();
+    private final String primary;
+    private final CardCache cardCache;
+    private final UserRepository userRepository;
+    private final ProviderGuard providerGuard;
+    private final MeterRegistry meterRegistry;
+
+    // "provider|reason" -> 选择次数
+    private final Map<String, Counter> selections = new ConcurrentHashMap<>();
+
+    private volatile RoutingTable table;
+
+    public ProviderRouter(Map<String, PaymentProvider> providerBeans,
+                          Map<String, ReactivePaymentProvider> reactiveBeans,
+                          @Value("${payment.provider.active}") String primary,
+                          @Value("${payment.provider.routing.weights:}") String weights,
+                          @Value("${payment.provider.routing.user-overrides:}") String userOverrides,
+                          @Value("${payment.provider.routing.country-overrides:}") String countryOverrides,
+                          CardCache cardCache,
+                          UserRepository userRepository,
+                          ProviderGuard providerGuard,
+                          MeterRegistry meterRegistry) {
+        this.cardCache = cardCache;
+        this.userRepository = userRepository;
+        this.providerGuard = providerGuard;
+        this.meterRegistry = meterRegistry;
+
+        // Bean名称为 xxxProvider / xxxReactiveProvider，按 xxx（即getProviderName）注册
+        providerBeans.forEach((beanName, provider) -> {
+            String name = provider.getProviderName();
+            PaymentProvider guarded = providerGuard.guard(new MeteredPaymentProvider(provider, meterRegistry));
+            providers.put(name, guarded);
+            ReactivePaymentProvider reactive = reactiveBeans.get(name + "ReactiveProvider");
+            // 适配器包装的是已受保护的阻塞Provider，不再重复包装
+            reactiveProviders.put(name, reactive != null
+                ? providerGuard.guard(reactive)
+                : new BlockingReactivePaymentProvider(guarded));
+        });
+        if (!providers.containsKey(primary)) {
+            throw new IllegalStateException("Unknown payment provider: " + primary);
+        }
+        this.primary = primary;
+
+        RoutingConfig initial = RoutingConfig.builder()
+            .weights(parseWeights(weights))
+            .userOverrides(parsePairs(userOverrides))
+            .countryOverrides(parsePairs(countryOverrides))
+            .build();
+        if (initial.getWeights().isEmpty()) {
+            initial.setWeights(Map.of(primary, 100));
+        }
+        this.table = compile(initial);
+
+        for (String name : providers.keySet()) {
+            Gauge.builder("vaultcard.provider.routing.weight", this, router -> router.table.weightOf(name))
+                .description("Routing weight of the provider for new business")
+                .tag("provider", name)
+                .register(meterRegistry);
+        }
+        log.info("Provider routing: primary {}, {}", primary, initial);
+    }
+
+    /**
+     * 为用户的新业务（开卡、充值）选择Provider
+     */
+    public PaymentProvider forUser(String userId) {
+        return providers.get(selectForUser(userId));
+    }
+
+    /**
+     * 非阻塞版本的forUser
+     */
+    public ReactivePaymentProvider reactiveForUser(String userId) {
+        return reactiveProviders.get(selectForUser(userId));
+    }
+
+    /**
+     * 卡片所属的Provider（按服务商卡片ID）
+     */
+    public PaymentProvider forCard(String providerCardId) {
+        return providers.get(providerOfCard(providerCardId));
+    }
+
+    /**
+     * 非阻塞版本的forCard
+     */
+    public ReactivePaymentProvider reactiveForCard(String providerCardId) {
+        return reactiveProviders.get(providerOfCard(providerCardId));
+    }
+
+    /**
+     * 按名称获取Provider
+     * @throws IllegalArgumentException 未知的Provider
+     */
+    public PaymentProvider byName(String name) {
+        PaymentProvider provider = providers.get(name);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unknown payment provider: " + name);
+        }
+        return provider;
+    }
+
+    /**
+     * 按名称获取非阻塞Provider
+     * @throws IllegalArgumentException 未知的Provider
+     */
+    public ReactivePaymentProvider reactiveByName(String name) {
+        byName(name);
+        return reactiveProviders.get(name);
+    }
+
+    /**
+     * 服务商卡片ID对应的Provider名称；没有本地记录或没有记录Provider时为主Provider
+     */
+    public String providerOfCard(String providerCardId) {
+        String name = cardCache.findByStripeCardId(providerCardId)
+            .map(this::providerOf)
+            .orElse(primary);
+        count(name, "card");
+        return name;
+    }
+
+    /**
+     * 本地卡片记录所属的Provider名称
+     */
+    public String providerOf(IssuingCard card) {
+        String name = card.getProvider();
+        return name != null && providers.containsKey(name) ? name : primary;
+    }
+
+    /**
+     * 已注册的Provider名称
+     */
+    public Set<String> getProviderNames() {
+        return Collections.unmodifiableSet(providers.keySet());
+    }
+
+    /**
+     * 启动时配置的主Provider（payment.provider.active）
+     */
+    public String getPrimary() {
+        return primary;
+    }
+
+    /**
+     * 当前路由配置
+     */
+    public RoutingConfig getConfig() {
+        return table.config;
+    }
+
+    /**
+     * 整体替换路由配置；校验失败时保持原配置不变
+     * @throws IllegalArgumentException 未知的Provider、负权重或权重全为0
+     */
+    public RoutingConfig reload(RoutingConfig config) {
+        RoutingTable next = compile(RoutingConfig.builder()
+            .weights(config.getWeights() != null ? config.getWeights() : Map.of())
+            .userOverrides(config.getUserOverrides() != null ? config.getUserOverrides() : Map.of())
+            .countryOverrides(config.getCountryOverrides() != null ? config.getCountryOverrides() : Map.of())
+            .build());
+        RoutingConfig previous = table.config;
+        table = next;
+        log.info("Provider routing reloaded: {} (was {})", next.config, previous);
+        return next.config;
+    }
+
+    /**
+     * 各Provider的路由权重、调用统计和熔断状态
+     */
+    public Map<String, RoutedProviderStats> getStats() {
+        Map<String, ProviderGuard.ProviderResilienceStats> resilience = providerGuard.getStats();
+        RoutingTable current = table;
+        Map<String, RoutedProviderStats> stats = new TreeMap<>();
+        for (String name : providers.keySet()) {
+            Map<String, Long> selected = new TreeMap<>();
+            selections.forEach((key, counter) -> {
+                if (key.startsWith(name + '|')) {
+                    selected.put(key.substring(name.length() + 1), (long) counter.count());
+                }
+            });
+            ProviderGuard.ProviderResilienceStats guard = resilience.get(name);
+            stats.put(name, RoutedProviderStats.builder()
+                .primary(name.equals(primary))
+                .weight(current.weightOf(name))
+                .selections(selected)
+                .calls(providerGuard.getCallStats(name))
+                .circuitState(guard != null && guard.getCircuitBreaker() != null
+                    ? guard.getCircuitBreaker().getState().name() : null)
+                .build());
+        }
+        return stats;
+    }
+
+    // ========== Private Helper Methods ==========
+
+    private String selectForUser(String userId) {
+        RoutingTable current = table;
+        if (userId != null) {
+            String override = current.config.getUserOverrides().get(userId);
+            if (override != null) {
+                count(override, "user");
+                return override;
+            }
+            if (!current.config.getCountryOverrides().isEmpty()) {
+                Optional<String> byCountry = userRepository.findById(userId)
+                    .map(User::getCountry)
+                    .map(country -> current.config.getCountryOverrides().get(country));
+                if (byCountry.isPresent()) {
+                    count(byCountry.get(), "country");
+                    return byCountry.get();
+                }
+            }
+        }
+        // 按用户哈希分流，同一用户稳定落在同一Provider；没有用户ID时随机
+        long point = userId != null
+            ? Math.floorMod(mix(userId.hashCode()), current.totalWeight)
+            : ThreadLocalRandom.current().nextLong(current.totalWeight);
+        String name = current.pick(point);
+        count(name, "weight");
+        return name;
+    }
+
+    private void count(String provider, String reason) {
+        selections.computeIfAbsent(provider + '|' + reason, key -> Counter.builder("vaultcard.provider.routing.selections")
+            .description("Provider selections by routing reason")
+            .tag("provider", provider)
+            .tag("reason", reason)
+            .register(meterRegistry)).increment();
+    }
+
+    private RoutingTable compile(RoutingConfig config) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        config.getWeights().forEach((name, weight) -> {
+            requireKnown(name);
+            if (weight == null || weight < 0) {
+                throw new IllegalArgumentException("Weight for " + name + " must not be negative");
+            }
+            if (weight > 0) {
+                weights.put(name, weight);
+            }
+        });
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("At least one provider needs a positive weight");
+        }
+        config.getUserOverrides().values().forEach(this::requireKnown);
+        config.getCountryOverrides().values().forEach(this::requireKnown);
+
+        return new RoutingTable(RoutingConfig.builder()
+            .weights(Map.copyOf(config.getWeights()))
+            .userOverrides(Map.copyOf(config.getUserOverrides()))
+            .countryOverrides(Map.copyOf(config.getCountryOverrides()))
+            .build(), weights);
+    }
+
+    private void requireKnown(String name) {
+        if (!providers.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown payment provider: " + name);
+        }
+    }
+
+    /**
+     * 打散String.hashCode的低位，相近的用户ID也能均匀分布
+     */
+    private static long mix(int hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * "stripe=90,marqeta=10"
+     */
+    private static Map<String, Integer> parseWeights(String value) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        parsePairs(value).forEach((name, weight) -> weights.put(name, Integer.valueOf(weight)));
+        return weights;
+    }
+
+    /**
+     * "key1=value1,key2=value2"
+     */
+    private static Map<String, String> parsePairs(String value) {
+        Map<String, String> pairs = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return pairs;
+        }
+        Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(pair -> !pair.isEmpty())
+            .forEach(pair -> {
+                int eq = pair.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + pair);
+                }
+                pairs.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+            });
+        return pairs;
+    }
+
+    /**
+     * 编译后的路由表：权重转成累计区间，选择时一次线性扫描
+     */
+    private static class RoutingTable {
+        private final RoutingConfig config;
+        private final String[] names;
+        private final long[] upperBounds;
+        private final long totalWeight;
+
+        RoutingTable(RoutingConfig config, Map<String, Integer> positiveWeights) {
+            this.config = config;
+            this.names = positiveWeights.keySet().toArray(new String[0]);
+            this.upperBounds = new long[names.length];
+            long total = 0;
+            for (int i = 0; i < names.length; i++) {
+                total += positiveWeights.get(names[i]);
+                upperBounds[i] = total;
+            }
+            this.totalWeight = total;
+        }
+
+        String pick(long point) {
+            for (int i = 0; i < names.length; i++) {
+                if (point < upperBounds[i]) {
+                    return names[i];
+                }
+            }
+            return names[names.length - 1];
+        }
+
+        int weightOf(String name) {
+            return config.getWeights().getOrDefault(name, 0);
+        }
+    }
+
+    /**
+     * 路由配置
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RoutingConfig {
+        private Map<String, Integer> weights;           // 新业务按权重分流，如 {stripe: 90, marqeta: 10}
+        private Map<String, String> userOverrides;      // userId -> Provider，优先级最高
+        private Map<String, String> countryOverrides;   // 用户国家 -> Provider
+    }
+
+    /**
+     * 单个Provider的路由统计
+     */
+    @Data
+    @Builder
+    public static class RoutedProviderStats {
+        private boolean primary;
+        private int weight;
+        private Map<String, Long> selections;           // 按选择原因：card/user/country/weight
+        private ProviderGuard.ProviderCallStats calls;
+        private String circuitState;
+    }
+}
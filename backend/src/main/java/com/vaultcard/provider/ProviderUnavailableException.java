@@ -0,0 +1,34 @@
+package com.vaultcard.provider;
+
+/**
+ * Provider调用被快速拒绝：熔断器打开，或该接口的并发槽位已满
+ *
+ * 请求没有发往Provider；调用方应在retryAfterMillis之后重试（HTTP层映射为503 + Retry-After）
+ */
+public class ProviderUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String provider;
+    private final String operation;
+    private final long retryAfterMillis;
+
+    public ProviderUnavailableException(String provider, String operation, String reason, long retryAfterMillis) {
+        super("Payment provider " + provider + " unavailable for " + operation + ": " + reason);
+        this.provider = provider;
+        this.operation = operation;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,84 @@
+package com.vaultcard.provider;
+
+import com.vaultcard.dto.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 非阻塞的支付服务提供商接口
+ *
+ * 与PaymentProvider一一对应，但返回Mono/Flux，调用期间不占用线程
+ * 适合一次请求需要并发调用Provider多次的场景（卡片+交易并发获取、多张卡片扇出、交易分页流式导出）
+ *
+ * 有原生非阻塞实现的Provider注册为 xxxReactiveProvider（如stripeReactiveProvider），
+ * 其他Provider由BlockingReactivePaymentProvider适配
+ * Webhook相关方法只涉及CPU计算，不在此接口中
+ */
+public interface ReactivePaymentProvider {
+
+    /**
+     * 创建支付意图（用于充值）
+     * @param request 支付请求
+     * @return 支付响应（包含客户端密钥）
+     */
+    Mono<PaymentIntentResponse> createPaymentIntent(PaymentIntentRequest request);
+
+    /**
+     * 创建虚拟卡
+     * @param request 创卡请求
+     * @return 卡片信息
+     */
+    Mono<CardResponse> createCard(CreateCardRequest request);
+
+    /**
+     * 获取卡片详情
+     * @param cardId 卡片ID
+     * @return 卡片信息
+     */
+    Mono<CardResponse> getCard(String cardId);
+
+    /**
+     * 冻结/解冻卡片
+     * @param cardId 卡片ID
+     * @param freeze true=冻结，false=解冻
+     * @return 更新后的卡片信息
+     */
+    Mono<CardResponse> updateCardStatus(String cardId, boolean freeze);
+
+    /**
+     * 获取一页交易
+     * @param request 查询请求
+     * @return 交易列表
+     */
+    Mono<TransactionListResponse> listTransactions(TransactionListRequest request);
+
+    /**
+     * 从request.cursor开始按游标逐页获取交易，直到没有更多数据
+     * 下游取消订阅时停止翻页；每页在上一页返回后才请求（游标依赖上一页）
+     * @param request 查询请求（limit为每页条数）
+     * @return 交易页的流
+     */
+    default Flux<TransactionListResponse> transactionPages(TransactionListRequest request) {
+        return listTransactions(request)
+            .expand(page -> Boolean.TRUE.equals(page.getHasMore()) && page.getNextCursor() != null
+                ? listTransactions(nextPage(request, page.getNextCursor()))
+                : Mono.empty());
+    }
+
+    /**
+     * 获取当前提供商名称
+     * @return 提供商名称（如 "stripe", "marqeta"）
+     */
+    String getProviderName();
+
+    private static TransactionListRequest nextPage(TransactionListRequest request, String cursor) {
+        TransactionListRequest next = new TransactionListRequest();
+        next.setUserId(request.getUserId());
+        next.setCardId(request.getCardId());
+        next.setLimit(request.getLimit());
+        next.setCreatedSince(request.getCreatedSince());
+        next.setCreatedBefore(request.getCreatedBefore());
+        next.setCursor(cursor);
+        return next;
+    }
+}
@@ -0,0 +1,76 @@
+package com.vaultcard.provider;
+
+import com.vaultcard.dto.*;
+
+import java.util.List;
+
+/**
+ * 带熔断和舱壁的Provider装饰器（由ProviderGuard创建）
+ *
+ * 所有访问Provider的接口都经过ProviderGuard；被拒绝时抛出ProviderUnavailableException
+ * Webhook签名校验和处理只做本地计算，直接委托
+ */
+public class ResilientPaymentProvider implements PaymentProvider {
+
+    private final PaymentProvider delegate;
+    private final ProviderGuard guard;
+    private final String providerName;
+
+    ResilientPaymentProvider(PaymentProvider delegate, ProviderGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.providerName = delegate.getProviderName();
+    }
+
+    /**
+     * 被装饰的Provider
+     */
+    public PaymentProvider getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public PaymentIntentResponse createPaymentIntent(PaymentIntentRequest request) {
+        return guard.call(providerName, "createPaymentIntent", () -> delegate.createPaymentIntent(request));
+    }
+
+    @Override
+    public CardResponse createCard(CreateCardRequest request) {
+        return guard.call(providerName, "createCard", () -> delegate.createCard(request));
+    }
+
+    @Override
+    public CardResponse getCard(String cardId) {
+        return guard.call(providerName, "getCard", () -> delegate.getCard(cardId));
+    }
+
+    @Override
+    public CardResponse updateCardStatus(String cardId, boolean freeze) {
+        return guard.call(providerName, "updateCardStatus", () -> delegate.updateCardStatus(cardId, freeze));
+    }
+
+    @Override
+    public BatchCardStatusResponse updateCardStatuses(List<String> cardIds, boolean freeze) {
+        return guard.call(providerName, "updateCardStatuses", () -> delegate.updateCardStatuses(cardIds, freeze));
+    }
+
+    @Override
+    public TransactionListResponse listTransactions(TransactionListRequest request) {
+        return guard.call(providerName, "listTransactions", () -> delegate.listTransactions(request));
+    }
+
+    @Override
+    public String getProviderName() {
+        return providerName;
+    }
+
+    @Override
+    public boolean verifyWebhookSignature(String payload, String signature) {
+        return delegate.verifyWebhookSignature(payload, signature);
+    }
+
+    @Override
+    public WebhookResult handleWebhook(String payload) {
+        return delegate.handleWebhook(payload);
+    }
+}
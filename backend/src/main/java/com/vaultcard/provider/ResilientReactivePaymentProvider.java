@@ -0,0 +1,53 @@
+package com.vaultcard.provider;
+
+import com.vaultcard.dto.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * 带熔断和舱壁的非阻塞Provider装饰器（由ProviderGuard创建）
+ *
+ * 与阻塞路径共用同一Provider的熔断器和舱壁；舱壁满时不等待，直接返回错误
+ * transactionPages沿用接口默认实现，每一页都单独经过保护
+ */
+public class ResilientReactivePaymentProvider implements ReactivePaymentProvider {
+
+    private final ReactivePaymentProvider delegate;
+    private final ProviderGuard guard;
+    private final String providerName;
+
+    ResilientReactivePaymentProvider(ReactivePaymentProvider delegate, ProviderGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.providerName = delegate.getProviderName();
+    }
+
+    @Override
+    public Mono<PaymentIntentResponse> createPaymentIntent(PaymentIntentRequest request) {
+        return guard.call(providerName, "createPaymentIntent", delegate.createPaymentIntent(request));
+    }
+
+    @Override
+    public Mono<CardResponse> createCard(CreateCardRequest request) {
+        return guard.call(providerName, "createCard", delegate.createCard(request));
+    }
+
+    @Override
+    public Mono<CardResponse> getCard(String cardId) {
+        return guard.call(providerName, "getCard", delegate.getCard(cardId));
+    }
+
+    @Override
+    public Mono<CardResponse> updateCardStatus(String cardId, boolean freeze) {
+        return guard.call(providerName, "updateCardStatus", delegate.updateCardStatus(cardId, freeze));
+    }
+
+    @Override
+    public Mono<TransactionListResponse> listTransactions(TransactionListRequest request) {
+        return guard.call(providerName, "listTransactions", delegate.listTransactions(request));
+    }
+
+    @Override
+    public String getProviderName() {
+        return providerName;
+    }
+}
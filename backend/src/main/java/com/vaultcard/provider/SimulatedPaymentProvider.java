@@ -0,0 +1,620 @@
+package com.vaultcard.provider;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.vaultcard.dto.*;
+import com.vaultcard.util.WebhookSignature;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 本地模拟Provider（不访问任何外部服务），行为尽量接近Stripe Issuing
+ *
+ * 用于没有Stripe测试密钥、没有网络时的全链路压测，以及复现Provider变慢或出错时系统的表现
+ * （熔断、舱壁、超时、对冲）。默认不加载：需显式设置 payment.provider.simulated.enabled=true
+ * （同时注册 /api/ops/simulated-provider 下的运维接口），再通过 payment.provider.active=simulated
+ * 或 payment.provider.routing 分一部分流量过来
+ *
+ * 状态：持卡人、卡片、PaymentIntent和交易都保存在内存中，重启后清空；
+ * 和Stripe一样，查询或修改未知卡片ID时报错（IllegalArgumentException），不会自动生成
+ *
+ * 故障：每次调用先等待一个服从对数正态分布的延迟（中位数latency-ms，p99为latency-p99-ms，
+ * 两者相等时为固定延迟），再按错误率抛出异常；错误率可按接口单独配置（error-rates）
+ * 延迟和整体错误率可通过 POST /api/ops/simulated-provider/faults 在运行时修改
+ *
+ * Webhook：默认关闭；开启后和Stripe一样把事件签名后发到 /api/webhooks/stripe
+ * （签名密钥为stripe.webhook-secret）。不会接收任何Webhook，/api/webhooks/simulated 一律拒绝
+ * - 开卡、冻结/解冻：issuing_card.created / issuing_card.updated
+ * - PaymentIntent：创建payment-intent-succeed-after-ms毫秒后发送payment_intent.succeeded，
+ *   只针对本Provider创建的PaymentIntent
+ * - 刷卡：simulateAuthorization先同步发送issuing_authorization.request等待批准结果，
+ *   批准后记录交易并发送issuing_authorization.created和issuing_transaction.created
+ */
+@Slf4j
+@Component("simulatedProvider")
+@ConditionalOnProperty(name = "payment.provider.simulated.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SimulatedPaymentProvider implements PaymentProvider {
+
+    private static final String TRANSACTION_PREFIX = "ipi_sim_";
+
+    // 标准正态分布的99分位数，用于由p99推出对数正态分布的sigma
+    private static final double Z_99 = 2.3263;
+
+    private final Environment environment;
+
+    @Value("${payment.provider.simulated.latency-ms:50}")
+    private volatile long latencyMs;
+
+    @Value("${payment.provider.simulated.latency-p99-ms:0}")
+    private volatile long latencyP99Ms;
+
+    @Value("${payment.provider.simulated.error-rate:0}")
+    private volatile double errorRate;
+
+    // 按接口覆盖整体错误率，如 "createCard=0.1,getCard=0.01"
+    @Value("${payment.provider.simulated.error-rates:}")
+    private String operationErrorRates;
+
+    @Value("${payment.provider.simulated.webhooks.enabled:false}")
+    private boolean webhooksEnabled;
+
+    // 为空时发往本应用的 /api/webhooks/stripe
+    @Value("${payment.provider.simulated.webhooks.url:}")
+    private String webhookUrl;
+
+    @Value("${stripe.webhook-secret}")
+    private String webhookSecret;
+
+    // 小于0时不自动发送payment_intent.succeeded
+    @Value("${payment.provider.simulated.webhooks.payment-intent-succeed-after-ms:500}")
+    private long paymentIntentSucceedAfterMs;
+
+    @Value("${payment.exchange-rate.usd-cny:7.26}")
+    private BigDecimal usdToCnyRate;
+
+    private final HttpClient webhookClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(2))
+        .build();
+
+    private final Map<String, SimulatedCard> cards = new ConcurrentHashMap<>();
+    private final Map<String, String> cardholders = new ConcurrentHashMap<>();  // userId -> 持卡人ID
+    private final Map<String, PaymentIntentResponse> paymentIntents = new ConcurrentHashMap<>();
+    // 按创建顺序编号，新交易在后；分页时倒序遍历，和Stripe一样新交易在前
+    private final ConcurrentSkipListMap<Long, SimulatedTransaction> transactions = new ConcurrentSkipListMap<>();
+    private final AtomicLong transactionSequence = new AtomicLong();
+
+    private volatile Map<String, Double> errorRatesByOperation;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong webhooksSent = new AtomicLong();
+    private final AtomicLong webhooksFailed = new AtomicLong();
+
+    /**
+     * 修改注入的故障；参数为null的项保持不变
+     * @param latencyMs    调用延迟的中位数（毫秒）
+     * @param latencyP99Ms 调用延迟的p99（毫秒），不大于中位数时为固定延迟
+     * @param errorRate    调用失败的概率（0~1），不影响按接口单独配置的错误率
+     */
+    public void setFaults(Long latencyMs, Long latencyP99Ms, Double errorRate) {
+        if ((latencyMs != null && latencyMs < 0) || (latencyP99Ms != null && latencyP99Ms < 0)) {
+            throw new IllegalArgumentException("latencyMs and latencyP99Ms must not be negative");
+        }
+        if (errorRate != null && (errorRate < 0 || errorRate > 1)) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1");
+        }
+        if (latencyMs != null) {
+            this.latencyMs = latencyMs;
+        }
+        if (latencyP99Ms != null) {
+            this.latencyP99Ms = latencyP99Ms;
+        }
+        if (errorRate != null) {
+            this.errorRate = errorRate;
+        }
+        log.info("Simulated provider faults: latency p50 {}ms / p99 {}ms, error rate {}",
+            this.latencyMs, this.latencyP99Ms, this.errorRate);
+    }
+
+    /**
+     * 模拟一次刷卡：像Stripe一样先同步发送issuing_authorization.request，
+     * 批准后记录一笔全额扣款并发送authorization.created和transaction.created
+     *
+     * @param cardId      服务商卡片ID（必须是本Provider的卡片）
+     * @param amountCents 金额（分）
+     * @throws IllegalArgumentException 卡片不存在、金额不合法或Webhook未启用
+     */
+    public SimulatedAuthorization simulateAuthorization(String cardId, long amountCents,
+                                                        String merchantName, String merchantCategoryCode) {
+        SimulatedCard card = cards.get(cardId);
+        if (card == null) {
+            throw new IllegalArgumentException("Unknown simulated card: " + cardId);
+        }
+        if (amountCents <= 0) {
+            throw new IllegalArgumentException("amountCents must be positive");
+        }
+        if (!webhooksEnabled) {
+            throw new IllegalArgumentException("Simulated webhooks are disabled");
+        }
+        String merchant = merchantName != null ? merchantName : "Simulated Merchant";
+        String mcc = merchantCategoryCode != null ? merchantCategoryCode : "5734";
+        String authorizationId = "iauth_sim_" + shortId();
+
+        JsonObject authorization = authorizationObject(authorizationId, cardId, amountCents, merchant, mcc);
+        HttpResponse<String> response = sendWebhook("issuing_authorization.request", authorization).join();
+        boolean approved = response != null && response.statusCode() == 200
+            && isApproved(response.body());
+        if (!approved) {
+            return SimulatedAuthorization.builder()
+                .authorizationId(authorizationId)
+                .approved(false)
+                .build();
+        }
+
+        authorization.addProperty("approved", true);
+        authorization.addProperty("status", "pending");
+        authorization.addProperty("amount", amountCents);
+        sendWebhook("issuing_authorization.created", authorization);
+
+        SimulatedTransaction transaction = recordCapture(card, authorizationId, amountCents, merchant, mcc);
+        sendWebhook("issuing_transaction.created", transactionObject(transaction, amountCents, merchant, mcc));
+        return SimulatedAuthorization.builder()
+            .authorizationId(authorizationId)
+            .approved(true)
+            .transactionId(transaction.getTransaction().getId())
+            .build();
+    }
+
+    /**
+     * 立即发送payment_intent.succeeded（不等payment-intent-succeed-after-ms）
+     * @param paymentId 本Provider创建的PaymentIntent ID
+     * @throws IllegalArgumentException Webhook未启用、PaymentIntent不是本Provider创建的或已经成功
+     */
+    public void succeedPaymentIntent(String paymentId) {
+        if (!webhooksEnabled) {
+            throw new IllegalArgumentException("Simulated webhooks are disabled");
+        }
+        PaymentIntentResponse intent = paymentIntents.get(paymentId);
+        if (intent == null) {
+            throw new IllegalArgumentException("Unknown simulated payment intent: " + paymentId);
+        }
+        // 每个PaymentIntent只成功一次，避免重复入账
+        synchronized (intent) {
+            if ("succeeded".equals(intent.getStatus())) {
+                throw new IllegalArgumentException("Simulated payment intent already succeeded: " + paymentId);
+            }
+            intent.setStatus("succeeded");
+        }
+        JsonObject object = new JsonObject();
+        object.addProperty("id", paymentId);
+        object.addProperty("object", "payment_intent");
+        object.addProperty("status", "succeeded");
+        object.addProperty("amount", intent.getAmountUSD().movePointRight(2).longValue());
+        object.addProperty("currency", "usd");
+        sendWebhook("payment_intent.succeeded", object).join();
+    }
+
+    /**
+     * 当前故障设置、内存状态和调用统计
+     */
+    public SimulatedProviderStats getStats() {
+        return SimulatedProviderStats.builder()
+            .latencyMs(latencyMs)
+            .latencyP99Ms(latencyP99Ms)
+            .errorRate(errorRate)
+            .errorRates(errorRates())
+            .cardholders(cardholders.size())
+            .cards(cards.size())
+            .paymentIntents(paymentIntents.size())
+            .transactions(transactions.size())
+            .calls(calls.get())
+            .injectedErrors(injectedErrors.get())
+            .webhooksEnabled(webhooksEnabled)
+            .webhooksSent(webhooksSent.get())
+            .webhooksFailed(webhooksFailed.get())
+            .build();
+    }
+
+    @Override
+    public PaymentIntentResponse createPaymentIntent(PaymentIntentRequest request) {
+        simulate("createPaymentIntent");
+        String id = "pi_sim_" + shortId();
+        PaymentIntentResponse intent = PaymentIntentResponse.builder()
+            .paymentId(id)
+            .clientSecret(id + "_secret_" + shortId())
+            .amountUSD(request.getAmountUSD())
+            .estimatedCNY(request.getAmountUSD().multiply(usdToCnyRate))
+            .status("requires_payment_method")
+            .build();
+        paymentIntents.put(id, intent);
+        if (webhooksEnabled && paymentIntentSucceedAfterMs >= 0) {
+            CompletableFuture.runAsync(() -> succeedPaymentIntent(id),
+                CompletableFuture.delayedExecutor(paymentIntentSucceedAfterMs, TimeUnit.MILLISECONDS));
+        }
+        return intent;
+    }
+
+    @Override
+    public CardResponse createCard(CreateCardRequest request) {
+        simulate("createCard");
+        String cardholderId = request.getUserId() != null
+            ? cardholders.computeIfAbsent(request.getUserId(), userId -> "ich_sim_" + shortId())
+            : "ich_sim_" + shortId();
+        CardResponse card = newCard("ic_sim_" + shortId(), request.getCardholderName(), request.getSpendingLimit());
+        cards.put(card.getCardId(), new SimulatedCard(card, request.getUserId(), cardholderId));
+        sendWebhook("issuing_card.created", cardObject(card));
+        return card;
+    }
+
+    @Override
+    public CardResponse getCard(String cardId) {
+        simulate("getCard");
+        return card(cardId).getCard();
+    }
+
+    @Override
+    public CardResponse updateCardStatus(String cardId, boolean freeze) {
+        simulate("updateCardStatus");
+        CardResponse card = card(cardId).getCard();
+        card.setStatus(freeze ? "inactive" : "active");
+        sendWebhook("issuing_card.updated", cardObject(card));
+        return card;
+    }
+
+    @Override
+    public TransactionListResponse listTransactions(TransactionListRequest request) {
+        simulate("listTransactions");
+        int limit = request.getLimit() != null && request.getLimit() > 0 ? Math.min(request.getLimit(), 100) : 20;
+        long before = request.getCursor() != null ? parseCursor(request.getCursor()) : Long.MAX_VALUE;
+
+        List<TransactionListResponse.Transaction> page = new ArrayList<>();
+        boolean hasMore = false;
+        for (SimulatedTransaction transaction : transactions.headMap(before, false).descendingMap().values()) {
+            if (!transaction.matches(request)) {
+                continue;
+            }
+            if (page.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            page.add(transaction.getTransaction());
+        }
+        return TransactionListResponse.builder()
+            .transactions(page)
+            .total(page.size())
+            .hasMore(hasMore)
+            .nextCursor(hasMore ? page.get(page.size() - 1).getId() : null)
+            .build();
+    }
+
+    @Override
+    public String getProviderName() {
+        return "simulated";
+    }
+
+    @Override
+    public boolean verifyWebhookSignature(String payload, String signature) {
+        // 本Provider不接收Webhook（事件都发往 /api/webhooks/stripe），拒绝所有请求
+        return false;
+    }
+
+    @Override
+    public WebhookResult handleWebhook(String payload) {
+        return WebhookResult.builder()
+            .success(true)
+            .message("Simulated provider sends its events to /api/webhooks/stripe")
+            .build();
+    }
+
+    // ========== Private Helper Methods ==========
+
+    private void simulate(String operation) {
+        calls.incrementAndGet();
+        long delay = sampleLatencyMs();
+        if (delay > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Simulated " + operation + " interrupted", e);
+            }
+        }
+        double rate = errorRates().getOrDefault(operation, errorRate);
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            injectedErrors.incrementAndGet();
+            throw new RuntimeException("Simulated " + operation + " failure");
+        }
+    }
+
+    /**
+     * 对数正态分布：中位数为latencyMs，p99为latencyP99Ms；真实服务的延迟通常是这种长尾形状
+     */
+    private long sampleLatencyMs() {
+        long median = latencyMs;
+        long p99 = latencyP99Ms;
+        if (median <= 0 || p99 <= median) {
+            return median;
+        }
+        double sigma = Math.log((double) p99 / median) / Z_99;
+        double sample = median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        // 截断极端值，避免单次调用卡住太久
+        return Math.min((long) sample, p99 * 10);
+    }
+
+    private Map<String, Double> errorRates() {
+        Map<String, Double> rates = errorRatesByOperation;
+        if (rates == null) {
+            rates = operationErrorRates == null || operationErrorRates.isBlank() ? Map.of()
+                : Arrays.stream(operationErrorRates.split(","))
+                    .map(String::trim)
+                    .filter(pair -> pair.contains("="))
+                    .collect(Collectors.toUnmodifiableMap(
+                        pair -> pair.substring(0, pair.indexOf('=')).trim(),
+                        pair -> Double.valueOf(pair.substring(pair.indexOf('=') + 1).trim())));
+            errorRatesByOperation = rates;
+        }
+        return rates;
+    }
+
+    private SimulatedTransaction recordCapture(SimulatedCard card, String authorizationId, long amountCents,
+                                               String merchant, String mcc) {
+        long sequence = transactionSequence.incrementAndGet();
+        long created = System.currentTimeMillis() / 1000;
+        TransactionListResponse.Transaction transaction = TransactionListResponse.Transaction.builder()
+            .id(TRANSACTION_PREFIX + sequence)
+            .merchant(merchant)
+            .amount(BigDecimal.valueOf(amountCents, 2))
+            .currency("USD")
+            .status("capture")
+            .type("expense")
+            .createdAt(LocalDateTime.ofEpochSecond(created, 0, ZoneOffset.UTC))
+            .cardId(card.getCard().getCardId())
+            .authorizationId(authorizationId)
+            .merchantCategoryCode(mcc)
+            .build();
+        SimulatedTransaction simulated = new SimulatedTransaction(transaction, card.getUserId(), created);
+        transactions.put(sequence, simulated);
+        return simulated;
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor.startsWith(TRANSACTION_PREFIX)
+                ? cursor.substring(TRANSACTION_PREFIX.length()) : cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * 签名后异步发送事件；Webhook未启用时直接完成（结果为null）
+     */
+    private CompletableFuture<HttpResponse<String>> sendWebhook(String eventType, JsonObject object) {
+        if (!webhooksEnabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        JsonObject data = new JsonObject();
+        data.add("object", object);
+        JsonObject event = new JsonObject();
+        event.addProperty("id", "evt_sim_" + shortId());
+        event.addProperty("object", "event");
+        event.addProperty("type", eventType);
+        event.addProperty("created", System.currentTimeMillis() / 1000);
+        event.addProperty("livemode", false);
+        event.add("data", data);
+        String payload = event.toString();
+
+        HttpRequest request = HttpRequest.newBuilder(webhookUri())
+            .timeout(Duration.ofSeconds(10))
+            .header("Content-Type", "application/json")
+            .header("Stripe-Signature", WebhookSignature.sign(payload, webhookSecret, System.currentTimeMillis() / 1000))
+            .POST(HttpRequest.BodyPublishers.ofString(payload))
+            .build();
+        return webhookClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                if (error != null || response.statusCode() != 200) {
+                    webhooksFailed.incrementAndGet();
+                    log.warn("Simulated webhook {} failed: {}", eventType,
+                        error != null ? error.getMessage() : "HTTP " + response.statusCode());
+                    return error != null ? null : response;
+                }
+                webhooksSent.incrementAndGet();
+                return response;
+            });
+    }
+
+    private URI webhookUri() {
+        if (webhookUrl != null && !webhookUrl.isBlank()) {
+            return URI.create(webhookUrl);
+        }
+        String port = environment.getProperty("local.server.port", environment.getProperty("server.port", "8080"));
+        return URI.create("http://127.0.0.1:" + port + "/api/webhooks/stripe");
+    }
+
+    private static boolean isApproved(String body) {
+        try {
+            JsonObject result = JsonParser.parseString(body).getAsJsonObject();
+            return result.has("approved") && result.get("approved").getAsBoolean();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static JsonObject cardObject(CardResponse card) {
+        JsonObject object = new JsonObject();
+        object.addProperty("id", card.getCardId());
+        object.addProperty("object", "issuing.card");
+        object.addProperty("status", card.getStatus());
+        object.addProperty("type", card.getType());
+        object.addProperty("last4", card.getCardNumber().substring(card.getCardNumber().length() - 4));
+        object.addProperty("exp_month", Integer.valueOf(card.getExpiryMonth()));
+        object.addProperty("exp_year", Integer.valueOf(card.getExpiryYear()));
+        object.addProperty("currency", "usd");
+        return object;
+    }
+
+    private static JsonObject authorizationObject(String authorizationId, String cardId, long amountCents,
+                                                  String merchant, String mcc) {
+        JsonObject pendingRequest = new JsonObject();
+        pendingRequest.addProperty("amount", amountCents);
+        pendingRequest.addProperty("currency", "usd");
+
+        JsonObject object = new JsonObject();
+        object.addProperty("id", authorizationId);
+        object.addProperty("object", "issuing.authorization");
+        object.addProperty("amount", 0);
+        object.addProperty("currency", "usd");
+        object.addProperty("status", "pending");
+        object.addProperty("card", cardId);
+        object.addProperty("created", System.currentTimeMillis() / 1000);
+        object.add("pending_request", pendingRequest);
+        object.add("merchant_data", merchantData(merchant, mcc));
+        return object;
+    }
+
+    private static JsonObject transactionObject(SimulatedTransaction simulated, long amountCents,
+                                                String merchant, String mcc) {
+        TransactionListResponse.Transaction transaction = simulated.getTransaction();
+        JsonObject object = new JsonObject();
+        object.addProperty("id", transaction.getId());
+        object.addProperty("object", "issuing.transaction");
+        object.addProperty("type", "capture");
+        // Stripe按余额方向记金额：扣款为负
+        object.addProperty("amount", -amountCents);
+        object.addProperty("currency", "usd");
+        object.addProperty("card", transaction.getCardId());
+        object.addProperty("authorization", transaction.getAuthorizationId());
+        object.addProperty("created", simulated.getCreatedEpochSeconds());
+        object.add("merchant_data", merchantData(merchant, mcc));
+        return object;
+    }
+
+    private static JsonObject merchantData(String merchant, String mcc) {
+        JsonObject merchantData = new JsonObject();
+        merchantData.addProperty("name", merchant);
+        merchantData.addProperty("category_code", mcc);
+        return merchantData;
+    }
+
+    /**
+     * @throws IllegalArgumentException 卡片不是本Provider开的（Stripe返回404）
+     */
+    private SimulatedCard card(String cardId) {
+        SimulatedCard card = cardId != null ? cards.get(cardId) : null;
+        if (card == null) {
+            throw new IllegalArgumentException("Unknown simulated card: " + cardId);
+        }
+        return card;
+    }
+
+    private static CardResponse newCard(String cardId, String cardholderName, BigDecimal spendingLimit) {
+        return CardResponse.builder()
+            .cardId(cardId)
+            .cardNumber("4000000000000" + String.format("%03d", Math.floorMod(cardId.hashCode(), 1000)))
+            .cvv("123")
+            .expiryMonth("12")
+            .expiryYear("2030")
+            .cardholderName(cardholderName != null ? cardholderName : "VaultCard User")
+            .status("active")
+            .type("virtual")
+            .spendingLimit(spendingLimit != null ? spendingLimit : new BigDecimal("1000"))
+            .build();
+    }
+
+    private static String shortId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    }
+
+    /**
+     * 内存中的卡片；userId和持卡人为空表示查询时自动生成的卡片
+     */
+    @Data
+    private static class SimulatedCard {
+        private final CardResponse card;
+        private final String userId;
+        private final String cardholderId;
+    }
+
+    /**
+     * 内存中的交易
+     */
+    @Data
+    private static class SimulatedTransaction {
+        private final TransactionListResponse.Transaction transaction;
+        private final String userId;
+        private final long createdEpochSeconds;
+
+        boolean matches(TransactionListRequest request) {
+            if (request.getCardId() != null && !request.getCardId().equals(transaction.getCardId())) {
+                return false;
+            }
+            if (request.getCardId() == null && request.getUserId() != null && !request.getUserId().equals(userId)) {
+                return false;
+            }
+            if (request.getCreatedSince() != null && createdEpochSeconds < request.getCreatedSince()) {
+                return false;
+            }
+            return request.getCreatedBefore() == null || createdEpochSeconds < request.getCreatedBefore();
+        }
+    }
+
+    /**
+     * 模拟刷卡结果
+     */
+    @Data
+    @Builder
+    public static class SimulatedAuthorization {
+        private String authorizationId;
+        private boolean approved;
+        private String transactionId;     // 批准时生成的交易ID
+    }
+
+    /**
+     * 模拟Provider统计
+     */
+    @Data
+    @Builder
+    public static class SimulatedProviderStats {
+        private long latencyMs;
+        private long latencyP99Ms;
+        private double errorRate;
+        private Map<String, Double> errorRates;
+        private int cardholders;
+        private int cards;
+        private int paymentIntents;
+        private int transactions;
+        private long calls;
+        private long injectedErrors;
+        private boolean webhooksEnabled;
+        private long webhooksSent;
+        private long webhooksFailed;
+    }
+}
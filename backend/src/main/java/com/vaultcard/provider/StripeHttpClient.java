@@ -0,0 +1,244 @@
+package com.vaultcard.provider;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.ApiResource;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpHeaders;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stripe SDK 的 OkHttp 传输层
+ *
+ * 替换SDK默认的HttpURLConnection：
+ * - 连接池 + keep-alive，HTTP/2（ALPN协商）
+ * - 每次调用的超时取自RequestOptions，由Provider按接口设置
+ * - 带抖动的指数退避重试，只重试幂等请求（GET/DELETE，或带Idempotency-Key的POST）
+ *
+ * SDK会为每个POST生成Idempotency-Key，同一请求重试时复用，Stripe保证不会重复执行。
+ */
+@Slf4j
+@Component
+public class StripeHttpClient extends HttpClient {
+
+    private static final MediaType FORM = MediaType.get("application/x-www-form-urlencoded;charset=UTF-8");
+
+    @Value("${vaultcard.stripe-http.max-idle-connections:20}")
+    private int maxIdleConnections;
+
+    @Value("${vaultcard.stripe-http.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${vaultcard.stripe-http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.read-timeout-ms:30000}")
+    private int readTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${vaultcard.stripe-http.retry-base-delay-ms:100}")
+    private long retryBaseDelayMs;
+
+    @Value("${vaultcard.stripe-http.retry-max-delay-ms:2000}")
+    private long retryMaxDelayMs;
+
+    private OkHttpClient client;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong connectionFailures = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .retryOnConnectionFailure(false)  // 重试由requestWithRetries统一控制
+                .build();
+        log.info("Stripe HTTP client initialized (pool={}, keepAlive={}s, retries={})",
+                maxIdleConnections, keepAliveSeconds, maxRetries);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    /**
+     * 单次请求，不重试
+     */
+    @Override
+    public StripeResponse request(StripeRequest request) throws StripeException {
+        requests.incrementAndGet();
+        try (Response response = clientFor(request).newCall(toOkHttpRequest(request)).execute()) {
+            ResponseBody body = response.body();
+            return new StripeResponse(response.code(),
+                    HttpHeaders.of(response.headers().toMultimap()),
+                    body != null ? body.string() : "");
+        } catch (IOException e) {
+            connectionFailures.incrementAndGet();
+            throw new ApiConnectionException("IOException during API request to Stripe ("
+                    + request.url() + "): " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 带抖动指数退避的重试
+     */
+    @Override
+    public StripeResponse requestWithRetries(StripeRequest request) throws StripeException {
+        boolean retryable = isIdempotent(request);
+        int attempt = 0;
+        while (true) {
+            StripeResponse response;
+            try {
+                response = requestWithTelemetry(request);
+            } catch (ApiConnectionException e) {
+                if (!retryable || attempt >= maxRetries) {
+                    throw e;
+                }
+                backoff(request, ++attempt, "connection error");
+                continue;
+            }
+
+            if (response.code() >= 500) {
+                serverErrors.incrementAndGet();
+            }
+            if (!retryable || attempt >= maxRetries || !shouldRetry(response)) {
+                return response;
+            }
+            backoff(request, ++attempt, "status " + response.code());
+        }
+    }
+
+    /**
+     * 当前HTTP层统计
+     */
+    public HttpStats getStats() {
+        ConnectionPool pool = client.connectionPool();
+        return HttpStats.builder()
+                .requests(requests.get())
+                .retries(retries.get())
+                .connectionFailures(connectionFailures.get())
+                .serverErrors(serverErrors.get())
+                .pooledConnections(pool.connectionCount())
+                .idleConnections(pool.idleConnectionCount())
+                .build();
+    }
+
+    // ========== Private Helper Methods ==========
+
+    private OkHttpClient clientFor(StripeRequest request) {
+        Integer connect = request.options() != null ? request.options().getConnectTimeout() : null;
+        Integer read = request.options() != null ? request.options().getReadTimeout() : null;
+        if ((connect == null || connect == connectTimeoutMs) && (read == null || read == readTimeoutMs)) {
+            return client;
+        }
+        // newBuilder共享连接池和dispatcher，只覆盖超时
+        return client.newBuilder()
+                .connectTimeout(Duration.ofMillis(connect != null ? connect : connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(read != null ? read : readTimeoutMs))
+                .build();
+    }
+
+    private Request toOkHttpRequest(StripeRequest request) {
+        Headers.Builder headers = new Headers.Builder();
+        for (Map.Entry<String, List<String>> entry : request.headers().map().entrySet()) {
+            for (String value : entry.getValue()) {
+                headers.add(entry.getKey(), value);
+            }
+        }
+        headers.set("User-Agent", buildUserAgentString());
+        headers.set("X-Stripe-Client-User-Agent", buildXStripeClientUserAgentString());
+
+        RequestBody body = null;
+        if (request.method() == ApiResource.RequestMethod.POST) {
+            body = request.content() != null
+                    ? RequestBody.create(request.content().byteArrayContent(),
+                            MediaType.get(request.content().contentType()))
+                    : RequestBody.create(new byte[0], FORM);
+        }
+        return new Request.Builder()
+                .url(request.url())
+                .headers(headers.build())
+                .method(request.method().name(), body)
+                .build();
+    }
+
+    private static boolean isIdempotent(StripeRequest request) {
+        return request.method() != ApiResource.RequestMethod.POST
+                || request.headers().firstValue("Idempotency-Key").isPresent();
+    }
+
+    private static boolean shouldRetry(StripeResponse response) {
+        // Stripe明确告知是否可重试时以它为准
+        String shouldRetry = response.headers().firstValue("Stripe-Should-Retry").orElse(null);
+        if (shouldRetry != null) {
+            return Boolean.parseBoolean(shouldRetry);
+        }
+        int code = response.code();
+        return code == 409 || code == 429 || code >= 500;
+    }
+
+    /**
+     * Full jitter：在[0, min(max, base * 2^attempt)]内随机等待
+     */
+    private void backoff(StripeRequest request, int attempt, String reason) throws ApiConnectionException {
+        retries.incrementAndGet();
+        long cap = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt, 20));
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        log.warn("Retrying Stripe {} {} after {} (attempt {}, {}ms)",
+                request.method(), request.url().getPath(), reason, attempt, delay);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted while waiting to retry Stripe request", e);
+        }
+    }
+
+    /**
+     * HTTP层统计
+     */
+    @Data
+    @Builder
+    public static class HttpStats {
+        private long requests;
+        private long retries;
+        private long connectionFailures;
+        private long serverErrors;
+        private int pooledConnections;
+        private int idleConnections;
+    }
+}
@@ -1,24 +1,44 @@
 package com.vaultcard.provider;
 
 import com.stripe.Stripe;
+import com.stripe.StripeClient;
 import com.stripe.exception.StripeException;
 import com.stripe.model.*;
 import com.stripe.model.issuing.Card;
 import com.stripe.model.issuing.Cardholder;
 import com.stripe.model.issuing.Transaction;
+import com.stripe.model.issuing.TransactionCollection;
+import com.stripe.net.ApiResource;
+import com.stripe.net.FormEncoder;
+import com.stripe.net.LiveStripeResponseGetter;
+import com.stripe.net.RequestOptions;
 import com.stripe.net.Webhook;
 import com.stripe.param.*;
 import com.stripe.param.issuing.*;
 import com.vaultcard.dto.*;
+import com.vaultcard.entity.User;
+import com.vaultcard.service.CardholderIndex;
+import com.vaultcard.util.LatencyHistogram;
+import com.vaultcard.util.ThreadFactories;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -30,146 +50,220 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Component("stripeProvider")
+@RequiredArgsConstructor
 public class StripePaymentProvider implements PaymentProvider {
 
+    private final StripeHttpClient stripeHttpClient;
+    private final CardholderIndex cardholderIndex;
+
     @Value("${payment.provider.stripe.secret-key}")
     private String stripeSecretKey;
 
     @Value("${payment.provider.stripe.webhook-secret}")
     private String webhookSecret;
 
+    // 可选：指向stripe-mock等本地服务，为空时使用Stripe官方地址
+    @Value("${payment.provider.stripe.api-base:}")
+    private String apiBase;
+
     @Value("${payment.exchange-rate.usd-cny:7.26}")
     private BigDecimal usdToCnyRate;
 
+    // 各接口的读超时（毫秒）
+    @Value("${vaultcard.stripe-http.timeouts.create-card-ms:15000}")
+    private int createCardTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.timeouts.get-card-ms:5000}")
+    private int getCardTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.timeouts.update-card-status-ms:10000}")
+    private int updateCardStatusTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.timeouts.list-transactions-ms:10000}")
+    private int listTransactionsTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.read-timeout-ms:30000}")
+    private int readTimeoutMs;
+
+    // 批量更新卡片状态时的最大并发请求数
+    @Value("${vaultcard.stripe-http.batch-parallelism:16}")
+    private int batchParallelism;
+
+    // 是否使用虚拟线程（需要Java 21+）
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // 按ID直接调用的服务端API（如update-by-id），与静态API共用同一传输层
+    private StripeClient stripeClient;
+
+    private ExecutorService batchExecutor;
+
+    // 每个接口的调用耗时分布（含重试）
+    private final Map<String, LatencyHistogram> latency = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         Stripe.apiKey = stripeSecretKey;
+        if (!apiBase.isBlank()) {
+            Stripe.overrideApiBase(apiBase);
+            log.info("Stripe API base overridden: {}", apiBase);
+        }
+        // SDK默认超时与连接池客户端保持一致，未单独设置超时的调用走共享客户端
+        Stripe.setConnectTimeout(connectTimeoutMs);
+        Stripe.setReadTimeout(readTimeoutMs);
+        LiveStripeResponseGetter responseGetter = new LiveStripeResponseGetter(stripeHttpClient);
+        ApiResource.setStripeResponseGetter(responseGetter);
+        stripeClient = new StripeClient(responseGetter);
+
+        // 并发数仍由batchParallelism限制（Stripe限流），虚拟线程模式下只是不再占用平台线程
+        batchExecutor = Executors.newFixedThreadPool(batchParallelism,
+            ThreadFactories.named("stripe-batch", virtualThreads));
         log.info("Stripe provider initialized");
     }
 
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdown();
+    }
+
+    /**
+     * 各接口耗时统计
+     */
+    public Map<String, LatencyHistogram.Snapshot> getOperationLatency() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        latency.forEach((operation, histogram) -> snapshots.put(operation, histogram.snapshot()));
+        return snapshots;
+    }
+
     @Override
     public PaymentIntentResponse createPaymentIntent(PaymentIntentRequest request) {
         try {
             // 创建Stripe PaymentIntent
-            PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                .setAmount((long) (request.getAmountUSD().doubleValue() * 100))  // 转为cents
-                .setCurrency("usd")
-                .addPaymentMethodType(request.getPaymentMethod())  // alipay, card, wechat_pay
-                .setDescription(request.getDescription())
-                .putMetadata("user_id", request.getUserId())
-                .putMetadata("provider", "stripe")
-                .build();
-
-            PaymentIntent intent = PaymentIntent.create(params);
+            PaymentIntent intent = PaymentIntent.create(paymentIntentParams(request));
 
             // 返回统一的响应，隐藏Stripe细节
-            return PaymentIntentResponse.builder()
-                .paymentId(intent.getId())
-                .clientSecret(intent.getClientSecret())
-                .amountUSD(request.getAmountUSD())
-                .estimatedCNY(request.getAmountUSD().multiply(usdToCnyRate))
-                .status(intent.getStatus())
-                .paymentUrl(extractPaymentUrl(intent))
-                .build();
+            return mapStripePaymentIntentToResponse(intent, request, usdToCnyRate);
 
         } catch (StripeException e) {
             log.error("Failed to create payment intent", e);
-            throw new RuntimeException("Payment creation failed: " + e.getMessage());
+            throw new RuntimeException("Payment creation failed: " + e.getMessage(), e);
         }
     }
 
     @Override
     public CardResponse createCard(CreateCardRequest request) {
+        long start = System.nanoTime();
         try {
             // 1. 先创建或获取Cardholder
-            Cardholder cardholder = getOrCreateCardholder(request.getUserId(), request.getCardholderName());
+            String cardholderId = getOrCreateCardholder(request.getUserId(), request.getCardholderName());
 
             // 2. 创建虚拟卡
-            CardCreateParams cardParams = CardCreateParams.builder()
-                .setCardholder(cardholder.getId())
-                .setType(CardCreateParams.Type.VIRTUAL)
-                .setStatus(CardCreateParams.Status.ACTIVE)
-                .setSpendingControls(
-                    CardCreateParams.SpendingControls.builder()
-                        .addSpendingLimit(
-                            CardCreateParams.SpendingControls.SpendingLimit.builder()
-                                .setAmount((long) (request.getSpendingLimit().doubleValue() * 100))
-                                .setInterval(CardCreateParams.SpendingControls.SpendingLimit.Interval.MONTHLY)
-                                .build()
-                        )
-                        .build()
-                )
-                .putMetadata("user_id", request.getUserId())
-                .putMetadata("card_type", request.getCardType())
-                .build();
-
-            Card card = Card.create(cardParams);
+            // 显式幂等键：超时重试不会创建出第二张卡
+            Card card = Card.create(cardCreateParams(request, cardholderId),
+                options(createCardTimeoutMs, UUID.randomUUID().toString()));
 
             // 返回统一格式，隐藏Stripe的内部结构
             return mapStripeCardToResponse(card);
 
         } catch (StripeException e) {
             log.error("Failed to create card", e);
-            throw new RuntimeException("Card creation failed: " + e.getMessage());
+            throw new RuntimeException("Card creation failed: " + e.getMessage(), e);
+        } finally {
+            record("createCard", start);
         }
     }
 
     @Override
     public CardResponse getCard(String cardId) {
+        long start = System.nanoTime();
         try {
-            Card card = Card.retrieve(cardId);
+            Card card = Card.retrieve(cardId, options(getCardTimeoutMs, null));
             return mapStripeCardToResponse(card);
         } catch (StripeException e) {
             log.error("Failed to retrieve card", e);
-            throw new RuntimeException("Card retrieval failed: " + e.getMessage());
+            throw new RuntimeException("Card retrieval failed: " + e.getMessage(), e);
+        } finally {
+            record("getCard", start);
         }
     }
 
     @Override
     public CardResponse updateCardStatus(String cardId, boolean freeze) {
+        long start = System.nanoTime();
         try {
-            Card card = Card.retrieve(cardId);
-
-            CardUpdateParams params = CardUpdateParams.builder()
-                .setStatus(freeze ?
-                    CardUpdateParams.Status.INACTIVE :
-                    CardUpdateParams.Status.ACTIVE)
-                .build();
-
-            card = card.update(params);
+            // 按ID直接更新，一次请求完成，不需要先retrieve
+            Card card = stripeClient.issuing().cards().update(cardId, cardStatusParams(freeze),
+                options(updateCardStatusTimeoutMs, UUID.randomUUID().toString()));
             return mapStripeCardToResponse(card);
 
         } catch (StripeException e) {
             log.error("Failed to update card status", e);
-            throw new RuntimeException("Card update failed: " + e.getMessage());
+            throw new RuntimeException("Card update failed: " + e.getMessage(), e);
+        } finally {
+            record("updateCardStatus", start);
         }
     }
 
+    /**
+     * 并发批量更新：所有卡片同时发起请求（受batch-parallelism限制），
+     * 总耗时约为一次往返而不是N次
+     */
     @Override
-    public TransactionListResponse listTransactions(TransactionListRequest request) {
-        try {
-            Map<String, Object> params = new HashMap<>();
-            if (request.getCardId() != null) {
-                params.put("card", request.getCardId());
+    public BatchCardStatusResponse updateCardStatuses(List<String> cardIds, boolean freeze) {
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<CardResponse>> futures = cardIds.stream()
+            .map(cardId -> CompletableFuture.supplyAsync(() -> updateCardStatus(cardId, freeze), batchExecutor))
+            .collect(Collectors.toList());
+
+        List<CardResponse> cards = new ArrayList<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                cards.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                errors.put(cardIds.get(i), cause.getMessage());
             }
-            params.put("limit", request.getLimit());
+        }
 
-            TransactionCollection transactions = Transaction.list(params);
+        log.info("Batch {} of {} cards: {} updated, {} failed",
+            freeze ? "freeze" : "unfreeze", cardIds.size(), cards.size(), errors.size());
+        return BatchCardStatusResponse.builder()
+            .requested(cardIds.size())
+            .updated(cards.size())
+            .failed(errors.size())
+            .cards(cards)
+            .errors(errors)
+            .elapsedMillis(System.currentTimeMillis() - start)
+            .build();
+    }
 
-            List<TransactionListResponse.Transaction> list = transactions.getData()
-                .stream()
-                .map(this::mapStripeTransactionToResponse)
-                .collect(Collectors.toList());
+    @Override
+    public TransactionListResponse listTransactions(TransactionListRequest request) {
+        long start = System.nanoTime();
+        try {
+            String cardholderId = null;
+            if (request.getCardId() == null && request.getUserId() != null) {
+                // 按用户查询时限定到该用户的Cardholder，没有Cardholder说明还没有交易
+                Optional<String> found = cardholderIndex.find(request.getUserId());
+                if (found.isEmpty()) {
+                    return emptyTransactionList();
+                }
+                cardholderId = found.get();
+            }
 
-            return TransactionListResponse.builder()
-                .transactions(list)
-                .total((int) transactions.getData().size())
-                .hasMore(transactions.getHasMore())
-                .build();
+            TransactionCollection transactions = Transaction.list(transactionListParams(request, cardholderId),
+                options(listTransactionsTimeoutMs, null));
+            return mapStripeTransactionsToResponse(transactions);
 
         } catch (StripeException e) {
             log.error("Failed to list transactions", e);
-            throw new RuntimeException("Transaction listing failed: " + e.getMessage());
+            throw new RuntimeException("Transaction listing failed: " + e.getMessage(), e);
+        } finally {
+            record("listTransactions", start);
         }
     }
 
@@ -223,20 +317,76 @@ public class StripePaymentProvider implements PaymentProvider {
 
     // ========== Private Helper Methods ==========
 
-    private Cardholder getOrCreateCardholder(String userId, String name) throws StripeException {
-        // 先查询是否已存在
-        Map<String, Object> params = new HashMap<>();
-        params.put("limit", 1);
-        CardholderCollection cardholders = Cardholder.list(params);
+    private RequestOptions options(int readTimeoutMs, String idempotencyKey) {
+        RequestOptions.RequestOptionsBuilder builder = RequestOptions.builder()
+            .setReadTimeout(readTimeoutMs);
+        if (idempotencyKey != null) {
+            builder.setIdempotencyKey(idempotencyKey);
+        }
+        return builder.build();
+    }
 
-        if (!cardholders.getData().isEmpty()) {
-            return cardholders.getData().get(0);
+    private void record(String operation, long startNanos) {
+        latency.computeIfAbsent(operation, op -> new LatencyHistogram())
+            .record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 通过本地索引获取用户的Cardholder ID，不调用Cardholder.list
+     * 首次开卡时创建Cardholder；同一用户的并发请求只会创建一个
+     */
+    private String getOrCreateCardholder(String userId, String name) {
+        return cardholderIndex.resolve(userId, user -> createCardholder(user, name));
+    }
+
+    private String createCardholder(User user, String name) {
+        try {
+            CardholderCreateParams params = cardholderCreateParams(user, name);
+            return Cardholder.create(params,
+                options(createCardTimeoutMs, cardholderIdempotencyKey(user, params.toMap()))).getId();
+        } catch (StripeException e) {
+            log.error("Failed to create cardholder for user {}", user.getId(), e);
+            throw new RuntimeException("Cardholder creation failed: " + e.getMessage(), e);
         }
+    }
+
+    // ========== 请求参数与响应映射（与StripeReactivePaymentProvider共用） ==========
+
+    /**
+     * 创建Cardholder的幂等键：用户ID + 请求参数的哈希
+     *
+     * 多个实例同时以相同参数为同一用户创建时，Stripe只会创建一个；
+     * 参数改变（如上次因姓名或地址不合法失败后修正）时换用新键，不会被Stripe以“同键不同参数”拒绝24小时
+     * 超过24小时的重复创建由CardholderIndex防止（成功后Cardholder ID已写入本地索引）
+     */
+    static String cardholderIdempotencyKey(User user, Map<String, Object> params) {
+        // 按键排序，保证同样的参数总是得到同样的键
+        String canonical = Arrays.stream(FormEncoder.createQueryString(params).split("&"))
+            .sorted()
+            .collect(Collectors.joining("&"));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return "cardholder-" + user.getId() + "-" + HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 
-        // 不存在则创建
-        CardholderCreateParams createParams = CardholderCreateParams.builder()
-            .setName(name)
-            .setEmail(userId + "@vaultcard.com")  // 使用userId作为email
+    static PaymentIntentCreateParams paymentIntentParams(PaymentIntentRequest request) {
+        return PaymentIntentCreateParams.builder()
+            .setAmount((long) (request.getAmountUSD().doubleValue() * 100))  // 转为cents
+            .setCurrency("usd")
+            .addPaymentMethodType(request.getPaymentMethod())  // alipay, card, wechat_pay
+            .setDescription(request.getDescription())
+            .putMetadata("user_id", request.getUserId())
+            .putMetadata("provider", "stripe")
+            .build();
+    }
+
+    static CardholderCreateParams cardholderCreateParams(User user, String name) {
+        return CardholderCreateParams.builder()
+            .setName(name != null ? name : user.getName())
+            .setEmail(user.getEmail())
             .setType(CardholderCreateParams.Type.INDIVIDUAL)
             .setBilling(
                 CardholderCreateParams.Billing.builder()
@@ -251,13 +401,103 @@ public class StripePaymentProvider implements PaymentProvider {
                     )
                     .build()
             )
-            .putMetadata("user_id", userId)
+            .putMetadata("user_id", user.getId())
             .build();
+    }
 
-        return Cardholder.create(createParams);
+    static CardCreateParams cardCreateParams(CreateCardRequest request, String cardholderId) {
+        return CardCreateParams.builder()
+            .setCardholder(cardholderId)
+            .setType(CardCreateParams.Type.VIRTUAL)
+            .setStatus(CardCreateParams.Status.ACTIVE)
+            .setSpendingControls(
+                CardCreateParams.SpendingControls.builder()
+                    .addSpendingLimit(
+                        CardCreateParams.SpendingControls.SpendingLimit.builder()
+                            .setAmount((long) (request.getSpendingLimit().doubleValue() * 100))
+                            .setInterval(CardCreateParams.SpendingControls.SpendingLimit.Interval.MONTHLY)
+                            .build()
+                    )
+                    .build()
+            )
+            .putMetadata("user_id", request.getUserId())
+            .putMetadata("card_type", request.getCardType())
+            .build();
+    }
+
+    static CardUpdateParams cardStatusParams(boolean freeze) {
+        return CardUpdateParams.builder()
+            .setStatus(freeze ?
+                CardUpdateParams.Status.INACTIVE :
+                CardUpdateParams.Status.ACTIVE)
+            .build();
+    }
+
+    /**
+     * @param cardholderId 按用户查询时该用户的Cardholder；按卡片查询时为null
+     */
+    static Map<String, Object> transactionListParams(TransactionListRequest request, String cardholderId) {
+        Map<String, Object> params = new HashMap<>();
+        if (request.getCardId() != null) {
+            params.put("card", request.getCardId());
+        } else if (cardholderId != null) {
+            params.put("cardholder", cardholderId);
+        }
+        Map<String, Object> created = new HashMap<>();
+        if (request.getCreatedSince() != null) {
+            created.put("gte", request.getCreatedSince());
+        }
+        if (request.getCreatedBefore() != null) {
+            created.put("lt", request.getCreatedBefore());
+        }
+        if (!created.isEmpty()) {
+            params.put("created", created);
+        }
+        params.put("limit", Math.min(request.getLimit() != null ? request.getLimit() : 20, 100));
+        // Stripe原生游标分页：cursor就是上一页最后一条交易的ID
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            params.put("starting_after", request.getCursor());
+        }
+        return params;
+    }
+
+    static PaymentIntentResponse mapStripePaymentIntentToResponse(PaymentIntent intent,
+                                                                  PaymentIntentRequest request,
+                                                                  BigDecimal usdToCnyRate) {
+        return PaymentIntentResponse.builder()
+            .paymentId(intent.getId())
+            .clientSecret(intent.getClientSecret())
+            .amountUSD(request.getAmountUSD())
+            .estimatedCNY(request.getAmountUSD().multiply(usdToCnyRate))
+            .status(intent.getStatus())
+            .paymentUrl(extractPaymentUrl(intent))
+            .build();
+    }
+
+    static TransactionListResponse mapStripeTransactionsToResponse(TransactionCollection transactions) {
+        List<TransactionListResponse.Transaction> list = transactions.getData()
+            .stream()
+            .map(StripePaymentProvider::mapStripeTransactionToResponse)
+            .collect(Collectors.toList());
+
+        boolean hasMore = Boolean.TRUE.equals(transactions.getHasMore()) && !list.isEmpty();
+        return TransactionListResponse.builder()
+            .transactions(list)
+            .total((int) transactions.getData().size())
+            .hasMore(hasMore)
+            .nextCursor(hasMore ? list.get(list.size() - 1).getId() : null)
+            .build();
+    }
+
+    static TransactionListResponse emptyTransactionList() {
+        return TransactionListResponse.builder()
+            .transactions(List.of())
+            .total(0)
+            .hasMore(false)
+            .build();
     }
 
-    private CardResponse mapStripeCardToResponse(Card card) {
+    static CardResponse mapStripeCardToResponse(Card card) {
         return CardResponse.builder()
             .cardId(card.getId())
             .cardNumber(card.getNumber())
@@ -265,7 +505,7 @@ public class StripePaymentProvider implements PaymentProvider {
             .expiryMonth(String.valueOf(card.getExpMonth()))
             .expiryYear(String.valueOf(card.getExpYear()))
             .cardholderName(card.getCardholder() != null ?
-                card.getCardholder() : "VaultCard User")
+                card.getCardholder().getName() : "VaultCard User")
             .status(card.getStatus())
             .type("virtual")
             .spendingLimit(new BigDecimal(card.getSpendingControls()
@@ -273,20 +513,23 @@ public class StripePaymentProvider implements PaymentProvider {
             .build();
     }
 
-    private TransactionListResponse.Transaction mapStripeTransactionToResponse(Transaction t) {
+    static TransactionListResponse.Transaction mapStripeTransactionToResponse(Transaction t) {
         return TransactionListResponse.Transaction.builder()
             .id(t.getId())
             .merchant(t.getMerchantData() != null ?
                 t.getMerchantData().getName() : "Unknown Merchant")
             .amount(new BigDecimal(Math.abs(t.getAmount()) / 100.0))
             .currency(t.getCurrency().toUpperCase())
-            .status(t.getStatus())
+            .status(t.getType())
             .type(t.getAmount() > 0 ? "income" : "expense")
             .createdAt(LocalDateTime.ofEpochSecond(t.getCreated(), 0, ZoneOffset.UTC))
+            .cardId(t.getCard())
+            .authorizationId(t.getAuthorization())
+            .merchantCategoryCode(t.getMerchantData() != null ? t.getMerchantData().getCategoryCode() : null)
             .build();
     }
 
-    private String extractPaymentUrl(PaymentIntent intent) {
+    private static String extractPaymentUrl(PaymentIntent intent) {
         // 提取Alipay/WeChat Pay的跳转URL
         if (intent.getNextAction() != null &&
             intent.getNextAction().getAlipayHandleRedirect() != null) {
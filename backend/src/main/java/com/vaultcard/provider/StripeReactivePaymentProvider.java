@@ -0,0 +1,364 @@
+package com.vaultcard.provider;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.stripe.Stripe;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.issuing.Card;
+import com.stripe.model.issuing.Cardholder;
+import com.stripe.model.issuing.TransactionCollection;
+import com.stripe.net.ApiResource;
+import com.stripe.net.FormEncoder;
+import com.vaultcard.dto.*;
+import com.vaultcard.entity.User;
+import com.vaultcard.service.CardholderIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Stripe 非阻塞实现（WebClient + Reactor Netty）
+ *
+ * 请求参数和响应映射与StripePaymentProvider共用（SDK的参数对象 + FormEncoder，响应用SDK的GSON解析），
+ * 两条路径发出的请求和返回的DTO完全一致；区别只在传输层：
+ * 等待Stripe响应期间不占用线程，少量事件循环线程即可承载大量进行中的请求
+ *
+ * 超时按接口设置（与阻塞实现共用 vaultcard.stripe-http.timeouts），每次尝试单独计时；
+ * 连接失败、超时、429和5xx按指数退避重试，POST都带Idempotency-Key，重试不会重复执行
+ */
+@Slf4j
+@Component("stripeReactiveProvider")
+@RequiredArgsConstructor
+public class StripeReactivePaymentProvider implements ReactivePaymentProvider {
+
+    private final CardholderIndex cardholderIndex;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payment.provider.stripe.secret-key}")
+    private String stripeSecretKey;
+
+    // 可选：指向stripe-mock等本地服务，为空时使用Stripe官方地址
+    @Value("${payment.provider.stripe.api-base:}")
+    private String apiBase;
+
+    @Value("${payment.exchange-rate.usd-cny:7.26}")
+    private BigDecimal usdToCnyRate;
+
+    @Value("${vaultcard.stripe-http.timeouts.create-card-ms:15000}")
+    private int createCardTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.timeouts.get-card-ms:5000}")
+    private int getCardTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.timeouts.update-card-status-ms:10000}")
+    private int updateCardStatusTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.timeouts.list-transactions-ms:10000}")
+    private int listTransactionsTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.read-timeout-ms:30000}")
+    private int readTimeoutMs;
+
+    @Value("${vaultcard.stripe-http.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${vaultcard.stripe-http.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${vaultcard.stripe-http.retry-base-delay-ms:100}")
+    private long retryBaseDelayMs;
+
+    @Value("${vaultcard.stripe-http.retry-max-delay-ms:2000}")
+    private long retryMaxDelayMs;
+
+    // 连接池上限即最大并发请求数，超出的请求排队等待连接
+    @Value("${vaultcard.stripe-http.reactive.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${vaultcard.stripe-http.reactive.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMs;
+
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+
+    // 按 "method|outcome" 缓存计时器
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        String baseUrl = apiBase.isBlank() ? Stripe.LIVE_API_BASE : apiBase;
+        connectionProvider = ConnectionProvider.builder("stripe-reactive")
+            .maxConnections(maxConnections)
+            .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+            .maxIdleTime(Duration.ofSeconds(keepAliveSeconds))
+            .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
+
+        webClient = WebClient.builder()
+            .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + stripeSecretKey)
+            // 与SDK使用相同的API版本，响应才能用SDK模型解析
+            .defaultHeader("Stripe-Version", Stripe.API_VERSION)
+            .build();
+        log.info("Stripe reactive provider initialized: {} (max {} connections)", baseUrl, maxConnections);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * 传输层统计
+     */
+    public ReactiveClientStats getStats() {
+        return ReactiveClientStats.builder()
+            .maxConnections(maxConnections)
+            .requests(requests.get())
+            .retries(retries.get())
+            .failures(failures.get())
+            .build();
+    }
+
+    @Override
+    public Mono<PaymentIntentResponse> createPaymentIntent(PaymentIntentRequest request) {
+        return post("/v1/payment_intents", StripePaymentProvider.paymentIntentParams(request).toMap(),
+                UUID.randomUUID().toString(), PaymentIntent.class, readTimeoutMs)
+            .map(intent -> StripePaymentProvider.mapStripePaymentIntentToResponse(intent, request, usdToCnyRate))
+            .onErrorMap(e -> failed("Payment creation failed", e))
+            .transform(mono -> timed("createPaymentIntent", mono));
+    }
+
+    @Override
+    public Mono<CardResponse> createCard(CreateCardRequest request) {
+        // Cardholder解析读写数据库（JPA是阻塞的），放到boundedElastic上；已有Cardholder时只是一次内存查找
+        return Mono.fromCallable(() -> cardholderIndex.resolve(request.getUserId(),
+                user -> createCardholder(user, request.getCardholderName()).map(Cardholder::getId).block()))
+            .subscribeOn(Schedulers.boundedElastic())
+            // 显式幂等键：超时重试不会创建出第二张卡
+            .flatMap(cardholderId -> post("/v1/issuing/cards",
+                StripePaymentProvider.cardCreateParams(request, cardholderId).toMap(),
+                UUID.randomUUID().toString(), Card.class, createCardTimeoutMs))
+            .map(StripePaymentProvider::mapStripeCardToResponse)
+            .onErrorMap(e -> !(e instanceof IllegalArgumentException), e -> failed("Card creation failed", e))
+            .transform(mono -> timed("createCard", mono));
+    }
+
+    @Override
+    public Mono<CardResponse> getCard(String cardId) {
+        return get("/v1/issuing/cards/" + cardId, Map.of(), Card.class, getCardTimeoutMs)
+            .map(StripePaymentProvider::mapStripeCardToResponse)
+            .onErrorMap(e -> failed("Card retrieval failed", e))
+            .transform(mono -> timed("getCard", mono));
+    }
+
+    @Override
+    public Mono<CardResponse> updateCardStatus(String cardId, boolean freeze) {
+        return post("/v1/issuing/cards/" + cardId, StripePaymentProvider.cardStatusParams(freeze).toMap(),
+                UUID.randomUUID().toString(), Card.class, updateCardStatusTimeoutMs)
+            .map(StripePaymentProvider::mapStripeCardToResponse)
+            .onErrorMap(e -> failed("Card update failed", e))
+            .transform(mono -> timed("updateCardStatus", mono));
+    }
+
+    @Override
+    public Mono<TransactionListResponse> listTransactions(TransactionListRequest request) {
+        Mono<TransactionListResponse> page;
+        if (request.getCardId() == null && request.getUserId() != null) {
+            // 按用户查询时限定到该用户的Cardholder，没有Cardholder说明还没有交易
+            page = Mono.fromCallable(() -> cardholderIndex.find(request.getUserId()).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cardholderId -> fetchTransactions(request, cardholderId))
+                .defaultIfEmpty(StripePaymentProvider.emptyTransactionList());
+        } else {
+            page = fetchTransactions(request, null);
+        }
+
+        return page
+            .onErrorMap(e -> failed("Transaction listing failed", e))
+            .transform(mono -> timed("listTransactions", mono));
+    }
+
+    @Override
+    public String getProviderName() {
+        return "stripe";
+    }
+
+    // ========== Private Helper Methods ==========
+
+    private Mono<Cardholder> createCardholder(User user, String name) {
+        Map<String, Object> params = StripePaymentProvider.cardholderCreateParams(user, name).toMap();
+        return post("/v1/issuing/cardholders", params,
+            StripePaymentProvider.cardholderIdempotencyKey(user, params), Cardholder.class, createCardTimeoutMs);
+    }
+
+    private Mono<TransactionListResponse> fetchTransactions(TransactionListRequest request, String cardholderId) {
+        return get("/v1/issuing/transactions", StripePaymentProvider.transactionListParams(request, cardholderId),
+                TransactionCollection.class, listTransactionsTimeoutMs)
+            .map(StripePaymentProvider::mapStripeTransactionsToResponse);
+    }
+
+    private <T> Mono<T> get(String path, Map<String, Object> params, Class<T> type, int timeoutMs) {
+        String query = FormEncoder.createQueryString(params);
+        return exchange(webClient.get()
+            .uri(uri(query.isEmpty() ? path : path + "?" + query)), type, timeoutMs);
+    }
+
+    private <T> Mono<T> post(String path, Map<String, Object> params, String idempotencyKey,
+                             Class<T> type, int timeoutMs) {
+        return exchange(webClient.post()
+            .uri(uri(path))
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+            .bodyValue(FormEncoder.createQueryString(params)), type, timeoutMs);
+    }
+
+    /**
+     * 参数已由FormEncoder编码，直接拼成URI，避免WebClient对[]再编码一次
+     */
+    private Function<UriBuilder, URI> uri(String pathAndQuery) {
+        return builder -> URI.create(builder.build().toString() + pathAndQuery);
+    }
+
+    private <T> Mono<T> exchange(WebClient.RequestHeadersSpec<?> spec, Class<T> type, int timeoutMs) {
+        return Mono.defer(() -> {
+                requests.incrementAndGet();
+                return spec.retrieve()
+                    .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(String.class)
+                        .defaultIfEmpty("")
+                        .map(body -> new StripeHttpException(response.statusCode().value(), errorMessage(body))))
+                    .bodyToMono(String.class);
+            })
+            .timeout(Duration.ofMillis(timeoutMs))
+            .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(retryBaseDelayMs))
+                .maxBackoff(Duration.ofMillis(retryMaxDelayMs))
+                .filter(StripeReactivePaymentProvider::isRetryable)
+                .doBeforeRetry(signal -> retries.incrementAndGet())
+                .onRetryExhaustedThrow((retrySpec, signal) -> signal.failure()))
+            .map(body -> ApiResource.GSON.fromJson(body, type));
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof StripeHttpException http) {
+            return http.status == 429 || http.status >= 500;
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+
+    private RuntimeException failed(String message, Throwable e) {
+        failures.incrementAndGet();
+        log.error("{}: {}", message, e.toString());
+        return new RuntimeException(message + ": " + e.getMessage(), e);
+    }
+
+    private static String errorMessage(String body) {
+        try {
+            JsonElement error = JsonParser.parseString(body).getAsJsonObject().get("error");
+            if (error != null && error.getAsJsonObject().has("message")) {
+                return error.getAsJsonObject().get("message").getAsString();
+            }
+        } catch (RuntimeException e) {
+            // 非JSON响应（如网关错误页），原样返回
+        }
+        return body;
+    }
+
+    private <T> Mono<T> timed(String method, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doFinally(signal -> timer(method, outcome(signal))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static String outcome(SignalType signal) {
+        switch (signal) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                return "cancelled";
+        }
+    }
+
+    private Timer timer(String method, String outcome) {
+        return timers.computeIfAbsent(method + '|' + outcome, key -> Timer.builder("vaultcard.provider.requests")
+            .description("Payment provider call time by method")
+            .tag("provider", "stripe")
+            .tag("method", method)
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+    }
+
+    /**
+     * Stripe返回的非2xx响应
+     */
+    static class StripeHttpException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        StripeHttpException(int status, String message) {
+            super("HTTP " + status + ": " + message);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * 非阻塞传输层统计
+     */
+    @Data
+    @Builder
+    public static class ReactiveClientStats {
+        private int maxConnections;
+        private long requests;
+        private long retries;
+        private long failures;
+    }
+}
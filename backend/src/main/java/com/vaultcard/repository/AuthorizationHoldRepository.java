@@ -0,0 +1,19 @@
+package com.vaultcard.repository;
+
+import com.vaultcard.entity.AuthorizationHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for AuthorizationHold entity.
+ */
+@Repository
+public interface AuthorizationHoldRepository extends JpaRepository<AuthorizationHold, String> {
+
+    /**
+     * Find holds by status (ACTIVE holds are reloaded at startup)
+     */
+    List<AuthorizationHold> findByStatus(AuthorizationHold.HoldStatus status);
+}
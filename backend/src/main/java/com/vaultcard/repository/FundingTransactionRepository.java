@@ -37,4 +37,11 @@ public interface FundingTransactionRepository extends JpaRepository<FundingTrans
     @Query("SELECT COALESCE(SUM(f.amount), 0) FROM FundingTransaction f " +
            "WHERE f.userId = :userId AND f.status = 'SUCCEEDED'")
     BigDecimal getTotalFundedAmount(@Param("userId") String userId);
+
+    /**
+     * Total successful funding per user, as [userId, total] rows
+     */
+    @Query("SELECT f.userId, SUM(f.amount) FROM FundingTransaction f " +
+           "WHERE f.status = 'SUCCEEDED' GROUP BY f.userId")
+    List<Object[]> sumFundedByUser();
 }
@@ -1,10 +1,13 @@
 package com.vaultcard.repository;
 
 import com.vaultcard.entity.IssuingTransaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -18,15 +21,72 @@ import java.util.Optional;
 public interface IssuingTransactionRepository extends JpaRepository<IssuingTransaction, String> {
 
     /**
-     * Find all transactions for a user
+     * First page of a user's transactions, newest first.
+     * Order matches idx_issuing_transactions_user_created: (created_at DESC, id).
      */
-    List<IssuingTransaction> findByUserIdOrderByCreatedAtDesc(String userId);
+    @Query("SELECT t FROM IssuingTransaction t WHERE t.userId = :userId " +
+           "ORDER BY t.createdAt DESC, t.id ASC")
+    List<IssuingTransaction> findPageByUser(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Next page of a user's transactions after the (createdAt, id) keyset of the last row seen.
+     * The redundant createdAt bound lets the index seek straight to the position,
+     * so deep pages cost the same as the first one.
+     */
+    @Query("SELECT t FROM IssuingTransaction t WHERE t.userId = :userId " +
+           "AND t.createdAt <= :createdAt " +
+           "AND (t.createdAt < :createdAt OR t.id > :id) " +
+           "ORDER BY t.createdAt DESC, t.id ASC")
+    List<IssuingTransaction> findPageByUserAfter(@Param("userId") String userId,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") String id,
+                                                 Pageable pageable);
+
+    /**
+     * First page of a card's transactions, newest first (idx_issuing_transactions_card_created).
+     */
+    @Query("SELECT t FROM IssuingTransaction t WHERE t.stripeCardId = :cardId AND t.userId = :userId " +
+           "ORDER BY t.createdAt DESC, t.id ASC")
+    List<IssuingTransaction> findPageByCard(@Param("userId") String userId,
+                                            @Param("cardId") String stripeCardId,
+                                            Pageable pageable);
+
+    /**
+     * Next page of a card's transactions after the (createdAt, id) keyset of the last row seen.
+     */
+    @Query("SELECT t FROM IssuingTransaction t WHERE t.stripeCardId = :cardId AND t.userId = :userId " +
+           "AND t.createdAt <= :createdAt " +
+           "AND (t.createdAt < :createdAt OR t.id > :id) " +
+           "ORDER BY t.createdAt DESC, t.id ASC")
+    List<IssuingTransaction> findPageByCardAfter(@Param("userId") String userId,
+                                                 @Param("cardId") String stripeCardId,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") String id,
+                                                 Pageable pageable);
 
     /**
      * Find transaction by Stripe Transaction ID
      */
     Optional<IssuingTransaction> findByStripeTransactionId(String stripeTransactionId);
 
+    /**
+     * Find the record of an authorization, written when the authorization was decided
+     */
+    Optional<IssuingTransaction> findFirstByStripeAuthorizationIdOrderByCreatedAtAsc(String stripeAuthorizationId);
+
+    /**
+     * Move an authorization's uncaptured decision record from one status to another
+     * (e.g. PENDING -> REVERSED when its hold is released)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IssuingTransaction t SET t.status = :to " +
+           "WHERE t.stripeAuthorizationId = :authorizationId AND t.status = :from " +
+           "AND t.stripeTransactionId IS NULL")
+    int updateAuthorizationStatus(@Param("authorizationId") String authorizationId,
+                                  @Param("from") IssuingTransaction.TransactionStatus from,
+                                  @Param("to") IssuingTransaction.TransactionStatus to);
+
     /**
      * Find all transactions for a specific card
      */
@@ -64,4 +124,13 @@ public interface IssuingTransactionRepository extends JpaRepository<IssuingTrans
            "AND t.status = 'APPROVED' " +
            "AND t.transactionType = 'PURCHASE'")
     BigDecimal getTotalUserSpending(@Param("userId") String userId);
+
+    /**
+     * Total spending per user (same definition as getTotalUserSpending), as [userId, total] rows
+     */
+    @Query("SELECT t.userId, SUM(t.amount) FROM IssuingTransaction t " +
+           "WHERE t.status = 'APPROVED' " +
+           "AND t.transactionType = 'PURCHASE' " +
+           "GROUP BY t.userId")
+    List<Object[]> sumSpendingByUser();
 }
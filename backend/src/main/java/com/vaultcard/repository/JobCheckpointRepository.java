@@ -0,0 +1,25 @@
+package com.vaultcard.repository;
+
+import com.vaultcard.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for JobCheckpoint entity.
+ */
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+    /**
+     * Find the checkpoint of one job run partition
+     */
+    Optional<JobCheckpoint> findByJobNameAndPartitionKeyAndPeriod(String jobName, String partitionKey, String period);
+
+    /**
+     * Most recently updated checkpoints of a job
+     */
+    List<JobCheckpoint> findTop50ByJobNameOrderByUpdatedAtDesc(String jobName);
+}
@@ -0,0 +1,37 @@
+package com.vaultcard.repository;
+
+import com.vaultcard.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository for LedgerEntry entity (append-only).
+ */
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, String> {
+
+    /**
+     * Sum of an account's entries after the given sequence
+     */
+    @Query("SELECT COALESCE(SUM(e.amountCents), 0) FROM LedgerEntry e " +
+           "WHERE e.accountId = :accountId AND e.accountSequence > :afterSequence")
+    long sumAfter(@Param("accountId") String accountId, @Param("afterSequence") long afterSequence);
+
+    /**
+     * Highest sequence used by an account (0 if it has no entries)
+     */
+    @Query("SELECT COALESCE(MAX(e.accountSequence), 0) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    long maxSequence(@Param("accountId") String accountId);
+
+    /**
+     * Delete all entries of accounts with the given prefix (benchmark cleanup only)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LedgerEntry e WHERE e.accountId LIKE CONCAT(:prefix, '%')")
+    int deleteByAccountPrefix(@Param("prefix") String prefix);
+}
@@ -0,0 +1,31 @@
+package com.vaultcard.repository;
+
+import com.vaultcard.entity.LedgerSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Repository for LedgerSnapshot entity.
+ */
+@Repository
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, String> {
+
+    /**
+     * Latest snapshot of an account
+     */
+    Optional<LedgerSnapshot> findFirstByAccountIdOrderByAccountSequenceDesc(String accountId);
+
+    /**
+     * Delete all snapshots of accounts with the given prefix (benchmark cleanup only)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LedgerSnapshot s WHERE s.accountId LIKE CONCAT(:prefix, '%')")
+    int deleteByAccountPrefix(@Param("prefix") String prefix);
+}
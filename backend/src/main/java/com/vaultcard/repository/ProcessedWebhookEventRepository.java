@@ -0,0 +1,34 @@
+package com.vaultcard.repository;
+
+import com.vaultcard.entity.ProcessedWebhookEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for ProcessedWebhookEvent entity.
+ */
+@Repository
+public interface ProcessedWebhookEventRepository extends JpaRepository<ProcessedWebhookEvent, String> {
+
+    /**
+     * Page through recorded event IDs in key order (used to rebuild the in-memory filter)
+     */
+    @Query("SELECT e.eventId FROM ProcessedWebhookEvent e WHERE e.eventId > :after ORDER BY e.eventId")
+    List<String> findEventIdsAfter(@Param("after") String after, Pageable pageable);
+
+    /**
+     * Delete records older than the dedup TTL
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessedWebhookEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
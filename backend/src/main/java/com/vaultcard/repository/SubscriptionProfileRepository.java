@@ -1,9 +1,16 @@
 package com.vaultcard.repository;
 
 import com.vaultcard.entity.SubscriptionProfile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,4 +39,59 @@ public interface SubscriptionProfileRepository extends JpaRepository<Subscriptio
      * Count active profiles for a user (for limit checking)
      */
     long countByUserIdAndStatus(String userId, SubscriptionProfile.ProfileStatus status);
+
+    /**
+     * Atomically add to the month spend of the profile linked to a card (no read-modify-write)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SubscriptionProfile p " +
+           "SET p.currentMonthSpent = COALESCE(p.currentMonthSpent, 0) + :amount " +
+           "WHERE p.linkedCardId = :cardId")
+    int addToCurrentMonthSpent(@Param("cardId") String cardId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Atomically add spend for a given period. A profile still on an earlier period is
+     * rolled to this one first (spend starts from this amount), the same way the monthly
+     * reset would; spend for a period the profile has already left is not applied.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SubscriptionProfile p " +
+           "SET p.currentMonthSpent = CASE WHEN p.spendPeriod < :period THEN :amount " +
+           "ELSE COALESCE(p.currentMonthSpent, 0) + :amount END, " +
+           "p.spendPeriod = CASE WHEN p.spendPeriod < :period THEN :period ELSE p.spendPeriod END " +
+           "WHERE p.linkedCardId = :cardId AND (p.spendPeriod IS NULL OR p.spendPeriod <= :period)")
+    int addToSpendPeriod(@Param("cardId") String cardId,
+                         @Param("period") String period,
+                         @Param("amount") BigDecimal amount);
+
+    /**
+     * Next chunk of profile IDs (keyset-paged by ID) whose spend period is behind the
+     * given month, for users in one timezone
+     */
+    @Query("SELECT p.id FROM SubscriptionProfile p " +
+           "WHERE p.id > :afterId " +
+           "AND (p.spendPeriod IS NULL OR p.spendPeriod < :period) " +
+           "AND p.userId IN (SELECT u.id FROM User u WHERE COALESCE(u.timezone, 'UTC') = :timezone) " +
+           "ORDER BY p.id")
+    List<String> findIdsDueForReset(@Param("afterId") String afterId,
+                                    @Param("period") String period,
+                                    @Param("timezone") String timezone,
+                                    Pageable pageable);
+
+    /**
+     * Start a new spend period for a chunk of profiles. Profiles with no recorded
+     * period keep their spend and are just stamped. The period guard makes re-running
+     * a chunk harmless.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SubscriptionProfile p " +
+           "SET p.currentMonthSpent = CASE WHEN p.spendPeriod IS NULL THEN p.currentMonthSpent ELSE 0 END, " +
+           "p.spendPeriod = :period, p.updatedAt = :now " +
+           "WHERE p.id IN :ids AND (p.spendPeriod IS NULL OR p.spendPeriod < :period)")
+    int startSpendPeriod(@Param("ids") List<String> ids,
+                         @Param("period") String period,
+                         @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,45 @@
+package com.vaultcard.repository;
+
+import com.vaultcard.entity.UserBalanceSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository for UserBalanceSummary entity.
+ */
+@Repository
+public interface UserBalanceSummaryRepository extends JpaRepository<UserBalanceSummary, String> {
+
+    /**
+     * Atomically add deltas to a user's totals. Joins the caller's transaction.
+     *
+     * @return 1 if the user's row exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE UserBalanceSummary s " +
+           "SET s.totalFunded = s.totalFunded + :funded, " +
+           "s.totalSpent = s.totalSpent + :spent, " +
+           "s.availableBalance = s.availableBalance + :funded - :spent, " +
+           "s.updatedAt = :now " +
+           "WHERE s.userId = :userId")
+    int addToTotals(@Param("userId") String userId,
+                    @Param("funded") BigDecimal funded,
+                    @Param("spent") BigDecimal spent,
+                    @Param("now") LocalDateTime now);
+
+    /**
+     * Load a user's row with a write lock, so a rebuild is not interleaved with increments
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserBalanceSummary s WHERE s.userId = :userId")
+    Optional<UserBalanceSummary> findForUpdate(@Param("userId") String userId);
+}
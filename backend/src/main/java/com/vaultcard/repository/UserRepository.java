@@ -2,8 +2,13 @@ package com.vaultcard.repository;
 
 import com.vaultcard.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -27,6 +32,30 @@ public interface UserRepository extends JpaRepository<User, String> {
      */
     Optional<User> findByStripeCardholderId(String stripeCardholderId);
 
+    /**
+     * Set the Stripe Cardholder ID only if the user does not have one yet.
+     *
+     * @return 1 if assigned, 0 if the user already had a cardholder (or does not exist)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.stripeCardholderId = :cardholderId " +
+           "WHERE u.id = :userId AND u.stripeCardholderId IS NULL")
+    int assignStripeCardholderId(@Param("userId") String userId,
+                                 @Param("cardholderId") String cardholderId);
+
+    /**
+     * IDs of all users
+     */
+    @Query("SELECT u.id FROM User u")
+    List<String> findAllIds();
+
+    /**
+     * All timezones in use (unset counts as UTC)
+     */
+    @Query("SELECT DISTINCT COALESCE(u.timezone, 'UTC') FROM User u")
+    List<String> findDistinctTimezones();
+
     /**
      * Check if email exists
      */
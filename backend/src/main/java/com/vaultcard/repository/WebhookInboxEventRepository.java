@@ -0,0 +1,81 @@
+package com.vaultcard.repository;
+
+import com.vaultcard.entity.WebhookInboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for WebhookInboxEvent entity.
+ */
+@Repository
+public interface WebhookInboxEventRepository extends JpaRepository<WebhookInboxEvent, String> {
+
+    /**
+     * Find IDs of events in a status that arrived before a cutoff and whose retry backoff
+     * has elapsed, oldest first
+     */
+    @Query("SELECT e.id FROM WebhookInboxEvent e " +
+           "WHERE e.status = :status AND e.receivedAt < :before " +
+           "AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now) " +
+           "ORDER BY e.receivedAt")
+    List<String> findIdsDueForProcessing(
+            @Param("status") WebhookInboxEvent.InboxStatus status,
+            @Param("before") LocalDateTime before,
+            @Param("now") LocalDateTime now,
+            Pageable pageable
+    );
+
+    /**
+     * Atomically claim an event for processing. Returns 1 if this caller won the claim.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookInboxEvent e SET e.status = 'PROCESSING', e.claimedAt = :now, " +
+           "e.attempts = e.attempts + 1 " +
+           "WHERE e.id = :id AND e.status = 'RECEIVED'")
+    int claim(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    /**
+     * Return events stuck in PROCESSING (worker crashed) to RECEIVED
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookInboxEvent e SET e.status = 'RECEIVED' " +
+           "WHERE e.status = 'PROCESSING' AND e.claimedAt < :before")
+    int releaseStaleClaims(@Param("before") LocalDateTime before);
+
+    /**
+     * Delete processed events older than a cutoff
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WebhookInboxEvent e WHERE e.status = 'PROCESSED' AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Delete events that were given up on, received before a cutoff
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WebhookInboxEvent e WHERE e.status = 'FAILED' AND e.receivedAt < :before")
+    int deleteFailedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Count events in a status
+     */
+    long countByStatus(WebhookInboxEvent.InboxStatus status);
+
+    /**
+     * Arrival time of the oldest event in a status (null if none)
+     */
+    @Query("SELECT MIN(e.receivedAt) FROM WebhookInboxEvent e WHERE e.status = :status")
+    LocalDateTime findOldestReceivedAt(@Param("status") WebhookInboxEvent.InboxStatus status);
+}
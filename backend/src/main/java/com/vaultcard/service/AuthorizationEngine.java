@@ -0,0 +1,545 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.entity.IssuingTransaction;
+import com.vaultcard.entity.SubscriptionProfile;
+import com.vaultcard.entity.User;
+import com.vaultcard.repository.IssuingCardRepository;
+import com.vaultcard.repository.IssuingTransactionRepository;
+import com.vaultcard.repository.SubscriptionProfileRepository;
+import com.vaultcard.repository.UserRepository;
+import com.vaultcard.util.LatencyHistogram;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory decision engine for issuing_authorization.request webhooks.
+ *
+ * Stripe waits synchronously for our approve/decline answer, so the decision must not
+ * touch the database. Card status, spending limits, allowed MCCs and the running month
+ * spend (captured plus still held) are kept in memory per Stripe card ID, and approvals
+ * place a hold against the user's in-memory ledger balance; decisions are recorded to
+ * issuing_transactions asynchronously on a single write-back thread. When its queue is
+ * full the caller waits briefly for room and otherwise writes the record itself.
+ *
+ * A redelivered or retried authorization (same ID while its hold is open) gets the first
+ * decision back without reserving month spend or writing a record again.
+ *
+ * Cards that are not yet cached are loaded on first use (slow path).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuthorizationEngine {
+
+    private final IssuingCardRepository issuingCardRepository;
+    private final SubscriptionProfileRepository subscriptionProfileRepository;
+    private final IssuingTransactionRepository issuingTransactionRepository;
+    private final SpendLedger spendLedger;
+    private final UserRepository userRepository;
+    private final AuthorizationHoldStore authorizationHoldStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${vaultcard.authorization.latency-budget-micros:500}")
+    private long latencyBudgetMicros;
+
+    @Value("${vaultcard.authorization.write-back-queue-capacity:10000}")
+    private int writeBackQueueCapacity;
+
+    // How long a caller waits for room in a full write-back queue before writing the record itself
+    @Value("${vaultcard.authorization.write-back-timeout-ms:20}")
+    private long writeBackTimeoutMs;
+
+    private final Map<String, CardState> cards = new ConcurrentHashMap<>();
+    private final LatencyHistogram decisionLatency = new LatencyHistogram();
+    private final AtomicLong approvedCount = new AtomicLong();
+    private final AtomicLong declinedCount = new AtomicLong();
+    private final AtomicLong overBudgetCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+    private final AtomicLong writeBackCallerRuns = new AtomicLong();
+
+    private ThreadPoolExecutor writeBackExecutor;
+    private Timer approvedTimer;
+    private Timer declinedTimer;
+
+    @PostConstruct
+    public void init() {
+        // SLO buckets: management.metrics.distribution.slo.vaultcard.authorization.decision
+        approvedTimer = Timer.builder("vaultcard.authorization.decision")
+                .description("In-memory authorization decision time")
+                .tag("outcome", "approved")
+                .register(meterRegistry);
+        declinedTimer = Timer.builder("vaultcard.authorization.decision")
+                .description("In-memory authorization decision time")
+                .tag("outcome", "declined")
+                .register(meterRegistry);
+
+        writeBackExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writeBackQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "auth-write-back");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                this::writeBackQueueFull);
+
+        // Reversed, closed or expired holds no longer count against the month
+        authorizationHoldStore.addReleaseListener((stripeCardId, amountCents) -> {
+            CardState state = cards.get(stripeCardId);
+            if (state != null) {
+                state.unreserve(amountCents);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writeBackExecutor.shutdown();
+        if (!writeBackExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Authorization write-back did not drain within 10s, {} records pending",
+                    writeBackExecutor.getQueue().size());
+        }
+    }
+
+    /**
+     * Pre-load all usable cards so the first authorization on each card is also fast.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Map<String, SubscriptionProfile> profilesByCard = subscriptionProfileRepository.findAll().stream()
+                .filter(p -> p.getLinkedCardId() != null)
+                .collect(Collectors.toMap(SubscriptionProfile::getLinkedCardId, Function.identity(), (a, b) -> a));
+
+        Map<String, ZoneId> zonesByUser = userRepository.findAll().stream()
+                .collect(Collectors.toMap(User::getId, User::zoneId));
+
+        Map<String, Long> heldByCard = authorizationHoldStore.heldCentsByCard();
+
+        issuingCardRepository.findAll().stream()
+                .filter(card -> card.getStripeCardId() != null)
+                .filter(card -> card.getStatus() != IssuingCard.CardStatus.CANCELED)
+                .forEach(card -> cards.put(card.getStripeCardId(), newState(card,
+                        profilesByCard.get(card.getId()),
+                        zonesByUser.getOrDefault(card.getUserId(), ZoneOffset.UTC),
+                        heldByCard.getOrDefault(card.getStripeCardId(), 0L))));
+
+        log.info("Authorization engine warmed up with {} cards", cards.size());
+    }
+
+    /**
+     * Decide whether to approve an authorization. Never blocks on I/O for cached cards.
+     *
+     * @param authorizationId Stripe authorization ID (iauth_xxx)
+     * @param stripeCardId    Stripe card ID (ic_xxx)
+     * @param amountCents     Requested amount in cents
+     * @param mcc             Merchant category code, may be null
+     * @param merchantName    Merchant name, only used for the write-back record
+     * @return The decision
+     */
+    public AuthorizationDecision decide(String authorizationId, String stripeCardId, long amountCents,
+                                        String mcc, String merchantName) {
+        long start = System.nanoTime();
+
+        CardState state = stripeCardId != null ? cards.get(stripeCardId) : null;
+        if (state == null && stripeCardId != null) {
+            state = loadCard(stripeCardId).orElse(null);
+        }
+
+        AuthorizationDecision decision;
+        boolean duplicate = false;
+        Optional<Boolean> earlier = state != null
+                ? authorizationHoldStore.existingDecision(authorizationId)
+                : Optional.empty();
+        if (earlier.isPresent()) {
+            // Answered before: its month spend is reserved and its record written already
+            duplicate = true;
+            decision = earlier.get()
+                    ? AuthorizationDecision.approve()
+                    : AuthorizationDecision.decline("insufficient_funds");
+        } else {
+            decision = state == null
+                    ? AuthorizationDecision.decline("card_not_found")
+                    : state.evaluate(amountCents, mcc);
+            if (decision.isApproved()) {
+                AuthorizationHoldStore.Placement placement;
+                try {
+                    placement = authorizationHoldStore.place(authorizationId, state.userId, stripeCardId, amountCents);
+                } catch (RuntimeException e) {
+                    state.unreserve(amountCents);
+                    throw e;
+                }
+                // Only a newly placed hold keeps the reservation; a concurrent duplicate's is the first call's
+                if (placement != AuthorizationHoldStore.Placement.HELD) {
+                    state.unreserve(amountCents);
+                }
+                duplicate = placement.isDuplicate();
+                if (!placement.isApproved()) {
+                    decision = AuthorizationDecision.decline("insufficient_funds");
+                }
+            }
+        }
+        if (duplicate) {
+            duplicateCount.incrementAndGet();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        decisionLatency.record(elapsed);
+        (decision.isApproved() ? approvedTimer : declinedTimer).record(elapsed, TimeUnit.NANOSECONDS);
+        (decision.isApproved() ? approvedCount : declinedCount).incrementAndGet();
+        if (elapsed > TimeUnit.MICROSECONDS.toNanos(latencyBudgetMicros)) {
+            overBudgetCount.incrementAndGet();
+            log.warn("Authorization decision took {}us (budget {}us)",
+                    TimeUnit.NANOSECONDS.toMicros(elapsed), latencyBudgetMicros);
+        }
+
+        if (state != null && !duplicate) {
+            recordAsync(authorizationId, state.userId, stripeCardId, amountCents, mcc, merchantName, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Refresh the cached rules for a card after its status or limits changed.
+     * The running month spend is kept. Applied after commit when called inside a transaction.
+     */
+    public void onCardChanged(IssuingCard card) {
+        if (card.getStripeCardId() == null || !cards.containsKey(card.getStripeCardId())) {
+            return;
+        }
+        afterCommit(() -> {
+            SubscriptionProfile profile = subscriptionProfileRepository.findByLinkedCardId(card.getId()).orElse(null);
+            cards.computeIfPresent(card.getStripeCardId(), (id, state) -> {
+                state.rules = CardRules.from(card, profile);
+                return state;
+            });
+        });
+    }
+
+    /**
+     * Current engine statistics.
+     */
+    public AuthorizationStats getStats() {
+        return AuthorizationStats.builder()
+                .cachedCards(cards.size())
+                .approved(approvedCount.get())
+                .declined(declinedCount.get())
+                .overBudget(overBudgetCount.get())
+                .latencyBudgetMicros(latencyBudgetMicros)
+                .decisionLatency(decisionLatency.snapshot())
+                .writeBackQueueDepth(writeBackExecutor.getQueue().size())
+                .duplicates(duplicateCount.get())
+                .writeBackCallerRuns(writeBackCallerRuns.get())
+                .build();
+    }
+
+    /**
+     * Cards in the decision cache. O(1), for meters.
+     */
+    public int getCachedCardCount() {
+        return cards.size();
+    }
+
+    /**
+     * Decisions that exceeded the latency budget. O(1), for meters.
+     */
+    public long getOverBudgetCount() {
+        return overBudgetCount.get();
+    }
+
+    /**
+     * Authorization records waiting for the write-back thread. O(1), for meters.
+     */
+    public int getWriteBackQueueDepth() {
+        return writeBackExecutor.getQueue().size();
+    }
+
+    /**
+     * Decisions answered from an earlier decision for the same authorization. O(1), for meters.
+     */
+    public long getDuplicateCount() {
+        return duplicateCount.get();
+    }
+
+    /**
+     * Authorization records written on the caller's thread because the write-back queue was
+     * full. O(1), for meters.
+     */
+    public long getWriteBackCallerRunsCount() {
+        return writeBackCallerRuns.get();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Optional<CardState> loadCard(String stripeCardId) {
+        log.debug("Authorization cache miss for card {}, loading from database", stripeCardId);
+        return issuingCardRepository.findByStripeCardId(stripeCardId)
+                .map(card -> cards.computeIfAbsent(stripeCardId, id -> newState(card,
+                        subscriptionProfileRepository.findByLinkedCardId(card.getId()).orElse(null),
+                        userRepository.findById(card.getUserId()).map(User::zoneId).orElse(ZoneOffset.UTC),
+                        authorizationHoldStore.heldCents(stripeCardId))));
+    }
+
+    /**
+     * Build the cached state for a card. The month is the cardholder's local month;
+     * authorizations still on hold count towards it.
+     */
+    private CardState newState(IssuingCard card, SubscriptionProfile profile, ZoneId zone, long heldCents) {
+        YearMonth month = YearMonth.now(zone);
+        long spentCents;
+        if (profile != null && profile.getCurrentMonthSpent() != null) {
+            // A profile the reset job hasn't reached yet still holds last month's spend
+            boolean stale = profile.getSpendPeriod() != null && !profile.getSpendPeriod().equals(month.toString());
+            // Include this month's spend recorded but not yet flushed to the profile
+            spentCents = (stale ? 0 : toCents(profile.getCurrentMonthSpent()))
+                    + spendLedger.pendingCents(card.getId(), month.toString());
+        } else {
+            // issuing_transactions timestamps are server-local
+            LocalDateTime monthStart = month.atDay(1).atStartOfDay(zone)
+                    .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            spentCents = toCents(issuingTransactionRepository.getTotalSpendingForPeriod(
+                    card.getStripeCardId(), monthStart, LocalDateTime.now()));
+        }
+        return new CardState(card.getUserId(), zone, CardRules.from(card, profile),
+                new MonthSpend(month, spentCents + heldCents));
+    }
+
+    private void recordAsync(String authorizationId, String userId, String stripeCardId, long amountCents,
+                             String mcc, String merchantName, AuthorizationDecision decision) {
+        writeBackExecutor.execute(() -> {
+            try {
+                // A retried authorization that was declined has no hold to answer it from and is
+                // decided again; keep the first record
+                if (issuingTransactionRepository.findFirstByStripeAuthorizationIdOrderByCreatedAtAsc(authorizationId)
+                        .isPresent()) {
+                    return;
+                }
+                issuingTransactionRepository.save(IssuingTransaction.builder()
+                        .userId(userId)
+                        .stripeAuthorizationId(authorizationId)
+                        .stripeCardId(stripeCardId)
+                        .amount(BigDecimal.valueOf(amountCents, 2))
+                        .currency("usd")
+                        .merchantName(merchantName)
+                        .merchantCategoryCode(mcc)
+                        .transactionType(IssuingTransaction.TransactionType.PURCHASE)
+                        .status(decision.isApproved()
+                                ? IssuingTransaction.TransactionStatus.PENDING
+                                : IssuingTransaction.TransactionStatus.DECLINED)
+                        .declineReason(decision.getDeclineReason())
+                        .build());
+            } catch (Exception e) {
+                log.error("Failed to record authorization {}", authorizationId, e);
+            }
+        });
+    }
+
+    /**
+     * Rejection handler of the write-back executor: wait briefly for room, then write the
+     * record on the calling thread rather than lose it.
+     */
+    private void writeBackQueueFull(Runnable runnable, ThreadPoolExecutor executor) {
+        try {
+            if (!executor.isShutdown()
+                    && executor.getQueue().offer(runnable, writeBackTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeBackCallerRuns.incrementAndGet();
+        runnable.run();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    /**
+     * Mutable per-card state: immutable rules swapped on change, plus an atomic month spend.
+     */
+    private static final class CardState {
+        private final String userId;
+        private final ZoneId zone;
+        private volatile CardRules rules;
+        private final AtomicReference<MonthSpend> spend;
+
+        private CardState(String userId, ZoneId zone, CardRules rules, MonthSpend spend) {
+            this.userId = userId;
+            this.zone = zone;
+            this.rules = rules;
+            this.spend = new AtomicReference<>(spend);
+        }
+
+        private AuthorizationDecision evaluate(long amountCents, String mcc) {
+            CardRules current = rules;
+            if (!current.active) {
+                return AuthorizationDecision.decline("card_inactive");
+            }
+            if (current.perTransactionLimitCents != null && amountCents > current.perTransactionLimitCents) {
+                return AuthorizationDecision.decline("exceeds_transaction_limit");
+            }
+            if (!current.allowedMccs.isEmpty() && (mcc == null || !current.allowedMccs.contains(mcc))) {
+                return AuthorizationDecision.decline("merchant_category_not_allowed");
+            }
+
+            // Reserve against the monthly limit with a CAS loop so concurrent approvals can't overspend.
+            // The month rolls over at midnight in the cardholder's timezone.
+            YearMonth month = YearMonth.now(zone);
+            while (true) {
+                MonthSpend before = spend.get();
+                long spent = before.month.equals(month) ? before.cents : 0;
+                if (current.perMonthLimitCents != null && spent + amountCents > current.perMonthLimitCents) {
+                    return AuthorizationDecision.decline("exceeds_monthly_limit");
+                }
+                if (spend.compareAndSet(before, new MonthSpend(month, spent + amountCents))) {
+                    return AuthorizationDecision.approve();
+                }
+            }
+        }
+
+        /**
+         * Give back month spend reserved by evaluate, for an authorization that was declined
+         * afterwards or whose hold was released.
+         */
+        private void unreserve(long amountCents) {
+            YearMonth month = YearMonth.now(zone);
+            while (true) {
+                MonthSpend before = spend.get();
+                if (!before.month.equals(month)
+                        || spend.compareAndSet(before, new MonthSpend(month, before.cents - amountCents))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of the spend controls that apply to a card.
+     */
+    private static final class CardRules {
+        private final boolean active;
+        private final Long perTransactionLimitCents;
+        private final Long perMonthLimitCents;
+        private final Set<String> allowedMccs;
+
+        private CardRules(boolean active, Long perTransactionLimitCents, Long perMonthLimitCents,
+                          Set<String> allowedMccs) {
+            this.active = active;
+            this.perTransactionLimitCents = perTransactionLimitCents;
+            this.perMonthLimitCents = perMonthLimitCents;
+            this.allowedMccs = allowedMccs;
+        }
+
+        private static CardRules from(IssuingCard card, SubscriptionProfile profile) {
+            boolean active = card.getStatus() == IssuingCard.CardStatus.ACTIVE
+                    && (profile == null || profile.getStatus() == SubscriptionProfile.ProfileStatus.ACTIVE);
+
+            Long monthLimit = card.getSpendingLimitPerMonth();
+            if (profile != null && profile.getMonthlyLimit() != null) {
+                long profileLimit = toCents(profile.getMonthlyLimit());
+                monthLimit = monthLimit == null ? profileLimit : Math.min(monthLimit, profileLimit);
+            }
+
+            Set<String> mccs = Collections.emptySet();
+            if (profile != null && profile.getAllowedMccCodes() != null && !profile.getAllowedMccCodes().isBlank()) {
+                mccs = Arrays.stream(profile.getAllowedMccCodes().split(","))
+                        .map(String::trim)
+                        .filter(code -> !code.isEmpty())
+                        .collect(Collectors.toUnmodifiableSet());
+            }
+
+            return new CardRules(active, card.getSpendingLimitPerTransaction(), monthLimit, mccs);
+        }
+    }
+
+    private static final class MonthSpend {
+        private final YearMonth month;
+        private final long cents;
+
+        private MonthSpend(YearMonth month, long cents) {
+            this.month = month;
+            this.cents = cents;
+        }
+    }
+
+    /**
+     * Result of an authorization decision.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class AuthorizationDecision {
+        private final boolean approved;
+        private final String declineReason;
+
+        public static AuthorizationDecision approve() {
+            return new AuthorizationDecision(true, null);
+        }
+
+        public static AuthorizationDecision decline(String reason) {
+            return new AuthorizationDecision(false, reason);
+        }
+    }
+
+    /**
+     * Engine statistics, including the decision latency distribution.
+     */
+    @Data
+    @Builder
+    public static class AuthorizationStats {
+        private int cachedCards;
+        private long approved;
+        private long declined;
+        private long overBudget;
+        private long latencyBudgetMicros;
+        private LatencyHistogram.Snapshot decisionLatency;
+        private long duplicates;            // Redelivered or retried authorizations answered from the first decision
+        private int writeBackQueueDepth;
+        private long writeBackCallerRuns;   // Records written on the caller's thread because the queue was full
+    }
+}
@@ -0,0 +1,524 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.AuthorizationHold;
+import com.vaultcard.entity.IssuingTransaction;
+import com.vaultcard.repository.AuthorizationHoldRepository;
+import com.vaultcard.repository.IssuingTransactionRepository;
+import com.vaultcard.util.TimerWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Funds held for approved issuing authorizations.
+ *
+ * A hold is placed in memory when the AuthorizationEngine approves an authorization,
+ * moving the amount from the user's available to held ledger balance. Captures consume
+ * it, and whatever is left is released when Stripe reverses or closes the authorization,
+ * or when it expires. Expiry runs on a hashed timer wheel, so finding stale holds never
+ * scans anything.
+ *
+ * Hold state is written to authorization_holds on a single write-back thread; ACTIVE
+ * holds are reloaded at startup. When the write-back queue is full the caller waits
+ * briefly for room and otherwise writes the row itself, so no hold row is dropped.
+ * Release listeners (the engine's month spend) are told how much was given back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuthorizationHoldStore {
+
+    private final AuthorizationHoldRepository holdRepository;
+    private final IssuingTransactionRepository issuingTransactionRepository;
+    private final BalanceLedger balanceLedger;
+
+    @Value("${vaultcard.holds.expire-after-minutes:11520}")
+    private long expireAfterMinutes;
+
+    @Value("${vaultcard.holds.tick-ms:60000}")
+    private long tickMs;
+
+    @Value("${vaultcard.holds.wheel-size:4096}")
+    private int wheelSize;
+
+    @Value("${vaultcard.holds.write-back-queue-capacity:10000}")
+    private int writeBackQueueCapacity;
+
+    // How long a caller waits for room in a full write-back queue before writing the row itself
+    @Value("${vaultcard.holds.write-back-timeout-ms:20}")
+    private long writeBackTimeoutMs;
+
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final List<ReleaseListener> releaseListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong placed = new AtomicLong();
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong reversed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    // Sum of remainingCents over all holds, kept alongside every change to it
+    private final AtomicLong totalHeldCents = new AtomicLong();
+    private final AtomicLong writeBackCallerRuns = new AtomicLong();
+
+    private TimerWheel<String> expiryWheel;
+    private ThreadPoolExecutor writeBackExecutor;
+
+    @PostConstruct
+    public void init() {
+        writeBackExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writeBackQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "hold-write-back");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                this::writeBackQueueFull);
+
+        expiryWheel = new TimerWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        for (AuthorizationHold row : holdRepository.findByStatus(AuthorizationHold.HoldStatus.ACTIVE)) {
+            Hold hold = new Hold(row);
+            holds.put(hold.authorizationId, hold);
+            totalHeldCents.addAndGet(hold.remainingCents);
+            expiryWheel.schedule(hold.authorizationId, toEpochMillis(hold.expiresAt));
+        }
+        log.info("Loaded {} active authorization holds", holds.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writeBackExecutor.shutdown();
+        if (!writeBackExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Hold write-back did not drain within 10s, {} records pending",
+                    writeBackExecutor.getQueue().size());
+        }
+    }
+
+    /**
+     * Register a callback for released hold amounts (reversal, close or expiry).
+     */
+    public void addReleaseListener(ReleaseListener listener) {
+        releaseListeners.add(listener);
+    }
+
+    /**
+     * Hold funds for an approved authorization. Never blocks on I/O for loaded accounts.
+     *
+     * Placing a hold for an authorization that is already held (a redelivered or retried
+     * request) does not hold the funds again; it returns the decision of the first call,
+     * waiting for it if that call is still in progress, as a duplicate placement.
+     *
+     * @return HELD, or INSUFFICIENT_FUNDS if the user's available balance does not cover the amount
+     * @throws IllegalArgumentException if authorizationId is null
+     * @throws IllegalStateException    if the ledger cannot take the hold (write queue full); no
+     *                                  hold is left behind
+     */
+    public Placement place(String authorizationId, String userId, String stripeCardId, long amountCents) {
+        if (authorizationId == null) {
+            throw new IllegalArgumentException("authorizationId is required to place a hold");
+        }
+        if (amountCents <= 0) {
+            return Placement.HELD;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Hold hold = new Hold(authorizationId, userId, stripeCardId, amountCents, now,
+                now.plusMinutes(expireAfterMinutes));
+        Hold existing;
+        // Locked before it is published, so a concurrent duplicate waits here for the decision
+        synchronized (hold) {
+            existing = holds.putIfAbsent(authorizationId, hold);
+            if (existing == null) {
+                try {
+                    hold.approved = balanceLedger.tryHold(userId, authorizationId, amountCents);
+                } catch (RuntimeException e) {
+                    // Nothing was held: unpublish, so a retry decides afresh instead of seeing an approval
+                    hold.approved = false;
+                    hold.remainingCents = 0;
+                    hold.status = AuthorizationHold.HoldStatus.REVERSED;
+                    holds.remove(authorizationId, hold);
+                    throw e;
+                }
+                if (!hold.approved) {
+                    hold.remainingCents = 0;
+                    hold.status = AuthorizationHold.HoldStatus.REVERSED;
+                    holds.remove(authorizationId, hold);
+                    return Placement.INSUFFICIENT_FUNDS;
+                }
+                totalHeldCents.addAndGet(amountCents);
+            }
+        }
+        if (existing != null) {
+            duplicates.incrementAndGet();
+            synchronized (existing) {
+                return existing.approved ? Placement.ALREADY_HELD : Placement.ALREADY_DECLINED;
+            }
+        }
+        expiryWheel.schedule(authorizationId, toEpochMillis(hold.expiresAt));
+        placed.incrementAndGet();
+        persistAsync(hold.toEntity());
+        return Placement.HELD;
+    }
+
+    /**
+     * Decision of an earlier place() for this authorization while its hold is open,
+     * waiting for it if that call is still in progress.
+     *
+     * @return Empty if no hold is open for the authorization
+     */
+    public Optional<Boolean> existingDecision(String authorizationId) {
+        Hold hold = authorizationId != null ? holds.get(authorizationId) : null;
+        if (hold == null) {
+            return Optional.empty();
+        }
+        synchronized (hold) {
+            return Optional.of(hold.approved);
+        }
+    }
+
+    /**
+     * Post a settled card transaction. A capture (positive amount) consumes the
+     * authorization's hold first and takes any excess from the available balance;
+     * a refund (negative amount) credits available. Applied after commit when called
+     * inside a transaction.
+     */
+    public void recordCardTransaction(String userId, String authorizationId, String transactionId,
+                                      long amountCents) {
+        if (amountCents == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            if (amountCents < 0) {
+                balanceLedger.recordRefund(userId, authorizationId, transactionId, -amountCents);
+                return;
+            }
+            Hold hold = authorizationId != null ? holds.get(authorizationId) : null;
+            AuthorizationHold row = null;
+            if (hold != null) {
+                synchronized (hold) {
+                    if (hold.status == AuthorizationHold.HoldStatus.ACTIVE) {
+                        long fromHold = Math.min(hold.remainingCents, amountCents);
+                        // Posted before the hold changes, so a failed post leaves the hold as it was
+                        balanceLedger.recordCapture(userId, authorizationId, transactionId, amountCents, fromHold);
+                        hold.remainingCents -= fromHold;
+                        totalHeldCents.addAndGet(-fromHold);
+                        if (hold.remainingCents == 0) {
+                            hold.status = AuthorizationHold.HoldStatus.CAPTURED;
+                        }
+                        row = hold.toEntity();
+                    }
+                }
+            }
+            if (row == null) {
+                balanceLedger.recordCapture(userId, authorizationId, transactionId, amountCents, 0);
+                return;
+            }
+            if (row.getStatus() == AuthorizationHold.HoldStatus.CAPTURED) {
+                holds.remove(authorizationId, hold);
+                expiryWheel.cancel(authorizationId);
+                captured.incrementAndGet();
+            }
+            persistAsync(row);
+        });
+    }
+
+    /**
+     * Release what is left of a hold because Stripe reversed or closed the authorization.
+     * Applied after commit when called inside a transaction.
+     */
+    public void release(String authorizationId) {
+        if (authorizationId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            if (release(authorizationId, AuthorizationHold.HoldStatus.REVERSED)) {
+                reversed.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Release holds whose expiry has passed.
+     */
+    @Scheduled(fixedDelayString = "${vaultcard.holds.tick-ms:60000}")
+    public void expireHolds() {
+        List<String> due = expiryWheel.advance(System.currentTimeMillis());
+        for (String authorizationId : due) {
+            try {
+                if (release(authorizationId, AuthorizationHold.HoldStatus.EXPIRED)) {
+                    expired.incrementAndGet();
+                    log.info("Authorization hold {} expired", authorizationId);
+                }
+            } catch (Exception e) {
+                log.error("Failed to expire authorization hold {}", authorizationId, e);
+            }
+        }
+    }
+
+    /**
+     * Amount still held per Stripe card ID.
+     */
+    public Map<String, Long> heldCentsByCard() {
+        Map<String, Long> byCard = new HashMap<>();
+        holds.values().forEach(hold -> byCard.merge(hold.stripeCardId, hold.remainingCents, Long::sum));
+        return byCard;
+    }
+
+    /**
+     * Amount still held on one card (iterates all holds - for cache misses only).
+     */
+    public long heldCents(String stripeCardId) {
+        return holds.values().stream()
+                .filter(hold -> hold.stripeCardId.equals(stripeCardId))
+                .mapToLong(hold -> hold.remainingCents)
+                .sum();
+    }
+
+    /**
+     * Current hold statistics.
+     */
+    public HoldStats getStats() {
+        return HoldStats.builder()
+                .activeHolds(holds.size())
+                .heldCents(totalHeldCents.get())
+                .scheduledExpiries(expiryWheel.size())
+                .placed(placed.get())
+                .captured(captured.get())
+                .reversed(reversed.get())
+                .expired(expired.get())
+                .duplicates(duplicates.get())
+                .writeBackQueueDepth(writeBackExecutor.getQueue().size())
+                .writeBackCallerRuns(writeBackCallerRuns.get())
+                .build();
+    }
+
+    /**
+     * Holds not yet captured, reversed or expired. O(1), for meters.
+     */
+    public int getActiveHoldCount() {
+        return holds.size();
+    }
+
+    /**
+     * Amount still held across all holds. O(1), for meters.
+     */
+    public long getHeldCents() {
+        return totalHeldCents.get();
+    }
+
+    /**
+     * Hold counters by outcome. O(1), for meters.
+     */
+    public long getPlacedCount() {
+        return placed.get();
+    }
+
+    public long getCapturedCount() {
+        return captured.get();
+    }
+
+    public long getReversedCount() {
+        return reversed.get();
+    }
+
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    public long getWriteBackCallerRunsCount() {
+        return writeBackCallerRuns.get();
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * @return true if there was something left to release
+     */
+    private boolean release(String authorizationId, AuthorizationHold.HoldStatus status) {
+        Hold hold = holds.remove(authorizationId);
+        if (hold == null) {
+            return false;
+        }
+        expiryWheel.cancel(authorizationId);
+        long released;
+        AuthorizationHold row;
+        synchronized (hold) {
+            if (hold.status != AuthorizationHold.HoldStatus.ACTIVE) {
+                return false;
+            }
+            released = hold.remainingCents;
+            hold.remainingCents = 0;
+            totalHeldCents.addAndGet(-released);
+            hold.status = status;
+            row = hold.toEntity();
+        }
+        if (released > 0) {
+            balanceLedger.releaseHold(hold.userId, authorizationId, released);
+            releaseListeners.forEach(listener -> listener.released(hold.stripeCardId, released));
+        }
+        persistAsync(row);
+        return true;
+    }
+
+    private void persistAsync(AuthorizationHold row) {
+        writeBackExecutor.execute(() -> {
+            try {
+                holdRepository.save(row);
+                if (row.getStatus() == AuthorizationHold.HoldStatus.REVERSED
+                        || row.getStatus() == AuthorizationHold.HoldStatus.EXPIRED) {
+                    issuingTransactionRepository.updateAuthorizationStatus(row.getAuthorizationId(),
+                            IssuingTransaction.TransactionStatus.PENDING,
+                            IssuingTransaction.TransactionStatus.REVERSED);
+                }
+            } catch (Exception e) {
+                log.error("Failed to record authorization hold {}", row.getAuthorizationId(), e);
+            }
+        });
+    }
+
+    /**
+     * Rejection handler of the write-back executor: wait briefly for room, then write the
+     * row on the calling thread rather than lose it.
+     */
+    private void writeBackQueueFull(Runnable runnable, ThreadPoolExecutor executor) {
+        try {
+            if (!executor.isShutdown()
+                    && executor.getQueue().offer(runnable, writeBackTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeBackCallerRuns.incrementAndGet();
+        runnable.run();
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Outcome of placing a hold.
+     */
+    public enum Placement {
+        HELD,
+        INSUFFICIENT_FUNDS,
+        ALREADY_HELD,       // Duplicate of an authorization whose hold was placed
+        ALREADY_DECLINED;   // Duplicate of an authorization declined for insufficient funds
+
+        public boolean isApproved() {
+            return this == HELD || this == ALREADY_HELD;
+        }
+
+        public boolean isDuplicate() {
+            return this == ALREADY_HELD || this == ALREADY_DECLINED;
+        }
+    }
+
+    /**
+     * Callback for released hold amounts.
+     */
+    @FunctionalInterface
+    public interface ReleaseListener {
+        void released(String stripeCardId, long amountCents);
+    }
+
+    /**
+     * In-memory hold; remainingCents and status change only while synchronized on it.
+     */
+    private static final class Hold {
+        private final String authorizationId;
+        private final String userId;
+        private final String stripeCardId;
+        private final long amountCents;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime expiresAt;
+        private volatile long remainingCents;
+        private AuthorizationHold.HoldStatus status = AuthorizationHold.HoldStatus.ACTIVE;
+        private boolean approved = true;
+
+        private Hold(String authorizationId, String userId, String stripeCardId, long amountCents,
+                     LocalDateTime createdAt, LocalDateTime expiresAt) {
+            this.authorizationId = authorizationId;
+            this.userId = userId;
+            this.stripeCardId = stripeCardId;
+            this.amountCents = amountCents;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+            this.remainingCents = amountCents;
+        }
+
+        private Hold(AuthorizationHold row) {
+            this(row.getAuthorizationId(), row.getUserId(), row.getStripeCardId(), row.getAmountCents(),
+                    row.getCreatedAt(), row.getExpiresAt());
+            this.remainingCents = row.getRemainingCents();
+        }
+
+        private AuthorizationHold toEntity() {
+            return AuthorizationHold.builder()
+                    .authorizationId(authorizationId)
+                    .userId(userId)
+                    .stripeCardId(stripeCardId)
+                    .amountCents(amountCents)
+                    .remainingCents(remainingCents)
+                    .status(status)
+                    .createdAt(createdAt)
+                    .expiresAt(expiresAt)
+                    .build();
+        }
+    }
+
+    /**
+     * Hold store statistics.
+     */
+    @Data
+    @Builder
+    public static class HoldStats {
+        private int activeHolds;
+        private long heldCents;
+        private int scheduledExpiries;
+        private long placed;
+        private long captured;
+        private long reversed;
+        private long expired;
+        private long duplicates;            // place() calls for an authorization that was already held
+        private int writeBackQueueDepth;
+        private long writeBackCallerRuns;   // Rows written on the caller's thread because the queue was full
+    }
+}
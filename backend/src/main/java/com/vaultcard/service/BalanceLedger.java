@@ -0,0 +1,759 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.JobCheckpoint;
+import com.vaultcard.entity.LedgerEntry;
+import com.vaultcard.entity.LedgerSnapshot;
+import com.vaultcard.repository.JobCheckpointRepository;
+import com.vaultcard.repository.LedgerEntryRepository;
+import com.vaultcard.repository.LedgerSnapshotRepository;
+import com.vaultcard.repository.UserRepository;
+import com.vaultcard.util.LatencyHistogram;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Double-entry balance ledger.
+ *
+ * Every movement of money is a journal whose entries sum to zero: each user has an
+ * "available" and a "held" account, and external accounts stand for the funding
+ * source and the card network. Account balances are kept in memory, so reading a
+ * balance - including the funds check on the authorization path - is O(1) and never
+ * touches the database.
+ *
+ * A journal is applied to memory under the locks of the accounts it touches (taken in
+ * account ID order) and queued for a single writer thread, which appends entries to
+ * ledger_entries in batches, in order, together with a ledger_snapshots row every N
+ * entries per account. An account that is not in memory yet is loaded from its latest
+ * snapshot plus the entries after it.
+ *
+ * Funding journals posted inside a transaction are applied only once it commits; hold,
+ * capture and release journals are driven by AuthorizationHoldStore, which does the
+ * same. As with the authorization write-back, journals still queued when the process
+ * dies are lost. The write queue is bounded. A hold, which can still be declined, waits
+ * briefly for room and fails (applying nothing) if there is none; every other journal
+ * records something that has already happened (a committed funding, a capture, a release)
+ * and waits until there is room instead. A batch the database keeps rejecting is given
+ * up after a bounded number of attempts and counted in journalsDropped.
+ *
+ * Balances from before the ledger existed are seeded once at startup, before any
+ * traffic is accepted: every user gets an OPENING_BALANCE journal for the difference
+ * between their balance summary and what the ledger already holds for them.
+ */
+@Service
+@Slf4j
+public class BalanceLedger {
+
+    public static final String FUNDING_SOURCE = "external:funding";
+    public static final String CARD_NETWORK = "external:card-network";
+
+    private static final String BENCHMARK_PREFIX = "bench:";
+    private static final String OPENING_BALANCES_JOB = "ledger-opening-balances";
+
+    // Bumping this re-runs the opening balance backfill on the next start
+    private static final String OPENING_BALANCES_VERSION = "v1";
+
+    private final LedgerEntryRepository entryRepository;
+    private final LedgerSnapshotRepository snapshotRepository;
+    private final UserRepository userRepository;
+    private final BalanceSummaryService balanceSummaryService;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${vaultcard.ledger.enforce-funds:true}")
+    private boolean enforceFunds;
+
+    @Value("${vaultcard.ledger.snapshot-every:100}")
+    private int snapshotEvery;
+
+    @Value("${vaultcard.ledger.write-batch-size:500}")
+    private int writeBatchSize;
+
+    // Journals waiting for the writer, at most
+    @Value("${vaultcard.ledger.write-queue-capacity:100000}")
+    private int writeQueueCapacity;
+
+    // How long a hold waits for room in a full write queue before failing
+    @Value("${vaultcard.ledger.write-queue-timeout-ms:50}")
+    private long writeQueueTimeoutMs;
+
+    // Attempts per batch before the writer gives up on it
+    @Value("${vaultcard.ledger.write-max-attempts:8}")
+    private int writeMaxAttempts;
+
+    @Value("${vaultcard.ledger.benchmark-enabled:false}")
+    private boolean benchmarkEnabled;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    private BlockingQueue<PendingWrite> writeQueue;
+
+    private final LatencyHistogram postLatency = new LatencyHistogram();
+    private final AtomicLong journals = new AtomicLong();
+    private final AtomicLong insufficientFunds = new AtomicLong();
+    private final AtomicLong entriesWritten = new AtomicLong();
+    private final AtomicLong snapshotsWritten = new AtomicLong();
+    private final AtomicLong writeBatches = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private final AtomicLong writeQueueFull = new AtomicLong();
+    private final AtomicLong writeQueueWaits = new AtomicLong();
+    private final AtomicLong journalsDropped = new AtomicLong();
+
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public BalanceLedger(LedgerEntryRepository entryRepository,
+                         LedgerSnapshotRepository snapshotRepository,
+                         UserRepository userRepository,
+                         BalanceSummaryService balanceSummaryService,
+                         JobCheckpointRepository jobCheckpointRepository,
+                         PlatformTransactionManager transactionManager) {
+        this.entryRepository = entryRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.userRepository = userRepository;
+        this.balanceSummaryService = balanceSummaryService;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() throws InterruptedException {
+        writeQueue = new ArrayBlockingQueue<>(writeQueueCapacity);
+        writer = new Thread(this::writeLoop, "ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Runs before the web server and schedulers start, so no funds check sees a missing balance
+        postOpeningBalances();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (!writeQueue.isEmpty()) {
+            log.warn("Ledger writer did not drain within 10s, {} journals pending", writeQueue.size());
+        }
+    }
+
+    /**
+     * Load every user's accounts so the first funds check for each user is also fast.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<String> userIds = userRepository.findAllIds();
+        userIds.forEach(userId -> {
+            account(availableAccount(userId));
+            account(heldAccount(userId));
+        });
+        account(FUNDING_SOURCE);
+        account(CARD_NETWORK);
+        log.info("Balance ledger warmed up with {} accounts", accounts.size());
+    }
+
+    /**
+     * Seed every user's ledger with the balance they had before it existed, once.
+     *
+     * The opening amount is the user's balance summary (SUCCEEDED funding minus approved
+     * spend) less what the ledger already holds for them (available + held), so users
+     * with no ledger history get their whole balance and users who already have some get
+     * only the missing part. A checkpoint row marks the backfill done once every opening
+     * journal has been written; if the process dies before that, the next start computes
+     * the differences again from what was persisted.
+     */
+    private void postOpeningBalances() throws InterruptedException {
+        JobCheckpoint checkpoint = jobCheckpointRepository
+                .findByJobNameAndPartitionKeyAndPeriod(OPENING_BALANCES_JOB, "all", OPENING_BALANCES_VERSION)
+                .orElseGet(() -> JobCheckpoint.builder()
+                        .jobName(OPENING_BALANCES_JOB)
+                        .partitionKey("all")
+                        .period(OPENING_BALANCES_VERSION)
+                        .build());
+        if (checkpoint.getStatus() == JobCheckpoint.CheckpointStatus.COMPLETED) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long posted = 0;
+        for (String userId : userRepository.findAllIds()) {
+            long summaryCents = balanceSummaryService.getSummary(userId).getAvailableBalance()
+                    .movePointRight(2).longValue();
+            long ledgerCents = account(availableAccount(userId)).balance + account(heldAccount(userId)).balance;
+            long openingCents = summaryCents - ledgerCents;
+            if (openingCents != 0) {
+                post(LedgerEntry.EntryType.OPENING_BALANCE, userId, null,
+                        transfer(FUNDING_SOURCE, availableAccount(userId), openingCents), null, false);
+                posted++;
+            }
+            checkpoint.setProcessed(checkpoint.getProcessed() + 1);
+        }
+
+        CountDownLatch persisted = new CountDownLatch(1);
+        writeQueue.put(new PendingWrite(List.of(), List.of(), persisted));
+        if (!persisted.await(10, TimeUnit.MINUTES) || journalsDropped.get() > 0) {
+            log.error("Opening balances were not all written, will retry on next start");
+            return;
+        }
+        checkpoint.setStatus(JobCheckpoint.CheckpointStatus.COMPLETED);
+        checkpoint.setCompletedAt(LocalDateTime.now());
+        jobCheckpointRepository.save(checkpoint);
+        log.info("Posted {} opening balances for {} users in {}ms",
+                posted, checkpoint.getProcessed(), System.currentTimeMillis() - start);
+    }
+
+    public static String availableAccount(String userId) {
+        return "user:" + userId + ":available";
+    }
+
+    public static String heldAccount(String userId) {
+        return "user:" + userId + ":held";
+    }
+
+    /**
+     * Hold funds for an approved authorization (available -> held). Applied immediately;
+     * never blocks on I/O for loaded accounts.
+     *
+     * @return false if the user's available balance does not cover the amount
+     *         (only when vaultcard.ledger.enforce-funds is on)
+     * @throws IllegalStateException if the write queue stays full (nothing is held)
+     */
+    public boolean tryHold(String userId, String authorizationId, long amountCents) {
+        if (amountCents <= 0) {
+            return true;
+        }
+        String available = availableAccount(userId);
+        boolean posted = post(LedgerEntry.EntryType.HOLD, authorizationId, authorizationId,
+                transfer(available, heldAccount(userId), amountCents), enforceFunds ? available : null, true);
+        if (!posted) {
+            insufficientFunds.incrementAndGet();
+        }
+        return posted;
+    }
+
+    /**
+     * Credit (or, for a negative amount, debit) a funding transaction to the user's
+     * available balance. Applied after commit when called inside a transaction.
+     */
+    public void recordFunding(String userId, String fundingTransactionId, long amountCents) {
+        if (amountCents == 0) {
+            return;
+        }
+        LedgerEntry.EntryType type = amountCents > 0
+                ? LedgerEntry.EntryType.FUNDING
+                : LedgerEntry.EntryType.FUNDING_REVERSAL;
+        afterCommit(() -> post(type, fundingTransactionId, null,
+                transfer(FUNDING_SOURCE, availableAccount(userId), amountCents), null, false));
+    }
+
+    /**
+     * Post a capture: fromHoldCents comes out of the held account, the rest of the
+     * amount out of available. Applied immediately - AuthorizationHoldStore calls this
+     * after the capture has committed.
+     */
+    public void recordCapture(String userId, String authorizationId, String transactionId,
+                              long amountCents, long fromHoldCents) {
+        Map<String, Long> postings = new HashMap<>();
+        postings.merge(heldAccount(userId), -fromHoldCents, Long::sum);
+        postings.merge(availableAccount(userId), -(amountCents - fromHoldCents), Long::sum);
+        postings.merge(CARD_NETWORK, amountCents, Long::sum);
+        post(LedgerEntry.EntryType.CAPTURE, transactionId, authorizationId, postings, null, false);
+    }
+
+    /**
+     * Post a merchant refund back to available. Applied immediately.
+     */
+    public void recordRefund(String userId, String authorizationId, String transactionId, long amountCents) {
+        post(LedgerEntry.EntryType.REFUND, transactionId, authorizationId,
+                transfer(CARD_NETWORK, availableAccount(userId), amountCents), null, false);
+    }
+
+    /**
+     * Return released hold money to available. Applied immediately.
+     */
+    public void releaseHold(String userId, String authorizationId, long amountCents) {
+        post(LedgerEntry.EntryType.HOLD_RELEASE, authorizationId, authorizationId,
+                transfer(heldAccount(userId), availableAccount(userId), amountCents), null, false);
+    }
+
+    /**
+     * Current available and held balance of a user.
+     */
+    public AccountBalance getBalance(String userId) {
+        return AccountBalance.builder()
+                .userId(userId)
+                .available(BigDecimal.valueOf(account(availableAccount(userId)).balance, 2))
+                .held(BigDecimal.valueOf(account(heldAccount(userId)).balance, 2))
+                .build();
+    }
+
+    /**
+     * Current ledger statistics.
+     */
+    public LedgerStats getStats() {
+        return LedgerStats.builder()
+                .accounts(accounts.size())
+                .journals(journals.get())
+                .insufficientFunds(insufficientFunds.get())
+                .enforceFunds(enforceFunds)
+                .postLatency(postLatency.snapshot())
+                .writeQueueDepth(writeQueue.size())
+                .writeBatches(writeBatches.get())
+                .entriesWritten(entriesWritten.get())
+                .snapshotsWritten(snapshotsWritten.get())
+                .snapshotEvery(snapshotEvery)
+                .writeFailures(writeFailures.get())
+                .writeQueueFull(writeQueueFull.get())
+                .writeQueueWaits(writeQueueWaits.get())
+                .journalsDropped(journalsDropped.get())
+                .build();
+    }
+
+    /**
+     * Measure sustained posting throughput against the configured database: random
+     * transfers between throwaway accounts from several threads, timed until the
+     * writer has persisted all of them. The accounts and their rows are removed
+     * afterwards. Disabled unless vaultcard.ledger.benchmark-enabled is set.
+     *
+     * @param postings     Journals to post
+     * @param threads      Posting threads
+     * @param accountCount Accounts to spread the transfers over (fewer means more lock contention)
+     */
+    public BenchmarkResult runBenchmark(int postings, int threads, int accountCount) throws InterruptedException {
+        if (!benchmarkEnabled) {
+            throw new IllegalStateException("Ledger benchmark is disabled (vaultcard.ledger.benchmark-enabled)");
+        }
+        if (postings <= 0 || threads <= 0 || accountCount < 2) {
+            throw new IllegalArgumentException("postings and threads must be positive, accountCount at least 2");
+        }
+        String prefix = BENCHMARK_PREFIX + UUID.randomUUID().toString().substring(0, 8) + ":";
+        List<String> accountIds = IntStream.range(0, accountCount).mapToObj(i -> prefix + i).toList();
+        accountIds.forEach(this::account);
+
+        int perThread = Math.max(1, postings / threads);
+        LatencyHistogram latency = new LatencyHistogram();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    int from = random.nextInt(accountCount);
+                    int to = random.nextInt(accountCount - 1);
+                    if (to >= from) {
+                        to++;
+                    }
+                    long postStart = System.nanoTime();
+                    post(LedgerEntry.EntryType.TRANSFER, null, null,
+                            transfer(accountIds.get(from), accountIds.get(to), 1 + random.nextInt(10_000)), null, false);
+                    latency.record(System.nanoTime() - postStart);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        long appliedNanos = System.nanoTime() - start;
+
+        // Everything queued before the barrier is persisted once the barrier is
+        CountDownLatch persisted = new CountDownLatch(1);
+        writeQueue.put(new PendingWrite(List.of(), List.of(), persisted));
+        persisted.await(10, TimeUnit.MINUTES);
+        long persistedNanos = System.nanoTime() - start;
+
+        accounts.keySet().removeIf(id -> id.startsWith(prefix));
+        entryRepository.deleteByAccountPrefix(prefix);
+        snapshotRepository.deleteByAccountPrefix(prefix);
+
+        long total = (long) perThread * threads;
+        return BenchmarkResult.builder()
+                .database(databaseName())
+                .postings(total)
+                .threads(threads)
+                .accounts(accountCount)
+                .appliedMillis(TimeUnit.NANOSECONDS.toMillis(appliedNanos))
+                .persistedMillis(TimeUnit.NANOSECONDS.toMillis(persistedNanos))
+                .appliedPerSecond(total * 1_000_000_000L / Math.max(1, appliedNanos))
+                .persistedPerSecond(total * 1_000_000_000L / Math.max(1, persistedNanos))
+                .postLatency(latency.snapshot())
+                .build();
+    }
+
+    /**
+     * Journals posted. O(1), for meters.
+     */
+    public long getJournalCount() {
+        return journals.get();
+    }
+
+    /**
+     * Holds refused for insufficient funds. O(1), for meters.
+     */
+    public long getInsufficientFundsCount() {
+        return insufficientFunds.get();
+    }
+
+    /**
+     * Journals waiting for the writer. O(1), for meters.
+     */
+    public int getWriteQueueDepth() {
+        return writeQueue.size();
+    }
+
+    /**
+     * Failed batch write attempts. O(1), for meters.
+     */
+    public long getWriteFailureCount() {
+        return writeFailures.get();
+    }
+
+    /**
+     * Journals given up after write-max-attempts. O(1), for meters.
+     */
+    public long getJournalsDroppedCount() {
+        return journalsDropped.get();
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Apply a journal to memory and queue it for writing.
+     *
+     * @param guardedAccount  Account that must not go negative, or null
+     * @param rejectWhenFull  Fail if the write queue stays full; otherwise wait for room
+     * @return false if the guarded account would go negative (nothing is applied)
+     * @throws IllegalStateException if rejectWhenFull and the write queue stays full
+     *                               (nothing is applied)
+     */
+    private boolean post(LedgerEntry.EntryType type, String referenceId, String authorizationId,
+                         Map<String, Long> postings, String guardedAccount, boolean rejectWhenFull) {
+        postings.values().removeIf(amount -> amount == 0);
+        long sum = postings.values().stream().mapToLong(Long::longValue).sum();
+        if (sum != 0) {
+            throw new IllegalArgumentException("Journal does not balance: " + postings);
+        }
+        if (postings.isEmpty()) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        List<Account> touched = postings.keySet().stream().sorted().map(this::account).toList();
+        touched.forEach(account -> account.lock.lock());
+        try {
+            if (guardedAccount != null && postings.containsKey(guardedAccount)
+                    && accounts.get(guardedAccount).balance + postings.get(guardedAccount) < 0) {
+                return false;
+            }
+
+            String journalId = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
+            List<LedgerEntry> entries = new ArrayList<>(touched.size());
+            List<LedgerSnapshot> snapshots = new ArrayList<>(1);
+            for (Account account : touched) {
+                long amount = postings.get(account.id);
+                account.balance += amount;
+                account.sequence++;
+                entries.add(LedgerEntry.builder()
+                        .journalId(journalId)
+                        .accountId(account.id)
+                        .accountSequence(account.sequence)
+                        .amountCents(amount)
+                        .entryType(type)
+                        .referenceId(referenceId)
+                        .authorizationId(authorizationId)
+                        .createdAt(now)
+                        .build());
+                if (account.sequence % snapshotEvery == 0) {
+                    snapshots.add(LedgerSnapshot.builder()
+                            .accountId(account.id)
+                            .accountSequence(account.sequence)
+                            .balanceCents(account.balance)
+                            .createdAt(now)
+                            .build());
+                }
+            }
+            // Queued while the locks are held, so each account's entries are written in sequence order
+            if (!enqueue(new PendingWrite(entries, snapshots, null), rejectWhenFull)) {
+                for (Account account : touched) {
+                    account.balance -= postings.get(account.id);
+                    account.sequence--;
+                }
+                writeQueueFull.incrementAndGet();
+                throw new IllegalStateException("Ledger write queue is full, " + type + " journal not posted");
+            }
+        } finally {
+            for (int i = touched.size() - 1; i >= 0; i--) {
+                touched.get(i).lock.unlock();
+            }
+        }
+        journals.incrementAndGet();
+        postLatency.record(System.nanoTime() - start);
+        return true;
+    }
+
+    private boolean enqueue(PendingWrite pending, boolean rejectWhenFull) {
+        if (writeQueue.offer(pending)) {
+            return true;
+        }
+        if (rejectWhenFull) {
+            try {
+                return writeQueue.offer(pending, writeQueueTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        // Already applied elsewhere (committed or settled) - wait for the writer, even if interrupted
+        writeQueueWaits.incrementAndGet();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                writeQueue.put(pending);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    private Account account(String accountId) {
+        return accounts.computeIfAbsent(accountId, this::loadAccount);
+    }
+
+    /**
+     * Balance = latest snapshot + entries after it.
+     */
+    private Account loadAccount(String accountId) {
+        LedgerSnapshot snapshot = snapshotRepository.findFirstByAccountIdOrderByAccountSequenceDesc(accountId)
+                .orElse(null);
+        long snapshotSequence = snapshot != null ? snapshot.getAccountSequence() : 0;
+        long snapshotBalance = snapshot != null ? snapshot.getBalanceCents() : 0;
+        long balance = snapshotBalance + entryRepository.sumAfter(accountId, snapshotSequence);
+        long sequence = Math.max(snapshotSequence, entryRepository.maxSequence(accountId));
+        return new Account(accountId, balance, sequence);
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(writeBatchSize);
+        while (running || !writeQueue.isEmpty()) {
+            try {
+                PendingWrite first = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                writeQueue.drainTo(batch, writeBatchSize - 1);
+                writeWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retry the batch with backoff, up to write-max-attempts. A batch that is given up
+     * leaves memory ahead of the database until the accounts are reloaded, so it is
+     * logged with its journal IDs and counted in journalsDropped.
+     */
+    private void writeWithRetry(List<PendingWrite> batch) throws InterruptedException {
+        long delayMs = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(batch);
+                return;
+            } catch (Exception e) {
+                writeFailures.incrementAndGet();
+                if (attempt >= writeMaxAttempts) {
+                    giveUp(batch, attempt, e);
+                    return;
+                }
+                log.warn("Failed to write {} ledger journals (attempt {}/{}), retrying in {}ms",
+                        batch.size(), attempt, writeMaxAttempts, delayMs, e);
+                // IDs assigned by the failed attempt would make the retry a merge
+                batch.forEach(pending -> {
+                    pending.entries.forEach(entry -> entry.setId(null));
+                    pending.snapshots.forEach(snapshot -> snapshot.setId(null));
+                });
+                Thread.sleep(delayMs);
+                delayMs = Math.min(delayMs * 2, 5000);
+            }
+        }
+    }
+
+    private void giveUp(List<PendingWrite> batch, int attempts, Exception cause) {
+        List<String> journalIds = batch.stream()
+                .filter(pending -> !pending.entries.isEmpty())
+                .map(pending -> pending.entries.get(0).getJournalId())
+                .toList();
+        journalsDropped.addAndGet(journalIds.size());
+        log.error("Giving up on {} ledger journals after {} attempts; in-memory balances are ahead "
+                + "of ledger_entries for them: {}", journalIds.size(), attempts, journalIds, cause);
+        batch.stream()
+                .filter(pending -> pending.persisted != null)
+                .forEach(pending -> pending.persisted.countDown());
+    }
+
+    private void write(List<PendingWrite> batch) {
+        List<LedgerEntry> entries = new ArrayList<>();
+        List<LedgerSnapshot> snapshots = new ArrayList<>();
+        batch.forEach(pending -> {
+            entries.addAll(pending.entries);
+            snapshots.addAll(pending.snapshots);
+        });
+        if (!entries.isEmpty() || !snapshots.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                entryRepository.saveAll(entries);
+                snapshotRepository.saveAll(snapshots);
+            });
+            writeBatches.incrementAndGet();
+            entriesWritten.addAndGet(entries.size());
+            snapshotsWritten.addAndGet(snapshots.size());
+        }
+        batch.stream()
+                .filter(pending -> pending.persisted != null)
+                .forEach(pending -> pending.persisted.countDown());
+    }
+
+    private String databaseName() {
+        String[] parts = datasourceUrl.split(":");
+        return parts.length > 1 ? parts[1] : datasourceUrl;
+    }
+
+    private static Map<String, Long> transfer(String from, String to, long amountCents) {
+        Map<String, Long> postings = new HashMap<>();
+        postings.merge(from, -amountCents, Long::sum);
+        postings.merge(to, amountCents, Long::sum);
+        return postings;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * In-memory account state; balance and sequence change only under the lock.
+     */
+    private static final class Account {
+        private final String id;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long balance;
+        private long sequence;
+
+        private Account(String id, long balance, long sequence) {
+            this.id = id;
+            this.balance = balance;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * One journal's rows waiting for the writer, or a barrier to wait on.
+     */
+    private static final class PendingWrite {
+        private final List<LedgerEntry> entries;
+        private final List<LedgerSnapshot> snapshots;
+        private final CountDownLatch persisted;
+
+        private PendingWrite(List<LedgerEntry> entries, List<LedgerSnapshot> snapshots, CountDownLatch persisted) {
+            this.entries = entries;
+            this.snapshots = snapshots;
+            this.persisted = persisted;
+        }
+    }
+
+    /**
+     * A user's balances.
+     */
+    @Data
+    @Builder
+    public static class AccountBalance {
+        private String userId;
+        private BigDecimal available;
+        private BigDecimal held;
+    }
+
+    /**
+     * Ledger statistics.
+     */
+    @Data
+    @Builder
+    public static class LedgerStats {
+        private int accounts;
+        private long journals;
+        private long insufficientFunds;
+        private boolean enforceFunds;
+        private LatencyHistogram.Snapshot postLatency;
+        private int writeQueueDepth;
+        private long writeBatches;
+        private long entriesWritten;
+        private long snapshotsWritten;
+        private int snapshotEvery;
+        private long writeFailures;       // Failed batch write attempts, including retried ones
+        private long writeQueueFull;      // Holds rejected because the write queue stayed full
+        private long writeQueueWaits;     // Other journals that waited for room in a full write queue
+        private long journalsDropped;     // Journals given up after write-max-attempts
+    }
+
+    /**
+     * Result of a throughput benchmark run.
+     */
+    @Data
+    @Builder
+    public static class BenchmarkResult {
+        private String database;
+        private long postings;
+        private int threads;
+        private int accounts;
+        /** Until every journal was applied in memory */
+        private long appliedMillis;
+        /** Until every journal was written to the database */
+        private long persistedMillis;
+        private long appliedPerSecond;
+        private long persistedPerSecond;
+        private LatencyHistogram.Snapshot postLatency;
+    }
+}
@@ -0,0 +1,266 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.FundingTransaction;
+import com.vaultcard.entity.IssuingTransaction;
+import com.vaultcard.entity.UserBalanceSummary;
+import com.vaultcard.repository.FundingTransactionRepository;
+import com.vaultcard.repository.IssuingTransactionRepository;
+import com.vaultcard.repository.UserBalanceSummaryRepository;
+import com.vaultcard.repository.UserRepository;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains user_balance_summary.
+ *
+ * Every write that changes what a funding or card transaction contributes to a
+ * user's totals calls {@link #apply} with the difference, inside the same
+ * transaction, as an atomic {@code total = total + delta} UPDATE. A user's row is
+ * created on first use from the raw SUMs, so users with history from before the
+ * summary existed start out correct.
+ *
+ * {@link #check} compares every row with the raw SUM queries; {@link #rebuild}
+ * recomputes rows from them.
+ */
+@Service
+@Slf4j
+public class BalanceSummaryService {
+
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    private final UserBalanceSummaryRepository summaryRepository;
+    private final FundingTransactionRepository fundingTransactionRepository;
+    private final IssuingTransactionRepository issuingTransactionRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+
+    public BalanceSummaryService(UserBalanceSummaryRepository summaryRepository,
+                                 FundingTransactionRepository fundingTransactionRepository,
+                                 IssuingTransactionRepository issuingTransactionRepository,
+                                 UserRepository userRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.fundingTransactionRepository = fundingTransactionRepository;
+        this.issuingTransactionRepository = issuingTransactionRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * What a funding transaction contributes to total funded.
+     */
+    public static BigDecimal fundedBy(FundingTransaction transaction) {
+        return transaction.getStatus() == FundingTransaction.FundingStatus.SUCCEEDED
+                ? transaction.getAmount()
+                : BigDecimal.ZERO;
+    }
+
+    /**
+     * What a card transaction contributes to total spent.
+     */
+    public static BigDecimal spentBy(IssuingTransaction transaction) {
+        return transaction.getStatus() == IssuingTransaction.TransactionStatus.APPROVED
+                && transaction.getTransactionType() == IssuingTransaction.TransactionType.PURCHASE
+                && transaction.getAmount() != null
+                ? transaction.getAmount()
+                : BigDecimal.ZERO;
+    }
+
+    /**
+     * Add deltas to a user's totals in the caller's transaction.
+     *
+     * @param userId      User ID
+     * @param fundedDelta Change in total funded
+     * @param spentDelta  Change in total spent
+     */
+    @Transactional
+    public void apply(String userId, BigDecimal fundedDelta, BigDecimal spentDelta) {
+        if (fundedDelta.signum() == 0 && spentDelta.signum() == 0) {
+            return;
+        }
+        if (summaryRepository.addToTotals(userId, fundedDelta, spentDelta, LocalDateTime.now()) == 0) {
+            createRow(userId);
+            summaryRepository.addToTotals(userId, fundedDelta, spentDelta, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * A user's totals.
+     */
+    public UserBalanceSummary getSummary(String userId) {
+        return summaryRepository.findById(userId).orElseGet(() -> {
+            createRow(userId);
+            return summaryRepository.findById(userId)
+                    .orElseThrow(() -> new IllegalStateException("Balance summary missing for user " + userId));
+        });
+    }
+
+    /**
+     * Recompute one user's row from the raw SUMs.
+     */
+    public UserBalanceSummary rebuild(String userId) {
+        return transactionTemplate.execute(status -> {
+            UserBalanceSummary summary = summaryRepository.findForUpdate(userId).orElse(null);
+            if (summary == null) {
+                createRow(userId);
+                return summaryRepository.findById(userId).orElseThrow();
+            }
+            BigDecimal funded = fundingTransactionRepository.getTotalFundedAmount(userId);
+            BigDecimal spent = issuingTransactionRepository.getTotalUserSpending(userId);
+            summary.setTotalFunded(funded);
+            summary.setTotalSpent(spent);
+            summary.setAvailableBalance(funded.subtract(spent));
+            return summaryRepository.save(summary);
+        });
+    }
+
+    /**
+     * Recompute every user's row from the raw SUMs, one user per transaction.
+     *
+     * @return Number of users rebuilt
+     */
+    public int rebuildAll() {
+        long start = System.currentTimeMillis();
+        List<String> userIds = userRepository.findAllIds();
+        userIds.forEach(this::rebuild);
+        log.info("Rebuilt balance summaries for {} users in {}ms", userIds.size(), System.currentTimeMillis() - start);
+        return userIds.size();
+    }
+
+    /**
+     * Compare every summary row with the raw SUMs.
+     */
+    @Transactional(readOnly = true)
+    public ConsistencyReport check() {
+        long start = System.currentTimeMillis();
+        Map<String, BigDecimal> funded = toMap(fundingTransactionRepository.sumFundedByUser());
+        Map<String, BigDecimal> spent = toMap(issuingTransactionRepository.sumSpendingByUser());
+        Map<String, UserBalanceSummary> summaries = new HashMap<>();
+        summaryRepository.findAll().forEach(summary -> summaries.put(summary.getUserId(), summary));
+
+        Set<String> userIds = new HashSet<>(summaries.keySet());
+        userIds.addAll(funded.keySet());
+        userIds.addAll(spent.keySet());
+
+        int mismatchCount = 0;
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (String userId : userIds) {
+            BigDecimal expectedFunded = funded.getOrDefault(userId, BigDecimal.ZERO);
+            BigDecimal expectedSpent = spent.getOrDefault(userId, BigDecimal.ZERO);
+            UserBalanceSummary summary = summaries.get(userId);
+            boolean missing = summary == null;
+            if (missing && expectedFunded.signum() == 0 && expectedSpent.signum() == 0) {
+                continue;
+            }
+            if (missing
+                    || summary.getTotalFunded().compareTo(expectedFunded) != 0
+                    || summary.getTotalSpent().compareTo(expectedSpent) != 0
+                    || summary.getAvailableBalance().compareTo(summary.getTotalFunded().subtract(summary.getTotalSpent())) != 0) {
+                mismatchCount++;
+                if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(Mismatch.builder()
+                            .userId(userId)
+                            .missing(missing)
+                            .expectedFunded(expectedFunded)
+                            .actualFunded(missing ? null : summary.getTotalFunded())
+                            .expectedSpent(expectedSpent)
+                            .actualSpent(missing ? null : summary.getTotalSpent())
+                            .actualAvailable(missing ? null : summary.getAvailableBalance())
+                            .build());
+                }
+            }
+        }
+
+        if (mismatchCount > 0) {
+            log.warn("Balance summary check found {} mismatched users", mismatchCount);
+        }
+        return ConsistencyReport.builder()
+                .usersChecked(userIds.size())
+                .mismatchCount(mismatchCount)
+                .mismatches(mismatches)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Insert a user's row, initialized from the raw SUMs, in its own transaction.
+     * The SUMs see only committed rows, so a change the caller's transaction has not
+     * committed yet is not counted here - the caller adds it with its own delta.
+     */
+    private void createRow(String userId) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> {
+                if (summaryRepository.existsById(userId)) {
+                    return;
+                }
+                BigDecimal funded = fundingTransactionRepository.getTotalFundedAmount(userId);
+                BigDecimal spent = issuingTransactionRepository.getTotalUserSpending(userId);
+                summaryRepository.saveAndFlush(UserBalanceSummary.builder()
+                        .userId(userId)
+                        .totalFunded(funded)
+                        .totalSpent(spent)
+                        .availableBalance(funded.subtract(spent))
+                        .build());
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another transaction - use that row
+            log.debug("Balance summary for user {} created concurrently", userId);
+        }
+    }
+
+    private static Map<String, BigDecimal> toMap(List<Object[]> rows) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (Object[] row : rows) {
+            totals.put((String) row[0], (BigDecimal) row[1]);
+        }
+        return totals;
+    }
+
+    /**
+     * Result of comparing summaries with the raw SUMs.
+     */
+    @Data
+    @Builder
+    public static class ConsistencyReport {
+        private int usersChecked;
+        private int mismatchCount;
+        private List<Mismatch> mismatches;
+        private long elapsedMillis;
+    }
+
+    /**
+     * One user whose summary does not match the raw SUMs.
+     */
+    @Data
+    @Builder
+    public static class Mismatch {
+        private String userId;
+        private boolean missing;
+        private BigDecimal expectedFunded;
+        private BigDecimal actualFunded;
+        private BigDecimal expectedSpent;
+        private BigDecimal actualSpent;
+        private BigDecimal actualAvailable;
+    }
+}
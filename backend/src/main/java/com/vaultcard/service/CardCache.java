@@ -0,0 +1,197 @@
+package com.vaultcard.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.repository.IssuingCardRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of card rows, by internal ID and by Stripe card ID.
+ *
+ * Card rows change rarely (status and limit updates), so reads are served from a
+ * bounded in-process cache with size and TTL eviction. Every write path invalidates
+ * the card explicitly; the TTL only bounds staleness from changes made elsewhere.
+ *
+ * Cached cards are shared instances - callers must treat them as read-only and load
+ * from the repository when they intend to modify and save a card.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardCache {
+
+    private final IssuingCardRepository issuingCardRepository;
+
+    @Value("${vaultcard.card-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${vaultcard.card-cache.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    private Cache<String, IssuingCard> byId;
+    private Cache<String, IssuingCard> byStripeId;
+
+    @PostConstruct
+    public void init() {
+        byId = newCache();
+        byStripeId = newCache();
+    }
+
+    /**
+     * Get a card by internal ID, loading it on a miss.
+     */
+    public Optional<IssuingCard> findById(String cardId) {
+        if (cardId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byId.get(cardId, id -> issuingCardRepository.findById(id)
+                .map(this::indexByStripeId)
+                .orElse(null)));
+    }
+
+    /**
+     * Get a card by Stripe card ID, loading it on a miss.
+     */
+    public Optional<IssuingCard> findByStripeCardId(String stripeCardId) {
+        if (stripeCardId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byStripeId.get(stripeCardId, id -> issuingCardRepository.findByStripeCardId(id)
+                .map(card -> {
+                    byId.put(card.getId(), card);
+                    return card;
+                })
+                .orElse(null)));
+    }
+
+    /**
+     * Drop a changed card. Applied immediately and again after commit, so a read
+     * racing with the transaction can't leave the pre-commit row cached.
+     */
+    public void invalidate(IssuingCard card) {
+        evict(card.getId(), card.getStripeCardId());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(card.getId(), card.getStripeCardId());
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop a card changed outside this service (e.g. issuing_card.updated from Stripe).
+     */
+    public void invalidateByStripeCardId(String stripeCardId) {
+        IssuingCard cached = byStripeId.getIfPresent(stripeCardId);
+        evict(cached != null ? cached.getId() : null, stripeCardId);
+        if (cached == null) {
+            // The card may still be cached by internal ID
+            byId.asMap().values().removeIf(card -> stripeCardId.equals(card.getStripeCardId()));
+        }
+    }
+
+    /**
+     * Current cache statistics.
+     */
+    public CardCacheStats getStats() {
+        CacheStats idStats = byId.stats();
+        CacheStats stripeStats = byStripeId.stats();
+        long hits = idStats.hitCount() + stripeStats.hitCount();
+        long misses = idStats.missCount() + stripeStats.missCount();
+        return CardCacheStats.builder()
+                .sizeById(byId.estimatedSize())
+                .sizeByStripeId(byStripeId.estimatedSize())
+                .maximumSize(maximumSize)
+                .expireAfterWriteSeconds(expireAfterWriteSeconds)
+                .hits(hits)
+                .misses(misses)
+                .hitRate(hits + misses == 0 ? 0 : (double) hits / (hits + misses))
+                .evictions(idStats.evictionCount() + stripeStats.evictionCount())
+                .build();
+    }
+
+    /**
+     * Cards cached by ID. O(1), for meters.
+     */
+    public long getSizeById() {
+        return byId.estimatedSize();
+    }
+
+    /**
+     * Hits across both caches. O(1), for meters.
+     */
+    public long getHitCount() {
+        return byId.stats().hitCount() + byStripeId.stats().hitCount();
+    }
+
+    /**
+     * Misses across both caches. O(1), for meters.
+     */
+    public long getMissCount() {
+        return byId.stats().missCount() + byStripeId.stats().missCount();
+    }
+
+    /**
+     * Evictions across both caches. O(1), for meters.
+     */
+    public long getEvictionCount() {
+        return byId.stats().evictionCount() + byStripeId.stats().evictionCount();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Cache<String, IssuingCard> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+    }
+
+    private IssuingCard indexByStripeId(IssuingCard card) {
+        if (card.getStripeCardId() != null) {
+            byStripeId.put(card.getStripeCardId(), card);
+        }
+        return card;
+    }
+
+    private void evict(String cardId, String stripeCardId) {
+        if (cardId != null) {
+            byId.invalidate(cardId);
+        }
+        if (stripeCardId != null) {
+            byStripeId.invalidate(stripeCardId);
+        }
+    }
+
+    /**
+     * Card cache statistics (both indexes combined).
+     */
+    @Data
+    @Builder
+    public static class CardCacheStats {
+        private long sizeById;
+        private long sizeByStripeId;
+        private long maximumSize;
+        private long expireAfterWriteSeconds;
+        private long hits;
+        private long misses;
+        private double hitRate;
+        private long evictions;
+    }
+}
@@ -0,0 +1,201 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.User;
+import com.vaultcard.repository.UserRepository;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Index of Stripe cardholders by user.
+ *
+ * The mapping lives on User.stripeCardholderId and is cached in memory in both
+ * directions, so resolving a cardholder for card creation costs no provider call
+ * once the user has one. A user gets a cardholder created at most once: concurrent
+ * requests for the same user share a single in-flight resolution, and the ID is
+ * persisted with a conditional UPDATE so a second application instance racing on
+ * the same user adopts whichever ID was stored first.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardholderIndex {
+
+    private final UserRepository userRepository;
+
+    /** userId -> cardholderId */
+    private final Map<String, String> byUser = new ConcurrentHashMap<>();
+
+    /** cardholderId -> userId */
+    private final Map<String, String> byCardholder = new ConcurrentHashMap<>();
+
+    /** Resolutions in progress, so concurrent first-card requests create one cardholder */
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong lostRaces = new AtomicLong();
+
+    /**
+     * Get the user's cardholder ID, creating the cardholder if the user has none.
+     *
+     * @param userId  User ID
+     * @param creator Creates a cardholder at the provider for the user and returns its ID
+     * @return Cardholder ID
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public String resolve(String userId, Function<User, String> creator) {
+        String cardholderId = byUser.get(userId);
+        if (cardholderId != null) {
+            hits.incrementAndGet();
+            return cardholderId;
+        }
+
+        CompletableFuture<String> resolution = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(userId, resolution);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        try {
+            cardholderId = byUser.get(userId);
+            if (cardholderId == null) {
+                cardholderId = loadOrCreate(userId, creator);
+            }
+            resolution.complete(cardholderId);
+            return cardholderId;
+        } catch (RuntimeException e) {
+            resolution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(userId, resolution);
+        }
+    }
+
+    /**
+     * Get the user's cardholder ID without creating one.
+     */
+    public Optional<String> find(String userId) {
+        String cardholderId = byUser.get(userId);
+        if (cardholderId != null) {
+            hits.incrementAndGet();
+            return Optional.of(cardholderId);
+        }
+        return userRepository.findById(userId)
+                .map(User::getStripeCardholderId)
+                .map(id -> {
+                    loads.incrementAndGet();
+                    put(userId, id);
+                    return id;
+                });
+    }
+
+    /**
+     * Find the user owning a cardholder.
+     */
+    public Optional<String> findUserId(String cardholderId) {
+        String userId = byCardholder.get(cardholderId);
+        if (userId != null) {
+            hits.incrementAndGet();
+            return Optional.of(userId);
+        }
+        return userRepository.findByStripeCardholderId(cardholderId)
+                .map(user -> {
+                    loads.incrementAndGet();
+                    put(user.getId(), cardholderId);
+                    return user.getId();
+                });
+    }
+
+    /**
+     * Current index statistics.
+     */
+    public IndexStats getStats() {
+        return IndexStats.builder()
+                .size(byUser.size())
+                .inFlight(inFlight.size())
+                .hits(hits.get())
+                .loads(loads.get())
+                .created(created.get())
+                .coalesced(coalesced.get())
+                .lostRaces(lostRaces.get())
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private String loadOrCreate(String userId, Function<User, String> creator) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+
+        if (user.getStripeCardholderId() != null) {
+            loads.incrementAndGet();
+            put(userId, user.getStripeCardholderId());
+            return user.getStripeCardholderId();
+        }
+
+        String cardholderId = creator.apply(user);
+        created.incrementAndGet();
+
+        if (userRepository.assignStripeCardholderId(userId, cardholderId) == 0) {
+            // Another instance stored a cardholder for this user first - use that one
+            String stored = userRepository.findById(userId)
+                    .map(User::getStripeCardholderId)
+                    .orElse(null);
+            if (stored != null && !stored.equals(cardholderId)) {
+                lostRaces.incrementAndGet();
+                log.warn("Cardholder {} for user {} superseded by {}, leaving it unused",
+                        cardholderId, userId, stored);
+                cardholderId = stored;
+            }
+        }
+
+        put(userId, cardholderId);
+        log.info("Created cardholder {} for user {}", cardholderId, userId);
+        return cardholderId;
+    }
+
+    private void put(String userId, String cardholderId) {
+        byUser.put(userId, cardholderId);
+        byCardholder.put(cardholderId, userId);
+    }
+
+    private static String await(CompletableFuture<String> resolution) {
+        try {
+            return resolution.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cardholder index statistics.
+     */
+    @Data
+    @Builder
+    public static class IndexStats {
+        private int size;
+        private int inFlight;
+        private long hits;
+        private long loads;
+        private long created;
+        private long coalesced;
+        private long lostRaces;
+    }
+}
@@ -4,6 +4,7 @@ import com.vaultcard.dto.CreateFundingRequest;
 import com.vaultcard.dto.FundingResponse;
 import com.vaultcard.entity.FundingTransaction;
 import com.vaultcard.entity.User;
+import com.vaultcard.entity.UserBalanceSummary;
 import com.vaultcard.repository.FundingTransactionRepository;
 import com.vaultcard.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +29,8 @@ public class FundingService {
 
     private final FundingTransactionRepository fundingTransactionRepository;
     private final UserRepository userRepository;
+    private final BalanceSummaryService balanceSummaryService;
+    private final BalanceLedger balanceLedger;
 
     @Value("${stripe.secret-key:}")
     private String stripeSecretKey;
@@ -112,6 +115,13 @@ public class FundingService {
                 .build();
     }
 
+    /**
+     * Get a user's available and held balance from the ledger.
+     */
+    public BalanceLedger.AccountBalance getLedgerBalance(String userId) {
+        return balanceLedger.getBalance(userId);
+    }
+
     /**
      * Get funding transaction by ID.
      */
@@ -128,10 +138,17 @@ public class FundingService {
     }
 
     /**
-     * Get total funded amount for a user.
+     * Get total funded amount for a user (from the maintained balance summary).
      */
     public BigDecimal getTotalFundedAmount(String userId) {
-        return fundingTransactionRepository.getTotalFundedAmount(userId);
+        return balanceSummaryService.getSummary(userId).getTotalFunded();
+    }
+
+    /**
+     * Get funded, spent and available totals for a user.
+     */
+    public UserBalanceSummary getBalanceSummary(String userId) {
+        return balanceSummaryService.getSummary(userId);
     }
 
     /**
@@ -149,16 +166,18 @@ public class FundingService {
                 .orElseThrow(() -> new IllegalArgumentException(
                         "Funding transaction not found for PaymentIntent: " + stripePaymentId));
 
+        BigDecimal fundedBefore = BalanceSummaryService.fundedBy(transaction);
         transaction.setStatus(newStatus);
 
         if (newStatus == FundingTransaction.FundingStatus.SUCCEEDED) {
             transaction.setCompletedAt(java.time.LocalDateTime.now());
-
-            // TODO: Credit user's internal balance
-            // userBalanceService.credit(transaction.getUserId(), transaction.getAmount());
         }
 
         fundingTransactionRepository.save(transaction);
+        BigDecimal fundedDelta = BalanceSummaryService.fundedBy(transaction).subtract(fundedBefore);
+        balanceSummaryService.apply(transaction.getUserId(), fundedDelta, BigDecimal.ZERO);
+        // Credit (or, for a refunded top-up, debit) the user's ledger balance after commit
+        balanceLedger.recordFunding(transaction.getUserId(), transaction.getId(), SpendLedger.toCents(fundedDelta));
         log.info("Updated funding transaction {} to status {}", transaction.getId(), newStatus);
     }
 }
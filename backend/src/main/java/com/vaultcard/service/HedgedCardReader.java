@@ -0,0 +1,289 @@
+package com.vaultcard.service;
+
+import com.vaultcard.dto.CardResponse;
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.provider.ProviderRouter;
+import com.vaultcard.provider.ReactivePaymentProvider;
+import com.vaultcard.util.LatencyHistogram;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-only card lookups with low tail latency.
+ *
+ * Local reads are answered from the card cache (the {@code issuing_cards} row) without a
+ * provider call; the status is given in the provider's vocabulary (active, inactive,
+ * canceled), as a provider read would. Provider reads are hedged: if the first getCard has
+ * not answered after the provider's recent p95 getCard latency, a second identical request
+ * is sent and whichever answers first wins. Only the slowest ~5% of reads are hedged, and a
+ * per-provider token bucket caps hedges at a fixed share of reads: each read adds max-ratio
+ * of a hedge, up to max-burst hedges, so a calm period cannot bank a large allowance and a
+ * provider that slows down across the board does not see its traffic double. Every hedge is
+ * one extra provider request, counted in vaultcard.provider.hedge.requests.
+ *
+ * A card can only be read from the provider that issued it, so both attempts go to that
+ * provider. The p95 comes from a per-provider histogram that is rotated every window, so the
+ * delay follows the provider's current latency rather than its all-time distribution.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HedgedCardReader {
+
+    private final ProviderRouter router;
+    private final CardCache cardCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payment.provider.hedge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.provider.hedge.percentile:95}")
+    private double percentile;
+
+    // Delay used until a window has enough samples to estimate the percentile
+    @Value("${payment.provider.hedge.initial-delay-ms:200}")
+    private long initialDelayMs;
+
+    @Value("${payment.provider.hedge.min-delay-ms:10}")
+    private long minDelayMs;
+
+    @Value("${payment.provider.hedge.max-delay-ms:2000}")
+    private long maxDelayMs;
+
+    @Value("${payment.provider.hedge.min-samples:50}")
+    private long minSamples;
+
+    @Value("${payment.provider.hedge.window-seconds:60}")
+    private long windowSeconds;
+
+    // Hedged requests as a share of all provider reads, at most
+    @Value("${payment.provider.hedge.max-ratio:0.1}")
+    private double maxHedgeRatio;
+
+    // Hedges the budget can save up during calm periods, at most
+    @Value("${payment.provider.hedge.max-burst:10}")
+    private double maxHedgeBurst;
+
+    private final Map<String, ProviderReads> reads = new ConcurrentHashMap<>();
+
+    /**
+     * Card details from the local card row, without a provider call.
+     *
+     * The card number is masked and the CVV is not available; status and limits are as of
+     * the last local update.
+     *
+     * @return Empty if the card has no local row
+     */
+    public Optional<CardResponse> readLocal(String providerCardId) {
+        return cardCache.findByStripeCardId(providerCardId).map(HedgedCardReader::toCardResponse);
+    }
+
+    /**
+     * Card details from the issuing provider, hedged after the provider's recent p95 latency.
+     */
+    public CardResponse readFromProvider(String providerCardId) {
+        String provider = router.providerOfCard(providerCardId);
+        ReactivePaymentProvider reactive = router.reactiveByName(provider);
+        ProviderReads stats = stats(provider);
+        stats.onRead();
+
+        Mono<CardResponse> first = attempt(reactive, providerCardId, stats).cache();
+        if (!enabled) {
+            return first.block();
+        }
+        long delayMs = stats.hedgeDelayMillis();
+        // cache() keeps the first attempt running when the timeout gives up waiting on it alone
+        return first.timeout(Duration.ofMillis(delayMs), Mono.defer(() -> {
+            if (!stats.tryAcquireHedge()) {
+                stats.overBudget.incrementAndGet();
+                return first;
+            }
+            stats.hedged.incrementAndGet();
+            log.debug("Hedging getCard {} on {} after {}ms", providerCardId, provider, delayMs);
+            Mono<CardResponse> second = attempt(reactive, providerCardId, stats);
+            // The first card to arrive wins and the other attempt is unsubscribed; an attempt
+            // that fails waits for the other. A losing hedge is cancelled outright. A losing
+            // first attempt keeps running to completion, because cache() shares it with the
+            // timeout above
+            return Mono.firstWithValue(first,
+                    second.doOnNext(card -> stats.hedgeWins.incrementAndGet()))
+                // Both failed: surface the first attempt's error rather than Reactor's wrapper
+                .onErrorMap(NoSuchElementException.class,
+                    e -> e.getCause() != null ? Exceptions.unwrapMultiple(e.getCause()).get(0) : e);
+        })).block();
+    }
+
+    /**
+     * Per-provider hedging counters and the current hedge delay.
+     */
+    public Map<String, HedgeStats> getStats() {
+        Map<String, HedgeStats> stats = new TreeMap<>();
+        reads.forEach((provider, providerReads) -> stats.put(provider, providerReads.snapshot()));
+        return stats;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Mono<CardResponse> attempt(ReactivePaymentProvider provider, String providerCardId, ProviderReads stats) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return provider.getCard(providerCardId)
+                .doOnSuccess(card -> stats.record(System.nanoTime() - start));
+        });
+    }
+
+    private ProviderReads stats(String provider) {
+        return reads.computeIfAbsent(provider, name -> {
+            ProviderReads providerReads = new ProviderReads();
+            FunctionCounter.builder("vaultcard.provider.hedge.requests", providerReads, r -> r.hedged.get())
+                .description("Second getCard requests sent because the first exceeded the hedge delay")
+                .tag("provider", name)
+                .register(meterRegistry);
+            FunctionCounter.builder("vaultcard.provider.hedge.wins", providerReads, r -> r.hedgeWins.get())
+                .description("Hedged getCard requests that answered before the first")
+                .tag("provider", name)
+                .register(meterRegistry);
+            Gauge.builder("vaultcard.provider.hedge.delay", providerReads, ProviderReads::hedgeDelayMillis)
+                .description("Current getCard hedge delay in milliseconds")
+                .tag("provider", name)
+                .register(meterRegistry);
+            return providerReads;
+        });
+    }
+
+    private static CardResponse toCardResponse(IssuingCard card) {
+        return CardResponse.builder()
+                .cardId(card.getStripeCardId())
+                .cardNumber(card.getLast4() != null ? "**** **** **** " + card.getLast4() : null)
+                .expiryMonth(card.getExpMonth() != null ? String.format("%02d", card.getExpMonth()) : null)
+                .expiryYear(card.getExpYear() != null ? String.valueOf(card.getExpYear()) : null)
+                .status(providerStatus(card.getStatus()))
+                .type(card.getCardType().name().toLowerCase())
+                .spendingLimit(card.getSpendingLimitPerMonth() != null
+                        ? BigDecimal.valueOf(card.getSpendingLimitPerMonth(), 2) : null)
+                .build();
+    }
+
+    /**
+     * Local card status in the provider's vocabulary: a frozen card is "inactive" there, and
+     * there is no separate frozen state.
+     */
+    private static String providerStatus(IssuingCard.CardStatus status) {
+        return switch (status) {
+            case ACTIVE -> "active";
+            case INACTIVE, FROZEN -> "inactive";
+            case CANCELED -> "canceled";
+        };
+    }
+
+    /**
+     * getCard latency and hedging counters for one provider.
+     *
+     * Latency goes into the current window's histogram; when the window ends it becomes the
+     * previous one, which the delay is computed from once it has enough samples.
+     */
+    private class ProviderReads {
+        private final AtomicLong reads = new AtomicLong();
+        private final AtomicLong hedged = new AtomicLong();
+        private final AtomicLong hedgeWins = new AtomicLong();
+        private final AtomicLong overBudget = new AtomicLong();
+
+        // Hedge budget, refilled by maxHedgeRatio per read and capped at maxHedgeBurst
+        private double hedgeTokens = maxHedgeBurst;
+
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous = new LatencyHistogram();
+        private volatile long windowStartNanos = System.nanoTime();
+
+        void onRead() {
+            reads.incrementAndGet();
+            synchronized (this) {
+                hedgeTokens = Math.min(maxHedgeBurst, hedgeTokens + maxHedgeRatio);
+            }
+        }
+
+        synchronized boolean tryAcquireHedge() {
+            if (hedgeTokens < 1) {
+                return false;
+            }
+            hedgeTokens -= 1;
+            return true;
+        }
+
+        void record(long nanos) {
+            rotateIfDue();
+            current.record(nanos);
+        }
+
+        long hedgeDelayMillis() {
+            rotateIfDue();
+            LatencyHistogram source = previous.getCount() >= minSamples ? previous
+                    : current.getCount() >= minSamples ? current : null;
+            if (source == null) {
+                return initialDelayMs;
+            }
+            long millis = source.percentileNanos(percentile) / 1_000_000;
+            return Math.max(minDelayMs, Math.min(maxDelayMs, millis));
+        }
+
+        private void rotateIfDue() {
+            long now = System.nanoTime();
+            if (now - windowStartNanos < windowSeconds * 1_000_000_000L) {
+                return;
+            }
+            synchronized (this) {
+                if (now - windowStartNanos >= windowSeconds * 1_000_000_000L) {
+                    previous = current;
+                    current = new LatencyHistogram();
+                    windowStartNanos = now;
+                }
+            }
+        }
+
+        HedgeStats snapshot() {
+            long total = reads.get();
+            return HedgeStats.builder()
+                    .reads(total)
+                    .hedged(hedged.get())
+                    .hedgeWins(hedgeWins.get())
+                    .overBudget(overBudget.get())
+                    .hedgeRatePercent(total == 0 ? 0 : hedged.get() * 100.0 / total)
+                    .hedgeDelayMillis(hedgeDelayMillis())
+                    .latency(previous.getCount() >= minSamples ? previous.snapshot() : current.snapshot())
+                    .build();
+        }
+    }
+
+    /**
+     * Hedged read statistics for one provider.
+     */
+    @Data
+    @Builder
+    public static class HedgeStats {
+        private long reads;
+        private long hedged;
+        private long hedgeWins;
+        private long overBudget;          // Reads that passed the delay but found the hedge budget empty
+        private double hedgeRatePercent;
+        private long hedgeDelayMillis;
+        private LatencyHistogram.Snapshot latency;
+    }
+}
@@ -1,5 +1,6 @@
 package com.vaultcard.service;
 
+import com.vaultcard.dto.CardResponse;
 import com.vaultcard.entity.IssuingCard;
 import com.vaultcard.entity.User;
 import com.vaultcard.repository.IssuingCardRepository;
@@ -25,6 +26,8 @@ public class IssuingCardService {
 
     private final IssuingCardRepository issuingCardRepository;
     private final UserRepository userRepository;
+    private final AuthorizationEngine authorizationEngine;
+    private final CardCache cardCache;
 
     @Value("${stripe.secret-key:}")
     private String stripeSecretKey;
@@ -136,18 +139,49 @@ public class IssuingCardService {
     }
 
     /**
-     * Get card by ID.
+     * Record a card issued directly at a payment provider, so later calls for it are
+     * routed back to that provider.
+     *
+     * @param userId   Owner
+     * @param provider Provider that issued the card
+     * @param issued   The provider's response
+     * @return Saved IssuingCard entity
+     */
+    @Transactional
+    public IssuingCard recordIssuedCard(String userId, String provider, CardResponse issued) {
+        String number = issued.getCardNumber();
+        IssuingCard card = IssuingCard.builder()
+                .userId(userId)
+                .stripeCardId(issued.getCardId())
+                .provider(provider)
+                .last4(number != null && number.length() >= 4 ? number.substring(number.length() - 4) : null)
+                .expMonth(parseIntOrNull(issued.getExpiryMonth()))
+                .expYear(parseIntOrNull(issued.getExpiryYear()))
+                .cardType(IssuingCard.CardType.VIRTUAL)
+                .status("active".equals(issued.getStatus())
+                        ? IssuingCard.CardStatus.ACTIVE : IssuingCard.CardStatus.INACTIVE)
+                .spendingLimitPerMonth(issued.getSpendingLimit() != null
+                        ? issued.getSpendingLimit().movePointRight(2).longValue() : null)
+                .build();
+
+        IssuingCard saved = saveAndRefresh(card);
+        log.info("Recorded card {} issued by {} for user: {}", issued.getCardId(), provider, userId);
+        return saved;
+    }
+
+    /**
+     * Get card by ID (served from the card cache - do not modify the result).
      */
     public IssuingCard getCard(String cardId) {
-        return issuingCardRepository.findById(cardId)
+        return cardCache.findById(cardId)
                 .orElseThrow(() -> new IllegalArgumentException("Card not found: " + cardId));
     }
 
     /**
-     * Get card by Stripe Card ID.
+     * Get card by Stripe Card ID (served from the card cache - do not modify the result).
      */
     public IssuingCard getCardByStripeId(String stripeCardId) {
-        return issuingCardRepository.findByStripeCardId(stripeCardId)
+        return cardCache.findByStripeCardId(stripeCardId)
                 .orElseThrow(() -> new IllegalArgumentException("Card not found for Stripe ID: " + stripeCardId));
     }
 
@@ -165,7 +199,7 @@ public class IssuingCardService {
     public IssuingCard freezeCard(String cardId) {
         log.info("Freezing card: {}", cardId);
 
-        IssuingCard card = getCard(cardId);
+        IssuingCard card = loadCardForUpdate(cardId);
 
         if (card.getStatus() == IssuingCard.CardStatus.CANCELED) {
             throw new IllegalStateException("Cannot freeze a canceled card");
@@ -182,7 +216,7 @@ public class IssuingCardService {
         // ---------------------------------------------------------------
 
         card.setStatus(IssuingCard.CardStatus.FROZEN);
-        return issuingCardRepository.save(card);
+        return saveAndRefresh(card);
     }
 
     /**
@@ -192,7 +226,7 @@ public class IssuingCardService {
     public IssuingCard unfreezeCard(String cardId) {
         log.info("Unfreezing card: {}", cardId);
 
-        IssuingCard card = getCard(cardId);
+        IssuingCard card = loadCardForUpdate(cardId);
 
         if (card.getStatus() != IssuingCard.CardStatus.FROZEN) {
             throw new IllegalStateException("Card is not frozen");
@@ -209,7 +243,7 @@ public class IssuingCardService {
         // ---------------------------------------------------------------
 
         card.setStatus(IssuingCard.CardStatus.ACTIVE);
-        return issuingCardRepository.save(card);
+        return saveAndRefresh(card);
     }
 
     /**
@@ -219,7 +253,7 @@ public class IssuingCardService {
     public IssuingCard cancelCard(String cardId) {
         log.info("Canceling card: {}", cardId);
 
-        IssuingCard card = getCard(cardId);
+        IssuingCard card = loadCardForUpdate(cardId);
 
         if (card.getStatus() == IssuingCard.CardStatus.CANCELED) {
             throw new IllegalStateException("Card is already canceled");
@@ -237,7 +271,7 @@ public class IssuingCardService {
 
         card.setStatus(IssuingCard.CardStatus.CANCELED);
         card.setCanceledAt(java.time.LocalDateTime.now());
-        return issuingCardRepository.save(card);
+        return saveAndRefresh(card);
     }
 
     /**
@@ -247,7 +281,7 @@ public class IssuingCardService {
     public IssuingCard updateSpendingLimits(String cardId, Long perTransactionCents, Long perMonthCents) {
         log.info("Updating spending limits for card: {}", cardId);
 
-        IssuingCard card = getCard(cardId);
+        IssuingCard card = loadCardForUpdate(cardId);
 
         // TODO: Call Stripe Issuing API to update spending controls
         // ---------------------------------------------------------------
@@ -283,6 +317,33 @@ public class IssuingCardService {
             card.setSpendingLimitPerMonth(perMonthCents);
         }
 
-        return issuingCardRepository.save(card);
+        return saveAndRefresh(card);
+    }
+
+    private static Integer parseIntOrNull(String value) {
+        try {
+            return value != null ? Integer.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Load a card from the database for modification - never from the shared cache.
+     */
+    private IssuingCard loadCardForUpdate(String cardId) {
+        return issuingCardRepository.findById(cardId)
+                .orElseThrow(() -> new IllegalArgumentException("Card not found: " + cardId));
+    }
+
+    /**
+     * Save a changed card, drop it from the card cache and refresh the in-memory
+     * authorization rules for it.
+     */
+    private IssuingCard saveAndRefresh(IssuingCard card) {
+        IssuingCard saved = issuingCardRepository.save(card);
+        cardCache.invalidate(saved);
+        authorizationEngine.onCardChanged(saved);
+        return saved;
     }
 }
@@ -0,0 +1,176 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.JobCheckpoint;
+import com.vaultcard.repository.JobCheckpointRepository;
+import com.vaultcard.repository.SubscriptionProfileRepository;
+import com.vaultcard.repository.UserRepository;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheduled reset of subscription month spend.
+ *
+ * Runs hourly so each timezone is picked up shortly after its local month starts.
+ * For every timezone in use, profiles whose spend period is behind the current local
+ * month are reset in chunks: select the next page of IDs (keyset on ID), then one
+ * bulk UPDATE for that page. No entities are loaded into the persistence context.
+ *
+ * Progress is checkpointed per timezone and month after every chunk, so a run that
+ * dies midway resumes from the last chunk. Every UPDATE is guarded by the period,
+ * so replaying a chunk is harmless.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MonthlySpendResetJob {
+
+    private static final String JOB_NAME = "monthly-spend-reset";
+
+    private final SubscriptionProfileRepository subscriptionProfileRepository;
+    private final UserRepository userRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final SpendLedger spendLedger;
+
+    @Value("${vaultcard.monthly-reset.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong profilesReset = new AtomicLong();
+    private final AtomicLong chunksProcessed = new AtomicLong();
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile LocalDateTime lastRunCompletedAt;
+    private volatile long lastRunMillis;
+
+    /**
+     * Reset spend for every timezone whose month has rolled over.
+     */
+    @Scheduled(cron = "${vaultcard.monthly-reset.cron:0 1 * * * *}")
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Monthly spend reset already running, skipping");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lastRunStartedAt = LocalDateTime.now();
+        try {
+            // Get spend recorded so far onto the profiles before any of them are reset
+            spendLedger.flush();
+
+            for (String timezone : userRepository.findDistinctTimezones()) {
+                try {
+                    resetTimezone(timezone);
+                } catch (Exception e) {
+                    // The checkpoint keeps the progress; the next run resumes this zone
+                    log.error("Monthly spend reset failed for timezone {}", timezone, e);
+                }
+            }
+            runs.incrementAndGet();
+            lastRunCompletedAt = LocalDateTime.now();
+        } finally {
+            lastRunMillis = System.currentTimeMillis() - start;
+            running.set(false);
+        }
+    }
+
+    /**
+     * Current job statistics, including the latest checkpoints.
+     */
+    public ResetStats getStats() {
+        return ResetStats.builder()
+                .running(running.get())
+                .runs(runs.get())
+                .profilesReset(profilesReset.get())
+                .chunksProcessed(chunksProcessed.get())
+                .chunkSize(chunkSize)
+                .lastRunStartedAt(lastRunStartedAt)
+                .lastRunCompletedAt(lastRunCompletedAt)
+                .lastRunMillis(lastRunMillis)
+                .checkpoints(jobCheckpointRepository.findTop50ByJobNameOrderByUpdatedAtDesc(JOB_NAME))
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void resetTimezone(String timezone) {
+        ZoneId zone;
+        try {
+            zone = ZoneId.of(timezone);
+        } catch (DateTimeException e) {
+            log.warn("Skipping monthly spend reset for invalid timezone '{}'", timezone);
+            return;
+        }
+        String period = YearMonth.now(zone).toString();
+
+        JobCheckpoint checkpoint = jobCheckpointRepository
+                .findByJobNameAndPartitionKeyAndPeriod(JOB_NAME, timezone, period)
+                .orElseGet(() -> JobCheckpoint.builder()
+                        .jobName(JOB_NAME)
+                        .partitionKey(timezone)
+                        .period(period)
+                        .startedAt(LocalDateTime.now())
+                        .build());
+
+        if (checkpoint.getStatus() == JobCheckpoint.CheckpointStatus.COMPLETED) {
+            // Already done this month - a cheap catch-up pass for users who moved into this zone
+            checkpoint.setLastKey("");
+        } else if (checkpoint.getId() != null) {
+            log.info("Resuming monthly spend reset for {} {} after {} profiles",
+                    timezone, period, checkpoint.getProcessed());
+        }
+
+        List<String> ids;
+        while (!(ids = subscriptionProfileRepository.findIdsDueForReset(
+                checkpoint.getLastKey(), period, timezone, PageRequest.of(0, chunkSize))).isEmpty()) {
+            int updated = subscriptionProfileRepository.startSpendPeriod(ids, period, LocalDateTime.now());
+
+            checkpoint.setLastKey(ids.get(ids.size() - 1));
+            checkpoint.setProcessed(checkpoint.getProcessed() + updated);
+            checkpoint.setChunks(checkpoint.getChunks() + 1);
+            checkpoint.setStatus(JobCheckpoint.CheckpointStatus.RUNNING);
+            checkpoint = jobCheckpointRepository.save(checkpoint);
+
+            profilesReset.addAndGet(updated);
+            chunksProcessed.incrementAndGet();
+        }
+
+        if (checkpoint.getStatus() != JobCheckpoint.CheckpointStatus.COMPLETED) {
+            checkpoint.setStatus(JobCheckpoint.CheckpointStatus.COMPLETED);
+            checkpoint.setCompletedAt(LocalDateTime.now());
+            jobCheckpointRepository.save(checkpoint);
+            log.info("Monthly spend reset for {} {} complete: {} profiles in {} chunks",
+                    timezone, period, checkpoint.getProcessed(), checkpoint.getChunks());
+        }
+    }
+
+    /**
+     * Reset job statistics.
+     */
+    @Data
+    @Builder
+    public static class ResetStats {
+        private boolean running;
+        private long runs;
+        private long profilesReset;
+        private long chunksProcessed;
+        private int chunkSize;
+        private LocalDateTime lastRunStartedAt;
+        private LocalDateTime lastRunCompletedAt;
+        private long lastRunMillis;
+        private List<JobCheckpoint> checkpoints;
+    }
+}
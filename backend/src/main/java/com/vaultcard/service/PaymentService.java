@@ -1,39 +1,60 @@
 package com.vaultcard.service;
 
 import com.vaultcard.dto.*;
+import com.vaultcard.entity.IssuingCard;
 import com.vaultcard.provider.PaymentProvider;
+import com.vaultcard.provider.ProviderRouter;
+import com.vaultcard.provider.ProviderUnavailableException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * 支付服务层
  *
  * 这一层隐藏了Provider的细节
- * 可以通过配置文件随时切换Provider
+ * Provider由ProviderRouter按请求选择（权重分流、用户/国家指定、卡片来源）
  */
 @Slf4j
 @Service
 public class PaymentService {
 
-    private final PaymentProvider paymentProvider;
+    private final ProviderRouter router;
+    private final IssuingCardService issuingCardService;
+    private final TransactionMirror transactionMirror;
+    private final HedgedCardReader hedgedCardReader;
 
-    @Value("${payment.provider.active}")
-    private String activeProvider;
+    // 扇出调用（如一次获取用户所有卡片）时同时进行的Provider请求上限
+    @Value("${payment.provider.fan-out-concurrency:32}")
+    private int fanOutConcurrency;
 
     /**
-     * 通过Spring的@Qualifier注解动态注入Provider
-     * 配置文件中 payment.provider.active=stripe 时注入StripeProvider
-     * 配置文件中 payment.provider.active=marqeta 时注入MarqetaProvider
+     * Provider按请求由ProviderRouter选择：新业务按路由表分流，已有卡片发往发卡的Provider
+     * 路由表可在运行时替换（POST /api/ops/provider-routing），不需要重启
+     * 所有路径都经过ProviderGuard（熔断+舱壁），Provider变慢时快速失败而不是耗尽请求线程
      */
-    @Autowired
-    public PaymentService(@Qualifier("${payment.provider.active}Provider") PaymentProvider paymentProvider) {
-        this.paymentProvider = paymentProvider;
+    public PaymentService(ProviderRouter router,
+                          IssuingCardService issuingCardService,
+                          TransactionMirror transactionMirror,
+                          HedgedCardReader hedgedCardReader) {
+        this.router = router;
+        this.issuingCardService = issuingCardService;
+        this.transactionMirror = transactionMirror;
+        this.hedgedCardReader = hedgedCardReader;
     }
 
     public PaymentIntentResponse createPayment(PaymentIntentRequest request) {
+        PaymentProvider paymentProvider = router.forUser(request.getUserId());
         log.info("Creating payment for user {} using provider: {}",
             request.getUserId(), paymentProvider.getProviderName());
 
@@ -47,46 +68,178 @@ public class PaymentService {
     }
 
     public CardResponse issueCard(CreateCardRequest request) {
+        PaymentProvider paymentProvider = router.forUser(request.getUserId());
         log.info("Issuing card for user {} using provider: {}",
             request.getUserId(), paymentProvider.getProviderName());
 
         // TODO: 业务逻辑
         // - 检查用户余额是否足够
         // - 检查用户已有卡片数量限制
-        // - 记录发卡记录
 
-        return paymentProvider.createCard(request);
+        CardResponse card = paymentProvider.createCard(request);
+        // 记录发卡的Provider，之后这张卡的所有操作都发往同一个Provider
+        issuingCardService.recordIssuedCard(request.getUserId(), paymentProvider.getProviderName(), card);
+        return card;
     }
 
-    public CardResponse getCardDetails(String cardId, String userId) {
-        log.info("Getting card details: {} for user: {}", cardId, userId);
+    /**
+     * @param fresh false时优先返回本地卡片记录（卡号打码、无CVV），没有本地记录时才请求Provider；
+     *              Provider读取经过对冲：超过近期p95仍未返回时再发一次，取先返回的结果
+     */
+    public CardResponse getCardDetails(String cardId, String userId, boolean fresh) {
+        log.info("Getting card details: {} for user: {} (fresh: {})", cardId, userId, fresh);
 
         // TODO: 验证卡片属于该用户
-        return paymentProvider.getCard(cardId);
+        if (!fresh) {
+            Optional<CardResponse> local = hedgedCardReader.readLocal(cardId);
+            if (local.isPresent()) {
+                return local.get();
+            }
+        }
+        return hedgedCardReader.readFromProvider(cardId);
     }
 
     public CardResponse freezeCard(String cardId, String userId) {
         log.info("Freezing card: {} for user: {}", cardId, userId);
 
         // TODO: 验证权限
-        return paymentProvider.updateCardStatus(cardId, true);
+        return router.forCard(cardId).updateCardStatus(cardId, true);
     }
 
     public CardResponse unfreezeCard(String cardId, String userId) {
         log.info("Unfreezing card: {} for user: {}", cardId, userId);
 
         // TODO: 验证权限
-        return paymentProvider.updateCardStatus(cardId, false);
+        return router.forCard(cardId).updateCardStatus(cardId, false);
+    }
+
+    /**
+     * 紧急冻结用户的所有有效卡片
+     * 卡片按发卡Provider分组，每组的Provider请求并发发出；Provider侧成功的卡片再同步更新本地状态
+     * 某个Provider被熔断拒绝时只影响该组卡片，错误按卡片记录
+     */
+    public BatchCardStatusResponse freezeAllCards(String userId) {
+        List<IssuingCard> activeCards = issuingCardService.getUserCards(userId).stream()
+            .filter(card -> card.getStatus() == IssuingCard.CardStatus.ACTIVE)
+            .toList();
+        log.info("Freezing all {} active cards for user: {}", activeCards.size(), userId);
+
+        Map<String, List<String>> cardsByProvider = activeCards.stream()
+            .collect(Collectors.groupingBy(router::providerOf, LinkedHashMap::new,
+                Collectors.mapping(IssuingCard::getStripeCardId, Collectors.toList())));
+
+        long start = System.currentTimeMillis();
+        List<CardResponse> cards = new ArrayList<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        cardsByProvider.forEach((provider, cardIds) -> {
+            try {
+                BatchCardStatusResponse result = router.byName(provider).updateCardStatuses(cardIds, true);
+                cards.addAll(result.getCards());
+                errors.putAll(result.getErrors());
+            } catch (ProviderUnavailableException e) {
+                cardIds.forEach(cardId -> errors.put(cardId, e.getMessage()));
+            }
+        });
+        BatchCardStatusResponse response = BatchCardStatusResponse.builder()
+            .requested(activeCards.size())
+            .updated(cards.size())
+            .failed(errors.size())
+            .cards(cards)
+            .errors(errors)
+            .elapsedMillis(System.currentTimeMillis() - start)
+            .build();
+
+        for (IssuingCard card : activeCards) {
+            if (!response.getErrors().containsKey(card.getStripeCardId())) {
+                issuingCardService.freezeCard(card.getId());
+            }
+        }
+        return response;
     }
 
     public TransactionListResponse getTransactions(TransactionListRequest request) {
         log.info("Getting transactions for user: {}", request.getUserId());
 
         // TODO: 权限验证
-        return paymentProvider.listTransactions(request);
+        // 优先读本地镜像，只有镜像尚未覆盖的时间段才请求Provider
+        return transactionMirror.listTransactions(request);
     }
 
-    public WebhookResult handleWebhook(String payload, String signature) {
+    // ==================== 组合调用（非阻塞） ====================
+
+    /**
+     * 卡片详情 + 最近交易
+     * Provider取卡与本地镜像查交易并发进行，总耗时约为较慢的一方而不是两者之和
+     */
+    public Mono<CardOverviewResponse> getCardOverview(String cardId, String userId, int transactionLimit) {
+        log.info("Getting card overview: {} for user: {}", cardId, userId);
+
+        TransactionListRequest request = new TransactionListRequest();
+        request.setUserId(userId);
+        request.setCardId(cardId);
+        request.setLimit(transactionLimit);
+
+        long start = System.currentTimeMillis();
+        // TODO: 验证卡片属于该用户
+        return Mono.zip(
+                router.reactiveForCard(cardId).getCard(cardId),
+                // 镜像查询走JPA（阻塞），放到boundedElastic上
+                Mono.fromCallable(() -> transactionMirror.listTransactions(request))
+                    .subscribeOn(Schedulers.boundedElastic()))
+            .map(result -> CardOverviewResponse.builder()
+                .card(result.getT1())
+                .recentTransactions(result.getT2())
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build());
+    }
+
+    /**
+     * 从Provider实时获取用户所有卡片的详情
+     * 各卡片的请求并发发出（最多fanOutConcurrency个同时进行），单张失败不影响其他卡片
+     */
+    public Flux<CardResponse> getLiveCardDetails(String userId) {
+        log.info("Getting live card details for user: {}", userId);
+
+        return Mono.fromCallable(() -> issuingCardService.getUserCards(userId))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(Flux::fromIterable)
+            .flatMapSequential(card -> router.reactiveByName(router.providerOf(card)).getCard(card.getStripeCardId())
+                .onErrorResume(e -> {
+                    log.warn("Skipping card {} for user {}: {}", card.getStripeCardId(), userId, e.getMessage());
+                    return Mono.empty();
+                }), fanOutConcurrency);
+    }
+
+    /**
+     * 从Provider逐页导出交易，直到没有更多数据
+     * 下一页在上一页返回后才请求，调用方停止消费（如客户端断开）时不再翻页
+     * 指定卡片时只请求发卡的Provider；否则依次导出用户卡片涉及的每个Provider
+     */
+    public Flux<TransactionListResponse.Transaction> exportTransactions(TransactionListRequest request) {
+        log.info("Exporting transactions for user: {}", request.getUserId());
+
+        // TODO: 权限验证
+        if (request.getCardId() != null) {
+            return router.reactiveForCard(request.getCardId()).transactionPages(request)
+                .concatMapIterable(TransactionListResponse::getTransactions);
+        }
+        return Mono.fromCallable(() -> issuingCardService.getUserCards(request.getUserId()))
+            .subscribeOn(Schedulers.boundedElastic())
+            .map(cards -> {
+                List<String> providers = cards.stream().map(router::providerOf).distinct().toList();
+                return providers.isEmpty() ? List.of(router.getPrimary()) : providers;
+            })
+            .flatMapMany(Flux::fromIterable)
+            .concatMap(provider -> router.reactiveByName(provider).transactionPages(request))
+            .concatMapIterable(TransactionListResponse::getTransactions);
+    }
+
+    /**
+     * @param provider 发送webhook的Provider名称（由签名头判断），为null时按主Provider处理
+     */
+    public WebhookResult handleWebhook(String provider, String payload, String signature) {
+        PaymentProvider paymentProvider = router.byName(provider != null ? provider : router.getPrimary());
+
         // 验证签名
         if (!paymentProvider.verifyWebhookSignature(payload, signature)) {
             log.error("Invalid webhook signature");
@@ -100,7 +253,10 @@ public class PaymentService {
         return paymentProvider.handleWebhook(payload);
     }
 
+    /**
+     * 主Provider（payment.provider.active）；未指定路由的新业务和历史卡片使用它
+     */
     public String getActiveProvider() {
-        return paymentProvider.getProviderName();
+        return router.getPrimary();
     }
 }
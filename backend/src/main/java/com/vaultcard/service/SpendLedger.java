@@ -0,0 +1,201 @@
+package com.vaultcard.service;
+
+import com.vaultcard.repository.SubscriptionProfileRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-card monthly spend accumulator.
+ *
+ * Spend is recorded as integer cents in a LongAdder per card and spend period, so
+ * concurrent transactions on the same card never contend on a row lock or lose an update.
+ * Accumulated deltas are periodically flushed to subscription_profiles with an
+ * atomic {@code current_month_spent = current_month_spent + ?} update.
+ *
+ * Spend recorded for a period (the cardholder's local month) is flushed period-aware: a
+ * profile still on an earlier period is rolled to the new one in the same UPDATE, so
+ * new-month spend flushed before the monthly reset job reaches the profile is not wiped
+ * by it, and spend for a period the profile has already left is dropped.
+ *
+ * Keyed by internal card ID (SubscriptionProfile.linkedCardId).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendLedger {
+
+    private final SubscriptionProfileRepository subscriptionProfileRepository;
+
+    /** Spend recorded without a period: added to whatever period the profile is on */
+    private static final String ANY_PERIOD = "";
+
+    /** Unflushed spend per card and spend period (yyyy-MM), in cents */
+    private final Map<String, Map<String, LongAdder>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong flushedUpdates = new AtomicLong();
+    private final AtomicLong flushedCents = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    /**
+     * Add spend to a card in whatever spend period its profile is on.
+     *
+     * @param cardId      Internal card ID
+     * @param amountCents Amount in cents (negative for refunds)
+     */
+    public void record(String cardId, long amountCents) {
+        record(cardId, null, amountCents);
+    }
+
+    /**
+     * Add spend to a card for a spend period. Inside a transaction the amount is only
+     * applied once the transaction commits, so a rolled-back transaction never counts.
+     *
+     * @param cardId      Internal card ID
+     * @param period      Cardholder-local month the spend belongs to (yyyy-MM), or null for
+     *                    the profile's current period
+     * @param amountCents Amount in cents (negative for refunds)
+     */
+    public void record(String cardId, String period, long amountCents) {
+        if (cardId == null || amountCents == 0) {
+            return;
+        }
+        String key = period != null ? period : ANY_PERIOD;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(cardId, key, amountCents);
+                }
+            });
+        } else {
+            add(cardId, key, amountCents);
+        }
+    }
+
+    /**
+     * Spend recorded for a card but not yet flushed to the database, in cents.
+     */
+    public long pendingCents(String cardId) {
+        Map<String, LongAdder> byPeriod = pending.get(cardId);
+        return byPeriod != null ? byPeriod.values().stream().mapToLong(LongAdder::sum).sum() : 0L;
+    }
+
+    /**
+     * Spend recorded for a card in one spend period but not yet flushed, in cents.
+     */
+    public long pendingCents(String cardId, String period) {
+        Map<String, LongAdder> byPeriod = pending.get(cardId);
+        LongAdder adder = byPeriod != null ? byPeriod.get(period) : null;
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    /**
+     * Write accumulated deltas to subscription_profiles.
+     */
+    @Scheduled(fixedDelayString = "${vaultcard.spend-ledger.flush-interval-ms:1000}")
+    public void flush() {
+        pending.forEach((cardId, byPeriod) -> byPeriod.forEach((period, adder) -> {
+            // sumThenReset is not atomic as a whole, but each cell is swapped to zero,
+            // so concurrent adds land in either this flush or the next one - never lost
+            long delta = adder.sumThenReset();
+            if (delta == 0) {
+                return;
+            }
+            BigDecimal amount = BigDecimal.valueOf(delta, 2);
+            try {
+                if (ANY_PERIOD.equals(period)) {
+                    subscriptionProfileRepository.addToCurrentMonthSpent(cardId, amount);
+                } else {
+                    subscriptionProfileRepository.addToSpendPeriod(cardId, period, amount);
+                }
+                flushedUpdates.incrementAndGet();
+                flushedCents.addAndGet(delta);
+            } catch (Exception e) {
+                adder.add(delta);
+                flushFailures.incrementAndGet();
+                log.error("Failed to flush {} cents of spend for card {}, will retry", delta, cardId, e);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Current ledger statistics.
+     */
+    public LedgerStats getStats() {
+        long pendingCards = getCardsWithPendingSpend();
+        return LedgerStats.builder()
+                .trackedCards(pending.size())
+                .cardsWithPendingSpend(pendingCards)
+                .recorded(recorded.get())
+                .flushedUpdates(flushedUpdates.get())
+                .flushedCents(flushedCents.get())
+                .flushFailures(flushFailures.get())
+                .build();
+    }
+
+    /**
+     * Convert a decimal amount in currency units to cents.
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Cards with spend not yet flushed. Scans the tracked cards once, for meters.
+     */
+    public long getCardsWithPendingSpend() {
+        return pending.values().stream()
+                .filter(byPeriod -> byPeriod.values().stream().anyMatch(adder -> adder.sum() != 0))
+                .count();
+    }
+
+    /**
+     * Failed flushes. O(1), for meters.
+     */
+    public long getFlushFailureCount() {
+        return flushFailures.get();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void add(String cardId, String period, long amountCents) {
+        pending.computeIfAbsent(cardId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(period, p -> new LongAdder())
+                .add(amountCents);
+        recorded.incrementAndGet();
+    }
+
+    /**
+     * Spend ledger statistics.
+     */
+    @Data
+    @Builder
+    public static class LedgerStats {
+        private int trackedCards;
+        private long cardsWithPendingSpend;
+        private long recorded;
+        private long flushedUpdates;
+        private long flushedCents;
+        private long flushFailures;
+    }
+}
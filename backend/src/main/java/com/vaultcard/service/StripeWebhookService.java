@@ -1,8 +1,14 @@
 package com.vaultcard.service;
 
 import com.vaultcard.entity.FundingTransaction;
+import com.vaultcard.entity.IssuingCard;
 import com.vaultcard.entity.IssuingTransaction;
 import com.vaultcard.repository.IssuingTransactionRepository;
+import com.vaultcard.util.WebhookEventParser;
+import com.vaultcard.util.WebhookEventParser.WebhookEvent;
+import com.vaultcard.util.WebhookSignature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,10 +16,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for handling Stripe webhook events.
@@ -32,10 +40,74 @@ public class StripeWebhookService {
     private final SubscriptionService subscriptionService;
     private final IssuingCardService issuingCardService;
     private final IssuingTransactionRepository issuingTransactionRepository;
+    private final AuthorizationEngine authorizationEngine;
+    private final WebhookDeduplicator webhookDeduplicator;
+    private final CardCache cardCache;
+    private final BalanceSummaryService balanceSummaryService;
+    private final AuthorizationHoldStore authorizationHoldStore;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Event types Stripe waits on for a decision - these must be processed inline, never queued.
+     */
+    private static final Set<String> SYNCHRONOUS_EVENT_TYPES = Set.of("issuing_authorization.request");
+
+    /**
+     * Event types with a handler in processEvent. Anything else is tagged "other" in metrics,
+     * so arbitrary types in unverified payloads cannot create new time series.
+     */
+    private static final Set<String> HANDLED_EVENT_TYPES = Set.of(
+            "payment_intent.succeeded", "payment_intent.payment_failed",
+            "issuing_authorization.request", "issuing_authorization.created", "issuing_authorization.updated",
+            "issuing_transaction.created", "issuing_card.created", "issuing_card.updated");
+
+    /** vaultcard.webhook.events timers by "type|outcome" */
+    private final Map<String, Timer> eventTimers = new ConcurrentHashMap<>();
 
     @Value("${stripe.webhook-secret:}")
     private String webhookSecret;
 
+    /** Reject events without a valid Stripe-Signature (off until every environment has its secret) */
+    @Value("${vaultcard.webhooks.verify-signatures:false}")
+    private boolean verifySignatures;
+
+    /** Maximum age of a signature timestamp, guards against replays */
+    @Value("${vaultcard.webhooks.signature-tolerance-seconds:300}")
+    private long signatureToleranceSeconds;
+
+    /**
+     * Check the Stripe-Signature header against the endpoint secret.
+     *
+     * @return true if the signature is valid, or verification is disabled
+     */
+    public boolean isSignatureValid(String payload, String signature) {
+        if (!verifySignatures) {
+            if (signature == null || signature.isBlank()) {
+                log.warn("Webhook received without signature - accepting in test mode only");
+            }
+            return true;
+        }
+        return WebhookSignature.isValid(payload, signature, webhookSecret, signatureToleranceSeconds);
+    }
+
+    /**
+     * Parse a webhook payload. The controller uses this to route the event before processing.
+     *
+     * @param payload Raw webhook payload
+     * @return Parsed event
+     * @throws IllegalArgumentException if the payload is malformed
+     */
+    public WebhookEvent parseEvent(String payload) {
+        return WebhookEventParser.parse(payload);
+    }
+
+    /**
+     * Whether Stripe is waiting on the HTTP response for this event.
+     */
+    public boolean isSynchronous(WebhookEvent event) {
+        return SYNCHRONOUS_EVENT_TYPES.contains(event.getEventType());
+    }
+
     /**
      * Process incoming Stripe webhook event.
      *
@@ -47,27 +119,66 @@ public class StripeWebhookService {
     public WebhookProcessingResult processWebhook(String payload, String signature) {
         log.info("Processing Stripe webhook");
 
-        // TODO: Verify webhook signature using Stripe SDK
-        // ---------------------------------------------------------------
-        // try {
-        //     Event event = Webhook.constructEvent(payload, signature, webhookSecret);
-        //     return processEvent(event);
-        // } catch (SignatureVerificationException e) {
-        //     log.error("Webhook signature verification failed", e);
-        //     return WebhookProcessingResult.error("Invalid signature");
-        // }
-        // ---------------------------------------------------------------
-
-        // For now, parse JSON manually (placeholder for test mode)
+        if (!isSignatureValid(payload, signature)) {
+            log.error("Webhook signature verification failed");
+            return WebhookProcessingResult.error("Invalid signature");
+        }
+
+        WebhookEvent event;
+        try {
+            event = parseEvent(payload);
+        } catch (IllegalArgumentException e) {
+            log.error("Error parsing webhook", e);
+            return WebhookProcessingResult.error("Processing error: " + e.getMessage());
+        }
+        return handleEvent(event);
+    }
+
+    /**
+     * Process a webhook event that the caller has already parsed, avoiding a second parse.
+     *
+     * @param event     Parsed webhook event
+     * @param signature Stripe signature header
+     * @return Processing result
+     */
+    @Transactional
+    public WebhookProcessingResult processWebhook(WebhookEvent event, String signature) {
+        log.info("Processing Stripe webhook");
+        return handleEvent(event);
+    }
+
+    private WebhookProcessingResult handleEvent(WebhookEvent event) {
+        long start = System.nanoTime();
+        WebhookProcessingResult result = dispatch(event);
+        eventTimer(event.getEventType(), outcome(result)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private WebhookProcessingResult dispatch(WebhookEvent event) {
         try {
-            // Mock parsing - in production, use Stripe SDK
-            Map<String, Object> eventData = parseEventPayload(payload);
-            String eventType = (String) eventData.get("type");
-            String eventId = (String) eventData.get("id");
+            String eventType = event.getEventType();
+            String eventId = event.getEventId();
 
             log.info("Received webhook event: {} ({})", eventType, eventId);
 
-            return processEvent(eventType, eventData);
+            // Stripe waits for a decision on every delivery, including redeliveries, so those
+            // are not deduplicated here: the engine answers a repeated authorization from its
+            // first decision without applying it twice
+            if (SYNCHRONOUS_EVENT_TYPES.contains(eventType)) {
+                return processEvent(eventType, event);
+            }
+
+            // Stripe redelivers events - skip anything already applied
+            if (webhookDeduplicator.isDuplicate(eventId)) {
+                log.info("Duplicate webhook event {} ignored", eventId);
+                return WebhookProcessingResult.ignored("Duplicate event: " + eventId);
+            }
+
+            WebhookProcessingResult result = processEvent(eventType, event);
+            if (result.isSuccess()) {
+                webhookDeduplicator.markProcessed(eventId, eventType);
+            }
+            return result;
         } catch (Exception e) {
             log.error("Error processing webhook", e);
             return WebhookProcessingResult.error("Processing error: " + e.getMessage());
@@ -77,30 +188,33 @@ public class StripeWebhookService {
     /**
      * Process a specific Stripe event.
      */
-    private WebhookProcessingResult processEvent(String eventType, Map<String, Object> eventData) {
+    private WebhookProcessingResult processEvent(String eventType, WebhookEvent event) {
         switch (eventType) {
             // === Payment Events (for Funding) ===
             case "payment_intent.succeeded":
-                return handlePaymentIntentSucceeded(eventData);
+                return handlePaymentIntentSucceeded(event);
 
             case "payment_intent.payment_failed":
-                return handlePaymentIntentFailed(eventData);
+                return handlePaymentIntentFailed(event);
 
             // === Issuing Events ===
             case "issuing_authorization.request":
-                return handleIssuingAuthorizationRequest(eventData);
+                return handleIssuingAuthorizationRequest(event);
 
             case "issuing_authorization.created":
-                return handleIssuingAuthorizationCreated(eventData);
+                return handleIssuingAuthorizationCreated(event);
+
+            case "issuing_authorization.updated":
+                return handleIssuingAuthorizationUpdated(event);
 
             case "issuing_transaction.created":
-                return handleIssuingTransactionCreated(eventData);
+                return handleIssuingTransactionCreated(event);
 
             case "issuing_card.created":
-                return handleIssuingCardCreated(eventData);
+                return handleIssuingCardCreated(event);
 
             case "issuing_card.updated":
-                return handleIssuingCardUpdated(eventData);
+                return handleIssuingCardUpdated(event);
 
             // === Unknown Events ===
             default:
@@ -111,25 +225,21 @@ public class StripeWebhookService {
 
     // ==================== Payment Intent Handlers ====================
 
-    private WebhookProcessingResult handlePaymentIntentSucceeded(Map<String, Object> eventData) {
+    private WebhookProcessingResult handlePaymentIntentSucceeded(WebhookEvent event) {
         log.info("Handling payment_intent.succeeded");
 
-        // TODO: Extract PaymentIntent ID from event data
-        // String paymentIntentId = getNestedValue(eventData, "data.object.id");
-        // fundingService.updateFundingStatus(paymentIntentId, FundingTransaction.FundingStatus.SUCCEEDED);
+        // Credits the user's ledger balance once the status change commits
+        fundingService.updateFundingStatus(event.getObjectId(), FundingTransaction.FundingStatus.SUCCEEDED);
 
-        // Placeholder
-        log.info("Payment intent succeeded - funding will be credited");
+        log.info("Payment intent succeeded - funding credited");
         return WebhookProcessingResult.success("Payment intent processed");
     }
 
-    private WebhookProcessingResult handlePaymentIntentFailed(Map<String, Object> eventData) {
+    private WebhookProcessingResult handlePaymentIntentFailed(WebhookEvent event) {
         log.info("Handling payment_intent.payment_failed");
 
-        // TODO: Extract PaymentIntent ID and failure reason
-        // String paymentIntentId = getNestedValue(eventData, "data.object.id");
-        // String failureMessage = getNestedValue(eventData, "data.object.last_payment_error.message");
-        // fundingService.updateFundingStatus(paymentIntentId, FundingTransaction.FundingStatus.FAILED);
+        // TODO: Record the failure reason
+        fundingService.updateFundingStatus(event.getObjectId(), FundingTransaction.FundingStatus.FAILED);
 
         log.warn("Payment intent failed");
         return WebhookProcessingResult.success("Payment failure recorded");
@@ -137,35 +247,22 @@ public class StripeWebhookService {
 
     // ==================== Issuing Authorization Handlers ====================
 
-    private WebhookProcessingResult handleIssuingAuthorizationRequest(Map<String, Object> eventData) {
+    private WebhookProcessingResult handleIssuingAuthorizationRequest(WebhookEvent event) {
         log.info("Handling issuing_authorization.request (real-time decision)");
 
-        // TODO: Implement real-time authorization decision
-        // ---------------------------------------------------------------
         // This is a SYNCHRONOUS webhook - Stripe expects a response within seconds.
-        // The response determines whether the transaction is approved or declined.
-        //
-        // Steps:
-        // 1. Extract authorization details (card ID, amount, merchant)
-        // 2. Check user's balance
-        // 3. Check spending limits
-        // 4. Apply any custom rules (MCC restrictions, etc.)
-        // 5. Return approve/decline decision
-        //
-        // String cardId = getNestedValue(eventData, "data.object.card.id");
-        // Long amountCents = getNestedValue(eventData, "data.object.pending_request.amount");
-        // String merchantName = getNestedValue(eventData, "data.object.merchant_data.name");
-        //
-        // boolean approved = checkAuthorizationRules(cardId, amountCents, merchantName);
-        //
-        // return WebhookProcessingResult.authorizationDecision(approved, approved ? null : "Insufficient funds");
-        // ---------------------------------------------------------------
-
-        log.info("Authorization request received - would check balance and limits");
-        return WebhookProcessingResult.success("Authorization request processed");
+        // The decision is made entirely in memory by the AuthorizationEngine.
+        String authorizationId = event.getObjectId();
+        AuthorizationEngine.AuthorizationDecision decision = authorizationEngine.decide(
+                authorizationId, event.getCardId(), event.requestedAmount(),
+                event.getMerchantCategoryCode(), event.getMerchantName());
+
+        log.info("Authorization {} {}", authorizationId,
+                decision.isApproved() ? "approved" : "declined (" + decision.getDeclineReason() + ")");
+        return WebhookProcessingResult.authorizationDecision(decision.isApproved(), decision.getDeclineReason());
     }
 
-    private WebhookProcessingResult handleIssuingAuthorizationCreated(Map<String, Object> eventData) {
+    private WebhookProcessingResult handleIssuingAuthorizationCreated(WebhookEvent event) {
         log.info("Handling issuing_authorization.created");
 
         // TODO: Record the authorization for tracking
@@ -174,75 +271,127 @@ public class StripeWebhookService {
         return WebhookProcessingResult.success("Authorization recorded");
     }
 
+    private WebhookProcessingResult handleIssuingAuthorizationUpdated(WebhookEvent event) {
+        log.info("Handling issuing_authorization.updated");
+
+        // Once an authorization is no longer pending (closed, reversed or expired), whatever
+        // its captures did not consume goes back to the available balance
+        if (event.getStatus() == null || "pending".equals(event.getStatus())) {
+            return WebhookProcessingResult.success("Authorization still pending");
+        }
+        authorizationHoldStore.release(event.getObjectId());
+
+        return WebhookProcessingResult.success("Authorization hold released");
+    }
+
     // ==================== Issuing Transaction Handlers ====================
 
-    private WebhookProcessingResult handleIssuingTransactionCreated(Map<String, Object> eventData) {
+    private WebhookProcessingResult handleIssuingTransactionCreated(WebhookEvent event) {
         log.info("Handling issuing_transaction.created");
 
-        // TODO: Record transaction and update spending totals
-        // ---------------------------------------------------------------
-        // String transactionId = getNestedValue(eventData, "data.object.id");
-        // String cardId = getNestedValue(eventData, "data.object.card");
-        // Long amountCents = getNestedValue(eventData, "data.object.amount");
-        // String merchantName = getNestedValue(eventData, "data.object.merchant_data.name");
-        // String mcc = getNestedValue(eventData, "data.object.merchant_data.category_code");
-        // Long createdTimestamp = getNestedValue(eventData, "data.object.created");
-        //
-        // IssuingCard card = issuingCardService.getCardByStripeId(cardId);
-        //
-        // IssuingTransaction transaction = IssuingTransaction.builder()
-        //     .userId(card.getUserId())
-        //     .stripeTransactionId(transactionId)
-        //     .stripeCardId(cardId)
-        //     .amount(BigDecimal.valueOf(amountCents).divide(BigDecimal.valueOf(100)))
-        //     .currency("usd")
-        //     .merchantName(merchantName)
-        //     .merchantCategoryCode(mcc)
-        //     .transactionType(IssuingTransaction.TransactionType.PURCHASE)
-        //     .status(IssuingTransaction.TransactionStatus.APPROVED)
-        //     .stripeCreatedAt(LocalDateTime.ofInstant(
-        //         Instant.ofEpochSecond(createdTimestamp), ZoneId.systemDefault()))
-        //     .build();
-        //
-        // issuingTransactionRepository.save(transaction);
-        //
-        // // Update subscription spending totals
-        // BigDecimal amount = BigDecimal.valueOf(amountCents).divide(BigDecimal.valueOf(100));
-        // subscriptionService.updateMonthlySpending(card.getId(), amount);
-        // ---------------------------------------------------------------
-
-        log.info("Issuing transaction created - would record and update spending");
+        String transactionId = event.getObjectId();
+        if (transactionId != null && issuingTransactionRepository.findByStripeTransactionId(transactionId).isPresent()) {
+            return WebhookProcessingResult.ignored("Transaction already recorded: " + transactionId);
+        }
+
+        IssuingCard card = issuingCardService.getCardByStripeId(event.getCardId());
+
+        // Stripe signs amounts from the balance's point of view; normalize to
+        // positive spend for captures and negative for refunds
+        boolean refund = "refund".equals(event.getObjectType());
+        long amountCents = Math.abs(event.getAmount() != null ? event.getAmount() : 0L);
+        if (refund) {
+            amountCents = -amountCents;
+        }
+        BigDecimal amount = BigDecimal.valueOf(amountCents, 2);
+
+        // Upgrade the record written when the authorization was decided, if there is one
+        IssuingTransaction transaction = event.getAuthorizationId() == null ? null
+                : issuingTransactionRepository
+                        .findFirstByStripeAuthorizationIdOrderByCreatedAtAsc(event.getAuthorizationId())
+                        .filter(t -> t.getStripeTransactionId() == null)
+                        .orElse(null);
+        if (transaction == null) {
+            transaction = IssuingTransaction.builder()
+                    .userId(card.getUserId())
+                    .stripeAuthorizationId(event.getAuthorizationId())
+                    .stripeCardId(card.getStripeCardId())
+                    .build();
+        }
+        BigDecimal spentBefore = BalanceSummaryService.spentBy(transaction);
+        transaction.setStripeTransactionId(transactionId);
+        transaction.setAmount(amount);
+        transaction.setCurrency(event.getCurrency() != null ? event.getCurrency() : "usd");
+        if (event.getMerchantName() != null) {
+            transaction.setMerchantName(event.getMerchantName());
+        }
+        if (event.getMerchantCategoryCode() != null) {
+            transaction.setMerchantCategoryCode(event.getMerchantCategoryCode());
+        }
+        transaction.setTransactionType(refund
+                ? IssuingTransaction.TransactionType.REFUND
+                : IssuingTransaction.TransactionType.PURCHASE);
+        transaction.setStatus(IssuingTransaction.TransactionStatus.APPROVED);
+        if (event.getObjectCreated() != null) {
+            // UTC, like the transaction mirror - both writers must agree for the same transaction
+            transaction.setStripeCreatedAt(LocalDateTime.ofEpochSecond(event.getObjectCreated(), 0, ZoneOffset.UTC));
+        }
+        issuingTransactionRepository.save(transaction);
+        balanceSummaryService.apply(transaction.getUserId(), BigDecimal.ZERO,
+                BalanceSummaryService.spentBy(transaction).subtract(spentBefore));
+        authorizationHoldStore.recordCardTransaction(transaction.getUserId(),
+                transaction.getStripeAuthorizationId(), transactionId, amountCents);
+
+        // Update subscription spending totals (applied after commit)
+        subscriptionService.updateMonthlySpending(card, amount);
+
         return WebhookProcessingResult.success("Transaction recorded");
     }
 
     // ==================== Issuing Card Handlers ====================
 
-    private WebhookProcessingResult handleIssuingCardCreated(Map<String, Object> eventData) {
+    private WebhookProcessingResult handleIssuingCardCreated(WebhookEvent event) {
         log.info("Handling issuing_card.created");
         // Card creation is initiated by our service, so this is mainly for confirmation
         return WebhookProcessingResult.success("Card creation confirmed");
     }
 
-    private WebhookProcessingResult handleIssuingCardUpdated(Map<String, Object> eventData) {
+    private WebhookProcessingResult handleIssuingCardUpdated(WebhookEvent event) {
         log.info("Handling issuing_card.updated");
 
+        // The card may have been changed directly in the Stripe Dashboard - drop the cached copy
+        if (event.getObjectId() != null) {
+            cardCache.invalidateByStripeCardId(event.getObjectId());
+        }
+
         // TODO: Sync card status changes from Stripe
-        // This handles cases where card status is changed directly in Stripe Dashboard
 
         return WebhookProcessingResult.success("Card update recorded");
     }
 
-    // ==================== Helper Methods ====================
+    // ==================== Metrics ====================
+
+    private static String outcome(WebhookProcessingResult result) {
+        if (!result.isSuccess()) {
+            return "error";
+        }
+        if (result.getAuthorizationApproved() != null) {
+            return result.getAuthorizationApproved() ? "approved" : "declined";
+        }
+        return "success";
+    }
 
     /**
-     * Parse webhook payload (placeholder - use Stripe SDK in production).
+     * Per event type processing time. SLO buckets are configured under
+     * management.metrics.distribution.slo.vaultcard.webhook.events.
      */
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> parseEventPayload(String payload) {
-        // In production, use Stripe SDK: Event event = Webhook.constructEvent(...)
-        // For now, use Gson for basic parsing
-        com.google.gson.Gson gson = new com.google.gson.Gson();
-        return gson.fromJson(payload, Map.class);
+    private Timer eventTimer(String eventType, String outcome) {
+        String type = eventType != null && HANDLED_EVENT_TYPES.contains(eventType) ? eventType : "other";
+        return eventTimers.computeIfAbsent(type + '|' + outcome, key -> Timer.builder("vaultcard.webhook.events")
+                .description("Webhook event processing time by event type")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
     }
 
     /**
@@ -18,8 +18,17 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -38,6 +47,9 @@ public class SubscriptionService {
     private final IssuingTransactionRepository issuingTransactionRepository;
     private final UserRepository userRepository;
     private final IssuingCardService issuingCardService;
+    private final AuthorizationEngine authorizationEngine;
+    private final SpendLedger spendLedger;
+    private final CardCache cardCache;
 
     @Value("${vaultcard.max-subscriptions-per-user:10}")
     private int maxSubscriptionsPerUser;
@@ -110,6 +122,7 @@ public class SubscriptionService {
                 .linkedCardId(card.getId())
                 .monthlyLimit(request.getMonthlyLimit())
                 .currentMonthSpent(BigDecimal.ZERO)
+                .spendPeriod(YearMonth.now(user.zoneId()).toString())
                 .status(SubscriptionProfile.ProfileStatus.ACTIVE)
                 .allowedMccCodes(request.getAllowedMccCodes())
                 .notes(request.getNotes())
@@ -131,29 +144,31 @@ public class SubscriptionService {
         List<SubscriptionProfile> profiles = subscriptionProfileRepository
                 .findByUserIdOrderByCreatedAtDesc(userId);
 
-        List<SubscriptionResponse> responses = profiles.stream()
-                .map(profile -> {
-                    IssuingCard card = profile.getLinkedCardId() != null
-                            ? issuingCardRepository.findById(profile.getLinkedCardId()).orElse(null)
-                            : null;
-                    return mapToResponse(profile, card);
-                })
-                .collect(Collectors.toList());
-
-        // Calculate summary
-        BigDecimal totalLimit = profiles.stream()
-                .filter(p -> p.getStatus() == SubscriptionProfile.ProfileStatus.ACTIVE)
-                .map(SubscriptionProfile::getMonthlyLimit)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalSpent = profiles.stream()
-                .filter(p -> p.getStatus() == SubscriptionProfile.ProfileStatus.ACTIVE)
-                .map(SubscriptionProfile::getCurrentMonthSpent)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        int activeCount = (int) profiles.stream()
-                .filter(p -> p.getStatus() == SubscriptionProfile.ProfileStatus.ACTIVE)
-                .count();
+        // Fetch all linked cards in one query instead of one findById per profile
+        Set<String> cardIds = profiles.stream()
+                .map(SubscriptionProfile::getLinkedCardId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, IssuingCard> cardsById = cardIds.isEmpty()
+                ? Collections.emptyMap()
+                : issuingCardRepository.findAllById(cardIds).stream()
+                        .collect(Collectors.toMap(IssuingCard::getId, Function.identity()));
+
+        // Build responses and summary in a single pass
+        List<SubscriptionResponse> responses = new ArrayList<>(profiles.size());
+        BigDecimal totalLimit = BigDecimal.ZERO;
+        BigDecimal totalSpent = BigDecimal.ZERO;
+        int activeCount = 0;
+        for (SubscriptionProfile profile : profiles) {
+            IssuingCard card = profile.getLinkedCardId() != null ? cardsById.get(profile.getLinkedCardId()) : null;
+            responses.add(mapToResponse(profile, card));
+
+            if (profile.getStatus() == SubscriptionProfile.ProfileStatus.ACTIVE) {
+                totalLimit = totalLimit.add(profile.getMonthlyLimit());
+                totalSpent = totalSpent.add(profile.getCurrentMonthSpent());
+                activeCount++;
+            }
+        }
 
         return SubscriptionListResponse.builder()
                 .subscriptions(responses)
@@ -174,7 +189,7 @@ public class SubscriptionService {
                 .orElseThrow(() -> new IllegalArgumentException("Subscription not found: " + subscriptionId));
 
         IssuingCard card = profile.getLinkedCardId() != null
-                ? issuingCardRepository.findById(profile.getLinkedCardId()).orElse(null)
+                ? cardCache.findById(profile.getLinkedCardId()).orElse(null)
                 : null;
 
         return mapToResponse(profile, card);
@@ -202,6 +217,8 @@ public class SubscriptionService {
             if (card != null) {
                 card.setStatus(IssuingCard.CardStatus.FROZEN);
                 issuingCardRepository.save(card);
+                cardCache.invalidate(card);
+                authorizationEngine.onCardChanged(card);
             }
         }
 
@@ -234,6 +251,8 @@ public class SubscriptionService {
             if (card != null) {
                 card.setStatus(IssuingCard.CardStatus.ACTIVE);
                 issuingCardRepository.save(card);
+                cardCache.invalidate(card);
+                authorizationEngine.onCardChanged(card);
             }
         }
 
@@ -242,35 +261,15 @@ public class SubscriptionService {
 
     /**
      * Update monthly spending total for a subscription (called when transactions occur).
+     *
+     * Recorded in the SpendLedger for the cardholder's current local month and flushed to
+     * the profile with an atomic increment, so concurrent transactions on the same card
+     * never lose an update and the month rollover never wipes them.
      */
-    @Transactional
-    public void updateMonthlySpending(String cardId, BigDecimal transactionAmount) {
-        subscriptionProfileRepository.findByLinkedCardId(cardId)
-                .ifPresent(profile -> {
-                    BigDecimal newTotal = profile.getCurrentMonthSpent().add(transactionAmount);
-                    profile.setCurrentMonthSpent(newTotal);
-                    subscriptionProfileRepository.save(profile);
-                    log.debug("Updated monthly spending for subscription {}: {}", profile.getId(), newTotal);
-                });
-    }
-
-    /**
-     * Reset monthly spending for all subscriptions (called by scheduled job on month start).
-     */
-    @Transactional
-    public void resetMonthlySpending() {
-        log.info("Resetting monthly spending for all active subscriptions");
-        List<SubscriptionProfile> activeProfiles = subscriptionProfileRepository
-                .findByUserIdAndStatus(null, SubscriptionProfile.ProfileStatus.ACTIVE);
-
-        // Actually we need a different query - get all active regardless of user
-        // For simplicity, using findAll and filtering
-        subscriptionProfileRepository.findAll().stream()
-                .filter(p -> p.getStatus() == SubscriptionProfile.ProfileStatus.ACTIVE)
-                .forEach(profile -> {
-                    profile.setCurrentMonthSpent(BigDecimal.ZERO);
-                    subscriptionProfileRepository.save(profile);
-                });
+    public void updateMonthlySpending(IssuingCard card, BigDecimal transactionAmount) {
+        ZoneId zone = userRepository.findById(card.getUserId()).map(User::zoneId).orElse(ZoneOffset.UTC);
+        spendLedger.record(card.getId(), YearMonth.now(zone).toString(), SpendLedger.toCents(transactionAmount));
+        log.debug("Recorded monthly spending for card {}: {}", card.getId(), transactionAmount);
     }
 
     /**
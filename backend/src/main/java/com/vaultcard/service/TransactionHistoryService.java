@@ -0,0 +1,97 @@
+package com.vaultcard.service;
+
+import com.vaultcard.dto.TransactionListRequest;
+import com.vaultcard.dto.TransactionListResponse;
+import com.vaultcard.entity.IssuingTransaction;
+import com.vaultcard.repository.IssuingTransactionRepository;
+import com.vaultcard.util.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Cursor-paginated reads of locally recorded card transactions.
+ *
+ * Pages are keyset queries on (created_at DESC, id) backed by the composite indexes on
+ * issuing_transactions, so the cost of a page does not grow with its depth. The
+ * cursor is the opaque sort key of the last row returned.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionHistoryService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final IssuingTransactionRepository issuingTransactionRepository;
+
+    /**
+     * List a user's transactions (optionally for one card), newest first.
+     *
+     * @param request userId (required), cardId (Stripe card ID, optional), limit and cursor
+     * @return One page plus the cursor for the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public TransactionListResponse listTransactions(TransactionListRequest request) {
+        int limit = pageSize(request.getLimit());
+        // One extra row tells whether there is a next page without a COUNT
+        Pageable page = PageRequest.of(0, limit + 1);
+        KeysetCursor cursor = request.getCursor() != null && !request.getCursor().isBlank()
+                ? KeysetCursor.decode(request.getCursor())
+                : null;
+
+        List<IssuingTransaction> rows;
+        if (request.getCardId() != null) {
+            rows = cursor == null
+                    ? issuingTransactionRepository.findPageByCard(request.getUserId(), request.getCardId(), page)
+                    : issuingTransactionRepository.findPageByCardAfter(request.getUserId(), request.getCardId(),
+                            cursor.getCreatedAt(), cursor.getId(), page);
+        } else {
+            rows = cursor == null
+                    ? issuingTransactionRepository.findPageByUser(request.getUserId(), page)
+                    : issuingTransactionRepository.findPageByUserAfter(request.getUserId(),
+                            cursor.getCreatedAt(), cursor.getId(), page);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        IssuingTransaction last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+
+        return TransactionListResponse.builder()
+                .transactions(rows.stream().map(this::toResponse).toList())
+                .total(rows.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? KeysetCursor.encode(last.getCreatedAt(), last.getId()) : null)
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return 20;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    private TransactionListResponse.Transaction toResponse(IssuingTransaction t) {
+        return TransactionListResponse.Transaction.builder()
+                .id(t.getStripeTransactionId() != null ? t.getStripeTransactionId() : t.getId())
+                .merchant(t.getMerchantName() != null ? t.getMerchantName() : "Unknown Merchant")
+                .amount(t.getAmount().abs())
+                .currency(t.getCurrency().toUpperCase())
+                .status(t.getStatus().name().toLowerCase())
+                // Spend is stored positive, refunds negative
+                .type(t.getAmount().signum() < 0 ? "income" : "expense")
+                .createdAt(t.getCreatedAt())
+                .build();
+    }
+}
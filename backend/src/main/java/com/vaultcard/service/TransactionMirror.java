@@ -0,0 +1,582 @@
+package com.vaultcard.service;
+
+import com.vaultcard.dto.TransactionListRequest;
+import com.vaultcard.dto.TransactionListResponse;
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.entity.IssuingTransaction;
+import com.vaultcard.entity.JobCheckpoint;
+import com.vaultcard.provider.PaymentProvider;
+import com.vaultcard.provider.ProviderRouter;
+import com.vaultcard.provider.ProviderUnavailableException;
+import com.vaultcard.repository.IssuingTransactionRepository;
+import com.vaultcard.repository.JobCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local mirror of provider card transactions.
+ *
+ * issuing_transactions is filled by the issuing_transaction.created webhook and by
+ * this sync, so transaction lists are read from the local store instead of calling
+ * the provider on every page load. The sync has two parts:
+ *
+ * - Backfill: walks the provider's history newest to oldest, a few pages per run,
+ *   checkpointing the (created, id) of the last transaction seen. Everything from
+ *   that point forward is covered; once the walk reaches the end, all history is.
+ * - Incremental: re-lists transactions created since the watermark (minus an
+ *   overlap) to pick up anything whose webhook was missed.
+ *
+ * Every provider registered with the ProviderRouter is synced separately, with its own
+ * checkpoints (partitioned by provider name), so coverage is tracked per provider.
+ *
+ * Reads are served locally while they stay inside the range covered for the providers
+ * involved: the card's issuing provider for a card listing, the providers of the user's
+ * cards for a user listing. A page that reaches past the oldest covered transaction ends
+ * there and hands out a provider cursor for everything created before that point, so
+ * only the uncovered older range is read from the provider(s). Provider pages are merged
+ * by creation time when a user has cards with more than one provider; their cursor is a
+ * creation time plus the IDs already returned from that second.
+ */
+@Service
+@Slf4j
+public class TransactionMirror {
+
+    private static final String JOB_NAME = "transaction-mirror";
+    private static final String BACKFILL = "backfill";
+    private static final String INCREMENTAL = "incremental";
+
+    /** Prefix of cursors that continue a listing at the provider */
+    static final String PROVIDER_CURSOR_PREFIX = "p.";
+
+    /**
+     * Provider cursors are p.@{epochSeconds}[~{id},{id}...]: transactions created before
+     * that time, minus the listed IDs (already returned from the second just before it)
+     */
+    private static final String BOUNDARY_MARKER = "@";
+    private static final String SKIP_MARKER = "~";
+
+    /** More IDs than this from one second end the page at that second instead */
+    private static final int MAX_SKIPPED_IDS = 50;
+
+    private static final Comparator<TransactionListResponse.Transaction> NEWEST_FIRST =
+            Comparator.comparing(TransactionListResponse.Transaction::getCreatedAt).reversed()
+                    .thenComparing(TransactionListResponse.Transaction::getId);
+
+    private final ProviderRouter router;
+    private final TransactionHistoryService transactionHistoryService;
+    private final IssuingTransactionRepository issuingTransactionRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final IssuingCardService issuingCardService;
+    private final BalanceSummaryService balanceSummaryService;
+    private final AuthorizationHoldStore authorizationHoldStore;
+    private final SubscriptionService subscriptionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${vaultcard.transaction-mirror.enabled:true}")
+    private boolean enabled;
+
+    @Value("${vaultcard.transaction-mirror.page-size:100}")
+    private int pageSize;
+
+    @Value("${vaultcard.transaction-mirror.backfill-pages-per-run:20}")
+    private int backfillPagesPerRun;
+
+    @Value("${vaultcard.transaction-mirror.overlap-seconds:300}")
+    private long overlapSeconds;
+
+    /** Sync state per provider name, one entry per provider registered with the router */
+    private final Map<String, ProviderSync> providers = new LinkedHashMap<>();
+    private volatile LocalDateTime lastSyncAt;
+
+    private final AtomicBoolean syncing = new AtomicBoolean();
+    private final AtomicLong mirrored = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong syncFailures = new AtomicLong();
+    private final AtomicLong localReads = new AtomicLong();
+    private final AtomicLong providerReads = new AtomicLong();
+
+    public TransactionMirror(ProviderRouter router,
+                             TransactionHistoryService transactionHistoryService,
+                             IssuingTransactionRepository issuingTransactionRepository,
+                             JobCheckpointRepository jobCheckpointRepository,
+                             IssuingCardService issuingCardService,
+                             BalanceSummaryService balanceSummaryService,
+                             AuthorizationHoldStore authorizationHoldStore,
+                             SubscriptionService subscriptionService,
+                             PlatformTransactionManager transactionManager) {
+        this.router = router;
+        this.transactionHistoryService = transactionHistoryService;
+        this.issuingTransactionRepository = issuingTransactionRepository;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.issuingCardService = issuingCardService;
+        this.balanceSummaryService = balanceSummaryService;
+        this.authorizationHoldStore = authorizationHoldStore;
+        this.subscriptionService = subscriptionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String name : router.getProviderNames()) {
+            ProviderSync state = new ProviderSync(name);
+            JobCheckpoint backfill = checkpoint(name, BACKFILL);
+            if (backfill.getId() != null) {
+                state.coveredFrom = createdOf(backfill.getLastKey());
+                state.backfillComplete = backfill.getStatus() == JobCheckpoint.CheckpointStatus.COMPLETED;
+            }
+            JobCheckpoint incremental = checkpoint(name, INCREMENTAL);
+            if (incremental.getId() != null && !incremental.getLastKey().isEmpty()) {
+                state.watermark = Long.parseLong(incremental.getLastKey());
+            }
+            providers.put(name, state);
+        }
+    }
+
+    /**
+     * List transactions, from the local store where it covers the requested range.
+     */
+    public TransactionListResponse listTransactions(TransactionListRequest request) {
+        String cursor = request.getCursor();
+        if (cursor != null && cursor.startsWith(PROVIDER_CURSOR_PREFIX)) {
+            return readProviders(request, cursor.substring(PROVIDER_CURSOR_PREFIX.length()));
+        }
+        if (!enabled) {
+            return readProviders(request, null);
+        }
+        // Fully backfilled everywhere: the local store is complete whichever providers are involved
+        if (providers.values().stream().allMatch(state -> state.backfillComplete)) {
+            localReads.incrementAndGet();
+            return transactionHistoryService.listTransactions(request);
+        }
+
+        // Oldest time covered for every provider involved; complete providers cover everything
+        Long from = Long.MIN_VALUE;
+        for (String name : providersOf(request)) {
+            ProviderSync state = providers.get(name);
+            if (state.backfillComplete) {
+                continue;
+            }
+            if (state.coveredFrom == null) {
+                return readProviders(request, null);
+            }
+            from = Math.max(from, state.coveredFrom);
+        }
+
+        TransactionListResponse page = transactionHistoryService.listTransactions(request);
+        localReads.incrementAndGet();
+        if (from == Long.MIN_VALUE) {
+            return page;
+        }
+
+        // Keep only rows inside the covered range; past it, continue at the provider
+        LocalDateTime boundary = toLocal(from);
+        List<TransactionListResponse.Transaction> covered = page.getTransactions().stream()
+                .filter(t -> !t.getCreatedAt().isBefore(boundary))
+                .toList();
+        if (covered.size() == page.getTransactions().size() && page.getHasMore()) {
+            return page;
+        }
+        if (covered.isEmpty()) {
+            return readProviders(request, BOUNDARY_MARKER + from);
+        }
+        return TransactionListResponse.builder()
+                .transactions(covered)
+                .total(covered.size())
+                .hasMore(true)
+                .nextCursor(PROVIDER_CURSOR_PREFIX + BOUNDARY_MARKER + from)
+                .build();
+    }
+
+    /**
+     * Run one sync pass: a bounded slice of the backfill, then the incremental catch-up.
+     */
+    @Scheduled(fixedDelayString = "${vaultcard.transaction-mirror.sync-interval-ms:60000}",
+               initialDelayString = "${vaultcard.transaction-mirror.initial-delay-ms:10000}")
+    public void sync() {
+        if (!enabled || !syncing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long startedAt = Instant.now().getEpochSecond();
+            // One provider failing does not hold back the others
+            for (ProviderSync state : providers.values()) {
+                try {
+                    if (!state.backfillComplete) {
+                        backfill(state, startedAt);
+                    }
+                    catchUp(state, startedAt);
+                    state.lastSyncAt = LocalDateTime.now();
+                } catch (ProviderUnavailableException e) {
+                    // Circuit open or bulkhead full - try again next run, no stack trace needed
+                    syncFailures.incrementAndGet();
+                    log.warn("Transaction mirror sync skipped for {}: {}", state.provider, e.getMessage());
+                } catch (Exception e) {
+                    syncFailures.incrementAndGet();
+                    log.error("Transaction mirror sync failed for {}", state.provider, e);
+                }
+            }
+            lastSyncAt = LocalDateTime.now();
+        } finally {
+            syncing.set(false);
+        }
+    }
+
+    /**
+     * Current mirror statistics, including sync lag and coverage.
+     */
+    public MirrorStats getStats() {
+        Map<String, ProviderSyncStats> byProvider = new TreeMap<>();
+        providers.forEach((name, state) -> byProvider.put(name, state.snapshot()));
+        return MirrorStats.builder()
+                .enabled(enabled)
+                .backfillComplete(byProvider.values().stream().allMatch(ProviderSyncStats::isBackfillComplete))
+                .providers(byProvider)
+                .lastSyncAt(lastSyncAt)
+                .mirrored(mirrored.get())
+                .skipped(skipped.get())
+                .syncFailures(syncFailures.get())
+                .localReads(localReads.get())
+                .providerReads(providerReads.get())
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void backfill(ProviderSync state, long startedAt) {
+        PaymentProvider provider = router.byName(state.provider);
+        JobCheckpoint checkpoint = checkpoint(state.provider, BACKFILL);
+        if (checkpoint.getId() == null && state.watermark == null) {
+            // Everything newer than the start of the backfill is the incremental sync's job
+            state.watermark = startedAt;
+        }
+        for (int i = 0; i < backfillPagesPerRun; i++) {
+            TransactionListRequest request = new TransactionListRequest();
+            request.setLimit(pageSize);
+            request.setCursor(idOf(checkpoint.getLastKey()));
+            TransactionListResponse page = provider.listTransactions(request);
+
+            mirror(page.getTransactions());
+            if (!page.getTransactions().isEmpty()) {
+                TransactionListResponse.Transaction last = page.getTransactions().get(page.getTransactions().size() - 1);
+                checkpoint.setLastKey(last.getCreatedAt().toEpochSecond(ZoneOffset.UTC) + ":" + last.getId());
+                checkpoint.setProcessed(checkpoint.getProcessed() + page.getTransactions().size());
+            }
+            checkpoint.setChunks(checkpoint.getChunks() + 1);
+            if (!page.getHasMore()) {
+                checkpoint.setStatus(JobCheckpoint.CheckpointStatus.COMPLETED);
+                checkpoint.setCompletedAt(LocalDateTime.now());
+            }
+            checkpoint = jobCheckpointRepository.save(checkpoint);
+            state.coveredFrom = createdOf(checkpoint.getLastKey());
+
+            if (!page.getHasMore()) {
+                state.backfillComplete = true;
+                log.info("Transaction mirror backfill complete for {}: {} transactions",
+                        state.provider, checkpoint.getProcessed());
+                return;
+            }
+        }
+    }
+
+    private void catchUp(ProviderSync state, long startedAt) {
+        Long since = state.watermark;
+        if (since == null) {
+            return;
+        }
+        PaymentProvider provider = router.byName(state.provider);
+        String cursor = null;
+        do {
+            TransactionListRequest request = new TransactionListRequest();
+            request.setLimit(pageSize);
+            request.setCursor(cursor);
+            request.setCreatedSince(since - overlapSeconds);
+            TransactionListResponse page = provider.listTransactions(request);
+            mirror(page.getTransactions());
+            cursor = page.getHasMore() ? page.getNextCursor() : null;
+        } while (cursor != null);
+
+        JobCheckpoint checkpoint = checkpoint(state.provider, INCREMENTAL);
+        checkpoint.setLastKey(String.valueOf(startedAt));
+        checkpoint.setChunks(checkpoint.getChunks() + 1);
+        jobCheckpointRepository.save(checkpoint);
+        state.watermark = startedAt;
+    }
+
+    /**
+     * Record provider transactions that are not stored yet, the way the
+     * issuing_transaction.created webhook does: the row written when the authorization was
+     * decided is upgraded if there is one, and the card's month spend is recorded in the
+     * same transaction. Rows already carrying the transaction ID are left alone.
+     */
+    private void mirror(List<TransactionListResponse.Transaction> transactions) {
+        for (TransactionListResponse.Transaction t : transactions) {
+            if (issuingTransactionRepository.findByStripeTransactionId(t.getId()).isPresent()) {
+                continue;
+            }
+            Optional<IssuingCard> card = findCard(t.getCardId());
+            if (card.isEmpty()) {
+                skipped.incrementAndGet();
+                continue;
+            }
+            // Provider amounts are positive; "income" is money back to the card (refund)
+            boolean refund = "income".equals(t.getType());
+            BigDecimal amount = refund ? t.getAmount().negate() : t.getAmount();
+            transactionTemplate.executeWithoutResult(status -> {
+                IssuingTransaction transaction = t.getAuthorizationId() == null ? null
+                        : issuingTransactionRepository
+                                .findFirstByStripeAuthorizationIdOrderByCreatedAtAsc(t.getAuthorizationId())
+                                .filter(existing -> existing.getStripeTransactionId() == null)
+                                .orElse(null);
+                if (transaction == null) {
+                    transaction = IssuingTransaction.builder()
+                            .userId(card.get().getUserId())
+                            .stripeCardId(card.get().getStripeCardId())
+                            .stripeAuthorizationId(t.getAuthorizationId())
+                            .createdAt(toLocal(t.getCreatedAt().toEpochSecond(ZoneOffset.UTC)))
+                            .build();
+                }
+                BigDecimal spentBefore = BalanceSummaryService.spentBy(transaction);
+                transaction.setStripeTransactionId(t.getId());
+                transaction.setAmount(amount);
+                transaction.setCurrency(t.getCurrency().toLowerCase());
+                if (t.getMerchant() != null) {
+                    transaction.setMerchantName(t.getMerchant());
+                }
+                if (t.getMerchantCategoryCode() != null) {
+                    transaction.setMerchantCategoryCode(t.getMerchantCategoryCode());
+                }
+                transaction.setTransactionType(refund ? IssuingTransaction.TransactionType.REFUND
+                        : IssuingTransaction.TransactionType.PURCHASE);
+                transaction.setStatus(IssuingTransaction.TransactionStatus.APPROVED);
+                // Provider DTO times are UTC wall-clock, the same zone the webhook path stores
+                transaction.setStripeCreatedAt(t.getCreatedAt());
+                issuingTransactionRepository.save(transaction);
+                balanceSummaryService.apply(transaction.getUserId(), BigDecimal.ZERO,
+                        BalanceSummaryService.spentBy(transaction).subtract(spentBefore));
+                authorizationHoldStore.recordCardTransaction(transaction.getUserId(),
+                        transaction.getStripeAuthorizationId(), transaction.getStripeTransactionId(),
+                        SpendLedger.toCents(amount));
+                // Applied after commit, like the webhook path
+                subscriptionService.updateMonthlySpending(card.get(), amount);
+            });
+            mirrored.incrementAndGet();
+        }
+    }
+
+    /**
+     * Read a page from the provider(s) involved in the request, merged newest first.
+     *
+     * @param providerCursor Cursor without the p. prefix: @{epochSeconds}[~{ids}], or null
+     *                       for the newest transactions
+     */
+    private TransactionListResponse readProviders(TransactionListRequest request, String providerCursor) {
+        providerReads.incrementAndGet();
+        Long createdBefore = null;
+        Set<String> skip = Set.of();
+        if (providerCursor != null && providerCursor.startsWith(BOUNDARY_MARKER)) {
+            String position = providerCursor.substring(BOUNDARY_MARKER.length());
+            int separator = position.indexOf(SKIP_MARKER);
+            createdBefore = Long.parseLong(separator < 0 ? position : position.substring(0, separator));
+            if (separator >= 0) {
+                skip = new LinkedHashSet<>(Arrays.asList(position.substring(separator + 1).split(",")));
+            }
+        }
+
+        int limit = TransactionHistoryService.pageSize(request.getLimit());
+        List<TransactionListResponse.Transaction> merged = new ArrayList<>();
+        boolean hasMore = false;
+        for (String name : providersOf(request)) {
+            TransactionListRequest providerRequest = new TransactionListRequest();
+            providerRequest.setUserId(request.getUserId());
+            providerRequest.setCardId(request.getCardId());
+            providerRequest.setLimit(limit + skip.size());
+            providerRequest.setCreatedBefore(createdBefore);
+            TransactionListResponse page = router.byName(name).listTransactions(providerRequest);
+            for (TransactionListResponse.Transaction t : page.getTransactions()) {
+                if (!skip.contains(t.getId())) {
+                    merged.add(t);
+                }
+            }
+            hasMore |= page.getHasMore();
+        }
+        merged.sort(NEWEST_FIRST);
+        if (merged.size() > limit) {
+            merged = merged.subList(0, limit);
+            hasMore = true;
+        }
+        hasMore &= !merged.isEmpty();
+
+        return TransactionListResponse.builder()
+                .transactions(merged)
+                .total(merged.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? PROVIDER_CURSOR_PREFIX + nextProviderCursor(merged, createdBefore, skip) : null)
+                .build();
+    }
+
+    /**
+     * Cursor continuing after the last transaction of a page: everything created before the
+     * end of its second, minus what was already returned from that second.
+     */
+    private static String nextProviderCursor(List<TransactionListResponse.Transaction> page, Long createdBefore,
+                                             Set<String> skipped) {
+        long lastSecond = epochOf(page.get(page.size() - 1));
+        Set<String> returned = new TreeSet<>();
+        if (createdBefore != null && createdBefore == lastSecond + 1) {
+            returned.addAll(skipped);
+        }
+        page.stream()
+                .filter(t -> epochOf(t) == lastSecond)
+                .forEach(t -> returned.add(t.getId()));
+        if (returned.size() > MAX_SKIPPED_IDS) {
+            log.warn("More than {} transactions created in second {}, skipping the rest of it",
+                    MAX_SKIPPED_IDS, lastSecond);
+            return BOUNDARY_MARKER + lastSecond;
+        }
+        return BOUNDARY_MARKER + (lastSecond + 1) + SKIP_MARKER + String.join(",", returned);
+    }
+
+    /**
+     * Providers a listing has to read: the card's issuing provider, or the providers of all
+     * of the user's cards (the primary provider if the user has none).
+     */
+    private Collection<String> providersOf(TransactionListRequest request) {
+        if (request.getCardId() != null) {
+            return List.of(router.providerOfCard(request.getCardId()));
+        }
+        if (request.getUserId() == null) {
+            return providers.keySet();
+        }
+        Set<String> names = new TreeSet<>();
+        issuingCardService.getUserCards(request.getUserId()).forEach(card -> names.add(router.providerOf(card)));
+        return names.isEmpty() ? List.of(router.getPrimary()) : names;
+    }
+
+    private Optional<IssuingCard> findCard(String stripeCardId) {
+        if (stripeCardId == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(issuingCardService.getCardByStripeId(stripeCardId));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private JobCheckpoint checkpoint(String provider, String period) {
+        return jobCheckpointRepository
+                .findByJobNameAndPartitionKeyAndPeriod(JOB_NAME, provider, period)
+                .orElseGet(() -> JobCheckpoint.builder()
+                        .jobName(JOB_NAME)
+                        .partitionKey(provider)
+                        .period(period)
+                        .build());
+    }
+
+    /** Backfill checkpoint keys are "createdEpochSeconds:transactionId" */
+    private static Long createdOf(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 ? Long.parseLong(key.substring(0, separator)) : null;
+    }
+
+    private static String idOf(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 ? key.substring(separator + 1) : null;
+    }
+
+    /** Provider DTO times are UTC wall-clock */
+    private static long epochOf(TransactionListResponse.Transaction transaction) {
+        return transaction.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /** Local rows use server-local time, like every other createdAt in the schema */
+    private static LocalDateTime toLocal(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault());
+    }
+
+    /**
+     * Sync state of one provider; fields are written by the sync thread only.
+     */
+    private static final class ProviderSync {
+        private final String provider;
+        /** Oldest provider creation time (epoch seconds) covered by the backfill; null = nothing yet */
+        private volatile Long coveredFrom;
+        private volatile boolean backfillComplete;
+        /** Provider creation time (epoch seconds) the incremental sync has caught up to */
+        private volatile Long watermark;
+        private volatile LocalDateTime lastSyncAt;
+
+        private ProviderSync(String provider) {
+            this.provider = provider;
+        }
+
+        ProviderSyncStats snapshot() {
+            Long from = coveredFrom;
+            Long caughtUp = watermark;
+            return ProviderSyncStats.builder()
+                    .backfillComplete(backfillComplete)
+                    .coveredFrom(from != null ? toLocal(from) : null)
+                    .watermark(caughtUp != null ? toLocal(caughtUp) : null)
+                    .lagSeconds(caughtUp != null ? Math.max(0, Instant.now().getEpochSecond() - caughtUp) : null)
+                    .lastSyncAt(lastSyncAt)
+                    .build();
+        }
+    }
+
+    /**
+     * Transaction mirror statistics.
+     */
+    @Data
+    @Builder
+    public static class MirrorStats {
+        private boolean enabled;
+        private boolean backfillComplete;   // For every provider
+        private Map<String, ProviderSyncStats> providers;
+        private LocalDateTime lastSyncAt;
+        private long mirrored;
+        private long skipped;
+        private long syncFailures;
+        private long localReads;
+        private long providerReads;
+    }
+
+    /**
+     * Sync coverage of one provider.
+     */
+    @Data
+    @Builder
+    public static class ProviderSyncStats {
+        private boolean backfillComplete;
+        private LocalDateTime coveredFrom;
+        private LocalDateTime watermark;
+        private Long lagSeconds;
+        private LocalDateTime lastSyncAt;
+    }
+}
@@ -0,0 +1,192 @@
+package com.vaultcard.service;
+
+import com.vaultcard.util.LatencyHistogram;
+import com.vaultcard.util.ThreadFactories;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Virtual thread mode and pinning diagnostics.
+ *
+ * A virtual thread that blocks inside a synchronized block (or native frame) pins its
+ * carrier thread, so blocking I/O there - JDBC drivers, the HTTP client - holds a
+ * platform thread just like before. With virtual threads enabled, this listens to the
+ * JDK's jdk.VirtualThreadPinned JFR event in-process, counts pinning by call site and
+ * logs each new site once with its stack.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VirtualThreadMonitor {
+
+    /** Call sites tracked individually; the rest are counted under "other" */
+    private static final int MAX_SITES = 100;
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    /** Pinned intervals shorter than this are not reported by the JVM */
+    @Value("${vaultcard.virtual-threads.pinned-threshold-ms:20}")
+    private long pinnedThresholdMs;
+
+    /** Stack frames logged for a new pinning site */
+    @Value("${vaultcard.virtual-threads.stack-depth:12}")
+    private int stackDepth;
+
+    private final Map<String, AtomicLong> pinnedBySite = new ConcurrentHashMap<>();
+    private final LatencyHistogram pinnedDuration = new LatencyHistogram();
+    private final AtomicLong pinnedEvents = new AtomicLong();
+
+    private RecordingStream recordingStream;
+    private Timer pinnedTimer;
+
+    @PostConstruct
+    public void init() {
+        if (!virtualThreadsEnabled) {
+            log.info("Thread mode: platform threads");
+            return;
+        }
+        if (!isActive()) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads (21+ required) "
+                    + "- running on platform threads", Runtime.version().feature());
+            return;
+        }
+        log.info("Thread mode: virtual threads (pinning threshold {}ms)", pinnedThresholdMs);
+
+        pinnedTimer = Timer.builder("vaultcard.virtual.threads.pinned")
+                .description("Time virtual threads spent pinned to their carrier")
+                .register(meterRegistry);
+
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(pinnedThresholdMs))
+                .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * Whether request handling and the application's executors run on virtual threads.
+     */
+    public boolean isActive() {
+        return virtualThreadsEnabled && ThreadFactories.virtualThreadsSupported();
+    }
+
+    /**
+     * Current mode and pinning statistics.
+     */
+    public VirtualThreadStats getStats() {
+        Map<String, Long> sites = pinnedBySite.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().get(), a.getValue().get()))
+                .limit(20)
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get(), (a, b) -> a, LinkedHashMap::new));
+        return VirtualThreadStats.builder()
+                .mode(isActive() ? "virtual" : "platform")
+                .javaVersion(Runtime.version().feature())
+                .pinnedThresholdMs(pinnedThresholdMs)
+                .pinnedEvents(pinnedEvents.get())
+                .pinnedDuration(pinnedDuration.snapshot())
+                .topPinnedSites(sites)
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void onPinned(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        pinnedEvents.incrementAndGet();
+        pinnedDuration.record(nanos);
+        pinnedTimer.record(nanos, TimeUnit.NANOSECONDS);
+
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String site = pinningSite(frames);
+        AtomicLong count = pinnedBySite.get(site);
+        if (count == null) {
+            if (pinnedBySite.size() >= MAX_SITES) {
+                site = "other";
+            }
+            count = pinnedBySite.computeIfAbsent(site, key -> new AtomicLong());
+            if (count.get() == 0 && !"other".equals(site)) {
+                log.warn("Virtual thread pinned for {}ms at {}:\n{}",
+                        TimeUnit.NANOSECONDS.toMillis(nanos), site, format(frames));
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    /**
+     * The first frame outside the JDK - the driver or application code that blocked while
+     * holding a monitor. Falls back to the top frame.
+     */
+    private static String pinningSite(List<RecordedFrame> frames) {
+        if (frames.isEmpty()) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return describe(frame);
+            }
+        }
+        return describe(frames.get(0));
+    }
+
+    private String format(List<RecordedFrame> frames) {
+        return frames.stream()
+                .limit(stackDepth)
+                .map(frame -> "    at " + describe(frame))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + (frame.getLineNumber() > 0 ? ":" + frame.getLineNumber() : "");
+    }
+
+    /**
+     * Virtual thread statistics.
+     */
+    @Data
+    @Builder
+    public static class VirtualThreadStats {
+        private String mode;
+        private int javaVersion;
+        private long pinnedThresholdMs;
+        private long pinnedEvents;
+        private LatencyHistogram.Snapshot pinnedDuration;
+        private Map<String, Long> topPinnedSites;
+    }
+}
@@ -0,0 +1,229 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.ProcessedWebhookEvent;
+import com.vaultcard.repository.ProcessedWebhookEventRepository;
+import com.vaultcard.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processed-event index for idempotent webhook handling.
+ *
+ * Lookups go through three tiers:
+ * 1. LRU of recently processed event IDs - a hit is a definite duplicate.
+ * 2. Bloom filter of every ID in the table - a miss is a definitely new event.
+ * 3. processed_webhook_events table - only for Bloom filter positives not in the LRU.
+ *
+ * Redeliveries are nearly always recent and new events nearly always miss the filter,
+ * so the common case never touches the database. The table's primary key is the
+ * final guard against two concurrent deliveries of the same event.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookDeduplicator {
+
+    private final ProcessedWebhookEventRepository processedEventRepository;
+
+    @Value("${vaultcard.webhooks.dedup.lru-size:100000}")
+    private int lruSize;
+
+    @Value("${vaultcard.webhooks.dedup.expected-events:1000000}")
+    private long expectedEvents;
+
+    @Value("${vaultcard.webhooks.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${vaultcard.webhooks.dedup.ttl-days:7}")
+    private int ttlDays;
+
+    private Map<String, Boolean> recent;
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilding;
+
+    private final AtomicLong lruHits = new AtomicLong();
+    private final AtomicLong filterNegatives = new AtomicLong();
+    private final AtomicLong databaseChecks = new AtomicLong();
+    private final AtomicLong duplicatesRejected = new AtomicLong();
+    private final AtomicLong swept = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        recent = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > lruSize;
+            }
+        });
+        filter = new BloomFilter(expectedEvents, falsePositiveRate);
+    }
+
+    /**
+     * Load all recorded event IDs into the Bloom filter.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildFilter();
+    }
+
+    /**
+     * Whether an event has already been processed.
+     *
+     * @param eventId Stripe event ID
+     * @return true if the event is a duplicate and must be skipped
+     */
+    public boolean isDuplicate(String eventId) {
+        if (eventId == null) {
+            return false;
+        }
+        if (recent.containsKey(eventId)) {
+            lruHits.incrementAndGet();
+            duplicatesRejected.incrementAndGet();
+            return true;
+        }
+        if (!filter.mightContain(eventId)) {
+            filterNegatives.incrementAndGet();
+            return false;
+        }
+        databaseChecks.incrementAndGet();
+        if (processedEventRepository.existsById(eventId)) {
+            recent.put(eventId, Boolean.TRUE);
+            duplicatesRejected.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record an event as processed. Inside a transaction the row is inserted with it,
+     * and the in-memory index is only updated once the transaction commits.
+     *
+     * @param eventId   Stripe event ID
+     * @param eventType Stripe event type
+     */
+    public void markProcessed(String eventId, String eventType) {
+        if (eventId == null) {
+            return;
+        }
+        processedEventRepository.save(ProcessedWebhookEvent.builder()
+                .eventId(eventId)
+                .eventType(eventType)
+                .processedAt(LocalDateTime.now())
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(eventId);
+                }
+            });
+        } else {
+            remember(eventId);
+        }
+    }
+
+    /**
+     * Delete records past the TTL and rebuild the Bloom filter without them.
+     */
+    @Scheduled(fixedDelayString = "${vaultcard.webhooks.dedup.sweep-interval-ms:3600000}",
+               initialDelayString = "${vaultcard.webhooks.dedup.sweep-interval-ms:3600000}")
+    public void sweepExpired() {
+        int deleted = processedEventRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(ttlDays));
+        swept.addAndGet(deleted);
+        if (deleted > 0) {
+            log.info("Swept {} processed webhook events older than {} days", deleted, ttlDays);
+            rebuildFilter();
+        }
+    }
+
+    /**
+     * Current dedup statistics.
+     */
+    public DedupStats getStats() {
+        return DedupStats.builder()
+                .lruSize(recent.size())
+                .lruHits(lruHits.get())
+                .filterNegatives(filterNegatives.get())
+                .databaseChecks(databaseChecks.get())
+                .duplicatesRejected(duplicatesRejected.get())
+                .swept(swept.get())
+                .build();
+    }
+
+    /**
+     * Events rejected as duplicates. O(1), for meters.
+     */
+    public long getDuplicatesRejectedCount() {
+        return duplicatesRejected.get();
+    }
+
+    /**
+     * Lookups that had to go to the database. O(1), for meters.
+     */
+    public long getDatabaseCheckCount() {
+        return databaseChecks.get();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void remember(String eventId) {
+        recent.put(eventId, Boolean.TRUE);
+        filter.add(eventId);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.add(eventId);
+        }
+    }
+
+    private synchronized void rebuildFilter() {
+        BloomFilter next = new BloomFilter(expectedEvents, falsePositiveRate);
+        rebuilding = next; // events processed during the scan are added to both filters
+        long loaded = 0;
+        String after = "";
+        List<String> page;
+        do {
+            page = processedEventRepository.findEventIdsAfter(after, PageRequest.of(0, 10_000));
+            page.forEach(next::add);
+            loaded += page.size();
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            }
+        } while (!page.isEmpty());
+        filter = next;
+        rebuilding = null;
+        log.info("Webhook dedup filter rebuilt with {} event IDs", loaded);
+    }
+
+    /**
+     * Dedup statistics.
+     */
+    @Data
+    @Builder
+    public static class DedupStats {
+        private int lruSize;
+        private long lruHits;
+        private long filterNegatives;
+        private long databaseChecks;
+        private long duplicatesRejected;
+        private long swept;
+    }
+}
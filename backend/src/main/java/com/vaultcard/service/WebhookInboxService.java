@@ -0,0 +1,297 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.WebhookInboxEvent;
+import com.vaultcard.repository.WebhookInboxEventRepository;
+import com.vaultcard.util.LatencyHistogram;
+import com.vaultcard.util.ThreadFactories;
+import com.vaultcard.util.WebhookEventParser.WebhookEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable inbox for asynchronous Stripe webhook events.
+ *
+ * The webhook endpoint stores the raw payload and returns 200 immediately; a bounded
+ * worker pool then processes events through StripeWebhookService. When the in-memory
+ * queue is full the event simply stays RECEIVED in the table and the sweeper picks it
+ * up later, so backpressure never drops an acknowledged event.
+ *
+ * Failed attempts are retried by the sweeper with exponential backoff (next_attempt_at), so
+ * max-attempts spans minutes of an outage rather than a few seconds. Processed and failed rows
+ * are purged once they are past their retention.
+ *
+ * issuing_authorization.request is never queued - Stripe waits on its response.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookInboxService {
+
+    private final WebhookInboxEventRepository inboxRepository;
+    private final StripeWebhookService stripeWebhookService;
+
+    @Value("${vaultcard.webhooks.inbox.workers:4}")
+    private int workers;
+
+    @Value("${vaultcard.webhooks.inbox.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${vaultcard.webhooks.inbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${vaultcard.webhooks.inbox.sweep-batch-size:200}")
+    private int sweepBatchSize;
+
+    @Value("${vaultcard.webhooks.inbox.claim-timeout-seconds:300}")
+    private long claimTimeoutSeconds;
+
+    // Delay before the first retry; doubles with every further attempt
+    @Value("${vaultcard.webhooks.inbox.retry-backoff-seconds:10}")
+    private long retryBackoffSeconds;
+
+    @Value("${vaultcard.webhooks.inbox.max-retry-backoff-seconds:1800}")
+    private long maxRetryBackoffSeconds;
+
+    @Value("${vaultcard.webhooks.inbox.processed-retention-hours:72}")
+    private long processedRetentionHours;
+
+    // Failed events are kept longer so they can be inspected and replayed
+    @Value("${vaultcard.webhooks.inbox.failed-retention-days:30}")
+    private long failedRetentionDays;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolExecutor executor;
+
+    /** Inbox IDs currently sitting in the worker queue, so the sweeper doesn't submit them twice */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final LatencyHistogram endToEndLatency = new LatencyHistogram();
+
+    @PostConstruct
+    public void init() {
+        // Workers block on JDBC; on virtual threads they are cheap, the pool size still bounds concurrency
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                ThreadFactories.named("webhook-worker", virtualThreads),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Queued events stay RECEIVED in the table and are recovered on next startup
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Store a webhook payload and schedule it for processing.
+     *
+     * @param event     Parsed event (ID and type are stored)
+     * @param payload   Raw webhook payload
+     * @param signature Stripe signature header
+     * @return Inbox row ID
+     */
+    public String enqueue(WebhookEvent event, String payload, String signature) {
+        WebhookInboxEvent inboxEvent = inboxRepository.save(WebhookInboxEvent.builder()
+                .eventId(event.getEventId())
+                .eventType(event.getEventType())
+                .payload(payload)
+                .signature(signature)
+                .status(WebhookInboxEvent.InboxStatus.RECEIVED)
+                .build());
+        accepted.incrementAndGet();
+        submit(inboxEvent.getId());
+        return inboxEvent.getId();
+    }
+
+    /**
+     * Recover events left RECEIVED or PROCESSING by a previous run.
+     *
+     * Claims are released only once they are older than the claim timeout, as in sweep():
+     * other nodes sharing the inbox may be processing younger ones right now. This run's own
+     * abandoned claims are picked up by the sweeper when they time out.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        int released = inboxRepository.releaseStaleClaims(LocalDateTime.now().minusSeconds(claimTimeoutSeconds));
+        if (released > 0) {
+            log.warn("Released {} webhook events claimed more than {}s ago", released, claimTimeoutSeconds);
+        }
+        sweep();
+    }
+
+    /**
+     * Re-submit events that are waiting in the table but not in the worker queue
+     * (queue was full, or the process restarted).
+     */
+    @Scheduled(fixedDelayString = "${vaultcard.webhooks.inbox.sweep-interval-ms:5000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        inboxRepository.releaseStaleClaims(now.minusSeconds(claimTimeoutSeconds));
+
+        int room = executor.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        // Only pick up events that have been waiting a while, so freshly enqueued ones aren't submitted twice
+        List<String> ids = inboxRepository.findIdsDueForProcessing(
+                WebhookInboxEvent.InboxStatus.RECEIVED, now.minusSeconds(1), now,
+                PageRequest.of(0, Math.min(room, sweepBatchSize)));
+        ids.forEach(this::submit);
+        if (!ids.isEmpty()) {
+            log.info("Webhook inbox sweeper re-submitted {} events", ids.size());
+        }
+    }
+
+    /**
+     * Delete processed and failed events past their retention.
+     */
+    @Scheduled(fixedDelayString = "${vaultcard.webhooks.inbox.purge-interval-ms:3600000}",
+            initialDelayString = "${vaultcard.webhooks.inbox.purge-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int processedRows = inboxRepository.deleteProcessedBefore(now.minusHours(processedRetentionHours));
+        int failedRows = inboxRepository.deleteFailedBefore(now.minusDays(failedRetentionDays));
+        if (processedRows > 0 || failedRows > 0) {
+            log.info("Webhook inbox purged {} processed and {} failed events", processedRows, failedRows);
+        }
+    }
+
+    /**
+     * Current inbox statistics, including backpressure indicators.
+     */
+    public InboxStats getStats() {
+        LocalDateTime oldest = inboxRepository.findOldestReceivedAt(WebhookInboxEvent.InboxStatus.RECEIVED);
+        return InboxStats.builder()
+                .workers(workers)
+                .activeWorkers(executor.getActiveCount())
+                .queueDepth(executor.getQueue().size())
+                .queueCapacity(queueCapacity)
+                .pendingInTable(inboxRepository.countByStatus(WebhookInboxEvent.InboxStatus.RECEIVED))
+                .oldestPendingAgeMillis(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis())
+                .accepted(accepted.get())
+                .processed(processed.get())
+                .retried(retried.get())
+                .failed(failed.get())
+                .rejectedByQueue(rejected.get())
+                .endToEndLatency(endToEndLatency.snapshot())
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void submit(String inboxId) {
+        if (!queued.add(inboxId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                queued.remove(inboxId);
+                process(inboxId);
+            });
+        } catch (RejectedExecutionException e) {
+            // Backpressure: the row stays RECEIVED and the sweeper retries it
+            queued.remove(inboxId);
+            rejected.incrementAndGet();
+        }
+    }
+
+    private void process(String inboxId) {
+        if (inboxRepository.claim(inboxId, LocalDateTime.now()) == 0) {
+            return; // Already claimed by another worker or already processed
+        }
+        WebhookInboxEvent event = inboxRepository.findById(inboxId).orElse(null);
+        if (event == null) {
+            return;
+        }
+
+        String error;
+        try {
+            // The signature was verified when the event was accepted; retries may run long
+            // after its timestamp tolerance has passed
+            StripeWebhookService.WebhookProcessingResult result = stripeWebhookService.processWebhook(
+                    stripeWebhookService.parseEvent(event.getPayload()), event.getSignature());
+            error = result.isSuccess() ? null : result.getMessage();
+        } catch (Exception e) {
+            log.error("Webhook worker failed on event {} ({})", event.getEventId(), event.getEventType(), e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+
+        if (error == null) {
+            event.setStatus(WebhookInboxEvent.InboxStatus.PROCESSED);
+            event.setProcessedAt(LocalDateTime.now());
+            event.setLastError(null);
+            processed.incrementAndGet();
+            endToEndLatency.record(Duration.between(event.getReceivedAt(), event.getProcessedAt()).toNanos());
+        } else if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(WebhookInboxEvent.InboxStatus.FAILED);
+            event.setLastError(truncate(error));
+            failed.incrementAndGet();
+            log.error("Giving up on webhook event {} after {} attempts: {}",
+                    event.getEventId(), event.getAttempts(), error);
+        } else {
+            event.setStatus(WebhookInboxEvent.InboxStatus.RECEIVED);
+            event.setLastError(truncate(error));
+            event.setNextAttemptAt(LocalDateTime.now().plusSeconds(retryBackoffSeconds(event.getAttempts())));
+            retried.incrementAndGet();
+        }
+        inboxRepository.save(event);
+    }
+
+    private long retryBackoffSeconds(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(retryBackoffSeconds << doublings, maxRetryBackoffSeconds);
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1024 ? message.substring(0, 1024) : message;
+    }
+
+    /**
+     * Inbox statistics.
+     */
+    @Data
+    @Builder
+    public static class InboxStats {
+        private int workers;
+        private int activeWorkers;
+        private int queueDepth;
+        private int queueCapacity;
+        private long pendingInTable;
+        private long oldestPendingAgeMillis;
+        private long accepted;
+        private long processed;
+        private long retried;
+        private long failed;
+        private long rejectedByQueue;
+        private LatencyHistogram.Snapshot endToEndLatency;
+    }
+}
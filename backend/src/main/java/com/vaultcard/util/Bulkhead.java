@@ -0,0 +1,109 @@
+package com.vaultcard.util;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded concurrency for one kind of call.
+ *
+ * At most {@code maxConcurrent} calls run at once; a caller that finds no free slot waits up
+ * to {@code maxWaitMillis} and is then rejected. This keeps a slow dependency from taking
+ * every request thread: once its slots are busy, further calls fail fast instead of queueing.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(int maxConcurrent, long maxWaitMillis) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Take a slot, waiting up to the configured time. Blocks the calling thread.
+     *
+     * @return Whether a slot was taken; if so, {@link #release()} must follow
+     */
+    public boolean acquire() {
+        boolean taken;
+        try {
+            taken = maxWaitMillis > 0
+                    ? permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)
+                    : permits.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            taken = false;
+        }
+        return counted(taken);
+    }
+
+    /**
+     * Take a slot only if one is free right now. Never blocks, for non-blocking callers.
+     *
+     * @return Whether a slot was taken; if so, {@link #release()} must follow
+     */
+    public boolean tryAcquire() {
+        return counted(permits.tryAcquire());
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Calls currently holding a slot.
+     */
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Current usage and counters.
+     */
+    public Snapshot snapshot() {
+        return Snapshot.builder()
+                .maxConcurrent(maxConcurrent)
+                .active(getActive())
+                .waiting(permits.getQueueLength())
+                .acquired(acquired.get())
+                .rejected(rejected.get())
+                .build();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private boolean counted(boolean taken) {
+        (taken ? acquired : rejected).incrementAndGet();
+        return taken;
+    }
+
+    /**
+     * Bulkhead usage and counters.
+     */
+    @Data
+    @Builder
+    public static class Snapshot {
+        private int maxConcurrent;
+        private int active;
+        private int waiting;
+        private long acquired;
+        private long rejected;
+    }
+}
@@ -0,0 +1,228 @@
+package com.vaultcard.util;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.function.Consumer;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * CLOSED: outcomes of the last {@code windowSize} calls are kept in a ring buffer; once at
+ * least {@code minimumCalls} have been seen and the failure rate reaches the threshold, the
+ * breaker opens. Calls slower than {@code slowCallNanos} count as failures, so a provider that
+ * answers - eventually - trips it as well as one that errors.
+ *
+ * OPEN: every call is rejected until {@code openNanos} have passed, then the breaker goes
+ * HALF_OPEN and lets {@code halfOpenProbes} calls through. All probes succeeding closes it with
+ * an empty window; any probe failing opens it again.
+ *
+ * Each permit carries the epoch it was granted in, so results of calls that started before a
+ * state change (e.g. slow calls finishing after the breaker opened) are ignored instead of
+ * being mistaken for probe results. State is guarded by the instance lock - every call here
+ * wraps a network round trip, so contention is not a concern.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /** Returned by {@link #tryAcquire()} when the call is not permitted */
+    public static final long REJECTED = -1;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long epoch;
+    private long openUntilNanos;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    private long rejected;
+    private long opened;
+    private long slowCalls;
+
+    private volatile Consumer<State> stateListener = state -> { };
+
+    /**
+     * @param windowSize           Number of recent calls the failure rate is computed over
+     * @param minimumCalls         Calls needed in the window before the breaker can open
+     * @param failureRateThreshold Failure rate (percent) at which the breaker opens
+     * @param slowCallNanos        Calls slower than this count as failures
+     * @param openNanos            Time the breaker stays open before probing
+     * @param halfOpenProbes       Calls let through while half-open
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold,
+                          long slowCallNanos, long openNanos, int halfOpenProbes) {
+        if (windowSize <= 0 || minimumCalls <= 0 || halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenProbes must be positive");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+        this.halfOpenProbes = halfOpenProbes;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Called with the new state on every transition, while the breaker's lock is held.
+     */
+    public void onStateChange(Consumer<State> listener) {
+        this.stateListener = listener;
+    }
+
+    /**
+     * Ask for permission to make a call.
+     *
+     * @return Permit to pass to {@link #onResult}, or {@link #REJECTED}
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                rejected++;
+                return REJECTED;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= halfOpenProbes) {
+                rejected++;
+                return REJECTED;
+            }
+            probesIssued++;
+        }
+        return epoch;
+    }
+
+    /**
+     * Record the outcome of a permitted call.
+     *
+     * @param permit        Value returned by {@link #tryAcquire()}
+     * @param durationNanos Call duration
+     * @param failed        Whether the call failed in a way that reflects on the provider
+     */
+    public synchronized void onResult(long permit, long durationNanos, boolean failed) {
+        if (permit != epoch) {
+            return;
+        }
+        if (!failed && durationNanos > slowCallNanos) {
+            slowCalls++;
+            failed = true;
+        }
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                open();
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+
+        if (windowCount == windowSize) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+
+        if (windowCount >= minimumCalls && windowFailures * 100L >= (long) failureRateThreshold * windowCount) {
+            open();
+        }
+    }
+
+    /**
+     * Give back a permit whose call was never made (e.g. rejected by a bulkhead afterwards).
+     */
+    public synchronized void release(long permit) {
+        if (permit == epoch && state == State.HALF_OPEN && probesIssued > 0) {
+            probesIssued--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Milliseconds until the breaker lets a probe through; 0 unless open.
+     */
+    public synchronized long retryAfterMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, (openUntilNanos - System.nanoTime()) / 1_000_000);
+    }
+
+    /**
+     * Current state and counters.
+     */
+    public synchronized Snapshot snapshot() {
+        return Snapshot.builder()
+                .state(state)
+                .windowCalls(windowCount)
+                .windowFailures(windowFailures)
+                .failureRatePercent(windowCount == 0 ? 0 : windowFailures * 100.0 / windowCount)
+                .rejected(rejected)
+                .opened(opened)
+                .slowCalls(slowCalls)
+                .retryAfterMillis(state == State.OPEN
+                        ? Math.max(0, (openUntilNanos - System.nanoTime()) / 1_000_000) : 0)
+                .build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void open() {
+        opened++;
+        openUntilNanos = System.nanoTime() + openNanos;
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        state = next;
+        epoch++;
+        probesIssued = 0;
+        probesSucceeded = 0;
+        if (next == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+        stateListener.accept(next);
+    }
+
+    /**
+     * Circuit breaker state and counters.
+     */
+    @Data
+    @Builder
+    public static class Snapshot {
+        private State state;
+        private int windowCalls;
+        private int windowFailures;
+        private double failureRatePercent;
+        private long rejected;
+        private long opened;
+        private long slowCalls;
+        private long retryAfterMillis;
+    }
+}
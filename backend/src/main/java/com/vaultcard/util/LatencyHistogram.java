@@ -0,0 +1,111 @@
+package com.vaultcard.util;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets.
+ *
+ * Each power of two is split into 8 sub-buckets, so any recorded value is
+ * reported with at most ~12% relative error. Recording is a single atomic
+ * increment, which keeps it cheap enough for the authorization hot path.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Record a single observation.
+     *
+     * @param nanos Elapsed time in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(value);
+        maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Upper bound (in nanoseconds) of the bucket containing the given percentile.
+     *
+     * @param percentile Percentile in the range (0, 100]
+     */
+    public long percentileNanos(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Take a point-in-time snapshot for reporting.
+     */
+    public Snapshot snapshot() {
+        long count = totalCount.get();
+        return Snapshot.builder()
+                .count(count)
+                .meanMicros(count == 0 ? 0 : totalNanos.get() / count / 1_000.0)
+                .p50Micros(percentileNanos(50) / 1_000.0)
+                .p99Micros(percentileNanos(99) / 1_000.0)
+                .p999Micros(percentileNanos(99.9) / 1_000.0)
+                .maxMicros(maxNanos.get() / 1_000.0)
+                .build();
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) ((value >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Point-in-time view of the histogram, in microseconds.
+     */
+    @Data
+    @Builder
+    public static class Snapshot {
+        private long count;
+        private double meanMicros;
+        private double p50Micros;
+        private double p99Micros;
+        private double p999Micros;
+        private double maxMicros;
+    }
+}
@@ -0,0 +1,43 @@
+package com.vaultcard.util;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories for the application's own executors (webhook workers, provider fan-out).
+ *
+ * With spring.threads.virtual.enabled on a Java 21+ runtime, executors get virtual threads;
+ * otherwise named daemon platform threads. The build targets Java 17, so virtual threads
+ * are reached through Spring's VirtualThreadTaskExecutor rather than Thread.ofVirtual().
+ */
+public final class ThreadFactories {
+
+    private ThreadFactories() {
+    }
+
+    /**
+     * Whether this runtime can create virtual threads.
+     */
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Thread factory naming threads {@code prefix-1}, {@code prefix-2}, ...
+     *
+     * @param virtual Use virtual threads when the runtime supports them
+     */
+    public static ThreadFactory named(String prefix, boolean virtual) {
+        if (virtual && virtualThreadsSupported()) {
+            return new VirtualThreadTaskExecutor(prefix + "-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
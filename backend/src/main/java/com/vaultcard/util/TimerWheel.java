@@ -0,0 +1,108 @@
+package com.vaultcard.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashed timer wheel for many long-lived timeouts.
+ *
+ * Deadlines are rounded up to whole ticks and hashed into a fixed ring of buckets, so
+ * scheduling and cancelling are O(1), and {@link #advance} only looks at the buckets of
+ * the ticks that have passed instead of scanning every pending timeout. A deadline more
+ * than one revolution away stays in its bucket until the wheel comes round in the
+ * right revolution.
+ *
+ * schedule/cancel are thread-safe; advance is meant to be called from a single thread.
+ */
+public class TimerWheel<K> {
+
+    private final long tickMillis;
+    private final List<Set<K>> buckets;
+
+    /** Deadline tick per scheduled key */
+    private final Map<K, Long> deadlines = new ConcurrentHashMap<>();
+
+    /** Last tick processed by advance */
+    private volatile long lastTick;
+
+    /**
+     * @param tickMillis Resolution; timeouts fire up to one tick late
+     * @param wheelSize  Number of buckets (one revolution = wheelSize ticks)
+     * @param nowMillis  Current time
+     */
+    public TimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(ConcurrentHashMap.newKeySet());
+        }
+        this.lastTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedule (or reschedule) a key. Deadlines already passed fire on the next advance.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, lastTick + 1);
+        Long previous = deadlines.put(key, tick);
+        if (previous != null && previous != tick) {
+            bucket(previous).remove(key);
+        }
+        bucket(tick).add(key);
+    }
+
+    /**
+     * Cancel a key's timeout.
+     *
+     * @return true if it was scheduled
+     */
+    public boolean cancel(K key) {
+        Long tick = deadlines.remove(key);
+        if (tick == null) {
+            return false;
+        }
+        bucket(tick).remove(key);
+        return true;
+    }
+
+    /**
+     * Move the wheel up to now and return the keys whose deadline has passed. They are
+     * no longer scheduled.
+     */
+    public List<K> advance(long nowMillis) {
+        long currentTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        // After a long pause one revolution visits every bucket
+        long from = Math.max(lastTick + 1, currentTick - buckets.size() + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            Iterator<K> keys = bucket(tick).iterator();
+            while (keys.hasNext()) {
+                K key = keys.next();
+                Long deadline = deadlines.get(key);
+                if (deadline == null) {
+                    keys.remove();
+                } else if (deadline <= currentTick && deadlines.remove(key, deadline)) {
+                    keys.remove();
+                    expired.add(key);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, currentTick);
+        return expired;
+    }
+
+    /**
+     * Number of scheduled keys.
+     */
+    public int size() {
+        return deadlines.size();
+    }
+
+    private Set<K> bucket(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+}
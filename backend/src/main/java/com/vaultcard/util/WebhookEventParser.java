@@ -0,0 +1,234 @@
+package com.vaultcard.util;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Single-pass streaming parser for Stripe webhook payloads.
+ *
+ * Only the fields the webhook handlers use are read; everything else is skipped
+ * without being materialized. Amounts are read as exact integer cents.
+ * Stateless and thread-safe - one JsonReader per call, no shared Gson instance needed.
+ */
+public final class WebhookEventParser {
+
+    private WebhookEventParser() {
+    }
+
+    /**
+     * Parse a webhook payload.
+     *
+     * @param payload Raw webhook payload
+     * @return Extracted event fields
+     * @throws IllegalArgumentException if the payload is not a valid JSON object
+     */
+    public static WebhookEvent parse(String payload) {
+        if (payload == null || payload.isBlank()) {
+            throw new IllegalArgumentException("Empty webhook payload");
+        }
+        WebhookEvent.WebhookEventBuilder event = WebhookEvent.builder();
+        try (JsonReader reader = new JsonReader(new StringReader(payload))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id" -> event.eventId(nextString(reader));
+                    case "type" -> event.eventType(nextString(reader));
+                    case "created" -> event.created(nextLong(reader));
+                    case "data" -> readData(reader, event);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed webhook payload: " + e.getMessage(), e);
+        }
+        return event.build();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static void readData(JsonReader reader, WebhookEvent.WebhookEventBuilder event) throws IOException {
+        if (skipIfNull(reader)) {
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("object".equals(reader.nextName())) {
+                readObject(reader, event);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * data.object - the Stripe resource the event is about.
+     */
+    private static void readObject(JsonReader reader, WebhookEvent.WebhookEventBuilder event) throws IOException {
+        if (skipIfNull(reader)) {
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id" -> event.objectId(nextString(reader));
+                case "type" -> event.objectType(nextString(reader));
+                case "status" -> event.status(nextString(reader));
+                case "amount" -> event.amount(nextLong(reader));
+                case "currency" -> event.currency(nextString(reader));
+                case "created" -> event.objectCreated(nextLong(reader));
+                case "card" -> event.cardId(nextIdOrExpanded(reader));
+                case "authorization" -> event.authorizationId(nextIdOrExpanded(reader));
+                case "pending_request" -> readPendingRequest(reader, event);
+                case "merchant_data" -> readMerchantData(reader, event);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void readPendingRequest(JsonReader reader, WebhookEvent.WebhookEventBuilder event) throws IOException {
+        if (skipIfNull(reader)) {
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("amount".equals(reader.nextName())) {
+                event.pendingAmount(nextLong(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void readMerchantData(JsonReader reader, WebhookEvent.WebhookEventBuilder event) throws IOException {
+        if (skipIfNull(reader)) {
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "category_code" -> event.merchantCategoryCode(nextString(reader));
+                case "name" -> event.merchantName(nextString(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Read a reference that Stripe sends either as an ID string or as an expanded object.
+     */
+    private static String nextIdOrExpanded(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return nextString(reader);
+        }
+        String id = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("id".equals(reader.nextName())) {
+                id = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return id;
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static Long nextLong(JsonReader reader) throws IOException {
+        if (skipIfNull(reader)) {
+            return null;
+        }
+        return reader.nextLong();
+    }
+
+    private static boolean skipIfNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fields extracted from a webhook payload. Anything under data.object refers to
+     * the resource the event is about (authorization, transaction, card, payment intent).
+     * Amounts are in the smallest currency unit (cents).
+     */
+    @Getter
+    @Builder
+    public static class WebhookEvent {
+        /** Stripe event ID (evt_xxx) */
+        private final String eventId;
+
+        /** Event type, e.g. issuing_authorization.request */
+        private final String eventType;
+
+        /** Event creation time (epoch seconds) */
+        private final Long created;
+
+        /** data.object.id */
+        private final String objectId;
+
+        /** data.object.type, e.g. capture / refund for issuing transactions */
+        private final String objectType;
+
+        /** data.object.status */
+        private final String status;
+
+        /** data.object.amount in cents */
+        private final Long amount;
+
+        /** data.object.currency */
+        private final String currency;
+
+        /** data.object.created (epoch seconds) */
+        private final Long objectCreated;
+
+        /** data.object.card - ID string or the ID of the expanded card */
+        private final String cardId;
+
+        /** data.object.authorization - ID string or the ID of the expanded authorization */
+        private final String authorizationId;
+
+        /** data.object.pending_request.amount in cents */
+        private final Long pendingAmount;
+
+        /** data.object.merchant_data.category_code */
+        private final String merchantCategoryCode;
+
+        /** data.object.merchant_data.name */
+        private final String merchantName;
+
+        /**
+         * Amount being requested: pending_request.amount when present, otherwise amount.
+         */
+        public long requestedAmount() {
+            if (pendingAmount != null) {
+                return pendingAmount;
+            }
+            return amount != null ? amount : 0L;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.vaultcard.util;
+
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.net.Webhook;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Stripe-Signature header handling: "t=<timestamp>,v1=<hex HMAC-SHA256 of "t.payload">".
+ *
+ * Verification delegates to the Stripe SDK; signing produces the same header Stripe
+ * sends, for the load generator and local event replays.
+ */
+public final class WebhookSignature {
+
+    private WebhookSignature() {
+    }
+
+    /**
+     * Build a Stripe-Signature header for a payload.
+     *
+     * @param payload          Raw JSON payload, exactly as it will be sent
+     * @param secret           Endpoint secret (whsec_...)
+     * @param timestampSeconds Signing time, epoch seconds
+     */
+    public static String sign(String payload, String secret, long timestampSeconds) {
+        try {
+            String signature = Webhook.Util.computeHmacSha256(secret, timestampSeconds + "." + payload);
+            return "t=" + timestampSeconds + "," + Webhook.Signature.EXPECTED_SCHEME + "=" + signature;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Whether the header carries a valid signature of the payload, signed no more than
+     * {@code toleranceSeconds} ago (0 disables the timestamp check).
+     */
+    public static boolean isValid(String payload, String header, String secret, long toleranceSeconds) {
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        try {
+            return Webhook.Signature.verifyHeader(payload, header, secret, toleranceSeconds);
+        } catch (SignatureVerificationException e) {
+            return false;
+        }
+    }
+}
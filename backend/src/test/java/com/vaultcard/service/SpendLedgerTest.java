@@ -0,0 +1,121 @@
+package com.vaultcard.service;
+
+import com.vaultcard.entity.SubscriptionProfile;
+import com.vaultcard.repository.SubscriptionProfileRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency test for SpendLedger: spend recorded from many threads while flushes run
+ * concurrently must all reach subscription_profiles.current_month_spent.
+ */
+@DataJpaTest(properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=WARN"})
+@Import(SpendLedger.class)
+// Flushes must commit for real; record() outside a transaction applies immediately
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SpendLedgerTest {
+
+    private static final int THREADS = 64;
+    private static final int RECORDS_PER_THREAD = 2_000;
+    private static final long AMOUNT_CENTS = 137;
+
+    @Autowired
+    private SpendLedger spendLedger;
+
+    @Autowired
+    private SubscriptionProfileRepository subscriptionProfileRepository;
+
+    @Test
+    void noLostUpdatesUnder64Threads() throws Exception {
+        String cardId = "card-spend-ledger-test";
+        SubscriptionProfile profile = subscriptionProfileRepository.save(SubscriptionProfile.builder()
+                .userId("user-spend-ledger-test")
+                .nickname("Stress")
+                .linkedCardId(cardId)
+                .monthlyLimit(new BigDecimal("100000000.00"))
+                .currentMonthSpent(BigDecimal.ZERO)
+                .build());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        try {
+            // Flush continuously while recording, so adds race with sumThenReset
+            Future<?> flusher = pool.submit(() -> {
+                while (recording.get()) {
+                    spendLedger.flush();
+                }
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+                        spendLedger.record(cardId, AMOUNT_CENTS);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            recording.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        spendLedger.flush();
+
+        long expectedCents = THREADS * RECORDS_PER_THREAD * AMOUNT_CENTS;
+        BigDecimal spent = subscriptionProfileRepository.findById(profile.getId()).orElseThrow().getCurrentMonthSpent();
+        assertThat(spent).isEqualByComparingTo(BigDecimal.valueOf(expectedCents, 2));
+        assertThat(spendLedger.pendingCents(cardId)).isZero();
+        assertThat(spendLedger.getStats().getFlushFailures()).isZero();
+    }
+
+    @Test
+    void newPeriodSpendSurvivesMonthlyReset() {
+        String cardId = "card-spend-period-test";
+        SubscriptionProfile profile = subscriptionProfileRepository.save(SubscriptionProfile.builder()
+                .userId("user-spend-period-test")
+                .nickname("Rollover")
+                .linkedCardId(cardId)
+                .monthlyLimit(new BigDecimal("1000.00"))
+                .currentMonthSpent(new BigDecimal("50.00"))
+                .spendPeriod("2026-09")
+                .build());
+
+        // New-month spend flushed before the reset job reaches the profile rolls it over
+        spendLedger.record(cardId, "2026-10", 1_000);
+        spendLedger.flush();
+        // Late spend for the month the profile has left does not count
+        spendLedger.record(cardId, "2026-09", 500);
+        spendLedger.flush();
+        int reset = subscriptionProfileRepository.startSpendPeriod(List.of(profile.getId()), "2026-10",
+                LocalDateTime.now());
+
+        SubscriptionProfile after = subscriptionProfileRepository.findById(profile.getId()).orElseThrow();
+        assertThat(reset).isZero();
+        assertThat(after.getSpendPeriod()).isEqualTo("2026-10");
+        assertThat(after.getCurrentMonthSpent()).isEqualByComparingTo("10.00");
+        assertThat(spendLedger.getStats().getFlushFailures()).isZero();
+    }
+}
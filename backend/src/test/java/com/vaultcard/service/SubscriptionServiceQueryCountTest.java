@@ -0,0 +1,108 @@
+package com.vaultcard.service;
+
+import com.vaultcard.dto.SubscriptionListResponse;
+import com.vaultcard.entity.IssuingCard;
+import com.vaultcard.entity.SubscriptionProfile;
+import com.vaultcard.repository.IssuingCardRepository;
+import com.vaultcard.repository.SubscriptionProfileRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * getUserSubscriptions must issue the same number of statements however many profiles the
+ * user has (one for the profiles, one for all linked cards) - no per-profile card lookups.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+@Import(SubscriptionService.class)
+class SubscriptionServiceQueryCountTest {
+
+    private static final String USER_ID = "user-query-count-test";
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private SubscriptionProfileRepository subscriptionProfileRepository;
+
+    @Autowired
+    private IssuingCardRepository issuingCardRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Not used by getUserSubscriptions
+    @MockBean
+    private IssuingCardService issuingCardService;
+    @MockBean
+    private AuthorizationEngine authorizationEngine;
+    @MockBean
+    private SpendLedger spendLedger;
+    @MockBean
+    private CardCache cardCache;
+
+    @Test
+    void statementCountDoesNotGrowWithProfiles() {
+        createProfiles(1);
+        long withOne = countStatements(1);
+
+        createProfiles(24);
+        long withMany = countStatements(25);
+
+        assertThat(withOne).isEqualTo(2);
+        assertThat(withMany).isEqualTo(withOne);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private long countStatements(int expectedProfiles) {
+        // Start from an empty persistence context so nothing is served from the first-level cache
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        SubscriptionListResponse response = subscriptionService.getUserSubscriptions(USER_ID);
+
+        assertThat(response.getSubscriptions()).hasSize(expectedProfiles);
+        assertThat(response.getSubscriptions()).allSatisfy(s -> assertThat(s.getLinkedCard()).isNotNull());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createProfiles(int count) {
+        for (int i = 0; i < count; i++) {
+            IssuingCard card = issuingCardRepository.save(IssuingCard.builder()
+                    .userId(USER_ID)
+                    .last4(String.format("%04d", i))
+                    .brand("Visa")
+                    .expMonth(12)
+                    .expYear(2030)
+                    .status(IssuingCard.CardStatus.ACTIVE)
+                    .build());
+            subscriptionProfileRepository.save(SubscriptionProfile.builder()
+                    .userId(USER_ID)
+                    .nickname("Subscription " + i)
+                    .linkedCardId(card.getId())
+                    .monthlyLimit(new BigDecimal("50.00"))
+                    .currentMonthSpent(BigDecimal.ZERO)
+                    .build());
+        }
+    }
+}